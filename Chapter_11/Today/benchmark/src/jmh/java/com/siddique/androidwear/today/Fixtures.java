@@ -0,0 +1,33 @@
+package com.siddique.androidwear.today;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 벤치마크에서 사용하는 녹화된 위키백과 응답을 읽어들인다. 네트워크 없이 실행할 수 있도록 리소스로 포함되어 있다.
+ */
+final class Fixtures {
+
+    static final String ON_THIS_DAY_HTML = "fixtures/onthisday_20161019.html";
+
+    static String read(String name) throws IOException {
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Fixture not found: " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private Fixtures() { }
+}
@@ -0,0 +1,141 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GL 엔진이 한 프레임의 텍스트를 {@link GlyphBatch} 정점으로 바꾸는 비용을 캔버스 엔진 경로와 비교한다.
+ *
+ * 글자 아틀라스는 비트맵이 필요하므로 모든 글자에 같은 크기의 사각형을 돌려주는 가짜 글자 공급자를 사용한다. 캔버스 경로는
+ * 텍스트마다 drawText 를 한 번 호출하는 데까지만 측정하며, 실제 캔버스 그리기와 glDrawArrays 비용은 두 경로 모두 포함하지 않는다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GlTextBatchBenchmark {
+
+    /** 2017-03-14 09:26:53 UTC */
+    private static final long START_MS = 1489483613000L;
+    private static final long FRAME_INTERVAL_MS = 500;
+    private static final int FRAMES_PER_CYCLE = 3600;
+
+    private static final float CHAR_WIDTH = 10;
+
+    @Param({"false", "true"})
+    public boolean ambient;
+
+    private WatchFaceModel model;
+    private RecordingWatchFaceRenderer canvasRenderer;
+    private BatchingRenderer glRenderer;
+    private int frameIndex;
+
+    @Setup
+    public void setUp() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        layout.mXOffset = 15;
+        layout.mYOffset = 90;
+        layout.mLineHeight = 25;
+        layout.mColonWidth = 8;
+        layout.mAmString = "AM";
+        layout.mPmString = "PM";
+
+        model = new WatchFaceModel(layout, Locale.US, TimeZone.getTimeZone("UTC"),
+                DateFormat.getDateInstance(DateFormat.SHORT, Locale.US));
+        // 날짜 영역까지 그리도록 한 번 탭한다
+        model.onTap();
+
+        canvasRenderer = new RecordingWatchFaceRenderer(CHAR_WIDTH);
+        canvasRenderer.setRecording(false);
+        glRenderer = new BatchingRenderer(320, 320);
+        frameIndex = 0;
+    }
+
+    /**
+     * 캔버스 엔진 경로. 텍스트마다 그리기 호출 한 번이다.
+     */
+    @Benchmark
+    public WatchFaceModel canvasFrame() {
+        model.drawFrame(canvasRenderer, nextFrameTime(), false, ambient, true);
+        return model;
+    }
+
+    /**
+     * GL 엔진 경로. 글자마다 사각형 하나(정점 여섯 개)를 정점 버퍼에 쌓는다.
+     */
+    @Benchmark
+    public int glFrame() {
+        glRenderer.mBatch.clear();
+        model.drawFrame(glRenderer, nextFrameTime(), false, ambient, true);
+        return glRenderer.mBatch.getQuadCount();
+    }
+
+    private long nextFrameTime() {
+        frameIndex = (frameIndex + 1) % FRAMES_PER_CYCLE;
+        return START_MS + frameIndex * FRAME_INTERVAL_MS;
+    }
+
+    /**
+     * {@link GlWatchFaceRenderer} 처럼 텍스트를 정점 버퍼에 쌓는 렌더러
+     */
+    private static final class BatchingRenderer implements WatchFaceRenderer {
+        final GlyphBatch mBatch = new GlyphBatch(128);
+        final GlyphBatch.GlyphSource mGlyphs = new FakeGlyphSource();
+
+        BatchingRenderer(int width, int height) {
+            mBatch.setViewport(width, height);
+        }
+
+        @Override
+        public void drawBackground() {
+        }
+
+        @Override
+        public float measureText(String text, int style) {
+            return text.length() * CHAR_WIDTH;
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, int style) {
+            mBatch.add(mGlyphs, text, x, y, style, 0xffffffff);
+        }
+    }
+
+    /**
+     * 아틀라스에 이미 모든 글자가 있는 상태처럼 미리 만든 글자를 돌려준다
+     */
+    private static final class FakeGlyphSource implements GlyphBatch.GlyphSource {
+        private final GlyphBatch.Glyph[] mGlyphs = new GlyphBatch.Glyph[128];
+
+        FakeGlyphSource() {
+            for (int i = 0; i < mGlyphs.length; i++) {
+                GlyphBatch.Glyph glyph = new GlyphBatch.Glyph();
+                glyph.left = -1;
+                glyph.top = -20;
+                glyph.width = (int) CHAR_WIDTH + 2;
+                glyph.height = 26;
+                glyph.advance = CHAR_WIDTH;
+                glyph.u0 = (i % 16) / 16f;
+                glyph.v0 = (i / 16) / 16f;
+                glyph.u1 = glyph.u0 + 1 / 16f;
+                glyph.v1 = glyph.v0 + 1 / 16f;
+                mGlyphs[i] = glyph;
+            }
+        }
+
+        @Override
+        public GlyphBatch.Glyph getGlyph(int style, char ch) {
+            return ch < mGlyphs.length ? mGlyphs[ch] : null;
+        }
+    }
+}
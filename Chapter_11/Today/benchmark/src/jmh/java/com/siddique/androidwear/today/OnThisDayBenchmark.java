@@ -0,0 +1,52 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 핸드헬드의 위키백과 응답 파싱과 웨어러블의 오늘의 역사 HTML 생성 비용을 측정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OnThisDayBenchmark {
+
+    /** 목록 항목을 몇 배로 늘려서 HTML 을 만들지 */
+    @Param({"1", "10"})
+    public int itemMultiplier;
+
+    private String html;
+    private OnThisDay onThisDay;
+
+    @Setup
+    public void setUp() throws IOException {
+        html = Fixtures.read(Fixtures.ON_THIS_DAY_HTML);
+
+        OnThisDayParser parsed = OnThisDayParser.parse(html);
+        ArrayList<String> listItems = new ArrayList<String>();
+        for (int i = 0; i < itemMultiplier; i++) {
+            listItems.addAll(parsed.getListItems());
+        }
+        onThisDay = new OnThisDay(parsed.getHeading(), listItems);
+    }
+
+    @Benchmark
+    public OnThisDayParser parseWikipediaResponse() {
+        return OnThisDayParser.parse(html);
+    }
+
+    @Benchmark
+    public String listItemsHtml() {
+        return onThisDay.getListItemsHtml();
+    }
+}
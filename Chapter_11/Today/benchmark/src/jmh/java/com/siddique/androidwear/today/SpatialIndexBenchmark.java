@@ -0,0 +1,107 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 등록할 지오펜스를 고르는 k-최근접 질의와 지오펜스 전환을 해석하는 반경 질의를
+ * {@link SpatialIndex} 와 전체 장소를 훑는 방식으로 각각 측정한다.
+ * 장소는 워싱턴 D.C. 주변 약 50km 범위에 고정된 시드로 흩뿌린다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark {
+
+    /** 모바일 모듈의 Constants.HOME_LATITUDE/LONGITUDE 와 같은 좌표 */
+    private static final double CENTER_LATITUDE = 38.897885;
+    private static final double CENTER_LONGITUDE = -77.036541;
+    private static final double SPREAD_DEGREES = 0.5;
+
+    /** GeofenceRegistry 가 등록하는 장소 수 (MAX_GEOFENCES - 1) */
+    private static final int NEAREST_COUNT = 99;
+    private static final double RADIUS_METERS = 1000;
+
+    @Param({"100", "1000", "10000"})
+    public int placeCount;
+
+    private List<Place> places;
+    private SpatialIndex index;
+    private double queryLatitude;
+    private double queryLongitude;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        places = new ArrayList<Place>(placeCount);
+        for (int i = 0; i < placeCount; i++) {
+            places.add(new Place(String.valueOf(i), "Place #" + i, i % 2 == 0 ? "Home" : "Work",
+                    CENTER_LATITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+                    CENTER_LONGITUDE + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+                    Place.DEFAULT_RADIUS_METERS));
+        }
+        index = new SpatialIndex(places);
+        queryLatitude = CENTER_LATITUDE + 0.05;
+        queryLongitude = CENTER_LONGITUDE - 0.05;
+    }
+
+    @Benchmark
+    public List<Place> nearestIndexed() {
+        return index.nearest(queryLatitude, queryLongitude, NEAREST_COUNT);
+    }
+
+    @Benchmark
+    public List<Place> nearestLinear() {
+        List<Place> sorted = sortByDistance(places);
+        return new ArrayList<Place>(sorted.subList(0, Math.min(NEAREST_COUNT, sorted.size())));
+    }
+
+    @Benchmark
+    public List<Place> radiusIndexed() {
+        return index.withinRadius(queryLatitude, queryLongitude, RADIUS_METERS);
+    }
+
+    @Benchmark
+    public List<Place> radiusLinear() {
+        List<Place> result = new ArrayList<Place>();
+        for (Place place : places) {
+            if (place.distanceTo(queryLatitude, queryLongitude) <= RADIUS_METERS) {
+                result.add(place);
+            }
+        }
+        // 인덱스와 같은 결과가 되도록 가까운 순서로 정렬한다
+        return sortByDistance(result);
+    }
+
+    @Benchmark
+    public SpatialIndex buildIndex() {
+        return new SpatialIndex(places);
+    }
+
+    private List<Place> sortByDistance(List<Place> source) {
+        final double latitude = queryLatitude;
+        final double longitude = queryLongitude;
+        List<Place> sorted = new ArrayList<Place>(source);
+        Collections.sort(sorted, new Comparator<Place>() {
+            @Override
+            public int compare(Place lhs, Place rhs) {
+                return Double.compare(lhs.distanceTo(latitude, longitude),
+                        rhs.distanceTo(latitude, longitude));
+            }
+        });
+        return sorted;
+    }
+}
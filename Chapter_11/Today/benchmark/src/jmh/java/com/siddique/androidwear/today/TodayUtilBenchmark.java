@@ -0,0 +1,45 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TodayUtil} 의 날짜 계산 비용을 측정한다. 캐시된 값을 읽는 경우와, 캐시 전처럼 매번 달력을 만드는 경우,
+ * 자정이 지나서 하루 치 값을 다시 계산하는 경우를 비교한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TodayUtilBenchmark {
+
+    @Benchmark
+    public int dayOfYear() {
+        return TodayUtil.getDayOfYear();
+    }
+
+    @Benchmark
+    public int daysLeftInYear() {
+        return TodayUtil.getDaysLeftInYear();
+    }
+
+    @Benchmark
+    public int dayOfYearUncached() {
+        return TodayUtil.getDayOfYear(Calendar.getInstance());
+    }
+
+    @Benchmark
+    public int daysLeftInYearUncached() {
+        return TodayUtil.getDaysLeftInYear(Calendar.getInstance());
+    }
+
+    @Benchmark
+    public TodayUtil.DateValues computeDateValues() {
+        return TodayUtil.computeDateValues(System.currentTimeMillis(), TimeZone.getDefault(),
+                null, null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 할일이 많을 때 {@link TodoItems} 의 추가/삭제와 목록 라벨 생성 비용을 측정한다.
+ * SharedPreferences 는 JVM 에서 사용할 수 없으므로, 쓴 Set 을 그대로 보관하는 메모리 저장소를 사용한다.
+ * 추가와 삭제는 매번 처음 목록에서 시작하도록 저장소를 되돌린다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TodoItemsBenchmark {
+
+    private static final String TODO_TYPE = "Home";
+    private static final String[] TODO_TYPES = {"Home", "Work"};
+
+    @Param({"10", "1000", "10000"})
+    public int itemCount;
+
+    private Set<String> initialItems;
+    private MemoryStore store;
+    private TodoItems todoItems;
+    private String lastItemLabel;
+
+    @Setup
+    public void setUp() {
+        initialItems = new HashSet<String>();
+        for (int i = 0; i < itemCount; i++) {
+            initialItems.add("Buy groceries #" + i);
+        }
+        store = new MemoryStore();
+        todoItems = new TodoItems(store);
+        lastItemLabel = TodoItemLabels.label(TODO_TYPE, "Buy groceries #" + (itemCount - 1));
+    }
+
+    @Benchmark
+    public Set<String> addItem() {
+        store.reset(initialItems);
+        todoItems.addItem(TODO_TYPE, "Call plumber");
+        return store.read(TODO_TYPE);
+    }
+
+    @Benchmark
+    public boolean removeItem() {
+        store.reset(initialItems);
+        return todoItems.removeItem(TODO_TYPES, lastItemLabel);
+    }
+
+    @Benchmark
+    public List<String> listLabels() {
+        store.reset(initialItems);
+        return todoItems.readLabels(TODO_TYPES);
+    }
+
+    /**
+     * SharedPreferences 처럼 쓴 Set 을 그대로 보관하고 읽을 때 같은 인스턴스를 돌려준다.
+     */
+    private static final class MemoryStore implements TodoItems.Store {
+        private final Map<String, Set<String>> items = new HashMap<String, Set<String>>();
+
+        void reset(Set<String> homeItems) {
+            items.put(TODO_TYPE, homeItems);
+        }
+
+        @Override
+        public Set<String> read(String todoType) {
+            Set<String> todoItems = items.get(todoType);
+            return todoItems != null ? todoItems : Collections.<String>emptySet();
+        }
+
+        @Override
+        public void write(String todoType, Set<String> todoItems) {
+            items.put(todoType, todoItems);
+        }
+    }
+}
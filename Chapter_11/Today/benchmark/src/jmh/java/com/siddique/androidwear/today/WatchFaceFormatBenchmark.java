@@ -0,0 +1,88 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WatchFaceModel} 이 프레임마다 만드는 시각 문자열과 하루에 한 번 만드는 날짜 문자열의 비용을 나눠서 측정한다.
+ * 그리기 호출은 기록하지 않는다. 탭 상태별, 모드별 프레임 전체의 비용은 {@link WatchFaceFrameBenchmark} 에서 측정한다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WatchFaceFormatBenchmark {
+
+    /** 2017-03-14 09:26:53 UTC */
+    private static final long START_MS = 1489483613000L;
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    private static final int FRAMES_PER_CYCLE = 3600;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private WatchFaceModel model;
+    private RecordingWatchFaceRenderer renderer;
+    private int frameIndex;
+
+    @Setup
+    public void setUp() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        layout.mXOffset = 15;
+        layout.mYOffset = 90;
+        layout.mLineHeight = 25;
+        layout.mColonWidth = 8;
+        layout.mAmString = "AM";
+        layout.mPmString = "PM";
+
+        model = new WatchFaceModel(layout, Locale.US, UTC, newDateFormat());
+        renderer = new RecordingWatchFaceRenderer(10);
+        renderer.setRecording(false);
+        frameIndex = 0;
+    }
+
+    /**
+     * 같은 날 안에서 1초씩 넘어간다. 날짜 값은 캐시되므로 시, 분, 초 문자열만 만든다.
+     */
+    @Benchmark
+    public WatchFaceModel timeStrings() {
+        frameIndex = (frameIndex + 1) % FRAMES_PER_CYCLE;
+        model.drawFrame(renderer, START_MS + frameIndex * 1000L, false, false, true);
+        return model;
+    }
+
+    /**
+     * 매 프레임 날짜가 바뀐다. 요일, 날짜, 올해의 몇 번째 날 문자열을 다시 만든다.
+     */
+    @Benchmark
+    public WatchFaceModel dateStrings() {
+        frameIndex = (frameIndex + 1) % FRAMES_PER_CYCLE;
+        model.drawFrame(renderer, START_MS + frameIndex * DAY_MS, false, false, true);
+        return model;
+    }
+
+    /**
+     * 로케일이나 시간대가 바뀌어서 형식을 다시 만든 직후의 프레임
+     */
+    @Benchmark
+    public WatchFaceModel formatsChanged() {
+        model.setFormats(Locale.US, UTC, newDateFormat());
+        model.drawFrame(renderer, START_MS, false, false, true);
+        return model;
+    }
+
+    /**
+     * android.text.format.DateFormat.getDateFormat() 과 같은 짧은 날짜 형식
+     */
+    private static DateFormat newDateFormat() {
+        return DateFormat.getDateInstance(DateFormat.SHORT, Locale.US);
+    }
+}
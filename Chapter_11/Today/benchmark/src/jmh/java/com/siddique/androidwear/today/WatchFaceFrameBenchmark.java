@@ -0,0 +1,111 @@
+package com.siddique.androidwear.today;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.DateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 워치페이스 한 프레임의 전체 비용(시각과 날짜 문자열 생성, 탭 상태 별 날짜 영역, 카드 표시 여부에 따른 배치)을
+ * {@link WatchFaceModel} 과 {@link RecordingWatchFaceRenderer} 로 측정한다. 실제 그리기 비용은 포함하지 않는다.
+ * 시각은 고정된 시작 시각에서 0.5초씩 증가시켜서 콜론 점멸과 초 표시가 매번 바뀌도록 하고, 자정을 넘지 않도록
+ * 30분마다 시작 시각으로 되돌린다.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WatchFaceFrameBenchmark {
+
+    /** 2017-03-14 09:26:53 UTC */
+    private static final long START_MS = 1489483613000L;
+    private static final long FRAME_INTERVAL_MS = 500;
+    private static final int FRAMES_PER_CYCLE = 3600;
+
+    /** interactive, ambient, mute */
+    @Param({"interactive", "ambient", "mute"})
+    public String mode;
+
+    /** 날짜 영역 표시 상태 */
+    @Param({"0", "1", "2"})
+    public int tapState;
+
+    @Param({"true", "false"})
+    public boolean peekCardEmpty;
+
+    private WatchFaceModel model;
+    private RecordingWatchFaceRenderer renderer;
+    private RecordingWatchFaceRenderer recorder;
+    private boolean ambient;
+    private int frameIndex;
+
+    @Setup
+    public void setUp() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        layout.mXOffset = 15;
+        layout.mYOffset = 90;
+        layout.mLineHeight = 25;
+        layout.mColonWidth = 8;
+        layout.mAmString = "AM";
+        layout.mPmString = "PM";
+
+        TimeZone timeZone = TimeZone.getTimeZone("UTC");
+        model = new WatchFaceModel(layout, Locale.US, timeZone,
+                DateFormat.getDateInstance(DateFormat.SHORT, Locale.US));
+        model.setMute("mute".equals(mode));
+        for (int i = 0; i < tapState; i++) {
+            model.onTap();
+        }
+        ambient = "ambient".equals(mode);
+
+        renderer = new RecordingWatchFaceRenderer(10);
+        renderer.setRecording(false);
+        recorder = new RecordingWatchFaceRenderer(10);
+        frameIndex = 0;
+    }
+
+    /**
+     * 기록하지 않고 배치만 한다. 기기의 렌더러에 넘기기 전까지의 프레임 당 비용이다.
+     */
+    @Benchmark
+    public WatchFaceModel frame() {
+        long now = nextFrameTime();
+        model.drawFrame(renderer, now, false, ambient, peekCardEmpty);
+        return model;
+    }
+
+    /**
+     * 탭으로 날짜 영역을 바꾼 직후의 프레임
+     */
+    @Benchmark
+    public WatchFaceModel tapThenFrame() {
+        long now = nextFrameTime();
+        model.onTap();
+        model.drawFrame(renderer, now, false, ambient, peekCardEmpty);
+        return model;
+    }
+
+    /**
+     * 그리기 호출을 모두 문자열로 기록한다. 프레임 비교에 드는 비용이다.
+     */
+    @Benchmark
+    public int recordedFrame() {
+        long now = nextFrameTime();
+        recorder.clear();
+        model.drawFrame(recorder, now, false, ambient, peekCardEmpty);
+        return recorder.getOperations().size();
+    }
+
+    private long nextFrameTime() {
+        frameIndex = (frameIndex + 1) % FRAMES_PER_CYCLE;
+        return START_MS + frameIndex * FRAME_INTERVAL_MS;
+    }
+}
@@ -0,0 +1,346 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.Api;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로세스 안의 모든 화면과 서비스가 함께 사용하는 GoogleApiClient 연결 관리자.
+ *
+ * 각 컴포넌트는 GoogleApiClient 를 직접 만들고 연결하는 대신 {@link #acquire()} 로 {@link Lease} 를 받고,
+ * 다 쓰면 {@link Lease#release()} 로 반납한다. 연결은 하나만 만들어서 참조 횟수로 관리하며, 마지막 Lease 가
+ * 반납되어도 {@link #IDLE_TIMEOUT_MS} 동안은 연결을 유지하기 때문에 화면을 오가거나 서비스가 연달아 실행될 때
+ * 연결을 다시 맺는 비용을 줄일 수 있다.
+ *
+ * 연결에 추가할 API 는 앱마다 다르므로 각 앱의 Application 에서 {@link #init} 으로 지정한다. {@link Wearable#API} 는
+ * 항상 추가된다.
+ */
+public final class ApiClientManager {
+
+    private static final String TAG = ApiClientManager.class.getSimpleName();
+
+    /** 마지막 Lease 가 반납된 후 연결을 끊기까지 기다리는 시간 */
+    static final long IDLE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * 연결 결과를 받는 콜백. 항상 메인 스레드에서 호출된다.
+     */
+    public interface Callback {
+        void onConnected(GoogleApiClient client);
+
+        void onConnectionFailed(ConnectionResult result);
+    }
+
+    /**
+     * 연결이 끊겼을 때 메인 스레드에서 호출된다. 연결에 붙여 둔 DataApi 리스너 등은 이때 함께 사라진다.
+     */
+    public interface DisconnectListener {
+        void onDisconnected();
+    }
+
+    /**
+     * {@link Lease#connected()} 가 연결에 실패했을 때 전달하는 예외
+     */
+    public static class ConnectionFailedException extends Exception {
+        private final ConnectionResult mResult;
+
+        public ConnectionFailedException(ConnectionResult result) {
+            super(result.toString());
+            mResult = result;
+        }
+
+        public ConnectionResult getConnectionResult() {
+            return mResult;
+        }
+    }
+
+    private static ApiClientManager sInstance;
+    private static Context sContext;
+    private static List<Api<? extends Api.ApiOptions.NotRequiredOptions>> sApis;
+
+    private final GoogleApiClient mClient;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /** 연결을 기다리는 콜백과 콜백을 등록한 Lease */
+    private final List<Lease> mPendingLeases = new ArrayList<Lease>();
+    private final List<Callback> mPendingCallbacks = new ArrayList<Callback>();
+
+    private final List<DisconnectListener> mDisconnectListeners = new ArrayList<DisconnectListener>();
+
+    private int mReferenceCount;
+
+    private final Runnable mIdleDisconnect = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (ApiClientManager.this) {
+                if (mReferenceCount == 0 && (mClient.isConnected() || mClient.isConnecting())) {
+                    Log.d(TAG, "Disconnecting idle GoogleApiClient");
+                    mClient.disconnect();
+                } else {
+                    return;
+                }
+            }
+            dispatchDisconnected();
+        }
+    };
+
+    /**
+     * 연결에 추가할 API 를 지정한다. 다른 컴포넌트보다 먼저 실행되도록 Application.onCreate() 에서 호출한다.
+     *
+     * @param apis {@link Wearable#API} 외에 추가할 API
+     */
+    @SafeVarargs
+    public static synchronized void init(Context context,
+                                         Api<? extends Api.ApiOptions.NotRequiredOptions>... apis) {
+        if (sInstance != null) {
+            throw new IllegalStateException("ApiClientManager is already in use");
+        }
+        sContext = context.getApplicationContext();
+        sApis = new ArrayList<Api<? extends Api.ApiOptions.NotRequiredOptions>>();
+        sApis.add(Wearable.API);
+        for (Api<? extends Api.ApiOptions.NotRequiredOptions> api : apis) {
+            sApis.add(api);
+        }
+    }
+
+    /**
+     * @return 프로세스에 하나뿐인 연결 관리자. {@link #init} 을 먼저 호출해야 한다.
+     */
+    public static synchronized ApiClientManager getInstance(Context context) {
+        if (sInstance == null) {
+            if (sApis == null) {
+                throw new IllegalStateException("ApiClientManager.init() must be called first");
+            }
+            sInstance = new ApiClientManager(sContext, sApis);
+        }
+        return sInstance;
+    }
+
+    private ApiClientManager(Context context, List<Api<? extends Api.ApiOptions.NotRequiredOptions>> apis) {
+        GoogleApiClient.Builder builder = new GoogleApiClient.Builder(context);
+        for (Api<? extends Api.ApiOptions.NotRequiredOptions> api : apis) {
+            builder.addApi(api);
+        }
+        mClient = builder
+                .addConnectionCallbacks(new GoogleApiClient.ConnectionCallbacks() {
+                    @Override
+                    public void onConnected(Bundle connectionHint) {
+                        Log.d(TAG, "onConnected: " + connectionHint);
+                        dispatchPending(null);
+                    }
+
+                    @Override
+                    public void onConnectionSuspended(int cause) {
+                        // GoogleApiClient 가 자동으로 다시 연결하므로 대기 중인 콜백은 그대로 둔다
+                        Log.d(TAG, "onConnectionSuspended: " + cause);
+                        dispatchDisconnected();
+                    }
+                })
+                .addOnConnectionFailedListener(new GoogleApiClient.OnConnectionFailedListener() {
+                    @Override
+                    public void onConnectionFailed(ConnectionResult result) {
+                        Log.w(TAG, "onConnectionFailed: " + result);
+                        dispatchPending(result);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 연결을 사용하겠다고 알리고, 연결되어 있지 않다면 연결을 시작한다. 어느 스레드에서나 호출할 수 있다.
+     */
+    public synchronized Lease acquire() {
+        mReferenceCount++;
+        mMainHandler.removeCallbacks(mIdleDisconnect);
+        if (!mClient.isConnected() && !mClient.isConnecting()) {
+            mClient.connect();
+        }
+        return new Lease();
+    }
+
+    private synchronized void release(Lease lease) {
+        for (int i = mPendingLeases.size() - 1; i >= 0; i--) {
+            if (mPendingLeases.get(i) == lease) {
+                mPendingLeases.remove(i);
+                mPendingCallbacks.remove(i);
+            }
+        }
+        mReferenceCount--;
+        if (mReferenceCount == 0) {
+            mMainHandler.postDelayed(mIdleDisconnect, IDLE_TIMEOUT_MS);
+        }
+    }
+
+    private synchronized void whenConnected(final Lease lease, final Callback callback) {
+        if (mClient.isConnected()) {
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    // 메시지가 처리되기 전에 반납되었을 수 있다
+                    if (!lease.isReleased()) {
+                        callback.onConnected(mClient);
+                    }
+                }
+            });
+            return;
+        }
+        mPendingLeases.add(lease);
+        mPendingCallbacks.add(callback);
+        if (!mClient.isConnecting()) {
+            // 이전 연결이 실패했다면 다시 시도한다
+            mClient.connect();
+        }
+    }
+
+    /**
+     * 연결이 끊길 때마다 호출할 리스너를 등록한다. 같은 리스너를 두 번 등록하지 않는다.
+     */
+    public synchronized void addDisconnectListener(DisconnectListener listener) {
+        if (!mDisconnectListeners.contains(listener)) {
+            mDisconnectListeners.add(listener);
+        }
+    }
+
+    public synchronized void removeDisconnectListener(DisconnectListener listener) {
+        mDisconnectListeners.remove(listener);
+    }
+
+    private void dispatchDisconnected() {
+        List<DisconnectListener> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<DisconnectListener>(mDisconnectListeners);
+        }
+        for (DisconnectListener listener : listeners) {
+            listener.onDisconnected();
+        }
+    }
+
+    private void dispatchPending(ConnectionResult failure) {
+        List<Lease> leases;
+        List<Callback> callbacks;
+        synchronized (this) {
+            leases = new ArrayList<Lease>(mPendingLeases);
+            callbacks = new ArrayList<Callback>(mPendingCallbacks);
+            mPendingLeases.clear();
+            mPendingCallbacks.clear();
+        }
+        for (int i = 0; i < callbacks.size(); i++) {
+            // 앞의 콜백이나 다른 스레드가 목록을 복사한 후에 반납했을 수 있다
+            if (leases.get(i).isReleased()) {
+                continue;
+            }
+            Callback callback = callbacks.get(i);
+            if (failure == null) {
+                callback.onConnected(mClient);
+            } else {
+                callback.onConnectionFailed(failure);
+            }
+        }
+    }
+
+    /**
+     * 공유 연결의 사용권. 반납한 후에는 콜백이 호출되지 않는다.
+     */
+    public final class Lease {
+
+        private boolean mReleased;
+
+        private Lease() {
+        }
+
+        public GoogleApiClient getClient() {
+            return mClient;
+        }
+
+        /**
+         * 연결되면 메인 스레드에서 콜백을 호출한다. 이미 연결되어 있다면 바로 다음 메시지 루프에서 호출한다.
+         */
+        public void whenConnected(Callback callback) {
+            if (mReleased) {
+                throw new IllegalStateException("Lease already released");
+            }
+            ApiClientManager.this.whenConnected(this, callback);
+        }
+
+        /**
+         * {@link #whenConnected(Callback)} 의 {@link ResultFuture} 버전. 다른 비동기 작업과 이어 붙일 때 사용한다.
+         * 연결에 실패하면 {@link ConnectionFailedException} 으로 실패한다.
+         */
+        public ResultFuture<GoogleApiClient> connected() {
+            final ResultFuture<GoogleApiClient> future = ResultFuture.create();
+            whenConnected(new Callback() {
+                @Override
+                public void onConnected(GoogleApiClient client) {
+                    future.set(client);
+                }
+
+                @Override
+                public void onConnectionFailed(ConnectionResult result) {
+                    future.setException(new ConnectionFailedException(result));
+                }
+            });
+            return future;
+        }
+
+        /**
+         * 연결될 때까지 기다린다. 메인 스레드에서 호출하면 안 된다.
+         */
+        public ConnectionResult blockingConnect(long timeout, TimeUnit unit) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final ConnectionResult[] result = new ConnectionResult[1];
+            whenConnected(new Callback() {
+                @Override
+                public void onConnected(GoogleApiClient client) {
+                    result[0] = ConnectionResult.RESULT_SUCCESS;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onConnectionFailed(ConnectionResult failure) {
+                    result[0] = failure;
+                    latch.countDown();
+                }
+            });
+            try {
+                if (!latch.await(timeout, unit)) {
+                    return new ConnectionResult(ConnectionResult.TIMEOUT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ConnectionResult(ConnectionResult.INTERRUPTED);
+            }
+            return result[0];
+        }
+
+        boolean isReleased() {
+            synchronized (ApiClientManager.this) {
+                return mReleased;
+            }
+        }
+
+        /**
+         * 사용권을 반납한다. 여러 번 호출해도 한 번만 반납된다.
+         */
+        public void release() {
+            synchronized (ApiClientManager.this) {
+                if (mReleased) {
+                    return;
+                }
+                mReleased = true;
+            }
+            ApiClientManager.this.release(this);
+        }
+    }
+}
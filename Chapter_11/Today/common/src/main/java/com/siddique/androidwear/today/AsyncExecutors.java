@@ -0,0 +1,95 @@
+package com.siddique.androidwear.today;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 앱 전체가 함께 사용하는 Executor 모음.
+ *
+ * 화면이나 서비스에서 new Thread() 로 스레드를 직접 만드는 대신 {@link #background()} 에 작업을 넘기고,
+ * 결과는 {@link #mainThread()} 에서 받는다. 백그라운드 풀은 스레드 수와 대기열 크기가 모두 제한되어 있어서
+ * 작업이 몰려도 스레드가 무한정 늘어나지 않으며, 대기열이 가득 차면 작업을 거부한다.
+ * ({@link ResultFuture#submit} 은 거부된 작업을 실패한 결과로 돌려준다.)
+ */
+public final class AsyncExecutors {
+
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+
+    /** 웨어러블 기기는 코어 수가 적으므로 2~4 개 사이로 제한한다 */
+    private static final int POOL_SIZE = Math.max(2, Math.min(CPU_COUNT, 4));
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "today-async-" + mCount.getAndIncrement());
+        }
+    };
+
+    private static ThreadPoolExecutor sBackground;
+    private static Executor sMainThread;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 디스크나 네트워크 작업을 실행하는 백그라운드 Executor. 작업이 없으면 스레드는 {@link #KEEP_ALIVE_SECONDS}
+     * 후에 종료된다.
+     */
+    public static synchronized Executor background() {
+        if (sBackground == null) {
+            sBackground = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                    THREAD_FACTORY);
+            sBackground.allowCoreThreadTimeOut(true);
+        }
+        return sBackground;
+    }
+
+    /**
+     * 메인 스레드의 메시지 큐에 작업을 넣는 Executor. 메인 스레드에서 호출해도 바로 실행하지 않고 다음 메시지 루프에서 실행한다.
+     */
+    public static synchronized Executor mainThread() {
+        if (sMainThread == null) {
+            final Handler handler = new Handler(Looper.getMainLooper());
+            sMainThread = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    handler.post(command);
+                }
+            };
+        }
+        return sMainThread;
+    }
+
+    /**
+     * 호출한 스레드에서 바로 실행하는 Executor. 가벼운 변환처럼 스레드를 옮길 필요가 없는 작업에 사용한다.
+     */
+    public static Executor direct() {
+        return DIRECT;
+    }
+
+    private AsyncExecutors() { }
+}
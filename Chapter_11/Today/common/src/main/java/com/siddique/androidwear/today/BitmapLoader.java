@@ -0,0 +1,242 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.TypedValue;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 리소스 이미지를 표시할 크기에 맞춰 디코딩하고 캐시한다.
+ *
+ * white_house, capitol_hill 처럼 큰 사진을 원본 크기로 디코딩하면 화면에는 작게 보이더라도 수 MB 를 할당하게 되므로,
+ * inSampleSize 로 목표 크기에 가깝게 줄여서 읽고 남은 차이만 한 번 더 축소한다. inSampleSize 로 읽은 중간 비트맵은
+ * inBitmap 으로 계속 재사용하고, 최종 결과는 (리소스, 크기) 별로 최대 힙의 1/8 까지 {@link LruCache} 에 보관한다.
+ * 캐시에서 내보낸 비트맵은 아직 화면에 붙어 있을 수 있으므로 재사용하지 않는다.
+ *
+ * 디코딩은 {@link #load} 를 통해 {@link AsyncExecutors#background()} 에서 한다. 이미 백그라운드 스레드라면
+ * {@link #get} 으로 바로 디코딩할 수 있다.
+ */
+public final class BitmapLoader {
+
+    private static final String TAG = BitmapLoader.class.getName();
+
+    private static BitmapLoader sInstance;
+
+    private final Resources mResources;
+    private final LruCache<Key, Bitmap> mCache;
+
+    /** inSampleSize 로 디코딩한 중간 결과를 받는 비트맵. mDecodeLock 으로 보호한다. */
+    private Bitmap mScratch;
+    private final Object mDecodeLock = new Object();
+
+    /**
+     * 캐시 키. 같은 리소스라도 크기가 다르면 따로 보관한다.
+     */
+    private static final class Key {
+        final int resId;
+        final int width;
+        final int height;
+
+        Key(int resId, int width, int height) {
+            this.resId = resId;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return resId == other.resId && width == other.width && height == other.height;
+        }
+
+        @Override
+        public int hashCode() {
+            return (resId * 31 + width) * 31 + height;
+        }
+    }
+
+    public static synchronized BitmapLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new BitmapLoader(context.getApplicationContext().getResources());
+        }
+        return sInstance;
+    }
+
+    private BitmapLoader(Resources resources) {
+        mResources = resources;
+        int maxCacheBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        mCache = new LruCache<Key, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * @return 캐시에 있는 비트맵. 아직 디코딩하지 않았다면 null
+     */
+    public Bitmap getCached(int resId, int width, int height) {
+        return mCache.get(new Key(resId, width, height));
+    }
+
+    /**
+     * 비트맵을 백그라운드에서 디코딩한다. 캐시에 있다면 바로 완료된 결과를 돌려준다.
+     *
+     * @param width 표시할 너비 (픽셀). 결과는 너비와 높이를 모두 덮는 가장 작은 크기가 된다.
+     * @param height 표시할 높이 (픽셀)
+     * @return 디코딩한 비트맵. 디코딩할 수 없으면 null. 크기가 0 이하라면 IllegalArgumentException 으로 실패한다.
+     */
+    public ResultFuture<Bitmap> load(final int resId, final int width, final int height) {
+        Bitmap cached = getCached(resId, width, height);
+        if (cached != null) {
+            return ResultFuture.immediate(cached);
+        }
+        return ResultFuture.submit(AsyncExecutors.background(), new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return get(resId, width, height);
+            }
+        });
+    }
+
+    /**
+     * 캐시에 없다면 호출한 스레드에서 디코딩한다. 메인 스레드에서 호출하지 않아야 한다.
+     *
+     * @return 디코딩한 비트맵. 디코딩할 수 없으면 null
+     * @throws IllegalArgumentException 크기가 0 이하인 경우. 뷰의 크기가 정해지기 전에 요청한 경우가 대부분이다.
+     */
+    public Bitmap get(int resId, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid target size " + width + "x" + height);
+        }
+        Key key = new Key(resId, width, height);
+        Bitmap bitmap = mCache.get(key);
+        if (bitmap == null) {
+            bitmap = decode(resId, width, height);
+            if (bitmap != null) {
+                mCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * 캐시와 재사용하던 비트맵을 모두 놓아준다. 화면에 붙어 있는 비트맵은 그대로 유효하다.
+     */
+    public void clear() {
+        mCache.evictAll();
+        synchronized (mDecodeLock) {
+            if (mScratch != null) {
+                mScratch.recycle();
+                mScratch = null;
+            }
+        }
+    }
+
+    private Bitmap decode(int resId, int width, int height) {
+        // 밀도에 따른 확대는 직접 하므로 리소스 밀도와 관계없이 원본 픽셀 크기로 읽는다
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(mResources, resId, options);
+        int sourceWidth = options.outWidth;
+        int sourceHeight = options.outHeight;
+        if (sourceWidth <= 0 || sourceHeight <= 0) {
+            Log.w(TAG, "Unable to decode resource " + resId);
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(sourceWidth, sourceHeight, width, height);
+        options.inMutable = true;
+
+        Bitmap result;
+        synchronized (mDecodeLock) {
+            // 디코더가 만드는 크기는 올림일 수도 내림일 수도 있으므로 큰 쪽으로 준비한다
+            int sampledWidth = (sourceWidth + options.inSampleSize - 1) / options.inSampleSize;
+            int sampledHeight = (sourceHeight + options.inSampleSize - 1) / options.inSampleSize;
+            if (mScratch == null
+                    || mScratch.getAllocationByteCount() < sampledWidth * sampledHeight * 4) {
+                if (mScratch != null) {
+                    mScratch.recycle();
+                }
+                mScratch = null;
+            }
+            options.inBitmap = mScratch;
+
+            Bitmap decoded;
+            try {
+                decoded = BitmapFactory.decodeResource(mResources, resId, options);
+            } catch (IllegalArgumentException e) {
+                // 재사용할 수 없는 비트맵이다. 새로 할당한다.
+                options.inBitmap = null;
+                decoded = BitmapFactory.decodeResource(mResources, resId, options);
+            }
+            if (decoded == null) {
+                Log.w(TAG, "Unable to decode resource " + resId);
+                return null;
+            }
+            mScratch = decoded;
+
+            // inSampleSize 는 2의 거듭제곱 단위로만 줄이므로 남은 차이는 한 번 더 축소한다.
+            // 중간 비트맵은 다음 디코딩에 재사용하므로 결과는 항상 복사본이다.
+            float scale = Math.min(1f, Math.max((float) width / decoded.getWidth(),
+                    (float) height / decoded.getHeight()));
+            int resultWidth = Math.max(1, Math.round(decoded.getWidth() * scale));
+            int resultHeight = Math.max(1, Math.round(decoded.getHeight() * scale));
+            if (resultWidth == decoded.getWidth() && resultHeight == decoded.getHeight()) {
+                result = decoded.copy(decoded.getConfig(), false);
+            } else {
+                result = Bitmap.createScaledBitmap(decoded, resultWidth, resultHeight, true);
+            }
+        }
+
+        logMemorySaved(resId, sourceWidth, sourceHeight, result);
+        return result;
+    }
+
+    /**
+     * 리소스를 Drawable 로 그대로 읽었을 때(밀도에 맞춰 확대한 원본 크기)와 비교해서 줄인 메모리를 남긴다.
+     */
+    private void logMemorySaved(int resId, int sourceWidth, int sourceHeight, Bitmap result) {
+        TypedValue value = new TypedValue();
+        mResources.getValue(resId, value, true);
+        int density = value.density == TypedValue.DENSITY_DEFAULT
+                ? DisplayMetrics.DENSITY_DEFAULT : value.density;
+        float densityScale = density == TypedValue.DENSITY_NONE
+                ? 1f : (float) mResources.getDisplayMetrics().densityDpi / density;
+        int fullWidth = Math.round(sourceWidth * densityScale);
+        int fullHeight = Math.round(sourceHeight * densityScale);
+        long fullBytes = (long) fullWidth * fullHeight * 4;
+        long bytes = result.getByteCount();
+        Log.i(TAG, mResources.getResourceEntryName(resId) + ": " + result.getWidth() + "x"
+                + result.getHeight() + " (" + bytes / 1024 + " KB) instead of " + fullWidth + "x"
+                + fullHeight + " (" + fullBytes / 1024 + " KB), saved "
+                + (fullBytes - bytes) / 1024 + " KB");
+    }
+
+    /**
+     * @param width 목표 너비. 0 이하라면 inSampleSize 가 넘칠 때까지 커지므로 1 이상이어야 한다.
+     * @return 디코딩한 크기가 너비와 높이 모두 목표보다 작아지지 않는 최대 inSampleSize
+     */
+    static int calculateInSampleSize(int sourceWidth, int sourceHeight, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid target size " + width + "x" + height);
+        }
+        int inSampleSize = 1;
+        while (sourceWidth / (inSampleSize * 2) >= width && sourceHeight / (inSampleSize * 2) >= height) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
@@ -0,0 +1,49 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.api.Result;
+import com.google.android.gms.common.api.ResultCallback;
+import com.google.android.gms.common.api.Status;
+
+/**
+ * Google Play 서비스의 {@link PendingResult} 를 {@link ResultFuture} 로 바꾼다.
+ *
+ * await() 로 결과를 기다리지 않고 setResultCallback() 으로 결과를 받기 때문에 호출한 스레드를 막지 않는다.
+ * 상태가 성공이 아닌 결과는 {@link StatusException} 으로 실패한다.
+ */
+public final class PendingResults {
+
+    /**
+     * 성공하지 못한 {@link Status} 를 담은 예외
+     */
+    public static class StatusException extends Exception {
+        private final Status mStatus;
+
+        public StatusException(Status status) {
+            super(status.toString());
+            mStatus = status;
+        }
+
+        public Status getStatus() {
+            return mStatus;
+        }
+    }
+
+    public static <R extends Result> ResultFuture<R> toFuture(PendingResult<R> pendingResult) {
+        final ResultFuture<R> future = ResultFuture.create();
+        pendingResult.setResultCallback(new ResultCallback<R>() {
+            @Override
+            public void onResult(R result) {
+                Status status = result.getStatus();
+                if (status.isSuccess()) {
+                    future.set(result);
+                } else {
+                    future.setException(new StatusException(status));
+                }
+            }
+        });
+        return future;
+    }
+
+    private PendingResults() { }
+}
@@ -0,0 +1,315 @@
+package com.siddique.androidwear.today;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비동기 작업의 결과. 한 번만 완료(성공 또는 실패)되며, 완료되면 등록된 리스너를 각자 지정한 Executor 에서 호출한다.
+ *
+ * {@link #map} 과 {@link #then} 으로 다음 작업을 이어 붙일 수 있고, 앞 단계가 실패하면 실패가 그대로 다음 단계로
+ * 전달된다. 결과를 기다리며 스레드를 막는 메소드는 일부러 제공하지 않는다.
+ *
+ * 안드로이드 API 를 사용하지 않으므로 {@link Executor} 만 바꿔 끼우면 JVM 에서도 그대로 동작한다.
+ */
+public final class ResultFuture<T> {
+
+    /**
+     * 완료 결과를 받는 리스너
+     */
+    public interface Listener<T> {
+        void onSuccess(T value);
+
+        void onFailure(Throwable error);
+    }
+
+    /**
+     * 결과 값을 다른 값으로 바꾼다. 예외를 던지면 다음 단계가 실패한다.
+     */
+    public interface Function<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    /**
+     * 결과 값으로 다음 비동기 작업을 시작한다. 예외를 던지면 다음 단계가 실패한다.
+     */
+    public interface AsyncFunction<I, O> {
+        ResultFuture<O> apply(I input) throws Exception;
+    }
+
+    /** 내부에서 결과를 전달할 때 사용하는, 호출한 스레드에서 바로 실행하는 Executor */
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final int PENDING = 0;
+    private static final int SUCCEEDED = 1;
+    private static final int FAILED = 2;
+
+    private int mState = PENDING;
+    private T mValue;
+    private Throwable mError;
+
+    /** 완료되기 전에 등록된 리스너. 완료되면 null 이 된다. */
+    private List<Runnable> mListeners = new ArrayList<Runnable>(2);
+
+    public static <T> ResultFuture<T> create() {
+        return new ResultFuture<T>();
+    }
+
+    public static <T> ResultFuture<T> immediate(T value) {
+        ResultFuture<T> future = new ResultFuture<T>();
+        future.set(value);
+        return future;
+    }
+
+    public static <T> ResultFuture<T> failed(Throwable error) {
+        ResultFuture<T> future = new ResultFuture<T>();
+        future.setException(error);
+        return future;
+    }
+
+    /**
+     * 작업을 Executor 에서 실행한다. Executor 가 작업을 거부하면 실패한 결과를 반환한다.
+     */
+    public static <T> ResultFuture<T> submit(Executor executor, final Callable<T> task) {
+        final ResultFuture<T> future = new ResultFuture<T>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.set(task.call());
+                    } catch (Throwable e) {
+                        future.setException(e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.setException(e);
+        }
+        return future;
+    }
+
+    /**
+     * 모든 결과가 성공하면 같은 순서의 목록으로 성공하고, 하나라도 실패하면 처음 실패한 오류로 실패한다.
+     */
+    public static <T> ResultFuture<List<T>> all(final List<ResultFuture<T>> futures) {
+        final ResultFuture<List<T>> combined = new ResultFuture<List<T>>();
+        final int size = futures.size();
+        if (size == 0) {
+            combined.set(new ArrayList<T>(0));
+            return combined;
+        }
+
+        final List<T> values = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(null);
+        }
+        final AtomicInteger remaining = new AtomicInteger(size);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            futures.get(i).addListener(new Listener<T>() {
+                @Override
+                public void onSuccess(T value) {
+                    synchronized (values) {
+                        values.set(index, value);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        synchronized (values) {
+                            combined.set(values);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    combined.setException(error);
+                }
+            }, DIRECT);
+        }
+        return combined;
+    }
+
+    private ResultFuture() {
+    }
+
+    /**
+     * 성공으로 완료한다.
+     *
+     * @return 이미 완료되었다면 false
+     */
+    public boolean set(T value) {
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (mState != PENDING) {
+                return false;
+            }
+            mState = SUCCEEDED;
+            mValue = value;
+            listeners = mListeners;
+            mListeners = null;
+        }
+        runAll(listeners);
+        return true;
+    }
+
+    /**
+     * 실패로 완료한다.
+     *
+     * @return 이미 완료되었다면 false
+     */
+    public boolean setException(Throwable error) {
+        if (error == null) {
+            throw new NullPointerException("error");
+        }
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (mState != PENDING) {
+                return false;
+            }
+            mState = FAILED;
+            mError = error;
+            listeners = mListeners;
+            mListeners = null;
+        }
+        runAll(listeners);
+        return true;
+    }
+
+    /**
+     * 아직 완료되지 않았다면 {@link CancellationException} 으로 실패시킨다. 이어 붙인 다음 단계도 같은 예외로 실패하지만,
+     * 앞 단계에서 이미 시작된 작업을 멈추지는 않으며 그 결과는 무시된다.
+     *
+     * @return 이미 완료되었다면 false
+     */
+    public boolean cancel() {
+        return setException(new CancellationException());
+    }
+
+    public synchronized boolean isDone() {
+        return mState != PENDING;
+    }
+
+    public synchronized boolean isCancelled() {
+        return mState == FAILED && mError instanceof CancellationException;
+    }
+
+    /**
+     * 완료되면 리스너를 Executor 에서 호출한다. 이미 완료되었다면 바로 Executor 에 넘긴다.
+     */
+    public void addListener(final Listener<? super T> listener, final Executor executor) {
+        Runnable notify = new Runnable() {
+            @Override
+            public void run() {
+                final boolean succeeded;
+                final T value;
+                final Throwable error;
+                synchronized (ResultFuture.this) {
+                    succeeded = mState == SUCCEEDED;
+                    value = mValue;
+                    error = mError;
+                }
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (succeeded) {
+                            listener.onSuccess(value);
+                        } else {
+                            listener.onFailure(error);
+                        }
+                    }
+                });
+            }
+        };
+        synchronized (this) {
+            if (mState == PENDING) {
+                mListeners.add(notify);
+                return;
+            }
+        }
+        notify.run();
+    }
+
+    /**
+     * 성공한 결과 값을 Executor 에서 변환한다.
+     */
+    public <O> ResultFuture<O> map(final Function<? super T, ? extends O> function,
+            Executor executor) {
+        final ResultFuture<O> next = new ResultFuture<O>();
+        addListener(new Listener<T>() {
+            @Override
+            public void onSuccess(T value) {
+                try {
+                    next.set(function.apply(value));
+                } catch (Throwable e) {
+                    next.setException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                next.setException(error);
+            }
+        }, executor);
+        return next;
+    }
+
+    /**
+     * 성공한 결과 값으로 Executor 에서 다음 비동기 작업을 시작하고, 그 작업의 결과를 반환한다.
+     */
+    public <O> ResultFuture<O> then(final AsyncFunction<? super T, O> function,
+            Executor executor) {
+        final ResultFuture<O> next = new ResultFuture<O>();
+        addListener(new Listener<T>() {
+            @Override
+            public void onSuccess(T value) {
+                ResultFuture<O> result;
+                try {
+                    result = function.apply(value);
+                } catch (Throwable e) {
+                    next.setException(e);
+                    return;
+                }
+                if (result == null) {
+                    next.setException(new NullPointerException("AsyncFunction returned null"));
+                } else {
+                    next.setFrom(result);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                next.setException(error);
+            }
+        }, executor);
+        return next;
+    }
+
+    private void setFrom(ResultFuture<T> source) {
+        source.addListener(new Listener<T>() {
+            @Override
+            public void onSuccess(T value) {
+                set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                setException(error);
+            }
+        }, DIRECT);
+    }
+
+    private static void runAll(List<Runnable> listeners) {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.MessageApi;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.NodeApi;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 자주 사용하는 Wearable API 호출을 {@link ResultFuture} 로 감싼 메소드 모음. 모든 메소드는 호출한 스레드를 막지 않는다.
+ */
+public final class WearableCalls {
+
+    /**
+     * @return 현재 연결된 노드 목록
+     */
+    public static ResultFuture<List<Node>> getConnectedNodes(GoogleApiClient client) {
+        return PendingResults.toFuture(Wearable.NodeApi.getConnectedNodes(client))
+                .map(new ResultFuture.Function<NodeApi.GetConnectedNodesResult, List<Node>>() {
+                    @Override
+                    public List<Node> apply(NodeApi.GetConnectedNodesResult result) {
+                        return result.getNodes();
+                    }
+                }, AsyncExecutors.direct());
+    }
+
+    /**
+     * 연결된 모든 노드에 메시지를 보낸다.
+     *
+     * @return 메시지를 받은 노드 수. 한 노드라도 전송에 실패하면 실패한다.
+     */
+    public static ResultFuture<Integer> sendMessageToConnectedNodes(final GoogleApiClient client,
+            final String path, final byte[] data) {
+        return getConnectedNodes(client)
+                .then(new ResultFuture.AsyncFunction<List<Node>, List<MessageApi.SendMessageResult>>() {
+                    @Override
+                    public ResultFuture<List<MessageApi.SendMessageResult>> apply(List<Node> nodes) {
+                        List<ResultFuture<MessageApi.SendMessageResult>> sends =
+                                new ArrayList<ResultFuture<MessageApi.SendMessageResult>>(nodes.size());
+                        for (Node node : nodes) {
+                            sends.add(PendingResults.toFuture(
+                                    Wearable.MessageApi.sendMessage(client, node.getId(), path, data)));
+                        }
+                        return ResultFuture.all(sends);
+                    }
+                }, AsyncExecutors.direct())
+                .map(new ResultFuture.Function<List<MessageApi.SendMessageResult>, Integer>() {
+                    @Override
+                    public Integer apply(List<MessageApi.SendMessageResult> results) {
+                        return results.size();
+                    }
+                }, AsyncExecutors.direct());
+    }
+
+    private WearableCalls() { }
+}
@@ -0,0 +1,48 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link BitmapLoader#calculateInSampleSize} 가 목표 크기를 덮는 가장 큰 inSampleSize 를 고르는지 확인한다.
+ * 디코딩 자체는 BitmapFactory 가 필요하므로 기기에서만 확인할 수 있다.
+ */
+public class BitmapLoaderTest {
+
+    @Test
+    public void smallerSourceIsNotSampled() {
+        assertEquals(1, BitmapLoader.calculateInSampleSize(48, 48, 96, 96));
+        assertEquals(1, BitmapLoader.calculateInSampleSize(96, 96, 96, 96));
+    }
+
+    @Test
+    public void exactPowerOfTwoIsUsed() {
+        assertEquals(4, BitmapLoader.calculateInSampleSize(400, 400, 100, 100));
+    }
+
+    @Test
+    public void resultNeverFallsBelowTarget() {
+        // 400 / 8 = 50 은 48 보다 크지만 400 / 16 = 25 는 작다
+        assertEquals(8, BitmapLoader.calculateInSampleSize(400, 400, 48, 48));
+        // 320 / 2 = 160 은 목표 161 보다 작으므로 줄이지 않는다
+        assertEquals(1, BitmapLoader.calculateInSampleSize(320, 320, 161, 161));
+    }
+
+    @Test
+    public void tighterDimensionLimitsSampling() {
+        // 너비만 보면 8 까지 줄일 수 있지만 높이는 2 까지만 줄일 수 있다
+        assertEquals(2, BitmapLoader.calculateInSampleSize(1600, 400, 200, 200));
+        assertEquals(2, BitmapLoader.calculateInSampleSize(400, 1600, 200, 200));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroTargetIsRejected() {
+        BitmapLoader.calculateInSampleSize(400, 400, 0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeTargetIsRejected() {
+        BitmapLoader.calculateInSampleSize(400, 400, 100, -1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.api.Result;
+import com.google.android.gms.common.api.ResultCallback;
+import com.google.android.gms.common.api.Status;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 가짜 {@link PendingResult} 로 {@link PendingResults#toFuture} 가 결과를 기다리지 않고 콜백으로 전달하는지 확인한다.
+ */
+public class PendingResultsTest {
+
+    private final List<String> mEvents = new ArrayList<String>();
+
+    @Test
+    public void successfulResultCompletesFutureWhenCallbackArrives() {
+        FakePendingResult<FakeResult> pendingResult = new FakePendingResult<FakeResult>();
+        ResultFuture<FakeResult> future = PendingResults.toFuture(pendingResult);
+        RecordingListener<FakeResult> listener = new RecordingListener<FakeResult>("listener", mEvents);
+        future.addListener(listener, AsyncExecutors.direct());
+
+        // await() 를 호출하지 않고 콜백만 등록한다
+        assertFalse(future.isDone());
+        assertEquals(0, pendingResult.awaitCalls);
+
+        FakeResult result = new FakeResult(new Status(CommonStatusCodes.SUCCESS));
+        pendingResult.deliver(result);
+        assertSame(result, listener.value);
+    }
+
+    @Test
+    public void unsuccessfulStatusFailsWithStatusException() {
+        FakePendingResult<FakeResult> pendingResult = new FakePendingResult<FakeResult>();
+        ResultFuture<FakeResult> future = PendingResults.toFuture(pendingResult);
+        RecordingListener<FakeResult> listener = new RecordingListener<FakeResult>("listener", mEvents);
+        future.addListener(listener, AsyncExecutors.direct());
+
+        Status status = new Status(CommonStatusCodes.TIMEOUT);
+        pendingResult.deliver(new FakeResult(status));
+
+        assertTrue(listener.error instanceof PendingResults.StatusException);
+        assertSame(status, ((PendingResults.StatusException) listener.error).getStatus());
+    }
+
+    @Test
+    public void failedCallFailsTheWholeChain() {
+        final FakePendingResult<FakeResult> pendingResult = new FakePendingResult<FakeResult>();
+        QueuedExecutor executor = new QueuedExecutor();
+        ResultFuture<String> chained = ResultFuture.immediate("client")
+                .then(new ResultFuture.AsyncFunction<String, FakeResult>() {
+                    @Override
+                    public ResultFuture<FakeResult> apply(String client) {
+                        return PendingResults.toFuture(pendingResult);
+                    }
+                }, executor)
+                .map(new ResultFuture.Function<FakeResult, String>() {
+                    @Override
+                    public String apply(FakeResult result) {
+                        return "mapped";
+                    }
+                }, executor);
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        chained.addListener(listener, executor);
+
+        executor.runAll();
+        pendingResult.deliver(new FakeResult(new Status(CommonStatusCodes.NETWORK_ERROR)));
+        executor.runAll();
+
+        assertTrue(listener.error instanceof PendingResults.StatusException);
+        assertEquals(1, listener.calls);
+    }
+
+    private static final class FakeResult implements Result {
+        private final Status mStatus;
+
+        FakeResult(Status status) {
+            mStatus = status;
+        }
+
+        @Override
+        public Status getStatus() {
+            return mStatus;
+        }
+    }
+
+    /**
+     * 결과를 테스트가 정한 시점에 콜백으로 전달하는 PendingResult. 결과를 기다리는 메서드는 호출 횟수만 센다.
+     */
+    private static final class FakePendingResult<R extends Result> extends PendingResult<R> {
+        private ResultCallback<? super R> mCallback;
+        int awaitCalls;
+
+        void deliver(R result) {
+            mCallback.onResult(result);
+        }
+
+        @Override
+        public R await() {
+            awaitCalls++;
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public R await(long time, TimeUnit unit) {
+            awaitCalls++;
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return false;
+        }
+
+        @Override
+        public void setResultCallback(ResultCallback<? super R> callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public void setResultCallback(ResultCallback<? super R> callback, long time, TimeUnit unit) {
+            mCallback = callback;
+        }
+    }
+}
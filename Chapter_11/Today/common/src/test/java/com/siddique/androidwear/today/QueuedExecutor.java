@@ -0,0 +1,38 @@
+package com.siddique.androidwear.today;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * 작업을 바로 실행하지 않고 쌓아두었다가 {@link #runAll()} 을 호출할 때 넣은 순서대로 실행하는 Executor.
+ * 메인 스레드의 메시지 루프처럼 실행 시점을 테스트에서 정할 수 있다.
+ */
+final class QueuedExecutor implements Executor {
+
+    private final Queue<Runnable> mTasks = new ArrayDeque<Runnable>();
+
+    @Override
+    public void execute(Runnable command) {
+        mTasks.add(command);
+    }
+
+    int size() {
+        return mTasks.size();
+    }
+
+    /**
+     * 쌓인 작업을 모두 실행한다. 실행 중에 추가된 작업도 실행한다.
+     *
+     * @return 실행한 작업 수
+     */
+    int runAll() {
+        int count = 0;
+        Runnable task;
+        while ((task = mTasks.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+package com.siddique.androidwear.today;
+
+import java.util.List;
+
+/**
+ * 받은 결과를 이름과 함께 목록에 기록하는 리스너. 여러 리스너가 호출된 순서를 확인할 때 사용한다.
+ */
+final class RecordingListener<T> implements ResultFuture.Listener<T> {
+
+    private final String mName;
+    private final List<String> mEvents;
+
+    T value;
+    Throwable error;
+    int calls;
+
+    RecordingListener(String name, List<String> events) {
+        mName = name;
+        mEvents = events;
+    }
+
+    @Override
+    public void onSuccess(T value) {
+        this.value = value;
+        calls++;
+        mEvents.add(mName + ":" + value);
+    }
+
+    @Override
+    public void onFailure(Throwable error) {
+        this.error = error;
+        calls++;
+        mEvents.add(mName + ":" + error.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,299 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link ResultFuture} 의 리스너 호출 순서, 이어 붙이기, 실패 전달, 취소를 결정적인 Executor 로 확인한다.
+ */
+public class ResultFutureTest {
+
+    private final List<String> mEvents = new ArrayList<String>();
+    private QueuedExecutor mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = new QueuedExecutor();
+    }
+
+    @Test
+    public void listenersRunInRegistrationOrderOnTheirExecutor() {
+        ResultFuture<String> future = ResultFuture.create();
+        future.addListener(new RecordingListener<String>("first", mEvents), mExecutor);
+        future.addListener(new RecordingListener<String>("second", mEvents), mExecutor);
+
+        assertTrue(future.set("value"));
+        // 완료되어도 Executor 가 실행하기 전까지는 호출되지 않는다
+        assertTrue(mEvents.isEmpty());
+        assertEquals(2, mExecutor.size());
+
+        mExecutor.runAll();
+        assertEquals(Arrays.asList("first:value", "second:value"), mEvents);
+    }
+
+    @Test
+    public void listenerAddedAfterCompletionIsPostedToExecutor() {
+        ResultFuture<String> future = ResultFuture.immediate("value");
+        RecordingListener<String> listener = new RecordingListener<String>("late", mEvents);
+
+        future.addListener(listener, mExecutor);
+        assertEquals(0, listener.calls);
+
+        mExecutor.runAll();
+        assertEquals("value", listener.value);
+        assertEquals(1, listener.calls);
+    }
+
+    @Test
+    public void completesOnlyOnce() {
+        ResultFuture<String> future = ResultFuture.create();
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        future.addListener(listener, AsyncExecutors.direct());
+
+        assertTrue(future.set("first"));
+        assertFalse(future.set("second"));
+        assertFalse(future.setException(new IllegalStateException()));
+        assertEquals(Arrays.asList("listener:first"), mEvents);
+    }
+
+    @Test
+    public void mapTransformsValueOnExecutor() {
+        ResultFuture<Integer> source = ResultFuture.create();
+        ResultFuture<String> mapped = source.map(new ResultFuture.Function<Integer, String>() {
+            @Override
+            public String apply(Integer input) {
+                mEvents.add("map:" + input);
+                return "#" + input;
+            }
+        }, mExecutor);
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        mapped.addListener(listener, AsyncExecutors.direct());
+
+        source.set(7);
+        assertFalse(mapped.isDone());
+
+        mExecutor.runAll();
+        assertEquals(Arrays.asList("map:7", "listener:#7"), mEvents);
+    }
+
+    @Test
+    public void thenWaitsForReturnedFuture() {
+        final ResultFuture<String> inner = ResultFuture.create();
+        ResultFuture<Integer> source = ResultFuture.create();
+        ResultFuture<String> chained = source.then(new ResultFuture.AsyncFunction<Integer, String>() {
+            @Override
+            public ResultFuture<String> apply(Integer input) {
+                mEvents.add("then:" + input);
+                return inner;
+            }
+        }, mExecutor);
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        chained.addListener(listener, AsyncExecutors.direct());
+
+        source.set(1);
+        mExecutor.runAll();
+        assertEquals(Arrays.asList("then:1"), mEvents);
+        assertFalse(chained.isDone());
+
+        inner.set("done");
+        assertEquals(Arrays.asList("then:1", "listener:done"), mEvents);
+    }
+
+    @Test
+    public void failurePropagatesThroughMapAndThenWithoutCallingFunctions() {
+        IllegalStateException error = new IllegalStateException("boom");
+        ResultFuture<String> result = ResultFuture.<Integer>failed(error)
+                .map(new ResultFuture.Function<Integer, Integer>() {
+                    @Override
+                    public Integer apply(Integer input) {
+                        fail("map must not run after a failure");
+                        return input;
+                    }
+                }, mExecutor)
+                .then(new ResultFuture.AsyncFunction<Integer, String>() {
+                    @Override
+                    public ResultFuture<String> apply(Integer input) {
+                        fail("then must not run after a failure");
+                        return null;
+                    }
+                }, mExecutor);
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        result.addListener(listener, mExecutor);
+
+        mExecutor.runAll();
+        assertSame(error, listener.error);
+        assertNull(listener.value);
+    }
+
+    @Test
+    public void throwingFunctionFailsNextStep() {
+        final Exception error = new Exception("parse failed");
+        ResultFuture<String> mapped = ResultFuture.immediate(1).map(
+                new ResultFuture.Function<Integer, String>() {
+                    @Override
+                    public String apply(Integer input) throws Exception {
+                        throw error;
+                    }
+                }, AsyncExecutors.direct());
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        mapped.addListener(listener, AsyncExecutors.direct());
+
+        assertSame(error, listener.error);
+    }
+
+    @Test
+    public void thenReturningNullFails() {
+        ResultFuture<String> chained = ResultFuture.immediate(1).then(
+                new ResultFuture.AsyncFunction<Integer, String>() {
+                    @Override
+                    public ResultFuture<String> apply(Integer input) {
+                        return null;
+                    }
+                }, AsyncExecutors.direct());
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        chained.addListener(listener, AsyncExecutors.direct());
+
+        assertTrue(listener.error instanceof NullPointerException);
+    }
+
+    @Test
+    public void submitRunsTaskOnExecutor() {
+        ResultFuture<String> future = ResultFuture.submit(mExecutor, new Callable<String>() {
+            @Override
+            public String call() {
+                return "computed";
+            }
+        });
+        assertFalse(future.isDone());
+
+        mExecutor.runAll();
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        future.addListener(listener, AsyncExecutors.direct());
+        assertEquals("computed", listener.value);
+    }
+
+    @Test
+    public void submitFailsWhenTaskThrowsOrIsRejected() {
+        final IllegalArgumentException error = new IllegalArgumentException();
+        ResultFuture<String> thrown = ResultFuture.submit(AsyncExecutors.direct(), new Callable<String>() {
+            @Override
+            public String call() {
+                throw error;
+            }
+        });
+        RecordingListener<String> thrownListener = new RecordingListener<String>("thrown", mEvents);
+        thrown.addListener(thrownListener, AsyncExecutors.direct());
+        assertSame(error, thrownListener.error);
+
+        Executor rejecting = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        ResultFuture<String> rejected = ResultFuture.submit(rejecting, new Callable<String>() {
+            @Override
+            public String call() {
+                fail("rejected task must not run");
+                return null;
+            }
+        });
+        RecordingListener<String> rejectedListener = new RecordingListener<String>("rejected", mEvents);
+        rejected.addListener(rejectedListener, AsyncExecutors.direct());
+        assertTrue(rejectedListener.error instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void allKeepsInputOrderRegardlessOfCompletionOrder() {
+        ResultFuture<String> first = ResultFuture.create();
+        ResultFuture<String> second = ResultFuture.create();
+        ResultFuture<List<String>> all = ResultFuture.all(Arrays.asList(first, second));
+        RecordingListener<List<String>> listener = new RecordingListener<List<String>>("all", mEvents);
+        all.addListener(listener, AsyncExecutors.direct());
+
+        second.set("b");
+        assertFalse(all.isDone());
+        first.set("a");
+        assertEquals(Arrays.asList("a", "b"), listener.value);
+    }
+
+    @Test
+    public void allFailsWithFirstFailure() {
+        ResultFuture<String> first = ResultFuture.create();
+        ResultFuture<String> second = ResultFuture.create();
+        ResultFuture<List<String>> all = ResultFuture.all(Arrays.asList(first, second));
+        RecordingListener<List<String>> listener = new RecordingListener<List<String>>("all", mEvents);
+        all.addListener(listener, AsyncExecutors.direct());
+
+        IllegalStateException error = new IllegalStateException();
+        second.setException(error);
+        first.setException(new IllegalArgumentException());
+        assertSame(error, listener.error);
+        assertEquals(1, listener.calls);
+    }
+
+    @Test
+    public void cancelFailsListenersAndDerivedFutures() {
+        ResultFuture<Integer> source = ResultFuture.create();
+        ResultFuture<String> mapped = source.map(new ResultFuture.Function<Integer, String>() {
+            @Override
+            public String apply(Integer input) {
+                fail("map must not run after cancellation");
+                return null;
+            }
+        }, mExecutor);
+        RecordingListener<String> listener = new RecordingListener<String>("listener", mEvents);
+        mapped.addListener(listener, mExecutor);
+
+        assertTrue(source.cancel());
+        assertTrue(source.isCancelled());
+        assertFalse(source.set(1));
+
+        mExecutor.runAll();
+        assertTrue(listener.error instanceof CancellationException);
+        assertTrue(mapped.isCancelled());
+    }
+
+    @Test
+    public void cancelledDerivedFutureIgnoresLateResult() {
+        ResultFuture<Integer> source = ResultFuture.create();
+        ResultFuture<Integer> mapped = source.map(new ResultFuture.Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+                return input + 1;
+            }
+        }, AsyncExecutors.direct());
+        RecordingListener<Integer> listener = new RecordingListener<Integer>("listener", mEvents);
+        mapped.addListener(listener, AsyncExecutors.direct());
+
+        assertTrue(mapped.cancel());
+        // 앞 단계는 취소되지 않고 그대로 완료된다
+        assertTrue(source.set(1));
+        assertFalse(source.isCancelled());
+
+        assertEquals(1, listener.calls);
+        assertTrue(listener.error instanceof CancellationException);
+    }
+
+    @Test
+    public void cancelAfterCompletionHasNoEffect() {
+        ResultFuture<String> future = ResultFuture.immediate("value");
+        assertFalse(future.cancel());
+        assertFalse(future.isCancelled());
+    }
+}
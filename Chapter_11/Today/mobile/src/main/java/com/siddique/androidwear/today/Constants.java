@@ -21,11 +21,25 @@ public class Constants {
 
     public static int API_CLIENT_CONNECTION_TIME_OUT_MS = 15000;
 
+    // 같은 장소의 할 일을 다시 알리기 전까지 기다리는 시간
+    public static final long GEOFENCE_NOTIFICATION_COOL_DOWN_MS = 60 * 60 * 1000;
+
 
     public static final int HOME_TODO_NOTIFICATION_ID = 10;
     public static final int WORK_TODO_NOTIFICATION_ID = 20;
+    public static final int TODO_SUMMARY_NOTIFICATION_ID = 30;
+    // 그 밖의 할 일 유형은 위의 ID 와 겹치지 않도록 이 범위 안에서 ID 를 정한다
+    public static final int OTHER_TODO_NOTIFICATION_ID_BASE = 1000;
+    public static final int OTHER_TODO_NOTIFICATION_ID_COUNT = 1 << 20;
+
+    // 지오펜스 알림을 하나로 묶는 그룹 키
+    public static final String TODO_NOTIFICATION_GROUP = "today_todos";
 
     public static final String HOME_TODO_ITEM = "/today/homeTodo";
     public static final String WORK_TODO_ITEM = "/today/workTodo";
 
+    // 할 일 종류 별로 게시하는 DataItem 경로의 접두어 (예: /today/todos/Home) 와 항목 목록 키
+    public static final String TODO_ITEMS_PATH = "/today/todos";
+    public static final String TODO_ITEMS_KEY = "items";
+
 }
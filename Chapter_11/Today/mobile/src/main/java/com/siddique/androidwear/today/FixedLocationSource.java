@@ -0,0 +1,19 @@
+package com.siddique.androidwear.today;
+
+/**
+ * 이미 알고 있는 위치를 제공한다. 지오펜스 EXIT 이벤트처럼 위치가 함께 전달된 경우, 퓨즈드 로케이션 프로바이더가
+ * 마지막으로 파악한 위치보다 최신이므로 이 위치를 사용한다.
+ */
+public class FixedLocationSource implements LocationSource {
+
+    private final GeoPoint mLocation;
+
+    public FixedLocationSource(GeoPoint location) {
+        mLocation = location;
+    }
+
+    @Override
+    public GeoPoint getLastLocation() {
+        return mLocation;
+    }
+}
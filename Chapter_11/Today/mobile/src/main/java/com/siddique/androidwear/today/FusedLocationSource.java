@@ -0,0 +1,32 @@
+package com.siddique.androidwear.today;
+
+import android.location.Location;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.location.LocationServices;
+
+/**
+ * 퓨즈드 로케이션 프로바이더가 마지막으로 파악한 위치를 제공한다.
+ */
+public class FusedLocationSource implements LocationSource {
+
+    private static final String TAG = FusedLocationSource.class.getName();
+
+    private final GoogleApiClient mGoogleApiClient;
+
+    public FusedLocationSource(GoogleApiClient googleApiClient) {
+        mGoogleApiClient = googleApiClient;
+    }
+
+    @Override
+    public GeoPoint getLastLocation() {
+        try {
+            Location location = LocationServices.FusedLocationApi.getLastLocation(mGoogleApiClient);
+            return location == null ? null : new GeoPoint(location.getLatitude(), location.getLongitude());
+        } catch (SecurityException e) {
+            Log.w(TAG, "Location permission is not granted", e);
+            return null;
+        }
+    }
+}
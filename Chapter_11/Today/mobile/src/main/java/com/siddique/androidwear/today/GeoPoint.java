@@ -0,0 +1,30 @@
+package com.siddique.androidwear.today;
+
+/**
+ * 위도와 경도로 나타낸 위치.
+ *
+ * 안드로이드 API 에 의존하지 않기 때문에 지오펜스 순위를 정하는 로직을 기기 없이 실행할 수 있다.
+ */
+public final class GeoPoint {
+
+    private final double mLatitude;
+    private final double mLongitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        this.mLatitude = latitude;
+        this.mLongitude = longitude;
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    @Override
+    public String toString() {
+        return "GeoPoint{" + mLatitude + ", " + mLongitude + "}";
+    }
+}
@@ -0,0 +1,24 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.location.GeofencingRequest;
+
+import java.util.List;
+
+/**
+ * 로케이션 서비스에 지오펜스를 등록하고 지운다. {@link GeofenceRegistry} 는 이 인터페이스로만 로케이션 서비스를
+ * 호출하므로, 테스트에서는 호출 내역을 기록하는 가짜 구현으로 바꿔서 IPC 없이 등록 로직을 확인할 수 있다.
+ *
+ * 두 메서드 모두 결과를 기다리므로 메인 스레드에서 호출하면 안 된다.
+ */
+public interface GeofenceRegistrar {
+
+    /**
+     * @return 등록에 성공하면 true
+     */
+    boolean addGeofences(GeofencingRequest request);
+
+    /**
+     * @return 삭제에 성공하면 true
+     */
+    boolean removeGeofences(List<String> geofenceIds);
+}
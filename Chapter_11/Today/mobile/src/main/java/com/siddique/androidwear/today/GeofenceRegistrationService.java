@@ -0,0 +1,113 @@
+package com.siddique.androidwear.today;
+
+import android.app.IntentService;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.location.LocationManager;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 백그라운드 스레드에서 {@link GeofenceRegistry} 로 지오펜스를 등록한다.
+ *
+ * 앱이 시작될 때, 장소 목록이 바뀌었을 때는 {@link #start} 로 실행한다. 등록된 상태와 같다면 로케이션 서비스에 연결하지 않는다.
+ * 사용자가 순위 영역을 벗어났을 때는 위치가 바뀌었으므로 {@link #rerank} 로 EXIT 가 일어난 위치와 함께, 재부팅이나 앱 업데이트처럼
+ * 로케이션 서비스가 지오펜스를 잊었을 때는 {@link #reset} 으로 실행한다.
+ *
+ * 위치 기능이 꺼져 있으면 등록이 실패하므로 기록만 정리하고 등록하지 않는다. 위치 기능이 다시 켜지면
+ * {@link GeofenceRestoreReceiver} 가 {@link #start} 로 다시 실행한다.
+ */
+public class GeofenceRegistrationService extends IntentService {
+
+    private static final String TAG = GeofenceRegistrationService.class.getName();
+
+    private static final String ACTION_REGISTER = "com.siddique.androidwear.today.action.REGISTER_GEOFENCES";
+    private static final String ACTION_RERANK = "com.siddique.androidwear.today.action.RERANK_GEOFENCES";
+    private static final String ACTION_RESET = "com.siddique.androidwear.today.action.RESET_GEOFENCES";
+
+    private static final String EXTRA_LATITUDE = "com.siddique.androidwear.today.extra.LATITUDE";
+    private static final String EXTRA_LONGITUDE = "com.siddique.androidwear.today.extra.LONGITUDE";
+
+    public GeofenceRegistrationService() {
+        super(GeofenceRegistrationService.class.getSimpleName());
+    }
+
+    public static void start(Context context) {
+        startAction(context, ACTION_REGISTER);
+    }
+
+    /**
+     * @param location 순위 영역을 벗어난 위치. 알 수 없으면 null 이며, 이 때는 마지막으로 알려진 위치를 사용한다.
+     */
+    public static void rerank(Context context, Location location) {
+        Intent intent = new Intent(context, GeofenceRegistrationService.class).setAction(ACTION_RERANK);
+        if (location != null) {
+            intent.putExtra(EXTRA_LATITUDE, location.getLatitude())
+                    .putExtra(EXTRA_LONGITUDE, location.getLongitude());
+        }
+        context.startService(intent);
+    }
+
+    public static void reset(Context context) {
+        startAction(context, ACTION_RESET);
+    }
+
+    private static void startAction(Context context, String action) {
+        context.startService(new Intent(context, GeofenceRegistrationService.class).setAction(action));
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        String action = intent == null ? ACTION_REGISTER : intent.getAction();
+        GeofenceRegistry registry = new GeofenceRegistry(this, PlaceStore.getInstance(this));
+
+        if (ACTION_RESET.equals(action)) {
+            Log.i(TAG, "Geofences were cleared by the system, registering again");
+            registry.clearRegistered();
+        } else if (!ACTION_RERANK.equals(action) && registry.isUpToDate()) {
+            // 장소와 설정이 같고 위치가 크게 바뀌지 않았다면 등록된 지오펜스를 그대로 사용한다
+            Log.i(TAG, "Geofences are up to date");
+            return;
+        }
+
+        if (!isLocationEnabled()) {
+            // 등록 기록이 최신이 아니므로 위치 기능이 켜지면 다시 등록한다
+            Log.i(TAG, "Location is disabled, waiting for it to be enabled");
+            return;
+        }
+
+        ApiClientManager.Lease lease = ApiClientManager.getInstance(this).acquire();
+        try {
+            ConnectionResult result = lease.blockingConnect(
+                    Constants.API_CLIENT_CONNECTION_TIME_OUT_MS, TimeUnit.MILLISECONDS);
+            if (!result.isSuccess()) {
+                Log.e(TAG, "Unable to connect to GoogleApiClient: " + result);
+                return;
+            }
+
+            GoogleApiClient googleApiClient = lease.getClient();
+            // EXIT 가 일어난 위치는 마지막으로 알려진 위치보다 최신이므로 먼저 사용한다
+            LocationSource locationSource = intent != null && intent.hasExtra(EXTRA_LATITUDE)
+                    ? new FixedLocationSource(new GeoPoint(intent.getDoubleExtra(EXTRA_LATITUDE, 0),
+                            intent.getDoubleExtra(EXTRA_LONGITUDE, 0)))
+                    : new FusedLocationSource(googleApiClient);
+            registry.update(
+                    new PlayServicesGeofenceRegistrar(googleApiClient,
+                            GeofenceTransitionsIntentService.getPendingIntent(this)),
+                    locationSource);
+        } finally {
+            lease.release();
+        }
+    }
+
+    private boolean isLocationEnabled() {
+        LocationManager locationManager = (LocationManager) getSystemService(LOCATION_SERVICE);
+        return locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)
+                || locationManager.isProviderEnabled(LocationManager.GPS_PROVIDER);
+    }
+}
@@ -0,0 +1,276 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link PlaceStore} 에 저장된 장소 중에서 현재 위치와 가까운 장소만 지오펜스로 등록한다.
+ *
+ * 로케이션 서비스는 앱 하나에 최대 {@link #MAX_GEOFENCES} 개의 지오펜스만 허용하므로, 가장 가까운
+ * {@code MAX_GEOFENCES - 1} 개의 장소를 등록하고 남은 한 자리는 순위를 다시 매길 때를 알려주는 지오펜스에 사용한다.
+ * 이 지오펜스는 현재 위치를 중심으로 등록되며, 사용자가 이 영역을 벗어나면 ({@link #RERANK_GEOFENCE_ID} 의 EXIT)
+ * 위치가 크게 바뀐 것으로 보고 {@link #update} 를 다시 호출한다. 위치를 주기적으로 요청하지 않아도 된다.
+ *
+ * 마지막으로 등록한 장소 ID 와 핑거프린트(장소 목록 버전과 지오펜스 설정)를 저장해두고, 등록할 지오펜스가 바뀌지
+ * 않았다면 아무것도 하지 않는다. 로케이션 서비스가 지오펜스를 잊어버리는 재부팅 등의 상황에선
+ * {@link #clearRegistered()} 로 기록을 지워서 다시 등록하게 한다.
+ *
+ * 위치를 모르는 상태(부팅 직후 등)에선 저장된 순서대로 장소를 등록하되, 순위를 매기지 못했다고 기록해서
+ * {@link #isUpToDate()} 가 false 를 반환하게 한다. 다음 등록 요청에서 위치를 알게 되면 순위를 다시 매긴다.
+ */
+public class GeofenceRegistry {
+
+    private static final String TAG = GeofenceRegistry.class.getName();
+
+    /** 앱 하나가 등록할 수 있는 최대 지오펜스 수 */
+    public static final int MAX_GEOFENCES = 100;
+
+    /** 순위를 다시 매길 때를 알려주는 지오펜스의 ID. 장소 ID 는 UUID 이므로 겹치지 않는다. */
+    public static final String RERANK_GEOFENCE_ID = "today.rerank";
+
+    /** 순위를 다시 매기는 영역의 최소 반경. 단위는 미터 */
+    static final float MIN_RERANK_RADIUS_METERS = 500;
+
+    private static final String PREF_NAME = "GeofenceRegistry";
+    private static final String KEY_REGISTERED_IDS = "registeredIds";
+    private static final String KEY_FINGERPRINT = "fingerprint";
+    private static final String KEY_RANKED = "ranked";
+
+    /** 지오펜스를 만드는 방식이 바뀌면 올려서 앱 업데이트 후 모두 다시 등록하게 한다 */
+    private static final int FENCE_FORMAT_VERSION = 2;
+    private static final String KEY_RERANK_LATITUDE = "rerankLatitude";
+    private static final String KEY_RERANK_LONGITUDE = "rerankLongitude";
+    private static final String KEY_RERANK_RADIUS = "rerankRadius";
+
+    private final PlaceStore mPlaceStore;
+    private final SharedPreferences mPreferences;
+
+    /**
+     * 등록할 지오펜스와 지워야 할 지오펜스
+     */
+    static final class Plan {
+        /** 순위 안에 든 장소. 가까운 순서로 정렬되어 있다. */
+        final List<Place> selected;
+        /** 이번에 새로 등록해야 하는 장소 */
+        final List<Place> added;
+        /** 지워야 하는 지오펜스 ID. 순위에서 빠진 장소와 더 이상 필요 없는 순위 영역이 포함된다. */
+        final List<String> removedIds;
+        /** 새로 등록해야 하는 순위 영역. 이전 영역을 그대로 쓰거나 필요 없다면 null */
+        final SimpleGeofence rerankFence;
+        final double rerankLatitude;
+        final double rerankLongitude;
+        final float rerankRadius;
+        /** 계획을 세울 때의 핑거프린트 */
+        final String fingerprint;
+        /** 위치를 기준으로 순위를 매겼거나 모든 장소가 순위 안에 들었으면 true */
+        final boolean ranked;
+
+        Plan(List<Place> selected, List<Place> added, List<String> removedIds,
+             GeoPoint rerankCenter, float rerankRadius, String fingerprint, boolean ranked) {
+            this.fingerprint = fingerprint;
+            this.ranked = ranked;
+            this.selected = selected;
+            this.added = added;
+            this.removedIds = removedIds;
+            this.rerankLatitude = rerankCenter == null ? 0 : rerankCenter.getLatitude();
+            this.rerankLongitude = rerankCenter == null ? 0 : rerankCenter.getLongitude();
+            this.rerankRadius = rerankRadius;
+            // 순위 영역은 벗어날 때만 알면 된다
+            this.rerankFence = rerankCenter == null ? null : new SimpleGeofence(RERANK_GEOFENCE_ID,
+                    rerankLatitude, rerankLongitude, rerankRadius,
+                    Geofence.GEOFENCE_TRANSITION_EXIT, 0);
+        }
+
+        /** 이미 등록된 상태와 같아서 할 일이 없으면 true */
+        boolean isUnchanged() {
+            return added.isEmpty() && removedIds.isEmpty() && rerankFence == null;
+        }
+    }
+
+    public GeofenceRegistry(Context context, PlaceStore placeStore) {
+        this(context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE), placeStore);
+    }
+
+    GeofenceRegistry(SharedPreferences preferences, PlaceStore placeStore) {
+        mPlaceStore = placeStore;
+        mPreferences = preferences;
+    }
+
+    /**
+     * 장소 목록과 지오펜스 설정이 마지막으로 등록한 때와 같은지 확인한다. 위치는 확인하지 않는다.
+     * 순위 영역을 벗어나면 로케이션 서비스가 알려주므로, true 라면 로케이션 서비스에 연결할 필요가 없다.
+     * 위치를 몰라서 순위를 매기지 못한 채 등록했다면 false 를 반환한다.
+     */
+    public boolean isUpToDate() {
+        return mPreferences.getBoolean(KEY_RANKED, false)
+                && fingerprint(mPlaceStore.getVersion()).equals(
+                        mPreferences.getString(KEY_FINGERPRINT, null));
+    }
+
+    /**
+     * 현재 위치를 기준으로 지오펜스를 다시 등록한다. 등록된 상태와 같다면 로케이션 서비스를 호출하지 않는다.
+     * 결과를 기다리므로 메인 스레드에서 호출하면 안 된다.
+     *
+     * @return 등록에 성공했거나 바뀐 것이 없으면 true
+     */
+    public boolean update(GeofenceRegistrar registrar, LocationSource locationSource) {
+        Plan plan = plan(locationSource.getLastLocation());
+        if (plan.isUnchanged()) {
+            Log.i(TAG, "Geofences are up to date (" + plan.selected.size() + " places)");
+            // 순위를 매겼는지 여부는 바뀌었을 수 있다
+            saveRegistered(plan);
+            return true;
+        }
+        if (!plan.ranked) {
+            Log.w(TAG, "Location is unknown, registering places without ranking");
+        }
+
+        if (!plan.removedIds.isEmpty()) {
+            Log.i(TAG, "Removing " + plan.removedIds.size() + " geofences");
+            if (!registrar.removeGeofences(plan.removedIds)) {
+                return false;
+            }
+        }
+
+        List<Geofence> geofences = new ArrayList<Geofence>(plan.added.size() + 1);
+        for (Place place : plan.added) {
+            // 할 일 알림은 잠시 머무를 때(DWELL) 보내고, ENTER/EXIT 는 방문 상태를 추적하는 데 사용한다
+            geofences.add(new SimpleGeofence(place.getId(), place.getLatitude(),
+                    place.getLongitude(), place.getRadius(),
+                    Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT
+                            | Geofence.GEOFENCE_TRANSITION_DWELL,
+                    place.getLoiteringDelayMs()).toGeofence());
+        }
+        if (plan.rerankFence != null) {
+            // 같은 ID 로 등록하면 이전 영역을 대체한다
+            geofences.add(plan.rerankFence.toGeofence());
+        }
+
+        if (!geofences.isEmpty()) {
+            Log.i(TAG, "Adding " + geofences.size() + " geofences to API location services");
+            GeofencingRequest request = new GeofencingRequest.Builder()
+                    .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_DWELL)
+                    .addGeofences(geofences)
+                    .build();
+            if (!registrar.addGeofences(request)) {
+                return false;
+            }
+        }
+
+        saveRegistered(plan);
+        return true;
+    }
+
+    /**
+     * 등록 기록을 지운다. 기기가 재부팅되는 등 로케이션 서비스가 지오펜스를 모두 잊었을 때 호출한다.
+     */
+    public void clearRegistered() {
+        mPreferences.edit().clear().apply();
+    }
+
+    /**
+     * 현재 위치와 마지막으로 등록한 상태를 비교해서 등록 계획을 세운다.
+     */
+    Plan plan(GeoPoint location) {
+        List<Place> places = mPlaceStore.getPlaces();
+        SpatialIndex index = mPlaceStore.getIndex();
+        String fingerprint = fingerprint(mPlaceStore.getVersion());
+
+        int limit = MAX_GEOFENCES - 1;
+        List<Place> selected = location == null
+                ? new ArrayList<Place>(places.subList(0, Math.min(limit, places.size())))
+                : index.nearest(location.getLatitude(), location.getLongitude(), limit);
+
+        Set<String> registeredIds = mPreferences.getStringSet(KEY_REGISTERED_IDS, null);
+        boolean placesChanged = registeredIds == null
+                || !fingerprint.equals(mPreferences.getString(KEY_FINGERPRINT, null));
+
+        List<Place> added = new ArrayList<Place>();
+        Set<String> selectedIds = new HashSet<String>();
+        for (Place place : selected) {
+            selectedIds.add(place.getId());
+            if (placesChanged || !registeredIds.contains(place.getId())) {
+                added.add(place);
+            }
+        }
+        List<String> removedIds = new ArrayList<String>();
+        if (registeredIds != null) {
+            for (String id : registeredIds) {
+                if (!selectedIds.contains(id)) {
+                    removedIds.add(id);
+                }
+            }
+        }
+
+        // 모든 장소가 등록되었다면 위치가 바뀌어도 순위는 바뀌지 않으므로 순위 영역이 필요 없다
+        boolean allSelected = selected.size() >= places.size();
+        GeoPoint rerankCenter = null;
+        float rerankRadius = 0;
+        if (!allSelected) {
+            // 아직 이전 영역 안에 있다면 영역을 옮기지 않는다. 위치를 모르면 이전 영역을 그대로 둔다.
+            if (location != null && !isInsideRerankFence(location)) {
+                Place farthest = selected.get(selected.size() - 1);
+                rerankCenter = location;
+                rerankRadius = Math.max(MIN_RERANK_RADIUS_METERS, (float) farthest.distanceTo(
+                        location.getLatitude(), location.getLongitude()) / 2);
+            }
+        } else if (hasRerankFence()) {
+            removedIds.add(RERANK_GEOFENCE_ID);
+        }
+        return new Plan(selected, added, removedIds, rerankCenter, rerankRadius, fingerprint,
+                location != null || allSelected);
+    }
+
+    /**
+     * @return 등록할 지오펜스를 결정하는 값 중 위치를 제외한 값들
+     */
+    private static String fingerprint(int placesVersion) {
+        return placesVersion + "/" + MAX_GEOFENCES + "/" + Place.DEFAULT_LOITERING_DELAY_MS
+                + "/" + FENCE_FORMAT_VERSION;
+    }
+
+    private boolean hasRerankFence() {
+        return mPreferences.contains(KEY_RERANK_RADIUS);
+    }
+
+    private boolean isInsideRerankFence(GeoPoint location) {
+        if (!hasRerankFence()) {
+            return false;
+        }
+        double distance = Place.distanceBetween(
+                Double.longBitsToDouble(mPreferences.getLong(KEY_RERANK_LATITUDE, 0)),
+                Double.longBitsToDouble(mPreferences.getLong(KEY_RERANK_LONGITUDE, 0)),
+                location.getLatitude(), location.getLongitude());
+        return distance < mPreferences.getFloat(KEY_RERANK_RADIUS, 0);
+    }
+
+    private void saveRegistered(Plan plan) {
+        Set<String> ids = new HashSet<String>();
+        for (Place place : plan.selected) {
+            ids.add(place.getId());
+        }
+        SharedPreferences.Editor editor = mPreferences.edit()
+                .putStringSet(KEY_REGISTERED_IDS, ids)
+                .putString(KEY_FINGERPRINT, plan.fingerprint)
+                .putBoolean(KEY_RANKED, plan.ranked);
+        if (plan.rerankFence != null) {
+            editor.putLong(KEY_RERANK_LATITUDE, Double.doubleToLongBits(plan.rerankLatitude))
+                    .putLong(KEY_RERANK_LONGITUDE, Double.doubleToLongBits(plan.rerankLongitude))
+                    .putFloat(KEY_RERANK_RADIUS, plan.rerankRadius);
+        } else if (plan.removedIds.contains(RERANK_GEOFENCE_ID)) {
+            editor.remove(KEY_RERANK_LATITUDE)
+                    .remove(KEY_RERANK_LONGITUDE)
+                    .remove(KEY_RERANK_RADIUS);
+        }
+        editor.apply();
+    }
+}
@@ -0,0 +1,41 @@
+package com.siddique.androidwear.today;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.location.LocationManager;
+import android.net.Uri;
+import android.util.Log;
+
+/**
+ * 재부팅, 앱 업데이트, 구글 플레이 서비스 업데이트 후에는 로케이션 서비스가 등록된 지오펜스를 잊어버리므로
+ * 액티비티를 열지 않아도 다시 등록되도록 {@link GeofenceRegistrationService} 를 실행한다.
+ *
+ * 위치 기능이 꺼져 있는 동안에는 지오펜스를 등록할 수 없으므로, 위치 제공자가 바뀌면 등록이 필요한지 다시 확인한다.
+ * 시스템 방송만 받으므로 다른 앱에는 공개하지 않는다.
+ */
+public class GeofenceRestoreReceiver extends BroadcastReceiver {
+
+    private static final String TAG = GeofenceRestoreReceiver.class.getName();
+
+    private static final String PLAY_SERVICES_PACKAGE = "com.google.android.gms";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action)
+                || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)
+                || (Intent.ACTION_PACKAGE_REPLACED.equals(action) && isPlayServices(intent.getData()))) {
+            Log.i(TAG, "Geofences were cleared by " + action);
+            GeofenceRegistrationService.reset(context);
+        } else if (LocationManager.PROVIDERS_CHANGED_ACTION.equals(action)) {
+            // 등록된 상태와 같다면 로케이션 서비스에 연결하지 않으므로 자주 불려도 괜찮다
+            Log.i(TAG, "Location providers changed");
+            GeofenceRegistrationService.start(context);
+        }
+    }
+
+    private static boolean isPlayServices(Uri data) {
+        return data != null && PLAY_SERVICES_PACKAGE.equals(data.getSchemeSpecificPart());
+    }
+}
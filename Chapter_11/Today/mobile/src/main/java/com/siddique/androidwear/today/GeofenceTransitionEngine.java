@@ -0,0 +1,99 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.android.gms.location.Geofence;
+
+/**
+ * 지오펜스 전환 이벤트를 걸러서 할 일을 알려야 하는지 결정한다.
+ *
+ * 영역 경계 근처에선 GPS 오차 때문에 ENTER/EXIT 가 연달아 발생하므로 다음 규칙을 적용한다.
+ * <ul>
+ * <li>알림은 영역 안에 장소의 {@link Place#getLoiteringDelayMs()} 이상 머물렀을 때(DWELL)만 보낸다.</li>
+ * <li>로케이션 서비스는 한 번의 방문에 EXIT 를 한 번만 보내므로 EXIT 는 거르지 않고 항상 방문을 끝낸다.
+ * 대신 알린 방문이 끝난 후 장소의 {@link Place#getRearmMs()} 안에 다시 DWELL 이 오면 경계에서의 오차로 보고
+ * 이전 방문이 계속되는 것으로 처리한다. 한 번의 방문에는 한 번만 알린다.</li>
+ * <li>같은 장소는 {@link Constants#GEOFENCE_NOTIFICATION_COOL_DOWN_MS} 안에 다시 알리지 않는다.</li>
+ * </ul>
+ * 상태는 SharedPreferences 에 저장하므로 IntentService 가 종료되어도 유지된다.
+ */
+public class GeofenceTransitionEngine {
+
+    private static final String TAG = GeofenceTransitionEngine.class.getName();
+
+    private static final String PREF_NAME = "GeofenceTransitions";
+    private static final String KEY_VISIT_NOTIFIED = ".visitNotified";
+    private static final String KEY_LAST_NOTIFIED = ".lastNotified";
+    private static final String KEY_NOTIFIED_VISIT_ENDED = ".notifiedVisitEnded";
+
+    private final SharedPreferences mPreferences;
+    private final long mCoolDownMs;
+
+    public GeofenceTransitionEngine(Context context) {
+        this(context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE),
+                Constants.GEOFENCE_NOTIFICATION_COOL_DOWN_MS);
+    }
+
+    GeofenceTransitionEngine(SharedPreferences preferences, long coolDownMs) {
+        mPreferences = preferences;
+        mCoolDownMs = coolDownMs;
+    }
+
+    /**
+     * 전환 이벤트를 기록하고, 할 일을 알려야 하면 true 를 반환한다.
+     *
+     * @param nowMs 현재 시각
+     */
+    public boolean onTransition(Place place, int transitionType, long nowMs) {
+        String id = place.getId();
+        switch (transitionType) {
+            case Geofence.GEOFENCE_TRANSITION_ENTER:
+                // DWELL 을 기다린다. 경계에서 ENTER 가 반복되어도 상태는 바뀌지 않는다.
+                return false;
+
+            case Geofence.GEOFENCE_TRANSITION_EXIT:
+                // 방문이 끝났으므로 다음 방문에선 다시 알릴 수 있다. 알린 방문이었다면 끝난 시각을 남겨서
+                // 곧바로 다시 들어오는 경우를 오차로 처리한다.
+                if (mPreferences.getBoolean(id + KEY_VISIT_NOTIFIED, false)) {
+                    mPreferences.edit()
+                            .remove(id + KEY_VISIT_NOTIFIED)
+                            .putLong(id + KEY_NOTIFIED_VISIT_ENDED, nowMs)
+                            .apply();
+                }
+                return false;
+
+            case Geofence.GEOFENCE_TRANSITION_DWELL:
+                if (mPreferences.getBoolean(id + KEY_VISIT_NOTIFIED, false)) {
+                    Log.d(TAG, "Already notified during this visit to " + id);
+                    return false;
+                }
+                long visitEndedMs = mPreferences.getLong(id + KEY_NOTIFIED_VISIT_ENDED, 0);
+                if (visitEndedMs != 0 && nowMs - visitEndedMs >= 0 && nowMs - visitEndedMs < place.getRearmMs()) {
+                    // 영역 밖에 머문 시간이 짧으므로 이전 방문이 계속되는 것으로 본다
+                    Log.d(TAG, "Re-entered " + id + " shortly after leaving, continuing the visit");
+                    mPreferences.edit()
+                            .putBoolean(id + KEY_VISIT_NOTIFIED, true)
+                            .remove(id + KEY_NOTIFIED_VISIT_ENDED)
+                            .apply();
+                    return false;
+                }
+                long lastNotifiedMs = mPreferences.getLong(id + KEY_LAST_NOTIFIED, 0);
+                if (lastNotifiedMs != 0 && nowMs - lastNotifiedMs >= 0
+                        && nowMs - lastNotifiedMs < mCoolDownMs) {
+                    Log.d(TAG, "Cooling down notifications for " + id);
+                    return false;
+                }
+                mPreferences.edit()
+                        .putBoolean(id + KEY_VISIT_NOTIFIED, true)
+                        .putLong(id + KEY_LAST_NOTIFIED, nowMs)
+                        .remove(id + KEY_NOTIFIED_VISIT_ENDED)
+                        .apply();
+                return true;
+
+            default:
+                return false;
+        }
+    }
+}
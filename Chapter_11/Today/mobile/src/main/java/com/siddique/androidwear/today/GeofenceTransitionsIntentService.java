@@ -18,15 +18,19 @@ package com.siddique.androidwear.today;
 
 import android.app.IntentService;
 import android.app.PendingIntent;
+import android.content.Context;
 import android.content.Intent;
-import android.graphics.BitmapFactory;
+import android.location.Location;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.app.NotificationManagerCompat;
+import android.text.TextUtils;
 import android.util.Log;
 
 import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
 import com.google.android.gms.location.GeofencingEvent;
 
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 
@@ -47,6 +51,15 @@ public class GeofenceTransitionsIntentService extends IntentService {
         super.onCreate();
     }
 
+    /**
+     * 지오펜스를 등록할 때 로케이션 서비스에게 전달하는 PendingIntent.
+     * 등록하는 곳이 달라도 같은 PendingIntent 를 사용해야 한다.
+     */
+    public static PendingIntent getPendingIntent(Context context) {
+        Intent intent = new Intent(context, GeofenceTransitionsIntentService.class);
+        return PendingIntent.getService(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
     /**
      * 전달받은 인텐트 처리
      *
@@ -60,51 +73,135 @@ public class GeofenceTransitionsIntentService extends IntentService {
         if (geoFenceEvent.hasError()) {
             int errorCode = geoFenceEvent.getErrorCode();
             Log.e(TAG, "Location Services error: " + errorCode);
+            if (errorCode == GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE) {
+                // 위치 기능이 꺼지면 등록된 지오펜스가 모두 지워지므로 등록 기록도 지운다.
+                // 다시 등록하는 것은 위치 기능이 켜진 후에 GeofenceRestoreReceiver 가 담당한다.
+                GeofenceRegistrationService.reset(this);
+            }
         } else {
 
             int transitionType = geoFenceEvent.getGeofenceTransition();
-            // NotificationManager 서비스의 인스턴트를 가져옴
-            NotificationManagerCompat notificationManager =
-                    NotificationManagerCompat.from(this);
-
-            Log.i(TAG, "Notifying home todo items");
-            String triggeredGeoFenceId = geoFenceEvent.getTriggeringGeofences().get(0)
-                    .getRequestId();
-
-            switch (triggeredGeoFenceId) {
-                case Constants.HOME_GEOFENCE_ID:
-                    if (Geofence.GEOFENCE_TRANSITION_ENTER == transitionType) {
-                        Log.i(TAG, "Notifying home todo items");
-                        notifyTodoItems(notificationManager, "Home", Constants.HOME_TODO_NOTIFICATION_ID, R.drawable.white_house);
+
+            SpatialIndex index = PlaceStore.getInstance(this).getIndex();
+            GeofenceTransitionEngine engine = new GeofenceTransitionEngine(this);
+            Location location = geoFenceEvent.getTriggeringLocation();
+            long nowMs = System.currentTimeMillis();
+            // 한 이벤트에 여러 지오펜스가 함께 전달될 수 있으므로 모두 처리한다. 같은 유형은 한 번만 알린다.
+            Set<String> todoTypesToNotify = new LinkedHashSet<String>();
+            boolean unknownFence = false;
+            for (Geofence geofence : geoFenceEvent.getTriggeringGeofences()) {
+                String triggeredGeoFenceId = geofence.getRequestId();
+                if (GeofenceRegistry.RERANK_GEOFENCE_ID.equals(triggeredGeoFenceId)) {
+                    if (Geofence.GEOFENCE_TRANSITION_EXIT == transitionType) {
+                        // 위치가 크게 바뀌었으므로 가까운 장소를 다시 등록한다
+                        Log.i(TAG, "Left the ranking area, re-ranking geofences");
+                        GeofenceRegistrationService.rerank(this, location);
                     }
-                    break;
-                case Constants.WORK_GEOFENCE_ID:
-                    if (Geofence.GEOFENCE_TRANSITION_ENTER == transitionType) {
-                        Log.i(TAG, "Notifying work todo items");
-                        notifyTodoItems(notificationManager, "Work", Constants.WORK_TODO_NOTIFICATION_ID, R.drawable.capitol_hill);
+                    continue;
+                }
+
+                Place place = index.get(triggeredGeoFenceId);
+                if (place == null) {
+                    unknownFence = true;
+                } else if (engine.onTransition(place, transitionType, nowMs)) {
+                    todoTypesToNotify.add(place.getTodoType());
+                }
+            }
+
+            if (unknownFence && location != null && Geofence.GEOFENCE_TRANSITION_DWELL == transitionType) {
+                // 장소가 지워지거나 바뀐 직후라 ID 를 찾을 수 없다면 위치를 포함하는 장소로 대신한다
+                for (Place place : index.containing(location.getLatitude(), location.getLongitude())) {
+                    if (engine.onTransition(place, transitionType, nowMs)) {
+                        todoTypesToNotify.add(place.getTodoType());
                     }
-                    break;
+                }
+            }
+
+            if (!todoTypesToNotify.isEmpty()) {
+                Log.i(TAG, "Notifying " + todoTypesToNotify + " todo items");
+                notifyTodoItems(todoTypesToNotify);
             }
         }
     }
 
-    private void notifyTodoItems(NotificationManagerCompat notificationManager, String todoItemType, int notificationId, int background) {
-        Set<String> todoItems = TodoItems.readItems(this, todoItemType);
+    /**
+     * @return 할 일 유형의 알림 ID. 묶음 요약 알림의 ID 와 겹치지 않는다.
+     */
+    private static int getNotificationId(String todoType) {
+        switch (todoType) {
+            case "Home":
+                return Constants.HOME_TODO_NOTIFICATION_ID;
+            case "Work":
+                return Constants.WORK_TODO_NOTIFICATION_ID;
+            default:
+                return Constants.OTHER_TODO_NOTIFICATION_ID_BASE
+                        + (todoType.hashCode() & Integer.MAX_VALUE) % Constants.OTHER_TODO_NOTIFICATION_ID_COUNT;
+        }
+    }
+
+    /**
+     * @return 할 일 유형에 맞는 알림 배경 이미지. 없으면 0
+     */
+    private static int getBackground(String todoType) {
+        switch (todoType) {
+            case "Home":
+                return R.drawable.white_house;
+            case "Work":
+                return R.drawable.capitol_hill;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 유형별 알림을 하나의 그룹으로 묶고, 그룹을 대표하는 요약 알림을 함께 등록한다.
+     */
+    private void notifyTodoItems(Set<String> todoItemTypes) {
+        // NotificationManager 서비스의 인스턴트를 가져옴
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(this);
+
         Intent viewIntent = new Intent(this, TodoMobileActivity.class);
         PendingIntent viewPendingIntent =
                 PendingIntent.getActivity(this, 0, viewIntent, PendingIntent.FLAG_UPDATE_CURRENT);
 
+        NotificationCompat.InboxStyle summaryStyle = new NotificationCompat.InboxStyle();
+        int totalCount = 0;
+        for (String todoItemType : todoItemTypes) {
+            Set<String> todoItems = TodoItemsPreferences.getTodoItems(this).readItems(todoItemType);
+            String title = todoItems.size() + " " + todoItemType + " todo items found!";
+            totalCount += todoItems.size();
+            summaryStyle.addLine(title);
+
+            NotificationCompat.Builder notificationBuilder =
+                    new NotificationCompat.Builder(this)
+                            .setSmallIcon(R.drawable.ic_today_notification)
+                            .setContentTitle(title)
+                            .setContentText(todoItems.toString())
+                            .setContentIntent(viewPendingIntent)
+                            .setGroup(Constants.TODO_NOTIFICATION_GROUP);
+            int background = getBackground(todoItemType);
+            if (background != 0) {
+                // IntentService 의 작업 스레드이므로 바로 디코딩해도 된다.
+                // 알림에는 64dp 정도의 아이콘만 표시되므로 아이콘 크기로 줄여서 읽는다.
+                notificationBuilder.setLargeIcon(BitmapLoader.getInstance(this).get(background,
+                        getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_width),
+                        getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_height)));
+            }
+
+            // 알림을 만들고, 노티피케이션 매니저를 통해 등록함
+            notificationManager.notify(getNotificationId(todoItemType), notificationBuilder.build());
+        }
 
-        NotificationCompat.Builder notificationBuilder =
+        String summaryTitle = totalCount + " todo items found!";
+        NotificationCompat.Builder summaryBuilder =
                 new NotificationCompat.Builder(this)
                         .setSmallIcon(R.drawable.ic_today_notification)
-                        .setLargeIcon(BitmapFactory.decodeResource(
-                                getResources(), background))
-                        .setContentTitle(todoItems.size() + " " + todoItemType + " todo items found!")
-                        .setContentText(todoItems.toString()    )
-                        .setContentIntent(viewPendingIntent);
-
-        // 알림을 만들고, 노티피케이션 매니저를 통해 등록함
-        notificationManager.notify(notificationId, notificationBuilder.build());
+                        .setContentTitle(summaryTitle)
+                        .setContentText(TextUtils.join(", ", todoItemTypes))
+                        .setStyle(summaryStyle.setBigContentTitle(summaryTitle))
+                        .setContentIntent(viewPendingIntent)
+                        .setGroup(Constants.TODO_NOTIFICATION_GROUP)
+                        .setGroupSummary(true);
+        notificationManager.notify(Constants.TODO_SUMMARY_NOTIFICATION_ID, summaryBuilder.build());
     }
 }
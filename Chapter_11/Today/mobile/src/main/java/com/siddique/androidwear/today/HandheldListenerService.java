@@ -1,6 +1,5 @@
 package com.siddique.androidwear.today;
 
-import android.os.Bundle;
 import android.util.Log;
 
 import com.android.volley.Request;
@@ -9,84 +8,36 @@ import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.StringRequest;
 import com.android.volley.toolbox.Volley;
-import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.PendingResult;
-import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.wearable.DataApi;
 import com.google.android.gms.wearable.DataEventBuffer;
 import com.google.android.gms.wearable.DataMap;
 import com.google.android.gms.wearable.MessageEvent;
 import com.google.android.gms.wearable.Node;
 import com.google.android.gms.wearable.PutDataMapRequest;
+import com.google.android.gms.wearable.PutDataRequest;
 import com.google.android.gms.wearable.Wearable;
 import com.google.android.gms.wearable.WearableListenerService;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
-
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 
-public class HandheldListenerService extends WearableListenerService implements GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
+public class HandheldListenerService extends WearableListenerService {
     private static final String TAG = HandheldListenerService.class.getName();
-    private GoogleApiClient mGoogleApiClient;
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyyMMdd");
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.i(TAG, "Created");
-
-        if (null == mGoogleApiClient) {
-            mGoogleApiClient = new GoogleApiClient.Builder(this)
-                    .addApi(Wearable.API)
-                    .addConnectionCallbacks(this)
-                    .addOnConnectionFailedListener(this)
-                    .build();
-            Log.i(TAG, "GoogleApiClient created");
-        }
-
-        if (!mGoogleApiClient.isConnected()) {
-            mGoogleApiClient.connect();
-            Log.i(TAG, "Connecting to GoogleApiClient..");
-        }
     }
 
     @Override
     public void onDestroy() {
-
         Log.i(TAG, "Destroyed");
-
-        if (null != mGoogleApiClient) {
-            if (mGoogleApiClient.isConnected()) {
-                mGoogleApiClient.disconnect();
-                Log.i(TAG, "GoogleApiClient disconnected");
-            }
-        }
-
         super.onDestroy();
     }
 
-    @Override
-    public void onConnectionSuspended(int cause) {
-        Log.i(TAG, "onConnectionSuspended called");
-    }
-
-    @Override
-    public void onConnectionFailed(ConnectionResult connectionResult) {
-        Log.i(TAG, "onConnectionFailed called");
-    }
-
-    @Override
-    public void onConnected(Bundle connectionHint) {
-        Log.i(TAG, "onConnected called");
-
-    }
-
     @Override
     public void onDataChanged(DataEventBuffer dataEvents) {
         super.onDataChanged(dataEvents);
@@ -105,10 +56,10 @@ public class HandheldListenerService extends WearableListenerService implements
             String todo = new String(messageEvent.getData());
             if (Constants.HOME_TODO_ITEM.equals(messageEvent.getPath())) {
                 Log.i(TAG, "Adding home todo item '" + todo + "'");
-                TodoItems.addItem(this, "Home", todo);
+                TodoItemsPreferences.getTodoItems(this).addItem("Home", todo);
             } else if (Constants.WORK_TODO_ITEM.equals(messageEvent.getPath())) {
                 Log.i(TAG, "Adding work todo item '" + todo + "'");
-                TodoItems.addItem(this, "Work", todo);
+                TodoItemsPreferences.getTodoItems(this).addItem("Work", todo);
             }
         }
     }
@@ -124,43 +75,24 @@ public class HandheldListenerService extends WearableListenerService implements
                     @Override
                     public void onResponse(String response) {
                         Log.i(TAG, "Wikipedia response  = " + response);
-                        Document doc = Jsoup.parse(response);
-                        Element heading = doc.select("h1").first();
-                        Log.i(TAG, "Heading node = " + heading);
+                        OnThisDayParser onThisDay = OnThisDayParser.parse(response);
 
-
-                        if (heading != null) {
-                            Log.i(TAG, "Wikipedia page heading = " + heading);
+                        if (onThisDay != null) {
+                            Log.i(TAG, "Wikipedia page heading = " + onThisDay.getHeading());
 
                             PutDataMapRequest dataMapRequest = PutDataMapRequest.create(Constants.ON_THIS_DAY_DATA_ITEM_HEADER);
                             DataMap dataMap = dataMapRequest.getDataMap();
 
                             // 매번 웨어러블이 갱신된 데이터를 표시할 수 있도록 dataMap에 타임스탬프 정보를 추가한다.
                             dataMap.putLong(Constants.ON_THIS_DAY_TIMESTAMP, new Date().getTime());
-                            dataMap.putString(Constants.ON_THIS_DAY_DATA_ITEM_HEADER, heading.text());
-
-                            Element listNode = doc.select("ul").first();
-
-                            if (listNode != null) {
-                                Elements itemNodes = listNode.select("li");
-                                int size = itemNodes.size();
-                                ArrayList<String> items = new ArrayList<String>();
-                                for (int i = 0; i < size; i++) {
-                                    items.add(itemNodes.get(i).text());
-                                }
-                                dataMap.putStringArrayList(Constants.ON_THIS_DAY_DATA_ITEM_CONTENT, items);
+                            dataMap.putString(Constants.ON_THIS_DAY_DATA_ITEM_HEADER, onThisDay.getHeading());
+
+                            if (onThisDay.getListItems() != null) {
+                                dataMap.putStringArrayList(Constants.ON_THIS_DAY_DATA_ITEM_CONTENT, onThisDay.getListItems());
                             }
 
                             Log.i(TAG, "Sending dataMap request ...");
-                            PendingResult<DataApi.DataItemResult> pendingResult = Wearable.DataApi.putDataItem(mGoogleApiClient, dataMapRequest.asPutDataRequest());
-                            pendingResult.setResultCallback(new ResultCallback<DataApi.DataItemResult>() {
-                                @Override
-                                public void onResult(final DataApi.DataItemResult result) {
-                                    if (result.getStatus().isSuccess()) {
-                                        Log.d(TAG, "Data item set: " + result.getDataItem().getUri());
-                                    }
-                                }
-                            });
+                            putDataItem(dataMapRequest.asPutDataRequest());
                         }
                     }
                 }, new Response.ErrorListener() {
@@ -174,6 +106,33 @@ public class HandheldListenerService extends WearableListenerService implements
         queue.add(stringRequest);
     }
 
+    /**
+     * 응답은 서비스가 종료된 후에 도착할 수 있으므로, 요청마다 공유 연결의 사용권을 받아서 전송이 끝나면 반납한다.
+     */
+    private void putDataItem(final PutDataRequest request) {
+        final ApiClientManager.Lease lease = ApiClientManager.getInstance(this).acquire();
+        lease.connected()
+                .then(new ResultFuture.AsyncFunction<GoogleApiClient, DataApi.DataItemResult>() {
+                    @Override
+                    public ResultFuture<DataApi.DataItemResult> apply(GoogleApiClient client) {
+                        return PendingResults.toFuture(Wearable.DataApi.putDataItem(client, request));
+                    }
+                }, AsyncExecutors.direct())
+                .addListener(new ResultFuture.Listener<DataApi.DataItemResult>() {
+                    @Override
+                    public void onSuccess(DataApi.DataItemResult result) {
+                        Log.d(TAG, "Data item set: " + result.getDataItem().getUri());
+                        lease.release();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.e(TAG, "Unable to send data item", error);
+                        lease.release();
+                    }
+                }, AsyncExecutors.direct());
+    }
+
     @Override
     public void onPeerConnected(Node peer) {
         super.onPeerConnected(peer);
@@ -0,0 +1,12 @@
+package com.siddique.androidwear.today;
+
+/**
+ * 현재 위치를 제공한다. 지오펜스 순위를 정할 때 사용하며, 테스트에서는 고정된 위치를 반환하는 구현으로 바꿀 수 있다.
+ */
+public interface LocationSource {
+
+    /**
+     * @return 마지막으로 알려진 위치. 알 수 없으면 null
+     */
+    GeoPoint getLastLocation();
+}
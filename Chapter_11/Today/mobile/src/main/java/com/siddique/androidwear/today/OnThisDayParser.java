@@ -0,0 +1,57 @@
+package com.siddique.androidwear.today;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.ArrayList;
+
+/**
+ * 위키백과 '오늘의 역사' 피드 HTML 을 파싱한다.
+ * 안드로이드 의존성이 없기 때문에 JVM 벤치마크에서도 그대로 사용할 수 있다.
+ */
+public class OnThisDayParser {
+
+    private final String heading;
+    private final ArrayList<String> listItems;
+
+    private OnThisDayParser(String heading, ArrayList<String> listItems) {
+        this.heading = heading;
+        this.listItems = listItems;
+    }
+
+    /**
+     * @return 파싱 결과. 제목(h1)이 없다면 null 을 반환한다.
+     */
+    public static OnThisDayParser parse(String html) {
+        Document doc = Jsoup.parse(html);
+        Element headingNode = doc.select("h1").first();
+        if (headingNode == null) {
+            return null;
+        }
+
+        ArrayList<String> items = null;
+        Element listNode = doc.select("ul").first();
+        if (listNode != null) {
+            Elements itemNodes = listNode.select("li");
+            int size = itemNodes.size();
+            items = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(itemNodes.get(i).text());
+            }
+        }
+        return new OnThisDayParser(headingNode.text(), items);
+    }
+
+    public String getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return 목록 항목. 목록(ul)이 없다면 null 을 반환한다.
+     */
+    public ArrayList<String> getListItems() {
+        return listItems;
+    }
+}
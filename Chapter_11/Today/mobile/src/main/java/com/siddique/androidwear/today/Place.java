@@ -0,0 +1,131 @@
+package com.siddique.androidwear.today;
+
+/**
+ * 사용자가 등록한 장소. 장소에 들어가면 연결된 할 일 유형의 항목을 알려준다.
+ *
+ * 안드로이드 API 에 의존하지 않기 때문에 거리 계산과 정렬 로직을 기기 없이 실행할 수 있다.
+ */
+public final class Place {
+
+    /** 지오펜스 기본 반경. 단위는 미터 */
+    public static final float DEFAULT_RADIUS_METERS = 50;
+
+    /** 장소에 이만큼 머물러야 할 일을 알려준다 (DWELL) */
+    public static final int DEFAULT_LOITERING_DELAY_MS = 2 * 60 * 1000;
+
+    /** 알린 방문이 끝난 후 이 시간 안에 다시 머무르면 경계에서의 오차로 보고 같은 방문으로 처리한다 */
+    public static final long DEFAULT_REARM_MS = 10 * 60 * 1000;
+
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private final String mId;
+    private final String mName;
+    private final String mTodoType;
+    private final double mLatitude;
+    private final double mLongitude;
+    private final float mRadius;
+    private final int mLoiteringDelayMs;
+    private final long mRearmMs;
+
+    public Place(String id, String name, String todoType, double latitude, double longitude,
+                 float radius) {
+        this(id, name, todoType, latitude, longitude, radius, DEFAULT_LOITERING_DELAY_MS,
+                DEFAULT_REARM_MS);
+    }
+
+    public Place(String id, String name, String todoType, double latitude, double longitude,
+                 float radius, int loiteringDelayMs, long rearmMs) {
+        this.mId = id;
+        this.mName = name;
+        this.mTodoType = todoType;
+        this.mLatitude = latitude;
+        this.mLongitude = longitude;
+        this.mRadius = radius;
+        this.mLoiteringDelayMs = loiteringDelayMs;
+        this.mRearmMs = rearmMs;
+    }
+
+    public String getId() {
+        return mId;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /** 장소에 연결된 할 일 유형 (예 : Home, Work) */
+    public String getTodoType() {
+        return mTodoType;
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    public float getRadius() {
+        return mRadius;
+    }
+
+    /** 할 일을 알리기 전에 장소에 머물러야 하는 시간 */
+    public int getLoiteringDelayMs() {
+        return mLoiteringDelayMs;
+    }
+
+    /** 알린 방문이 끝난 후 다시 머물러도 같은 방문으로 보는 시간 */
+    public long getRearmMs() {
+        return mRearmMs;
+    }
+
+    /**
+     * @return 주어진 좌표까지의 거리. 단위는 미터
+     */
+    public double distanceTo(double latitude, double longitude) {
+        return distanceBetween(mLatitude, mLongitude, latitude, longitude);
+    }
+
+    /**
+     * 하버사인 공식으로 두 좌표 사이의 거리를 계산한다. 단위는 미터
+     */
+    public static double distanceBetween(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Place)) {
+            return false;
+        }
+        Place place = (Place) o;
+        return mId.equals(place.mId)
+                && mName.equals(place.mName)
+                && mTodoType.equals(place.mTodoType)
+                && Double.compare(mLatitude, place.mLatitude) == 0
+                && Double.compare(mLongitude, place.mLongitude) == 0
+                && Float.compare(mRadius, place.mRadius) == 0
+                && mLoiteringDelayMs == place.mLoiteringDelayMs
+                && mRearmMs == place.mRearmMs;
+    }
+
+    @Override
+    public int hashCode() {
+        return mId.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Place{" + mId + ", " + mName + ", " + mTodoType + ", "
+                + mLatitude + ", " + mLongitude + ", " + mRadius + "m}";
+    }
+}
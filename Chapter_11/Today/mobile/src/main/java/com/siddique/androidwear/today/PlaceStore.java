@@ -0,0 +1,194 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 사용자가 등록한 장소 목록을 SharedPreferences 에 JSON 으로 저장한다.
+ *
+ * 처음 실행할 때는 기존의 'Home', 'Work' 지오펜스를 같은 ID 로 등록해둔다. 목록이 바뀔 때마다 버전을 올리기 때문에
+ * {@link GeofenceRegistry} 는 버전만 비교해서 다시 등록할 필요가 있는지 알 수 있다.
+ *
+ * 화면과 서비스가 같은 목록을 읽고 쓰므로 {@link #getInstance(Context)} 로 프로세스에 하나만 만들고, 모든 메서드는
+ * 이 인스턴스 하나로 동기화한다.
+ */
+public class PlaceStore {
+
+    private static final String TAG = PlaceStore.class.getName();
+
+    private static final String PREF_NAME = "Places";
+    private static final String KEY_PLACES = "places";
+    private static final String KEY_VERSION = "version";
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_TODO_TYPE = "todoType";
+    private static final String FIELD_LATITUDE = "lat";
+    private static final String FIELD_LONGITUDE = "lng";
+    private static final String FIELD_RADIUS = "radius";
+    private static final String FIELD_LOITERING_DELAY = "loiteringDelayMs";
+    private static final String FIELD_REARM = "rearmMs";
+
+    private static PlaceStore sInstance;
+
+    private final SharedPreferences mPreferences;
+
+    /** 마지막으로 만든 공간 인덱스와 그 때의 장소 목록 버전 */
+    private SpatialIndex mIndex;
+    private int mIndexVersion = -1;
+
+    public static synchronized PlaceStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new PlaceStore(context.getApplicationContext()
+                    .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE));
+        }
+        return sInstance;
+    }
+
+    PlaceStore(SharedPreferences preferences) {
+        mPreferences = preferences;
+    }
+
+    /**
+     * @return 저장된 모든 장소. 저장된 장소가 없으면 기본 장소를 저장하고 반환한다.
+     */
+    public synchronized List<Place> getPlaces() {
+        String json = mPreferences.getString(KEY_PLACES, null);
+        if (json == null) {
+            List<Place> places = defaultPlaces();
+            save(places);
+            return places;
+        }
+        try {
+            return fromJson(json);
+        } catch (JSONException e) {
+            Log.e(TAG, "Unable to read places, resetting to defaults", e);
+            List<Place> places = defaultPlaces();
+            save(places);
+            return places;
+        }
+    }
+
+    /**
+     * @return 저장된 장소의 공간 인덱스. 장소 목록이 바뀌지 않았다면 이전에 만든 인덱스를 재사용한다.
+     */
+    public synchronized SpatialIndex getIndex() {
+        List<Place> places = null;
+        if (mIndex == null || mIndexVersion != getVersion()) {
+            places = getPlaces();
+        }
+        // getPlaces() 가 기본 장소를 저장하면서 버전이 바뀔 수 있으므로 읽은 뒤에 버전을 확인한다
+        int version = getVersion();
+        if (places != null) {
+            mIndex = new SpatialIndex(places);
+            mIndexVersion = version;
+        }
+        return mIndex;
+    }
+
+    /**
+     * @return ID 에 해당하는 장소. 없으면 null
+     */
+    public Place findPlace(String id) {
+        return getIndex().get(id);
+    }
+
+    /**
+     * 새 장소를 추가한다.
+     *
+     * @return 추가된 장소
+     */
+    public synchronized Place addPlace(String name, String todoType, double latitude,
+                                       double longitude, float radius) {
+        Place place = new Place(UUID.randomUUID().toString(), name, todoType, latitude,
+                longitude, radius);
+        List<Place> places = getPlaces();
+        places.add(place);
+        save(places);
+        return place;
+    }
+
+    public synchronized boolean removePlace(String id) {
+        List<Place> places = getPlaces();
+        for (int i = 0; i < places.size(); i++) {
+            if (places.get(i).getId().equals(id)) {
+                places.remove(i);
+                save(places);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 장소 목록이 바뀔 때마다 증가하는 버전
+     */
+    public synchronized int getVersion() {
+        return mPreferences.getInt(KEY_VERSION, 0);
+    }
+
+    private void save(List<Place> places) {
+        mPreferences.edit()
+                .putString(KEY_PLACES, toJson(places))
+                .putInt(KEY_VERSION, getVersion() + 1)
+                .apply();
+    }
+
+    private static List<Place> defaultPlaces() {
+        List<Place> places = new ArrayList<Place>();
+        places.add(new Place(Constants.HOME_GEOFENCE_ID, "Home", "Home",
+                Constants.HOME_LATITUDE, Constants.HOME_LONGITUDE, Place.DEFAULT_RADIUS_METERS));
+        places.add(new Place(Constants.WORK_GEOFENCE_ID, "Work", "Work",
+                Constants.WORK_LATITUDE, Constants.WORK_LONGITUDE, Place.DEFAULT_RADIUS_METERS));
+        return places;
+    }
+
+    private static String toJson(List<Place> places) {
+        JSONArray array = new JSONArray();
+        try {
+            for (Place place : places) {
+                array.put(new JSONObject()
+                        .put(FIELD_ID, place.getId())
+                        .put(FIELD_NAME, place.getName())
+                        .put(FIELD_TODO_TYPE, place.getTodoType())
+                        .put(FIELD_LATITUDE, place.getLatitude())
+                        .put(FIELD_LONGITUDE, place.getLongitude())
+                        .put(FIELD_RADIUS, place.getRadius())
+                        .put(FIELD_LOITERING_DELAY, place.getLoiteringDelayMs())
+                        .put(FIELD_REARM, place.getRearmMs()));
+            }
+        } catch (JSONException e) {
+            // 좌표가 NaN 이나 무한대인 경우에만 발생한다
+            throw new IllegalArgumentException("Invalid place", e);
+        }
+        return array.toString();
+    }
+
+    private static List<Place> fromJson(String json) throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<Place> places = new ArrayList<Place>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.getJSONObject(i);
+            places.add(new Place(
+                    object.getString(FIELD_ID),
+                    object.getString(FIELD_NAME),
+                    object.getString(FIELD_TODO_TYPE),
+                    object.getDouble(FIELD_LATITUDE),
+                    object.getDouble(FIELD_LONGITUDE),
+                    (float) object.getDouble(FIELD_RADIUS),
+                    // 이전 버전에서 저장한 장소에는 없으므로 기본 값을 사용한다
+                    object.optInt(FIELD_LOITERING_DELAY, Place.DEFAULT_LOITERING_DELAY_MS),
+                    object.optLong(FIELD_REARM, Place.DEFAULT_REARM_MS)));
+        }
+        return places;
+    }
+}
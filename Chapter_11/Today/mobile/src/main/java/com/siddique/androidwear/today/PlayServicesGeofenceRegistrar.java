@@ -0,0 +1,55 @@
+package com.siddique.androidwear.today;
+
+import android.app.PendingIntent;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 연결된 GoogleApiClient 로 GeofencingApi 를 호출하고 결과를 기다린다.
+ */
+public class PlayServicesGeofenceRegistrar implements GeofenceRegistrar {
+
+    private static final String TAG = PlayServicesGeofenceRegistrar.class.getName();
+
+    private final GoogleApiClient mGoogleApiClient;
+    private final PendingIntent mPendingIntent;
+
+    public PlayServicesGeofenceRegistrar(GoogleApiClient googleApiClient, PendingIntent pendingIntent) {
+        mGoogleApiClient = googleApiClient;
+        mPendingIntent = pendingIntent;
+    }
+
+    @Override
+    public boolean addGeofences(GeofencingRequest request) {
+        try {
+            Status status = LocationServices.GeofencingApi
+                    .addGeofences(mGoogleApiClient, request, mPendingIntent)
+                    .await(Constants.API_CLIENT_CONNECTION_TIME_OUT_MS, TimeUnit.MILLISECONDS);
+            if (!status.isSuccess()) {
+                Log.e(TAG, "Unable to add geofences: " + status);
+            }
+            return status.isSuccess();
+        } catch (SecurityException e) {
+            Log.e(TAG, "Location permission is not granted", e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean removeGeofences(List<String> geofenceIds) {
+        Status status = LocationServices.GeofencingApi
+                .removeGeofences(mGoogleApiClient, geofenceIds)
+                .await(Constants.API_CLIENT_CONNECTION_TIME_OUT_MS, TimeUnit.MILLISECONDS);
+        if (!status.isSuccess()) {
+            Log.e(TAG, "Unable to remove geofences: " + status);
+        }
+        return status.isSuccess();
+    }
+}
@@ -23,14 +23,33 @@ public class SimpleGeofence {
     private final double mLatitude;
     private final double mLongitude;
     private final float mRadius;
+    private final int mTransitionTypes;
+    private final int mLoiteringDelayMs;
     private long mExpirationDuration;
 
     public SimpleGeofence(String geofenceId, double latitude, double longitude) {
+        this(geofenceId, latitude, longitude, Place.DEFAULT_RADIUS_METERS);
+    }
+
+    public SimpleGeofence(String geofenceId, double latitude, double longitude, float radius) {
+        this(geofenceId, latitude, longitude, radius,
+                com.google.android.gms.location.Geofence.GEOFENCE_TRANSITION_ENTER | com.google.android.gms.location.Geofence.GEOFENCE_TRANSITION_EXIT,
+                0);
+    }
+
+    /**
+     * @param transitionTypes  알림을 받을 전환 유형
+     * @param loiteringDelayMs DWELL 전환을 받기 전까지 영역 안에 머물러야 하는 시간. DWELL 을 받지 않는다면 무시된다.
+     */
+    public SimpleGeofence(String geofenceId, double latitude, double longitude, float radius,
+                          int transitionTypes, int loiteringDelayMs) {
         // 생성자가 전달받은 값을 인스턴스 필드에 할당
         this.mId = geofenceId;
         this.mLatitude = latitude;
         this.mLongitude = longitude;
-        this.mRadius = 50; //in meters
+        this.mRadius = radius; //in meters
+        this.mTransitionTypes = transitionTypes;
+        this.mLoiteringDelayMs = loiteringDelayMs;
         this.mExpirationDuration = com.google.android.gms.location.Geofence.NEVER_EXPIRE;
     }
 
@@ -39,7 +58,8 @@ public class SimpleGeofence {
         // 새로운 SimpleGeofence 객체를 만든다
         return new com.google.android.gms.location.Geofence.Builder()
                 .setRequestId(mId)
-                .setTransitionTypes(com.google.android.gms.location.Geofence.GEOFENCE_TRANSITION_ENTER | com.google.android.gms.location.Geofence.GEOFENCE_TRANSITION_EXIT)
+                .setTransitionTypes(mTransitionTypes)
+                .setLoiteringDelay(mLoiteringDelayMs)
                 .setCircularRegion(mLatitude, mLongitude, mRadius)
                 .setExpirationDuration(mExpirationDuration)
                 .build();
@@ -0,0 +1,258 @@
+package com.siddique.androidwear.today;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 장소를 위도/경도 격자로 나눠 담아두는 메모리 공간 인덱스. 지오해시처럼 좌표를 고정 크기 셀로 나누고,
+ * 질의 지점의 셀에서부터 바깥쪽 고리 순서로 셀을 살펴보기 때문에 전체 장소를 훑지 않고도
+ * 가장 가까운 k 개의 장소나 반경 안의 장소를 찾을 수 있다.
+ *
+ * 경도는 날짜 변경선에서 이어지도록 셀 번호를 순환시킨다. 한 번 만들면 바꿀 수 없으며, 장소 목록이 바뀌면 새로 만든다.
+ * 안드로이드 API 에 의존하지 않는다.
+ */
+public final class SpatialIndex {
+
+    /** 기본 셀 크기. 위도 0.01도는 약 1.1km 이다. */
+    public static final double DEFAULT_CELL_DEGREES = 0.01;
+
+    private static final double METERS_PER_DEGREE = Math.PI * 6371008.8 / 180;
+
+    private final double mCellDegrees;
+    private final int mColumns;
+    private final Map<Long, List<Place>> mCells = new HashMap<Long, List<Place>>();
+    private final Map<String, Place> mPlacesById = new HashMap<String, Place>();
+    private final int mMinRow;
+    private final int mMaxRow;
+    private final float mMaxPlaceRadius;
+
+    public SpatialIndex(List<Place> places) {
+        this(places, DEFAULT_CELL_DEGREES);
+    }
+
+    public SpatialIndex(List<Place> places, double cellDegrees) {
+        mCellDegrees = cellDegrees;
+        mColumns = (int) Math.ceil(360 / cellDegrees);
+
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        float maxPlaceRadius = 0;
+        for (Place place : places) {
+            int row = row(place.getLatitude());
+            int column = column(place.getLongitude());
+            Long key = key(row, column);
+            List<Place> cell = mCells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<Place>(2);
+                mCells.put(key, cell);
+            }
+            cell.add(place);
+            mPlacesById.put(place.getId(), place);
+
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            maxPlaceRadius = Math.max(maxPlaceRadius, place.getRadius());
+        }
+        mMinRow = minRow;
+        mMaxRow = maxRow;
+        mMaxPlaceRadius = maxPlaceRadius;
+    }
+
+    public int size() {
+        return mPlacesById.size();
+    }
+
+    /**
+     * @return ID 에 해당하는 장소. 없으면 null
+     */
+    public Place get(String id) {
+        return mPlacesById.get(id);
+    }
+
+    /**
+     * @return 주어진 좌표에서 가까운 순서로 최대 {@code k} 개의 장소
+     */
+    public List<Place> nearest(final double latitude, final double longitude, int k) {
+        if (k <= 0 || mPlacesById.isEmpty()) {
+            return new ArrayList<Place>(0);
+        }
+
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        int row = row(latitude);
+        int column = column(longitude);
+        int maxRing = Math.max(Math.max(row - mMinRow, mMaxRow - row), mColumns / 2);
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (8L * ring > mCells.size()) {
+                // 장소가 드문드문 흩어져 있으면 빈 셀을 살펴보는 것보다 전체를 훑는 것이 빠르다
+                candidates = scanAll(latitude, longitude, Double.MAX_VALUE);
+                break;
+            }
+            collectRing(row, column, ring, latitude, longitude, candidates);
+
+            if (candidates.size() >= k) {
+                // 다음 고리의 장소는 이 거리보다 가까울 수 없다. k 번째 후보가 그보다 가까우면 더 볼 필요가 없다.
+                double kthDistance = kthDistance(candidates, k);
+                if (kthDistance <= ringLowerBound(latitude, ring + 1)) {
+                    break;
+                }
+            }
+        }
+
+        Collections.sort(candidates);
+        int count = Math.min(k, candidates.size());
+        List<Place> result = new ArrayList<Place>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(candidates.get(i).place);
+        }
+        return result;
+    }
+
+    /**
+     * @return 주어진 좌표에서 {@code radiusMeters} 안에 있는 장소. 가까운 순서로 정렬된다.
+     */
+    public List<Place> withinRadius(double latitude, double longitude, double radiusMeters) {
+        int row = row(latitude);
+        int column = column(longitude);
+        int rows = (int) Math.ceil(radiusMeters / (METERS_PER_DEGREE * mCellDegrees));
+
+        // 반경이 닿는 가장 높은 위도에서 경도 1도의 길이가 가장 짧으므로 그 위도를 기준으로 열 범위를 정한다
+        double maxLatitude = Math.min(90, Math.abs(latitude) + rows * mCellDegrees);
+        double metersPerColumn = METERS_PER_DEGREE * mCellDegrees * Math.cos(Math.toRadians(maxLatitude));
+        int columns = metersPerColumn <= 0
+                ? mColumns
+                : (int) Math.min(mColumns, Math.ceil(radiusMeters / metersPerColumn));
+        int firstColumn = column - columns;
+        int lastColumn = Math.min(column + columns, firstColumn + mColumns - 1);
+        int firstRow = Math.max(mMinRow, row - rows);
+        int lastRow = Math.min(mMaxRow, row + rows);
+
+        List<Candidate> candidates;
+        if ((long) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1) > mCells.size()) {
+            // 살펴볼 셀이 장소가 있는 셀보다 많으면 전체를 훑는 것이 빠르다
+            candidates = scanAll(latitude, longitude, radiusMeters);
+        } else {
+            candidates = new ArrayList<Candidate>();
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    List<Place> cell = mCells.get(key(r, c));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (Place place : cell) {
+                        double distance = place.distanceTo(latitude, longitude);
+                        if (distance <= radiusMeters) {
+                            candidates.add(new Candidate(place, distance));
+                        }
+                    }
+                }
+            }
+        }
+
+        Collections.sort(candidates);
+        List<Place> result = new ArrayList<Place>(candidates.size());
+        for (Candidate candidate : candidates) {
+            result.add(candidate.place);
+        }
+        return result;
+    }
+
+    /**
+     * @return 지오펜스 영역이 주어진 좌표를 포함하는 장소. 가까운 순서로 정렬된다.
+     */
+    public List<Place> containing(double latitude, double longitude) {
+        List<Place> result = withinRadius(latitude, longitude, mMaxPlaceRadius);
+        for (int i = result.size() - 1; i >= 0; i--) {
+            Place place = result.get(i);
+            if (place.distanceTo(latitude, longitude) > place.getRadius()) {
+                result.remove(i);
+            }
+        }
+        return result;
+    }
+
+    private List<Candidate> scanAll(double latitude, double longitude, double radiusMeters) {
+        List<Candidate> candidates = new ArrayList<Candidate>();
+        for (Place place : mPlacesById.values()) {
+            double distance = place.distanceTo(latitude, longitude);
+            if (distance <= radiusMeters) {
+                candidates.add(new Candidate(place, distance));
+            }
+        }
+        return candidates;
+    }
+
+    private void collectRing(int row, int column, int ring, double latitude, double longitude,
+                             List<Candidate> candidates) {
+        int firstColumn = column - ring;
+        // 고리가 지구를 한 바퀴 넘게 감싸면 같은 셀을 두 번 보지 않도록 자른다
+        int lastColumn = Math.min(column + ring, firstColumn + mColumns - 1);
+        for (int r = row - ring; r <= row + ring; r++) {
+            if (r < mMinRow || r > mMaxRow) {
+                continue;
+            }
+            boolean edgeRow = r == row - ring || r == row + ring;
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                if (!edgeRow && c != firstColumn && c != column + ring) {
+                    continue;
+                }
+                List<Place> cell = mCells.get(key(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (Place place : cell) {
+                    candidates.add(new Candidate(place, place.distanceTo(latitude, longitude)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code ring} 번째 고리에 있는 장소까지의 최소 거리. 셀 경계까지의 거리로 보수적으로 계산한다.
+     */
+    private double ringLowerBound(double latitude, int ring) {
+        double degrees = (ring - 1) * mCellDegrees;
+        if (degrees <= 0) {
+            return 0;
+        }
+        // 경도 방향 거리는 고위도일수록 짧아지므로 고리가 닿는 가장 높은 위도를 기준으로 한다
+        double maxLatitude = Math.min(90, Math.abs(latitude) + ring * mCellDegrees);
+        return METERS_PER_DEGREE * degrees * Math.cos(Math.toRadians(maxLatitude));
+    }
+
+    private static double kthDistance(List<Candidate> candidates, int k) {
+        Collections.sort(candidates);
+        return candidates.get(k - 1).distance;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / mCellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / mCellDegrees);
+    }
+
+    private Long key(int row, int column) {
+        int wrapped = ((column % mColumns) + mColumns) % mColumns;
+        return ((long) row << 32) | wrapped;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final Place place;
+        final double distance;
+
+        Candidate(Place place, double distance) {
+            this.place = place;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+}
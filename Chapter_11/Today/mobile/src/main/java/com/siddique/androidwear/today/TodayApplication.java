@@ -0,0 +1,17 @@
+package com.siddique.androidwear.today;
+
+import android.app.Application;
+
+import com.google.android.gms.location.LocationServices;
+
+/**
+ * 모바일 앱 프로세스를 초기화한다. 지오펜스를 등록할 수 있도록 공유 연결에 로케이션 서비스 API 를 추가한다.
+ */
+public class TodayApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ApiClientManager.init(this, LocationServices.API);
+    }
+}
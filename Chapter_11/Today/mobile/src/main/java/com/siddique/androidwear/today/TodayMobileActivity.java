@@ -8,17 +8,12 @@ import android.widget.TextView;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
 import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.NodeApi;
-import com.google.android.gms.wearable.Wearable;
 
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
-public class TodayMobileActivity extends Activity implements
-        GoogleApiClient.ConnectionCallbacks,
-        GoogleApiClient.OnConnectionFailedListener {
+public class TodayMobileActivity extends Activity implements ApiClientManager.Callback {
 
-    private GoogleApiClient mGoogleApiClient;
+    private ApiClientManager.Lease mApiClientLease;
 
     public static final String TAG = TodayMobileActivity.class.getName();
 
@@ -31,14 +26,6 @@ public class TodayMobileActivity extends Activity implements
         super.onCreate(savedInstanceState);
         setContentView(R.layout.main);
 
-        Log.i(TAG, "Creating Google Api Client");
-
-        mGoogleApiClient = new GoogleApiClient.Builder(this)
-                .addApi(Wearable.API)
-                .addConnectionCallbacks(this)
-                .addOnConnectionFailedListener(this)
-                .build();
-
         devicesConnectedTextView = (TextView) findViewById(R.id.devicesConnected);
     }
 
@@ -46,41 +33,36 @@ public class TodayMobileActivity extends Activity implements
     @Override
     protected void onStart() {
         super.onStart();
-        if (!mGoogleApiClient.isConnected()) {
-            mGoogleApiClient.connect();
-        }
+        mApiClientLease = ApiClientManager.getInstance(this).acquire();
+        mApiClientLease.whenConnected(this);
     }
 
-
     @Override
-    public void onConnected(Bundle connectionHint) {
-        Log.i(TAG, "Google Api Client Connected");
+    protected void onStop() {
+        mApiClientLease.release();
+        super.onStop();
+    }
+
 
-        new Thread(new Runnable() {
+    @Override // ApiClientManager.Callback
+    public void onConnected(GoogleApiClient client) {
+        Log.i(TAG, "Google Api Client Connected");
 
+        WearableCalls.getConnectedNodes(client).addListener(new ResultFuture.Listener<List<Node>>() {
             @Override
-            public void run() {
-                mGoogleApiClient.blockingConnect(Constants.API_CLIENT_CONNECTION_TIME_OUT_MS, TimeUnit.MILLISECONDS);
-                NodeApi.GetConnectedNodesResult result =
-                        Wearable.NodeApi.getConnectedNodes(mGoogleApiClient).await();
-                final List<Node> nodes = result.getNodes();
-                runOnUiThread(new Runnable() {
-                    public void run() {
-                        Log.i(TAG, "Connected devices = " + nodes.size());
-                        devicesConnectedTextView.setText(String.valueOf(nodes.size()));
-                    }
-                });
+            public void onSuccess(List<Node> nodes) {
+                Log.i(TAG, "Connected devices = " + nodes.size());
+                devicesConnectedTextView.setText(String.valueOf(nodes.size()));
             }
-        }).start();
 
+            @Override
+            public void onFailure(Throwable error) {
+                Log.e(TAG, "Unable to get connected devices", error);
+            }
+        }, AsyncExecutors.mainThread());
     }
 
-    @Override
-    public void onConnectionSuspended(int cause) {
-        Log.i(TAG, "Failed to connect to Google Play Services");
-    }
-
-    @Override
+    @Override // ApiClientManager.Callback
     public void onConnectionFailed(ConnectionResult result) {
         Log.e(TAG, "Failed to connect to Google Play Services");
     }
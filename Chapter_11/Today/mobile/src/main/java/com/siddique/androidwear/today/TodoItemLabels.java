@@ -0,0 +1,33 @@
+package com.siddique.androidwear.today;
+
+import java.util.Set;
+
+/**
+ * 할일 목록 화면에 표시하는 "타입 - 할일" 형태의 라벨을 다룬다.
+ */
+public final class TodoItemLabels {
+
+    private static final String SEPARATOR = " - ";
+
+    public static String label(String todoItemType, String todoItem) {
+        return todoItemType + SEPARATOR + todoItem;
+    }
+
+    /**
+     * 라벨에 해당하는 할일을 찾는다. 라벨 문자열을 항목마다 만들지 않도록 접두어를 먼저 비교한다.
+     *
+     * @return 일치하는 할일. 없다면 null
+     */
+    public static String findItem(Set<String> todoItems, String todoItemType, String itemText) {
+        int prefixLength = todoItemType.length() + SEPARATOR.length();
+        if (itemText.length() < prefixLength
+                || !itemText.startsWith(todoItemType)
+                || !itemText.startsWith(SEPARATOR, todoItemType.length())) {
+            return null;
+        }
+        String todoItem = itemText.substring(prefixLength);
+        return todoItems.contains(todoItem) ? todoItem : null;
+    }
+
+    private TodoItemLabels() { }
+}
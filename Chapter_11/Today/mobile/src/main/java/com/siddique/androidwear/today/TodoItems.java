@@ -1,50 +1,80 @@
 package com.siddique.androidwear.today;
 
-import android.content.Context;
-import android.content.SharedPreferences;
-import android.util.Log;
-
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
+ * 종류 별 할 일 목록. 저장은 {@link Store} 에 맡기므로 안드로이드 API 를 사용하지 않는다.
+ * 앱에서는 {@link TodoItemsPreferences#getTodoItems} 로 SharedPreferences 에 저장하고 워치에 게시하는 인스턴스를 받는다.
+ *
  * Created by siddique on 7/3/16.
  */
 public class TodoItems {
 
+    /**
+     * 종류 별 목록을 저장하는 곳
+     */
+    public interface Store {
+        /**
+         * @return 저장된 목록. 수정하면 안 된다. 없다면 빈 Set
+         */
+        Set<String> read(String todoType);
+
+        void write(String todoType, Set<String> todoItems);
+    }
 
-    private static final String PREF_NAME = "TodoItems";
-    public static final String TAG = TodoItems.class.getName();
+    private final Store mStore;
+
+    public TodoItems(Store store) {
+        mStore = store;
+    }
 
-    public static void saveItems(Context context, String todoType, Set<String> todoItems) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putStringSet(todoType, todoItems);
-        editor.apply();
+    public void saveItems(String todoType, Set<String> todoItems) {
+        mStore.write(todoType, todoItems);
     }
 
-    public static void addItem(Context context, String todoType, String todo) {
-        Set<String> todoItems = TodoItems.readItems(context, todoType);
+    public synchronized void addItem(String todoType, String todo) {
+        // 저장소가 반환한 Set 은 직접 수정하면 안 되므로 복사본에 추가한다
+        Set<String> todoItems = new HashSet<String>(readItems(todoType));
         todoItems.add(todo);
-        TodoItems.saveItems(context, todoType, todoItems);
+        saveItems(todoType, todoItems);
     }
 
-    public static Set<String> readItems(Context context, String todoType) {
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        return sharedPreferences.getStringSet(todoType, new HashSet<String>());
+    public Set<String> readItems(String todoType) {
+        return mStore.read(todoType);
+    }
+
+    /**
+     * 목록 화면의 라벨({@link TodoItemLabels#label})에 해당하는 할 일을 지운다.
+     *
+     * @return 지웠다면 true
+     */
+    public synchronized boolean removeItem(String[] todoItemTypes, String itemText) {
+        for (String todoItemType : todoItemTypes) {
+            Set<String> todoItems = readItems(todoItemType);
+            String todoItem = TodoItemLabels.findItem(todoItems, todoItemType, itemText);
+            if (todoItem != null) {
+                // 저장소가 반환한 Set 은 직접 수정하면 안 되므로 복사본을 저장한다
+                Set<String> remainingItems = new HashSet<String>(todoItems);
+                remainingItems.remove(todoItem);
+                saveItems(todoItemType, remainingItems);
+                return true;
+            }
+        }
+        return false;
     }
 
-    public static void removeItem(Context context, String[] todoItemTypes, String itemText) {
+    /**
+     * @return 목록 화면에 표시할 모든 종류의 할 일 라벨
+     */
+    public ArrayList<String> readLabels(String[] todoItemTypes) {
+        ArrayList<String> labels = new ArrayList<String>();
         for (String todoItemType : todoItemTypes) {
-            Set<String> todoItems = readItems(context, todoItemType);
-            Log.i(TAG, "Todo Items = " + todoItems + " - contains = " + todoItems.contains(todoItemType + " - " + itemText));
-            for (String todoItem : todoItems) {
-                if ((todoItemType + " - " + todoItem).equals(itemText)) {
-                    todoItems.remove(todoItem);
-                    saveItems(context, todoItemType, todoItems);
-                    return;
-                }
+            for (String todoItem : readItems(todoItemType)) {
+                labels.add(TodoItemLabels.label(todoItemType, todoItem));
             }
         }
+        return labels;
     }
 }
@@ -0,0 +1,49 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 할 일 목록을 SharedPreferences 에 저장하고, 워치가 같은 목록을 보여줄 수 있도록 DataItem 으로도 게시한다.
+ */
+final class TodoItemsPreferences implements TodoItems.Store {
+
+    private static final String PREF_NAME = "TodoItems";
+
+    private static TodoItems sTodoItems;
+
+    private final Context mContext;
+    private final SharedPreferences mPreferences;
+
+    /**
+     * @return 프로세스에서 함께 사용하는 할 일 목록
+     */
+    static synchronized TodoItems getTodoItems(Context context) {
+        if (sTodoItems == null) {
+            sTodoItems = new TodoItems(new TodoItemsPreferences(context.getApplicationContext()));
+        }
+        return sTodoItems;
+    }
+
+    private TodoItemsPreferences(Context context) {
+        mContext = context;
+        mPreferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public Set<String> read(String todoType) {
+        return mPreferences.getStringSet(todoType, new HashSet<String>());
+    }
+
+    @Override
+    public void write(String todoType, Set<String> todoItems) {
+        mPreferences.edit()
+                .putStringSet(todoType, todoItems)
+                .apply();
+
+        TodoItemsSync.publish(mContext, todoType, todoItems);
+    }
+}
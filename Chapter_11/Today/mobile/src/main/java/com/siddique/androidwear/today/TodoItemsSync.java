@@ -0,0 +1,77 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.PutDataMapRequest;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 폰에 저장한 할 일 목록을 종류 별 DataItem ({@link Constants#TODO_ITEMS_PATH}/종류) 으로 워치에 게시한다.
+ *
+ * 한 종류의 목록 전체를 정렬된 문자열 목록 하나로 넣으며, DataItem 을 페이지 단위로 나누지 않는다. 페이지는 워치의
+ * 화면에서만 나눈다. 내용이 같은 DataItem 은 다시 전송되지 않으므로, 저장할 때마다 게시해도 바뀐 종류만 워치로 전달된다.
+ */
+public final class TodoItemsSync {
+
+    private static final String TAG = TodoItemsSync.class.getName();
+
+    /**
+     * 한 종류의 할 일 목록을 게시한다. 어느 스레드에서나 호출할 수 있으며 호출한 스레드를 막지 않는다.
+     */
+    public static void publish(Context context, String todoType, Set<String> todoItems) {
+        ArrayList<String> items = new ArrayList<String>(todoItems);
+        Collections.sort(items);
+
+        PutDataMapRequest dataMapRequest =
+                PutDataMapRequest.create(Constants.TODO_ITEMS_PATH + "/" + todoType);
+        dataMapRequest.getDataMap().putStringArrayList(Constants.TODO_ITEMS_KEY, items);
+        putDataItem(context, dataMapRequest.asPutDataRequest());
+    }
+
+    /**
+     * 모든 종류의 할 일 목록을 게시한다.
+     */
+    public static void publishAll(Context context) {
+        TodoItems todoItems = TodoItemsPreferences.getTodoItems(context);
+        for (String todoType : context.getResources().getStringArray(R.array.todoItemTypes)) {
+            publish(context, todoType, todoItems.readItems(todoType));
+        }
+    }
+
+    /**
+     * 호출한 화면이나 서비스가 먼저 종료될 수 있으므로, 요청마다 공유 연결의 사용권을 받아서 전송이 끝나면 반납한다.
+     */
+    private static void putDataItem(Context context, final PutDataRequest request) {
+        final ApiClientManager.Lease lease = ApiClientManager.getInstance(context).acquire();
+        lease.connected()
+                .then(new ResultFuture.AsyncFunction<GoogleApiClient, DataApi.DataItemResult>() {
+                    @Override
+                    public ResultFuture<DataApi.DataItemResult> apply(GoogleApiClient client) {
+                        return PendingResults.toFuture(Wearable.DataApi.putDataItem(client, request));
+                    }
+                }, AsyncExecutors.direct())
+                .addListener(new ResultFuture.Listener<DataApi.DataItemResult>() {
+                    @Override
+                    public void onSuccess(DataApi.DataItemResult result) {
+                        Log.d(TAG, "Todo items published: " + result.getDataItem().getUri());
+                        lease.release();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.e(TAG, "Unable to publish todo items", error);
+                        lease.release();
+                    }
+                }, AsyncExecutors.direct());
+    }
+
+    private TodoItemsSync() { }
+}
@@ -1,45 +1,36 @@
 package com.siddique.androidwear.today;
 
-import android.app.PendingIntent;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.content.Intent;
 import android.os.Bundle;
-import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
 import android.util.Log;
 import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.EditText;
 import android.widget.ListView;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.location.Geofence;
-import com.google.android.gms.location.LocationServices;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
-public class TodoMobileActivity extends AppCompatActivity implements GoogleApiClient.ConnectionCallbacks,
-        GoogleApiClient.OnConnectionFailedListener {
+public class TodoMobileActivity extends AppCompatActivity {
 
     private ListView mTaskListView;
     private ArrayAdapter<String> mAdapter;
 
     public static final String TAG = TodoMobileActivity.class.getName();
-    private List<Geofence> geofenceList;
-    private PendingIntent mGeofencePendingIntent;
-
-    private GoogleApiClient mGoogleApiClient;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -83,9 +74,8 @@ public class TodoMobileActivity extends AppCompatActivity implements GoogleApiCl
                                     Log.i(TAG, "Todo Item type = " + todoItemType);
 
                                     String task = String.valueOf(taskEditText.getText());
-                                    Set<String> todoItems = TodoItems.readItems(TodoMobileActivity.this, todoItemType);
-                                    todoItems.add(task);
-                                    TodoItems.saveItems(TodoMobileActivity.this, todoItemType, todoItems);
+                                    TodoItemsPreferences.getTodoItems(TodoMobileActivity.this)
+                                            .addItem(todoItemType, task);
                                     refreshItems();
                                 }
                             })
@@ -96,47 +86,126 @@ public class TodoMobileActivity extends AppCompatActivity implements GoogleApiCl
             });
         }
 
-        if (null == mGoogleApiClient) {
-            mGoogleApiClient = new GoogleApiClient.Builder(this)
-                    .addApi(LocationServices.API)
-                    .addConnectionCallbacks(this)
-                    .addOnConnectionFailedListener(this)
-                    .build();
-            Log.i(TAG, "GoogleApiClient created");
-        }
+        // 등록된 지오펜스와 같다면 서비스는 로케이션 서비스를 호출하지 않는다
+        GeofenceRegistrationService.start(this);
 
-        if (!mGoogleApiClient.isConnected()) {
-            mGoogleApiClient.connect();
-            Log.i(TAG, "Connecting to GoogleApiClient..");
+        // 이 버전 이전에 저장한 할 일도 워치에 보이도록 한 번 게시한다. 내용이 같다면 워치로 다시 전송되지 않는다.
+        TodoItemsSync.publishAll(this);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_todo_mobile, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case R.id.action_add_place:
+                addPlaceAtCurrentLocation();
+                return true;
+            case R.id.action_remove_place:
+                showRemovePlaceDialog();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
         }
     }
 
-    private void createGeofences() {
-        Log.i(TAG, "Creating geo fences");
-        geofenceList = new ArrayList<Geofence>();
+    /**
+     * 현재 위치를 중심으로 할 일 유형을 알려줄 장소를 추가한다.
+     */
+    private void addPlaceAtCurrentLocation() {
+        final ApiClientManager.Lease lease = ApiClientManager.getInstance(this).acquire();
+        lease.whenConnected(new ApiClientManager.Callback() {
+            @Override
+            public void onConnected(GoogleApiClient client) {
+                GeoPoint location = new FusedLocationSource(client).getLastLocation();
+                lease.release();
+                if (isFinishing()) {
+                    return;
+                }
+                if (location == null) {
+                    Toast.makeText(TodoMobileActivity.this, R.string.location_unknown,
+                            Toast.LENGTH_SHORT).show();
+                } else {
+                    showAddPlaceDialog(location);
+                }
+            }
+
+            @Override
+            public void onConnectionFailed(ConnectionResult result) {
+                Log.e(TAG, "Unable to connect to GoogleApiClient: " + result);
+                lease.release();
+                if (!isFinishing()) {
+                    Toast.makeText(TodoMobileActivity.this, R.string.location_unknown,
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
 
-        geofenceList.add(new SimpleGeofence(
-                Constants.HOME_GEOFENCE_ID,
-                Constants.HOME_LATITUDE,
-                Constants.HOME_LONGITUDE).toGeofence());
+    private void showAddPlaceDialog(final GeoPoint location) {
+        final View addPlaceView = getLayoutInflater().inflate(R.layout.add_place, null);
+
+        final Spinner spinner = (Spinner) addPlaceView.findViewById(R.id.placeTodoType);
+        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(this,
+                R.array.todoItemTypes, android.R.layout.simple_spinner_item);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinner.setAdapter(adapter);
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.add_place_title)
+                .setView(addPlaceView)
+                .setPositiveButton("Add", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        EditText nameEditText = (EditText) addPlaceView.findViewById(R.id.placeName);
+                        String todoType = (String) spinner.getSelectedItem();
+                        String name = String.valueOf(nameEditText.getText()).trim();
+                        if (name.isEmpty()) {
+                            name = todoType;
+                        }
+                        Place place = PlaceStore.getInstance(TodoMobileActivity.this).addPlace(name, todoType,
+                                location.getLatitude(), location.getLongitude(), Place.DEFAULT_RADIUS_METERS);
+                        Log.i(TAG, "Place added = " + place);
+                        // 장소 목록의 버전이 바뀌었으므로 지오펜스를 다시 등록한다
+                        GeofenceRegistrationService.start(TodoMobileActivity.this);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
 
+    private void showRemovePlaceDialog() {
+        final List<Place> places = PlaceStore.getInstance(this).getPlaces();
+        String[] labels = new String[places.size()];
+        for (int i = 0; i < places.size(); i++) {
+            Place place = places.get(i);
+            labels[i] = getString(R.string.place_label, place.getName(), place.getTodoType());
+        }
 
-        geofenceList.add(new SimpleGeofence(
-                Constants.WORK_GEOFENCE_ID,
-                Constants.WORK_LATITUDE,
-                Constants.WORK_LONGITUDE).toGeofence());
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.remove_place_title)
+                .setItems(labels, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Place place = places.get(which);
+                        if (PlaceStore.getInstance(TodoMobileActivity.this).removePlace(place.getId())) {
+                            Log.i(TAG, "Place removed = " + place);
+                            GeofenceRegistrationService.start(TodoMobileActivity.this);
+                        }
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
     }
 
     private void refreshItems() {
-        ArrayList<String> taskList = new ArrayList<>();
-
         String[] todoItemTypes = getResources().getStringArray(R.array.todoItemTypes);
-        for (String todoItemType : todoItemTypes) {
-            Set<String> todoItems = TodoItems.readItems(this, todoItemType);
-            for (String todoItem : todoItems) {
-                taskList.add(todoItemType + " - " + todoItem);
-            }
-        }
+        ArrayList<String> taskList =
+                TodoItemsPreferences.getTodoItems(this).readLabels(todoItemTypes);
 
         if (mAdapter == null) {
             mAdapter = new ArrayAdapter<>(this,
@@ -160,36 +229,9 @@ public class TodoMobileActivity extends AppCompatActivity implements GoogleApiCl
 
 
         String[] todoItemTypes = getResources().getStringArray(R.array.todoItemTypes);
-        TodoItems.removeItem(this, todoItemTypes, removingItem);
-        refreshItems();
-    }
-
-    @Override
-    public void onConnected(@Nullable Bundle bundle) {
-        if (mGoogleApiClient != null) {
-            mGeofencePendingIntent = getGeofenceTransitionPendingIntent();
-            createGeofences();
-
-            Log.i(TAG, "Adding geofences to API location services");
-            LocationServices.GeofencingApi.addGeofences(mGoogleApiClient, geofenceList,
-                    mGeofencePendingIntent);
+        if (!TodoItemsPreferences.getTodoItems(this).removeItem(todoItemTypes, removingItem)) {
+            Log.w(TAG, "Todo item not found: " + removingItem);
         }
-    }
-
-
-
-    private PendingIntent getGeofenceTransitionPendingIntent() {
-        Intent intent = new Intent(this, GeofenceTransitionsIntentService.class);
-        return PendingIntent.getService(this, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
-    }
-
-    @Override
-    public void onConnectionSuspended(int i) {
-        Log.i(TAG, "onConnectionSuspended called");
-    }
-
-    @Override
-    public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
-        Log.i(TAG, "onConnectionFailed called");
+        refreshItems();
     }
 }
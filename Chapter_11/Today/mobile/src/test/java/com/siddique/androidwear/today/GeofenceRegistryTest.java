@@ -0,0 +1,209 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 가짜 위치 제공자와 가짜 등록기로 {@link GeofenceRegistry} 의 등록 계획을 확인한다.
+ */
+public class GeofenceRegistryTest {
+
+    /** 기본 장소(Home, Work) 근처에 격자 모양으로 추가하는 장소 수는 GRID_SIZE * GRID_SIZE 개 */
+    private static final int GRID_SIZE = 15;
+    private static final double GRID_DEGREES = 0.005;
+
+    private static final GeoPoint NEAR_HOME = new GeoPoint(38.8512, -77.0437);
+
+    private PlaceStore mPlaceStore;
+    private GeofenceRegistry mRegistry;
+    private RecordingRegistrar mRegistrar;
+
+    @Before
+    public void setUp() {
+        mPlaceStore = new PlaceStore(new FakeSharedPreferences());
+        mRegistry = new GeofenceRegistry(new FakeSharedPreferences(), mPlaceStore);
+        mRegistrar = new RecordingRegistrar();
+    }
+
+    @Test
+    public void planSelectsNearestPlacesWithinLimit() {
+        addGrid();
+
+        GeofenceRegistry.Plan plan = mRegistry.plan(NEAR_HOME);
+
+        assertEquals(GeofenceRegistry.MAX_GEOFENCES - 1, plan.selected.size());
+        assertEquals(idsOf(nearestByBruteForce(NEAR_HOME, GeofenceRegistry.MAX_GEOFENCES - 1)),
+                idsOf(plan.selected));
+        for (int i = 1; i < plan.selected.size(); i++) {
+            assertTrue(distance(plan.selected.get(i - 1), NEAR_HOME)
+                    <= distance(plan.selected.get(i), NEAR_HOME));
+        }
+        // 처음 등록하므로 모두 새로 등록한다
+        assertEquals(plan.selected, plan.added);
+        assertTrue(plan.removedIds.isEmpty());
+        assertTrue(plan.ranked);
+    }
+
+    @Test
+    public void planPlacesRerankFenceAroundLocation() {
+        addGrid();
+
+        GeofenceRegistry.Plan plan = mRegistry.plan(NEAR_HOME);
+
+        assertNotNull(plan.rerankFence);
+        assertEquals(NEAR_HOME.getLatitude(), plan.rerankLatitude, 0);
+        assertEquals(NEAR_HOME.getLongitude(), plan.rerankLongitude, 0);
+        Place farthest = plan.selected.get(plan.selected.size() - 1);
+        assertEquals(Math.max(GeofenceRegistry.MIN_RERANK_RADIUS_METERS,
+                (float) distance(farthest, NEAR_HOME) / 2), plan.rerankRadius, 0.001f);
+    }
+
+    @Test
+    public void rerankFenceStaysWhileInsideAndMovesAfterLeaving() {
+        addGrid();
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(NEAR_HOME)));
+        assertTrue(mRegistrar.addedIds.contains(GeofenceRegistry.RERANK_GEOFENCE_ID));
+        assertTrue(mRegistry.isUpToDate());
+
+        // 영역 안에서 조금 움직였다면 영역을 옮기지 않는다
+        GeoPoint nearby = new GeoPoint(NEAR_HOME.getLatitude() + 0.0005, NEAR_HOME.getLongitude());
+        assertNull(mRegistry.plan(nearby).rerankFence);
+
+        // 영역을 벗어났다면 새 위치를 중심으로 영역을 옮기고 순위를 다시 매긴다
+        GeoPoint faraway = new GeoPoint(NEAR_HOME.getLatitude() + 0.05, NEAR_HOME.getLongitude() - 0.03);
+        GeofenceRegistry.Plan plan = mRegistry.plan(faraway);
+        assertNotNull(plan.rerankFence);
+        assertEquals(faraway.getLatitude(), plan.rerankLatitude, 0);
+        assertEquals(idsOf(nearestByBruteForce(faraway, GeofenceRegistry.MAX_GEOFENCES - 1)),
+                idsOf(plan.selected));
+        assertFalse(plan.removedIds.isEmpty());
+    }
+
+    @Test
+    public void unknownLocationRegistersWithoutRankingAndIsNotUpToDate() {
+        addGrid();
+
+        GeofenceRegistry.Plan plan = mRegistry.plan(null);
+        assertEquals(GeofenceRegistry.MAX_GEOFENCES - 1, plan.selected.size());
+        assertNull(plan.rerankFence);
+        assertFalse(plan.ranked);
+
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(null)));
+        assertEquals(GeofenceRegistry.MAX_GEOFENCES - 1, mRegistrar.addedIds.size());
+        // 순위를 매기지 못했으므로 다음 등록 요청에서 다시 계획을 세운다
+        assertFalse(mRegistry.isUpToDate());
+
+        mRegistrar.addedIds.clear();
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(NEAR_HOME)));
+        assertTrue(mRegistrar.addedIds.contains(GeofenceRegistry.RERANK_GEOFENCE_ID));
+        assertTrue(mRegistry.isUpToDate());
+    }
+
+    @Test
+    public void allPlacesFitWithoutRerankFence() {
+        // 기본 장소 두 개뿐이라면 위치를 몰라도 순위가 바뀌지 않는다
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(null)));
+
+        assertEquals(2, mRegistrar.addedIds.size());
+        assertFalse(mRegistrar.addedIds.contains(GeofenceRegistry.RERANK_GEOFENCE_ID));
+        assertTrue(mRegistry.isUpToDate());
+        assertTrue(mRegistry.plan(NEAR_HOME).isUnchanged());
+    }
+
+    @Test
+    public void changedPlacesAreNotUpToDate() {
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(NEAR_HOME)));
+        assertTrue(mRegistry.isUpToDate());
+
+        Place place = mPlaceStore.addPlace("Gym", "Home", 38.86, -77.05, Place.DEFAULT_RADIUS_METERS);
+        assertFalse(mRegistry.isUpToDate());
+
+        mRegistrar.addedIds.clear();
+        assertTrue(mRegistry.update(mRegistrar, new FakeLocationSource(NEAR_HOME)));
+        assertTrue(mRegistrar.addedIds.contains(place.getId()));
+        assertTrue(mRegistry.isUpToDate());
+    }
+
+    private void addGrid() {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            for (int j = 0; j < GRID_SIZE; j++) {
+                mPlaceStore.addPlace("Place " + i + "," + j, "Home",
+                        38.80 + i * GRID_DEGREES, -77.10 + j * GRID_DEGREES, Place.DEFAULT_RADIUS_METERS);
+            }
+        }
+    }
+
+    private List<Place> nearestByBruteForce(final GeoPoint location, int count) {
+        List<Place> places = new ArrayList<Place>(mPlaceStore.getPlaces());
+        Collections.sort(places, new Comparator<Place>() {
+            @Override
+            public int compare(Place a, Place b) {
+                return Double.compare(distance(a, location), distance(b, location));
+            }
+        });
+        return places.subList(0, count);
+    }
+
+    private static double distance(Place place, GeoPoint location) {
+        return place.distanceTo(location.getLatitude(), location.getLongitude());
+    }
+
+    private static Set<String> idsOf(List<Place> places) {
+        Set<String> ids = new HashSet<String>();
+        for (Place place : places) {
+            ids.add(place.getId());
+        }
+        return ids;
+    }
+
+    private static final class FakeLocationSource implements LocationSource {
+        private final GeoPoint mLocation;
+
+        FakeLocationSource(GeoPoint location) {
+            mLocation = location;
+        }
+
+        @Override
+        public GeoPoint getLastLocation() {
+            return mLocation;
+        }
+    }
+
+    /**
+     * 로케이션 서비스를 호출하지 않고 등록하거나 지운 지오펜스 ID 만 기록한다.
+     */
+    private static final class RecordingRegistrar implements GeofenceRegistrar {
+        final Set<String> addedIds = new HashSet<String>();
+        final Set<String> removedIds = new HashSet<String>();
+
+        @Override
+        public boolean addGeofences(GeofencingRequest request) {
+            for (Geofence geofence : request.getGeofences()) {
+                addedIds.add(geofence.getRequestId());
+            }
+            return true;
+        }
+
+        @Override
+        public boolean removeGeofences(List<String> geofenceIds) {
+            removedIds.addAll(geofenceIds);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.location.Geofence;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link GeofenceTransitionEngine} 가 한 번의 방문에 한 번만 알리고, 재진입 오차와 알림 간격을 지키는지 확인한다.
+ * 시각은 모두 테스트가 넘겨준다.
+ */
+public class GeofenceTransitionEngineTest {
+
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long COOL_DOWN_MS = 60 * MINUTE_MS;
+
+    private static final Place HOME = new Place("home", "Home", "Home", 38.85, -77.04,
+            Place.DEFAULT_RADIUS_METERS);
+
+    /** 기준 시각. 0 은 "기록 없음" 으로 쓰이므로 피한다 */
+    private static final long T0 = 1000000000000L;
+
+    private GeofenceTransitionEngine mEngine;
+
+    @Before
+    public void setUp() {
+        mEngine = new GeofenceTransitionEngine(new FakeSharedPreferences(), COOL_DOWN_MS);
+    }
+
+    @Test
+    public void onlyDwellNotifies() {
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_ENTER, T0));
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_ENTER, T0 + 1000));
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0 + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void dwellNotifiesOncePerVisit() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0 + MINUTE_MS));
+        // 알림 간격이 지나도 같은 방문이라면 다시 알리지 않는다
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                T0 + 2 * COOL_DOWN_MS));
+    }
+
+    @Test
+    public void exitEndsVisit() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, T0 + MINUTE_MS));
+
+        // 재진입 오차와 알림 간격이 모두 지난 다음 방문은 다시 알린다
+        long nextVisit = T0 + MINUTE_MS + COOL_DOWN_MS;
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_ENTER, nextVisit));
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                nextVisit + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void dwellShortlyAfterExitContinuesVisit() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        long exit = T0 + 2 * COOL_DOWN_MS;
+        mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, exit);
+
+        // 알림 간격은 지났지만 10분 안에 다시 머물렀으므로 같은 방문이다
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                exit + 10 * MINUTE_MS - 1));
+        // 이어진 방문 중에도 다시 알리지 않는다
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                exit + 20 * MINUTE_MS));
+    }
+
+    @Test
+    public void dwellAfterRearmIsNewVisit() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        long exit = T0 + 2 * COOL_DOWN_MS;
+        mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, exit);
+
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                exit + 10 * MINUTE_MS));
+    }
+
+    @Test
+    public void rearmIsPerPlace() {
+        Place quick = new Place("cafe", "Cafe", "Home", 38.86, -77.05, Place.DEFAULT_RADIUS_METERS,
+                Place.DEFAULT_LOITERING_DELAY_MS, MINUTE_MS);
+        assertTrue(mEngine.onTransition(quick, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        long exit = T0 + 2 * COOL_DOWN_MS;
+        mEngine.onTransition(quick, Geofence.GEOFENCE_TRANSITION_EXIT, exit);
+
+        assertTrue(mEngine.onTransition(quick, Geofence.GEOFENCE_TRANSITION_DWELL, exit + MINUTE_MS));
+    }
+
+    @Test
+    public void coolDownSuppressesNextVisitWithinAnHour() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, T0 + MINUTE_MS);
+
+        // 재진입 오차는 지났지만 마지막 알림 후 1시간이 지나지 않았다
+        assertFalse(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL,
+                T0 + COOL_DOWN_MS - 1));
+        // 알리지 않은 방문은 끝나도 재진입 오차로 보지 않으므로 1시간이 지나면 바로 알린다
+        mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, T0 + COOL_DOWN_MS - 1);
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0 + COOL_DOWN_MS));
+    }
+
+    @Test
+    public void placesAreTrackedSeparately() {
+        Place work = new Place("work", "Work", "Work", 38.90, -77.00, Place.DEFAULT_RADIUS_METERS);
+
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        assertTrue(mEngine.onTransition(work, Geofence.GEOFENCE_TRANSITION_DWELL, T0 + MINUTE_MS));
+    }
+
+    @Test
+    public void clockMovedBackDoesNotSuppress() {
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0));
+        mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_EXIT, T0 + MINUTE_MS);
+
+        // 시계가 뒤로 가서 기록된 시각보다 이전이면 간격 규칙을 적용하지 않는다
+        assertTrue(mEngine.onTransition(HOME, Geofence.GEOFENCE_TRANSITION_DWELL, T0 - MINUTE_MS));
+    }
+}
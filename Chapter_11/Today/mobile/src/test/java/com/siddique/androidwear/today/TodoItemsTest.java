@@ -0,0 +1,94 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 메모리 저장소로 {@link TodoItems} 의 추가, 삭제, 라벨 목록을 확인한다.
+ */
+public class TodoItemsTest {
+
+    private static final String[] TYPES = {"Home", "Work"};
+
+    private MemoryStore mStore;
+    private TodoItems mTodoItems;
+
+    @Before
+    public void setUp() {
+        mStore = new MemoryStore();
+        mTodoItems = new TodoItems(mStore);
+    }
+
+    @Test
+    public void addItemDoesNotModifyStoredSet() {
+        mTodoItems.addItem("Home", "Buy milk");
+        Set<String> stored = mStore.mItems.get("Home");
+
+        mTodoItems.addItem("Home", "Call plumber");
+
+        assertEquals(Collections.singleton("Buy milk"), stored);
+        assertEquals(new HashSet<String>(Arrays.asList("Buy milk", "Call plumber")),
+                mTodoItems.readItems("Home"));
+        assertEquals(2, mStore.mWrites);
+    }
+
+    @Test
+    public void removeItemFindsTypeFromLabel() {
+        mTodoItems.addItem("Home", "Buy milk");
+        mTodoItems.addItem("Work", "Buy milk");
+
+        assertTrue(mTodoItems.removeItem(TYPES, TodoItemLabels.label("Work", "Buy milk")));
+
+        assertEquals(Collections.singleton("Buy milk"), mTodoItems.readItems("Home"));
+        assertTrue(mTodoItems.readItems("Work").isEmpty());
+    }
+
+    @Test
+    public void removeUnknownItemDoesNotWrite() {
+        mTodoItems.addItem("Home", "Buy milk");
+
+        assertFalse(mTodoItems.removeItem(TYPES, TodoItemLabels.label("Home", "Buy bread")));
+        assertFalse(mTodoItems.removeItem(TYPES, "Buy milk"));
+        assertEquals(1, mStore.mWrites);
+    }
+
+    @Test
+    public void readLabelsListsEveryType() {
+        mTodoItems.addItem("Home", "Buy milk");
+        mTodoItems.addItem("Work", "Send report");
+
+        assertEquals(Arrays.asList("Home - Buy milk", "Work - Send report"),
+                mTodoItems.readLabels(TYPES));
+    }
+
+    /**
+     * SharedPreferences 처럼 쓴 Set 을 그대로 보관하고 읽을 때 같은 인스턴스를 돌려준다.
+     */
+    private static final class MemoryStore implements TodoItems.Store {
+        final Map<String, Set<String>> mItems = new HashMap<String, Set<String>>();
+        int mWrites;
+
+        @Override
+        public Set<String> read(String todoType) {
+            Set<String> items = mItems.get(todoType);
+            return items != null ? items : Collections.<String>emptySet();
+        }
+
+        @Override
+        public void write(String todoType, Set<String> todoItems) {
+            mItems.put(todoType, todoItems);
+            mWrites++;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.siddique.androidwear.today;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 캔버스 엔진의 대기 모드 전용 렌더러.
+ *
+ * 대기 모드의 프레임은 1분 동안 바뀌지 않으므로, 분이 바뀌거나 {@link WatchFaceController#getFrameVersion()} 이
+ * 바뀌었을 때만 비트맵에 한 번 그려두고, 그 사이의 onDraw 는 비트맵을 한 번 복사하기만 한다.
+ * 배경은 사각형을 채우는 대신 비트맵을 배경색으로 지운다. 대기 모드의 색은 흑백이므로 RGB_565 비트맵을 사용한다.
+ */
+final class AmbientWatchFaceRenderer implements WatchFaceRenderer {
+
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final WatchFaceController mController;
+
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+
+    /** 비트맵에 그린 프레임이 유효한지 여부와, 그릴 때의 분, 프레임 버전, 카드 여부 */
+    private boolean mValid;
+    private long mMinute;
+    private int mFrameVersion;
+    private boolean mPeekCardEmpty;
+
+    AmbientWatchFaceRenderer(WatchFaceController controller) {
+        mController = controller;
+    }
+
+    /**
+     * 대기 모드의 한 프레임을 그린다. 미리 그려둔 프레임이 유효하다면 비트맵만 복사한다.
+     *
+     * @param peekCardEmpty 화면에 보여줄 카드가 없는지 여부
+     */
+    void draw(Canvas canvas, Rect bounds, boolean peekCardEmpty) {
+        if (mBitmap == null
+                || mBitmap.getWidth() != bounds.width() || mBitmap.getHeight() != bounds.height()) {
+            release();
+            mBitmap = Bitmap.createBitmap(bounds.width(), bounds.height(), Bitmap.Config.RGB_565);
+            mCanvas = new Canvas(mBitmap);
+        }
+
+        long minute = System.currentTimeMillis() / MINUTE_MS;
+        int frameVersion = mController.getFrameVersion();
+        if (!mValid || minute != mMinute || frameVersion != mFrameVersion
+                || peekCardEmpty != mPeekCardEmpty) {
+            mController.drawFrame(this);
+            mValid = true;
+            mMinute = minute;
+            mFrameVersion = frameVersion;
+            mPeekCardEmpty = peekCardEmpty;
+        }
+        canvas.drawBitmap(mBitmap, bounds.left, bounds.top, null);
+    }
+
+    /**
+     * 대화 모드로 돌아가거나 엔진이 종료될 때 비트맵을 놓아준다.
+     */
+    void release() {
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+            mCanvas = null;
+        }
+        mValid = false;
+    }
+
+    @Override
+    public void drawBackground() {
+        mBitmap.eraseColor(mController.getBackgroundPaint().getColor());
+    }
+
+    @Override
+    public float measureText(String text, int style) {
+        return mController.getPaint(style).measureText(text);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, int style) {
+        mCanvas.drawText(text, x, y, mController.getPaint(style));
+    }
+}
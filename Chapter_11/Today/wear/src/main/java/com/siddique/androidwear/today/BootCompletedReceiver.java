@@ -0,0 +1,24 @@
+package com.siddique.androidwear.today;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * 부팅이 끝나면 걸음 수 측정 서비스를 다시 시작하고, 시계가 바뀌면 {@link StepStore} 의 부팅 시각을 옮긴다.
+ */
+public class BootCompletedReceiver extends BroadcastReceiver {
+
+    private static final String TAG = BootCompletedReceiver.class.getName();
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
+            Log.i(TAG, "Boot completed, starting step counter service");
+            StepCounterService.start(context);
+        } else if (Intent.ACTION_TIME_CHANGED.equals(intent.getAction())) {
+            StepStore.onClockChanged(context);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.siddique.androidwear.today;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+/**
+ * {@link Canvas} 로 그리는 렌더러. 텍스트 종류 별 페인트는 {@link WatchFaceController} 의 것을 사용한다.
+ */
+final class CanvasWatchFaceRenderer implements WatchFaceRenderer {
+
+    private final WatchFaceController mController;
+
+    /**
+     * {@link #setTarget(Canvas, Rect)} 와 다음 호출 사이에만 유효한 캔버스와 영역
+     */
+    private Canvas mCanvas;
+    private Rect mBounds;
+
+    CanvasWatchFaceRenderer(WatchFaceController controller) {
+        mController = controller;
+    }
+
+    /**
+     * 그릴 캔버스를 지정한다. 프레임을 그린 후에는 null 로 지정해서 캔버스를 놓아준다.
+     */
+    void setTarget(Canvas canvas, Rect bounds) {
+        mCanvas = canvas;
+        mBounds = bounds;
+    }
+
+    @Override
+    public void drawBackground() {
+        mCanvas.drawRect(0, 0, mBounds.width(), mBounds.height(), mController.getBackgroundPaint());
+    }
+
+    @Override
+    public float measureText(String text, int style) {
+        return mController.getPaint(style).measureText(text);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, int style) {
+        mCanvas.drawText(text, x, y, mController.getPaint(style));
+    }
+}
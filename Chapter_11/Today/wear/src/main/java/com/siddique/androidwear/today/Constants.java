@@ -11,4 +11,8 @@ public class Constants {
     public static final String HOME_TODO_ITEM = "/today/homeTodo";
     public static final String WORK_TODO_ITEM = "/today/workTodo";
 
+    // 폰이 할 일 종류 별로 게시하는 DataItem 경로의 접두어 (예: /today/todos/Home) 와 항목 목록 키
+    public static final String TODO_ITEMS_PATH = "/today/todos";
+    public static final String TODO_ITEMS_KEY = "items";
+
 }
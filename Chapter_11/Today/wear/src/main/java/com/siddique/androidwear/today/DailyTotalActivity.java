@@ -15,24 +15,16 @@
  */
 package com.siddique.androidwear.today;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
-import android.content.Context;
-import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.wearable.activity.WearableActivity;
 import android.support.wearable.view.WatchViewStub;
 import android.util.Log;
 import android.widget.TextView;
 
-import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 
 /**
  * WearableActivity 를 확장하고 onEnterAmbient, onUpdateAmbient, onExitAmbient 메서드를 오버라이딩 해서
@@ -61,23 +53,17 @@ import java.util.concurrent.TimeUnit;
  * 가급적 흰색 픽셀로 채우는 영역을 갖지 않기, 흑백 색상만 사용하기,
  * 안티 앨리어싱 사용하지 않기 등의 우수 실천 사례를 적용했다.
  */
-public class DailyTotalActivity extends WearableActivity {
+public class DailyTotalActivity extends WearableActivity implements
+        RefreshScheduler.RenderClient {
 
     private static final String TAG = DailyTotalActivity.class.getSimpleName();
 
-    /** 핸들러에 전달하는 메시지의 'what' 값 */
-    private static final int MSG_UPDATE_SCREEN = 0;
-
-    /** 상태 별 업데이트 주기. 단위는 밀리초 */
-    private static final long ACTIVE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
-    private static final long AMBIENT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(20);
-
-
     private TextView mTimeTextView;
     private TextView mTimeStampTextView;
     private TextView mStateTextView;
     private TextView mUpdateRateTextView;
     private TextView mDrawCountTextView;
+    private TextView mStepCountTextView;
 
     private final SimpleDateFormat sDateFormat =
             new SimpleDateFormat("HH:mm:ss", Locale.US);
@@ -85,18 +71,7 @@ public class DailyTotalActivity extends WearableActivity {
     private volatile int mDrawCount = 0;
 
 
-    /**
-     * 핸들러는 디바이스가 대기 모드이면서 충전중이 아닐 경우 프로세서를 깨우지 못하기 때문에 대화 모드에서만 사용한다.
-     * 대신 1분 보다 자주 정보를 갱신하기 위해 대기 모드에선 알람을 이용한다.
-     * 1분 보다 자주 갱신할 필요가 없다면, 알람 관련된 코드는 모두 지우고 onUpdateAmbient() 메서드만 이용해도 된다.
-     */
-    private AlarmManager mAmbientStateAlarmManager;
-    private PendingIntent mAmbientStatePendingIntent;
-
-    /**
-     * 대화 모드에서 사용하는 커스텀 핸들러. 메모리 누수를 막기 위해 정적 클래스로 선언한다.
-     */
-    private final Handler mActiveModeUpdateHandler = new UpdateHandler(this);
+    private RefreshScheduler mRefreshScheduler;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
@@ -105,17 +80,10 @@ public class DailyTotalActivity extends WearableActivity {
 
         setContentView(R.layout.daily_total_activity_main);
 
-        setAmbientEnabled();
-
-        mAmbientStateAlarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
-        Intent ambientStateIntent = new Intent(getApplicationContext(), DailyTotalActivity.class);
-
-        mAmbientStatePendingIntent = PendingIntent.getActivity(
-                getApplicationContext(),
-                0 /* requestCode */,
-                ambientStateIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT);
+        // 걸음 수 기록은 센서 서비스가 쌓으므로, 이 화면만 열어도 기록이 시작되게 한다
+        StepCounterService.start(this);
 
+        setAmbientEnabled();
 
         /** 워치가 원형인지 사각형인지 판단하고, 적절한 뷰를 적용한다. **/
         final WatchViewStub stub = (WatchViewStub) findViewById(R.id.watch_view_stub);
@@ -128,31 +96,33 @@ public class DailyTotalActivity extends WearableActivity {
                 mStateTextView = (TextView) stub.findViewById(R.id.state);
                 mUpdateRateTextView = (TextView) stub.findViewById(R.id.update_rate);
                 mDrawCountTextView = (TextView) stub.findViewById(R.id.draw_count);
+                mStepCountTextView = (TextView) stub.findViewById(R.id.step_count);
 
-                refreshDisplayAndSetNextUpdate();
+                // 레이아웃이 만들어지기 전에 대기 모드에 들어갔다면 여기서 대기 모드 UI 를 적용한다
+                if (isAmbient()) {
+                    setAmbientStyle(true);
+                }
+                mRefreshScheduler = RefreshScheduler.getInstance(DailyTotalActivity.this);
+                mRefreshScheduler.register(DailyTotalActivity.this, isAmbient());
             }
         });
     }
 
-    /**
-     * 대게 대기 모드에서 알람에 의해 호출되며, 데이터 처리와 화면 갱신을 수행한다.
-     */
     @Override
-    public void onNewIntent(Intent intent) {
-        Log.d(TAG, "onNewIntent(): " + intent);
-        super.onNewIntent(intent);
-
-        setIntent(intent);
-
-        refreshDisplayAndSetNextUpdate();
+    protected void onResume() {
+        super.onResume();
+        // 화면을 보고 있는 동안에는 FIFO 에 쌓인 걸음 수를 바로 반영한다
+        StepCounterService.flush(this);
     }
 
     @Override
     public void onDestroy() {
         Log.d(TAG, "onDestroy()");
 
-        mActiveModeUpdateHandler.removeMessages(MSG_UPDATE_SCREEN);
-        mAmbientStateAlarmManager.cancel(mAmbientStatePendingIntent);
+        /** 레이아웃이 만들어지기 전에 종료될 수 있다. */
+        if (mRefreshScheduler != null) {
+            mRefreshScheduler.unregister(this);
+        }
 
         super.onDestroy();
     }
@@ -165,43 +135,26 @@ public class DailyTotalActivity extends WearableActivity {
         Log.d(TAG, "onEnterAmbient()");
         super.onEnterAmbient(ambientDetails);
 
-
-        /** 대기 모드에선 핸들러를 사용하지 않기 때문에 핸들러 큐를 정리한다. */
-        mActiveModeUpdateHandler.removeMessages(MSG_UPDATE_SCREEN);
-
-        /**
-         * 워치페이스 API의 우수 실천 사례를 적용한다.
-         * (대부분의 픽셀을 검정색으로 칠하기,
-         * 가급적 흰색 픽셀로 채우는 영역을 갖지 않기, 흑백 색상만 사용하기,
-         * 안티 앨리어싱 사용하지 않기 등)
-         */
-        mStateTextView.setTextColor(Color.WHITE);
-        mUpdateRateTextView.setTextColor(Color.WHITE);
-        mDrawCountTextView.setTextColor(Color.WHITE);
-
-        mTimeTextView.getPaint().setAntiAlias(false);
-        mTimeStampTextView.getPaint().setAntiAlias(false);
-        mStateTextView.getPaint().setAntiAlias(false);
-        mUpdateRateTextView.getPaint().setAntiAlias(false);
-        mDrawCountTextView.getPaint().setAntiAlias(false);
-
-        refreshDisplayAndSetNextUpdate();
+        /** 레이아웃이 만들어지기 전이라면 레이아웃을 만들 때 대기 모드 UI 를 적용하고 스케줄러를 등록한다. */
+        if (mRefreshScheduler == null) {
+            return;
+        }
+        setAmbientStyle(true);
+        mRefreshScheduler.setAmbient(this, true);
     }
 
     /**
-     * 대기 모드에서 매 1분 마다 UI를 갱신한다. 우리는 매 20초 마다 화면을 갱신해야 하기 때문에 별로도 알람을 사용해다.
-     * 하지만 이 메서드가 불릴 때 프로세서는 깨어있는 상태이기 때문에, 여기서도 refreshDisplayAndSetNextUpdate() 를
-     * 호출해서 화면을 갱신하고 알람을 리셋한다.
-     *
-     * 대기 모드에서 1분마다 화면을 갱신해도 충분하다면(대부분의 경우에 해당할 것이다), 이 메서드만 사용해서 화면을 갱신하고
-     * 다른 알람 관련 코드는 지워버려도 된다.
+     * 대기 모드에서 매 1분 마다 UI를 갱신한다. 20초 주기의 갱신은 {@link RefreshScheduler} 의 알람이 담당하지만,
+     * 이 메서드가 불릴 때 프로세서는 깨어있는 상태이기 때문에 여기서도 화면을 갱신한다. 등록된 알람은 그대로 유지된다.
      */
     @Override
     public void onUpdateAmbient() {
         Log.d(TAG, "onUpdateAmbient()");
         super.onUpdateAmbient();
 
-        refreshDisplayAndSetNextUpdate();
+        if (mRefreshScheduler != null) {
+            mRefreshScheduler.refresh(this);
+        }
     }
 
     /**
@@ -212,73 +165,60 @@ public class DailyTotalActivity extends WearableActivity {
         Log.d(TAG, "onExitAmbient()");
         super.onExitAmbient();
 
-        /** 알람은 대기 모드에서만 사용하므로 초기화한다. */
-        mAmbientStateAlarmManager.cancel(mAmbientStatePendingIntent);
-
-        mStateTextView.setTextColor(Color.GREEN);
-        mUpdateRateTextView.setTextColor(Color.GREEN);
-        mDrawCountTextView.setTextColor(Color.GREEN);
-
-        mTimeTextView.getPaint().setAntiAlias(true);
-        mTimeStampTextView.getPaint().setAntiAlias(true);
-        mStateTextView.getPaint().setAntiAlias(true);
-        mUpdateRateTextView.getPaint().setAntiAlias(true);
-        mDrawCountTextView.getPaint().setAntiAlias(true);
-
-        refreshDisplayAndSetNextUpdate();
+        if (mRefreshScheduler == null) {
+            return;
+        }
+        setAmbientStyle(false);
+        mRefreshScheduler.setAmbient(this, false);
     }
 
     /**
-     * 데이터를 읽고 화면을 갱신한다. 또한 다음 갱신을 위한 준비 작업을 한다
-     * (대화 모드에선 핸들러에 메시지 등록, 대기 모드에선 알람 등록)
+     * 대기 모드에서는 워치페이스 API의 우수 실천 사례를 적용한다.
+     * (대부분의 픽셀을 검정색으로 칠하기,
+     * 가급적 흰색 픽셀로 채우는 영역을 갖지 않기, 흑백 색상만 사용하기,
+     * 안티 앨리어싱 사용하지 않기 등)
      */
-    private void refreshDisplayAndSetNextUpdate() {
-
-        loadDataAndUpdateScreen();
-
-        long timeMs = System.currentTimeMillis();
-
-        if (isAmbient()) {
-            /** 모드에 따른 다음 갱신 시각을 계산 */
-            long delayMs = AMBIENT_INTERVAL_MS - (timeMs % AMBIENT_INTERVAL_MS);
-            long triggerTimeMs = timeMs + delayMs;
-
-            /**
-             * 참고: 매니페스트에서 액티비티의 실행 모드를 singleInstance 로 설정해야 한다.
-             * 이렇게 설정하지 않으면 매번 알람이 활성화 될 때 마다 AlarmManager 가 보낸 인텐트는
-             * 기존 액티비티를 사용하지 않고 새로운 액티비티를 만든다.
-             */
-            mAmbientStateAlarmManager.setExact(
-                    AlarmManager.RTC_WAKEUP,
-                    triggerTimeMs,
-                    mAmbientStatePendingIntent);
-
-        } else {
-            /** 모드에 따른 다음 갱신 시각을 계산 */
-            long delayMs = ACTIVE_INTERVAL_MS - (timeMs % ACTIVE_INTERVAL_MS);
+    private void setAmbientStyle(boolean ambient) {
+        int color = ambient ? Color.WHITE : Color.GREEN;
+        mStateTextView.setTextColor(color);
+        mUpdateRateTextView.setTextColor(color);
+        mDrawCountTextView.setTextColor(color);
+        mStepCountTextView.setTextColor(color);
+
+        boolean antiAlias = !ambient;
+        mTimeTextView.getPaint().setAntiAlias(antiAlias);
+        mTimeStampTextView.getPaint().setAntiAlias(antiAlias);
+        mStateTextView.getPaint().setAntiAlias(antiAlias);
+        mUpdateRateTextView.getPaint().setAntiAlias(antiAlias);
+        mDrawCountTextView.getPaint().setAntiAlias(antiAlias);
+        mStepCountTextView.getPaint().setAntiAlias(antiAlias);
+    }
 
-            mActiveModeUpdateHandler.removeMessages(MSG_UPDATE_SCREEN);
-            mActiveModeUpdateHandler.sendEmptyMessageDelayed(MSG_UPDATE_SCREEN, delayMs);
-        }
+    /**
+     * 데이터를 읽고 화면을 갱신한다. 다음 갱신 예약은 {@link RefreshScheduler} 가 담당한다.
+     */
+    @Override // RefreshScheduler.RenderClient
+    public void onRefresh(boolean ambient) {
+        loadDataAndUpdateScreen(ambient);
     }
 
     /**
      * 대기 모드 상태에 따라 화면을 갱신한다. 데이터를 가져와야 한다면 여기서 수행한다.
      */
-    private void loadDataAndUpdateScreen() {
+    private void loadDataAndUpdateScreen(boolean ambient) {
 
         mDrawCount += 1;
         long currentTimeMs = System.currentTimeMillis();
-        Log.d(TAG, "loadDataAndUpdateScreen(): " + currentTimeMs + "(" + isAmbient() + ")");
+        Log.d(TAG, "loadDataAndUpdateScreen(): " + currentTimeMs + "(" + ambient + ")");
 
-        if (isAmbient()) {
+        if (ambient) {
 
             mTimeTextView.setText(sDateFormat.format(new Date()));
             mTimeStampTextView.setText(getString(R.string.timestamp_label, currentTimeMs));
 
             mStateTextView.setText(getString(R.string.mode_ambient_label));
             mUpdateRateTextView.setText(
-                    getString(R.string.update_rate_label, (AMBIENT_INTERVAL_MS / 1000)));
+                    getString(R.string.update_rate_label, (RefreshScheduler.AMBIENT_INTERVAL_MS / 1000)));
 
             mDrawCountTextView.setText(getString(R.string.draw_count_label, mDrawCount));
 
@@ -288,33 +228,26 @@ public class DailyTotalActivity extends WearableActivity {
 
             mStateTextView.setText(getString(R.string.mode_active_label));
             mUpdateRateTextView.setText(
-                    getString(R.string.update_rate_label, (ACTIVE_INTERVAL_MS / 1000)));
+                    getString(R.string.update_rate_label, (RefreshScheduler.ACTIVE_INTERVAL_MS / 1000)));
 
             mDrawCountTextView.setText(getString(R.string.draw_count_label, mDrawCount));
         }
-    }
-
-    /**
-     * 메모리 누수를 막기 위해 핸들러는 별도의 정적 클래스로 선언한다.
-     */
-    private static class UpdateHandler extends Handler {
-        private final WeakReference<DailyTotalActivity> mMainActivityWeakReference;
-
-        public UpdateHandler(DailyTotalActivity reference) {
-            mMainActivityWeakReference = new WeakReference<DailyTotalActivity>(reference);
-        }
 
-        @Override
-        public void handleMessage(Message message) {
-            DailyTotalActivity mainActivity = mMainActivityWeakReference.get();
-
-            if (mainActivity != null) {
-                switch (message.what) {
-                    case MSG_UPDATE_SCREEN:
-                        mainActivity.refreshDisplayAndSetNextUpdate();
-                        break;
+        // 오늘의 걸음 수는 원본 기록을 읽지 않고 일 단위 버킷 하나만 읽는다
+        final long timeMs = currentTimeMs;
+        StepHistory.open(this).addListener(new ResultFuture.Listener<StepHistory>() {
+            @Override
+            public void onSuccess(StepHistory stepHistory) {
+                if (!isDestroyed()) {
+                    mStepCountTextView.setText(getString(R.string.step_count_label,
+                            stepHistory.getDayTotal(timeMs)));
                 }
             }
-        }
+
+            @Override
+            public void onFailure(Throwable error) {
+                Log.e(TAG, "Unable to open step history", error);
+            }
+        }, AsyncExecutors.mainThread());
     }
-}
\ No newline at end of file
+}
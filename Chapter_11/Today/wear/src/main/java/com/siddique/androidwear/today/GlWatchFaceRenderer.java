@@ -0,0 +1,192 @@
+package com.siddique.androidwear.today;
+
+import android.graphics.Color;
+import android.opengl.GLES20;
+import android.opengl.GLUtils;
+import android.util.Log;
+
+import java.nio.FloatBuffer;
+
+/**
+ * {@link GlyphAtlas} 의 글자를 사각형으로 모아서 한 프레임을 한 번의 glDrawArrays 로 그리는 렌더러.
+ *
+ * {@link #begin()} 과 {@link #end()} 사이에 받은 텍스트를 {@link GlyphBatch} 에 글자 별 사각형으로 쌓는다.
+ * 정점마다 화면 좌표, 텍스처 좌표, 색을 넣으므로 텍스트 종류가 달라도 상태를 바꾸지 않고 한 번에 그릴 수 있다.
+ * 배치와 텍스트 폭은 캔버스 엔진과 같은 페인트로 계산하므로 두 엔진이 같은 위치에 그린다. 배경은 glClear 로 칠한다.
+ * 모든 메소드는 GL 컨텍스트가 연결된 스레드에서 호출해야 한다.
+ */
+final class GlWatchFaceRenderer implements WatchFaceRenderer {
+
+    private static final String TAG = GlWatchFaceRenderer.class.getSimpleName();
+
+    private static final String VERTEX_SHADER =
+            "attribute vec2 aPosition;\n"
+            + "attribute vec2 aTexCoord;\n"
+            + "attribute vec4 aColor;\n"
+            + "varying vec2 vTexCoord;\n"
+            + "varying vec4 vColor;\n"
+            + "void main() {\n"
+            + "    gl_Position = vec4(aPosition, 0.0, 1.0);\n"
+            + "    vTexCoord = aTexCoord;\n"
+            + "    vColor = aColor;\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n"
+            + "uniform sampler2D uTexture;\n"
+            + "varying vec2 vTexCoord;\n"
+            + "varying vec4 vColor;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = vec4(vColor.rgb, vColor.a * texture2D(uTexture, vTexCoord).a);\n"
+            + "}\n";
+
+    /** 한 프레임에 그릴 수 있는 글자 수. 시각과 날짜 두 줄이면 40 글자 정도다. */
+    private static final int MAX_QUADS = 128;
+
+    private final WatchFaceController mController;
+    private final GlyphAtlas mAtlas = new GlyphAtlas();
+    private final GlyphBatch mBatch = new GlyphBatch(MAX_QUADS);
+
+    private final GlyphBatch.GlyphSource mGlyphSource = new GlyphBatch.GlyphSource() {
+        @Override
+        public GlyphBatch.Glyph getGlyph(int style, char ch) {
+            return mAtlas.getGlyph(style, ch, mController.getPaint(style));
+        }
+    };
+
+    private int mFrameGeneration;
+
+    private int mProgram;
+    private int mTextureId;
+    private int mPositionHandle;
+    private int mTexCoordHandle;
+    private int mColorHandle;
+    private int mTextureHandle;
+
+    GlWatchFaceRenderer(WatchFaceController controller) {
+        mController = controller;
+    }
+
+    /**
+     * 셰이더와 아틀라스 텍스처를 만든다. GL 컨텍스트가 새로 만들어질 때마다 호출해야 한다.
+     */
+    void onGlContextCreated() {
+        mProgram = createProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        mPositionHandle = GLES20.glGetAttribLocation(mProgram, "aPosition");
+        mTexCoordHandle = GLES20.glGetAttribLocation(mProgram, "aTexCoord");
+        mColorHandle = GLES20.glGetAttribLocation(mProgram, "aColor");
+        mTextureHandle = GLES20.glGetUniformLocation(mProgram, "uTexture");
+
+        int[] textures = new int[1];
+        GLES20.glGenTextures(1, textures, 0);
+        mTextureId = textures[0];
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextureId);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        GLUtils.texImage2D(GLES20.GL_TEXTURE_2D, 0, mAtlas.getBitmap(), 0);
+        mAtlas.consumeDirty();
+
+        GLES20.glEnable(GLES20.GL_BLEND);
+        GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    void onGlSurfaceCreated(int width, int height) {
+        mBatch.setViewport(width, height);
+    }
+
+    /**
+     * 새 프레임의 정점을 모으기 시작한다.
+     */
+    void begin() {
+        mBatch.clear();
+        mFrameGeneration = mAtlas.getGeneration();
+    }
+
+    @Override
+    public void drawBackground() {
+        int background = mController.getBackgroundPaint().getColor();
+        GLES20.glClearColor(Color.red(background) / 255f, Color.green(background) / 255f,
+                Color.blue(background) / 255f, 1f);
+        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+    }
+
+    @Override
+    public float measureText(String text, int style) {
+        return mController.getPaint(style).measureText(text);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, int style) {
+        int color = mController.getPaint(style).getColor();
+        int dropped = mBatch.add(mGlyphSource, text, x, y, style, color);
+        if (dropped >= 0) {
+            Log.w(TAG, "Too many glyphs in a frame, dropping \"" + text.substring(dropped) + "\"");
+        }
+    }
+
+    /**
+     * 모은 사각형을 한 번에 그린다.
+     *
+     * @return 프레임 도중에 아틀라스를 비워서 앞서 모은 텍스처 좌표가 틀렸다면 false. 다음 프레임을 바로 다시 그려야 한다.
+     */
+    boolean end() {
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, mTextureId);
+        if (mAtlas.consumeDirty()) {
+            GLUtils.texSubImage2D(GLES20.GL_TEXTURE_2D, 0, 0, 0, mAtlas.getBitmap());
+        }
+        int quadCount = mBatch.getQuadCount();
+        if (quadCount > 0) {
+            FloatBuffer vertices = mBatch.getVertices();
+            GLES20.glUseProgram(mProgram);
+            GLES20.glActiveTexture(GLES20.GL_TEXTURE0);
+            GLES20.glUniform1i(mTextureHandle, 0);
+
+            vertices.position(0);
+            GLES20.glVertexAttribPointer(mPositionHandle, 2, GLES20.GL_FLOAT, false,
+                    GlyphBatch.STRIDE_BYTES, vertices);
+            GLES20.glEnableVertexAttribArray(mPositionHandle);
+            vertices.position(2);
+            GLES20.glVertexAttribPointer(mTexCoordHandle, 2, GLES20.GL_FLOAT, false,
+                    GlyphBatch.STRIDE_BYTES, vertices);
+            GLES20.glEnableVertexAttribArray(mTexCoordHandle);
+            vertices.position(4);
+            GLES20.glVertexAttribPointer(mColorHandle, 4, GLES20.GL_FLOAT, false,
+                    GlyphBatch.STRIDE_BYTES, vertices);
+            GLES20.glEnableVertexAttribArray(mColorHandle);
+
+            GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, quadCount * GlyphBatch.VERTICES_PER_QUAD);
+        }
+        return mFrameGeneration == mAtlas.getGeneration();
+    }
+
+    private static int createProgram(String vertexSource, String fragmentSource) {
+        int program = GLES20.glCreateProgram();
+        GLES20.glAttachShader(program, loadShader(GLES20.GL_VERTEX_SHADER, vertexSource));
+        GLES20.glAttachShader(program, loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentSource));
+        GLES20.glLinkProgram(program);
+        int[] status = new int[1];
+        GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, status, 0);
+        if (status[0] != GLES20.GL_TRUE) {
+            String log = GLES20.glGetProgramInfoLog(program);
+            GLES20.glDeleteProgram(program);
+            throw new IllegalStateException("Unable to link program: " + log);
+        }
+        return program;
+    }
+
+    private static int loadShader(int type, String source) {
+        int shader = GLES20.glCreateShader(type);
+        GLES20.glShaderSource(shader, source);
+        GLES20.glCompileShader(shader);
+        int[] status = new int[1];
+        GLES20.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            String log = GLES20.glGetShaderInfoLog(shader);
+            GLES20.glDeleteShader(shader);
+            throw new IllegalStateException("Unable to compile shader: " + log);
+        }
+        return shader;
+    }
+}
@@ -0,0 +1,196 @@
+package com.siddique.androidwear.today;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link GlWatchFaceRenderer} 가 사용하는 글자 텍스처 아틀라스.
+ *
+ * 글자는 페인트의 크기, 글꼴, 안티 앨리어싱, 외곽선 속성(변형) 별로 한 번만 비트맵에 그려두고, 이후에는 텍스처 좌표만
+ * 돌려준다. 색과 알파는 정점 색으로 넣으므로 글자는 알파 채널에만 그린다. 텍스트 종류(WatchFaceRenderer.STYLE_*)의 페인트가
+ * 바뀌면 그 종류가 사용할 변형만 바꾸므로, 같은 프레임에 먼저 쌓은 다른 종류의 글자나 대기 모드 전환 전의 글자는 그대로 남는다.
+ * 공간이 부족할 때만 아틀라스를 비우고 다시 채운다.
+ */
+final class GlyphAtlas {
+
+    /** 아틀라스 한 변의 픽셀 수 */
+    static final int SIZE = 512;
+
+    /** 선형 필터링으로 옆 글자가 번지지 않도록 두는 여백 */
+    private static final int PADDING = 1;
+
+    /**
+     * 글자를 그린 페인트 속성
+     */
+    private static final class Variant {
+        final float mTextSize;
+        final Typeface mTypeface;
+        final boolean mAntiAlias;
+        final Paint.Style mStyle;
+        final float mStrokeWidth;
+
+        Variant(Paint paint) {
+            mTextSize = paint.getTextSize();
+            mTypeface = paint.getTypeface();
+            mAntiAlias = paint.isAntiAlias();
+            mStyle = paint.getStyle();
+            mStrokeWidth = paint.getStrokeWidth();
+        }
+
+        boolean matches(Paint paint) {
+            return paint.getTextSize() == mTextSize
+                    && paint.getTypeface() == mTypeface
+                    && paint.isAntiAlias() == mAntiAlias
+                    && paint.getStyle() == mStyle
+                    && paint.getStrokeWidth() == mStrokeWidth;
+        }
+    }
+
+    private final Bitmap mBitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ALPHA_8);
+    private final Canvas mCanvas = new Canvas(mBitmap);
+    private final Paint mGlyphPaint = new Paint();
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+
+    /** (변형 번호 << 16 | 글자) 별 글자 */
+    private final SparseArray<GlyphBatch.Glyph> mGlyphs = new SparseArray<GlyphBatch.Glyph>();
+
+    /** 아틀라스에 글자가 있는 변형. 번호는 목록의 위치이다. */
+    private final List<Variant> mVariants = new ArrayList<Variant>();
+
+    /** 텍스트 종류 별로 마지막에 사용한 변형 번호. 아직 없다면 -1 */
+    private final int[] mStyleVariants = new int[WatchFaceRenderer.STYLE_COUNT];
+
+    private int mCursorX;
+    private int mCursorY;
+    private int mRowHeight;
+
+    /** 텍스처로 다시 올려야 하는지 여부 */
+    private boolean mDirty = true;
+
+    /** 아틀라스를 비울 때마다 증가한다. 이전 세대의 텍스처 좌표는 더 이상 유효하지 않다. */
+    private int mGeneration;
+
+    GlyphAtlas() {
+        Arrays.fill(mStyleVariants, -1);
+    }
+
+    Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * @return 마지막 호출 이후 비트맵이 바뀌었는지 여부
+     */
+    boolean consumeDirty() {
+        boolean dirty = mDirty;
+        mDirty = false;
+        return dirty;
+    }
+
+    /**
+     * @return 글자. 아틀라스보다 큰 글자라면 null
+     */
+    GlyphBatch.Glyph getGlyph(int style, char ch, Paint paint) {
+        int variant = getVariant(style, paint);
+        GlyphBatch.Glyph glyph = mGlyphs.get((variant << 16) | ch);
+        if (glyph == null) {
+            int generation = mGeneration;
+            glyph = rasterize(ch, paint);
+            if (glyph != null) {
+                if (generation != mGeneration) {
+                    // 공간이 부족해서 비웠으므로 변형 번호도 다시 정한다
+                    variant = getVariant(style, paint);
+                }
+                mGlyphs.put((variant << 16) | ch, glyph);
+            }
+        }
+        return glyph;
+    }
+
+    /**
+     * @return {@code paint} 로 그린 글자의 변형 번호. 처음 보는 속성이라면 새 변형을 추가한다.
+     */
+    private int getVariant(int style, Paint paint) {
+        int variant = mStyleVariants[style];
+        if (variant >= 0 && mVariants.get(variant).matches(paint)) {
+            return variant;
+        }
+        for (variant = 0; variant < mVariants.size(); variant++) {
+            if (mVariants.get(variant).matches(paint)) {
+                break;
+            }
+        }
+        if (variant == mVariants.size()) {
+            mVariants.add(new Variant(paint));
+        }
+        mStyleVariants[style] = variant;
+        return variant;
+    }
+
+    private GlyphBatch.Glyph rasterize(char ch, Paint paint) {
+        mGlyphPaint.set(paint);
+        // 색은 정점 색으로 넣으므로, 알파가 낮아진 뮤트 모드에서도 불투명하게 그린다
+        mGlyphPaint.setColor(Color.WHITE);
+        mGlyphPaint.getFontMetrics(mFontMetrics);
+
+        String text = String.valueOf(ch);
+        float advance = mGlyphPaint.measureText(text);
+        int width = (int) Math.ceil(advance) + PADDING * 2;
+        int height = (int) Math.ceil(mFontMetrics.descent - mFontMetrics.ascent) + PADDING * 2;
+        if (width > SIZE || height > SIZE) {
+            return null;
+        }
+
+        if (mCursorX + width > SIZE) {
+            mCursorX = 0;
+            mCursorY += mRowHeight;
+            mRowHeight = 0;
+        }
+        if (mCursorY + height > SIZE) {
+            clear();
+        }
+
+        mCanvas.drawText(text, mCursorX + PADDING, mCursorY + PADDING - mFontMetrics.ascent,
+                mGlyphPaint);
+
+        GlyphBatch.Glyph glyph = new GlyphBatch.Glyph();
+        glyph.left = -PADDING;
+        glyph.top = mFontMetrics.ascent - PADDING;
+        glyph.width = width;
+        glyph.height = height;
+        glyph.advance = advance;
+        glyph.u0 = (float) mCursorX / SIZE;
+        glyph.v0 = (float) mCursorY / SIZE;
+        glyph.u1 = (float) (mCursorX + width) / SIZE;
+        glyph.v1 = (float) (mCursorY + height) / SIZE;
+
+        mCursorX += width;
+        mRowHeight = Math.max(mRowHeight, height);
+        mDirty = true;
+        return glyph;
+    }
+
+    private void clear() {
+        mBitmap.eraseColor(Color.TRANSPARENT);
+        mGlyphs.clear();
+        mVariants.clear();
+        Arrays.fill(mStyleVariants, -1);
+        mCursorX = 0;
+        mCursorY = 0;
+        mRowHeight = 0;
+        mDirty = true;
+        mGeneration++;
+    }
+}
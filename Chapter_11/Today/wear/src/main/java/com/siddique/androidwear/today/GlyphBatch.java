@@ -0,0 +1,134 @@
+package com.siddique.androidwear.today;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * {@link GlWatchFaceRenderer} 가 한 프레임의 글자를 사각형(삼각형 두 개)으로 바꿔 쌓는 정점 버퍼.
+ *
+ * 정점마다 클립 좌표, 텍스처 좌표, 색(x, y, u, v, r, g, b, a)을 넣으므로 텍스트 종류가 달라도 한 번의 glDrawArrays 로
+ * 그릴 수 있다. 안드로이드 API 를 사용하지 않으므로 가짜 글자 공급자로 JVM 에서 측정할 수 있다.
+ */
+final class GlyphBatch {
+
+    /**
+     * 글자의 크기와 텍스처 좌표를 돌려준다. 앱에서는 {@link GlyphAtlas} 이다.
+     */
+    interface GlyphSource {
+        /**
+         * @return 글자. 그릴 수 없는 글자라면 null
+         */
+        Glyph getGlyph(int style, char ch);
+    }
+
+    /**
+     * 텍스처에 그려진 글자 하나
+     */
+    static final class Glyph {
+        /** 글자를 그릴 위치에서 사각형 왼쪽 위까지의 거리. top 은 기준선 기준이다. */
+        float left;
+        float top;
+        int width;
+        int height;
+        float advance;
+        float u0;
+        float v0;
+        float u1;
+        float v1;
+    }
+
+    /** x, y, u, v, r, g, b, a */
+    static final int FLOATS_PER_VERTEX = 8;
+    static final int VERTICES_PER_QUAD = 6;
+    static final int STRIDE_BYTES = FLOATS_PER_VERTEX * 4;
+
+    private final int mMaxQuads;
+    private final FloatBuffer mVertices;
+
+    private int mQuadCount;
+    private int mWidth;
+    private int mHeight;
+
+    GlyphBatch(int maxQuads) {
+        mMaxQuads = maxQuads;
+        mVertices = ByteBuffer
+                .allocateDirect(maxQuads * VERTICES_PER_QUAD * STRIDE_BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asFloatBuffer();
+    }
+
+    /**
+     * 화면 좌표를 클립 좌표로 바꿀 때 사용할 화면 크기
+     */
+    void setViewport(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    void clear() {
+        mVertices.clear();
+        mQuadCount = 0;
+    }
+
+    int getQuadCount() {
+        return mQuadCount;
+    }
+
+    FloatBuffer getVertices() {
+        return mVertices;
+    }
+
+    /**
+     * 텍스트의 글자들을 사각형으로 쌓는다.
+     *
+     * @param x     텍스트의 왼쪽 위치
+     * @param y     텍스트의 기준선 위치
+     * @param color ARGB 색
+     * @return 모두 쌓았다면 -1. 버퍼가 가득 찼다면 쌓지 못한 첫 글자의 위치
+     */
+    int add(GlyphSource source, String text, float x, float y, int style, int color) {
+        float r = ((color >> 16) & 0xff) / 255f;
+        float g = ((color >> 8) & 0xff) / 255f;
+        float b = (color & 0xff) / 255f;
+        float a = (color >>> 24) / 255f;
+
+        float penX = x;
+        for (int i = 0; i < text.length(); i++) {
+            Glyph glyph = source.getGlyph(style, text.charAt(i));
+            if (glyph == null) {
+                continue;
+            }
+            if (mQuadCount == mMaxQuads) {
+                return i;
+            }
+            float left = toClipX(penX + glyph.left);
+            float top = toClipY(y + glyph.top);
+            float right = toClipX(penX + glyph.left + glyph.width);
+            float bottom = toClipY(y + glyph.top + glyph.height);
+
+            putVertex(left, top, glyph.u0, glyph.v0, r, g, b, a);
+            putVertex(left, bottom, glyph.u0, glyph.v1, r, g, b, a);
+            putVertex(right, top, glyph.u1, glyph.v0, r, g, b, a);
+            putVertex(right, top, glyph.u1, glyph.v0, r, g, b, a);
+            putVertex(left, bottom, glyph.u0, glyph.v1, r, g, b, a);
+            putVertex(right, bottom, glyph.u1, glyph.v1, r, g, b, a);
+            mQuadCount++;
+
+            penX += glyph.advance;
+        }
+        return -1;
+    }
+
+    private void putVertex(float x, float y, float u, float v, float r, float g, float b, float a) {
+        mVertices.put(x).put(y).put(u).put(v).put(r).put(g).put(b).put(a);
+    }
+
+    private float toClipX(float x) {
+        return x * 2f / mWidth - 1f;
+    }
+
+    private float toClipY(float y) {
+        return 1f - y * 2f / mHeight;
+    }
+}
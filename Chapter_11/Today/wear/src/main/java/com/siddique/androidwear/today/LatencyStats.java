@@ -0,0 +1,64 @@
+package com.siddique.androidwear.today;
+
+import java.util.Arrays;
+
+/**
+ * 측정한 지연 시간의 최근 {@link #CAPACITY} 개를 보관하고 개수, 최소, 중앙값, 90 백분위, 최대를 요약한다.
+ *
+ * 로그 한 줄로는 측정값이 흩어져서 비교하기 어려우므로, 같은 종류의 측정값을 모아서 dumpsys 나 로그로 요약을 보여준다.
+ * 안드로이드 API 를 사용하지 않는다. 여러 스레드에서 사용해도 된다.
+ */
+final class LatencyStats {
+
+    /** 보관하는 최근 측정값 수 */
+    static final int CAPACITY = 128;
+
+    private final String mName;
+    private final long[] mSamples = new long[CAPACITY];
+
+    /** 지금까지 기록한 측정값 수. {@link #CAPACITY} 보다 크면 오래된 값부터 덮어쓴다. */
+    private int mCount;
+
+    LatencyStats(String name) {
+        mName = name;
+    }
+
+    synchronized void record(long latencyMs) {
+        mSamples[mCount % CAPACITY] = latencyMs;
+        mCount++;
+    }
+
+    /**
+     * @return 지금까지 기록한 측정값 수. 보관하지 않은 오래된 값도 포함한다.
+     */
+    synchronized int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @param percent 0 ~ 100
+     * @return 보관 중인 측정값의 백분위 값 (nearest-rank). 측정값이 없다면 -1
+     */
+    synchronized long getPercentile(int percent) {
+        int size = Math.min(mCount, CAPACITY);
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(mSamples, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percent / 100.0 * size);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (mCount == 0) {
+            return mName + ": no samples";
+        }
+        return mName + ": n=" + mCount
+                + " min=" + getPercentile(0) + "ms"
+                + " p50=" + getPercentile(50) + "ms"
+                + " p90=" + getPercentile(90) + "ms"
+                + " max=" + getPercentile(100) + "ms";
+    }
+}
@@ -0,0 +1,64 @@
+package com.siddique.androidwear.today;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 센서 스레드와 UI 스레드가 공유하는 최신 걸음 수.
+ *
+ * 센서 이벤트는 값만 교체하고 화면 갱신을 일으키지 않는다. 화면은 대화/대기 모드의 갱신 주기에 맞춰 이 값을 읽기 때문에,
+ * 센서 이벤트가 몰려도 화면 갱신이나 알람 등록 횟수는 늘어나지 않는다.
+ */
+public final class LatestStepCount {
+
+    private static final AtomicReference<Sample> sLatest = new AtomicReference<Sample>();
+
+    private static final AtomicLong sEventsReceived = new AtomicLong();
+    private static final AtomicLong sRedrawsPerformed = new AtomicLong();
+
+    /**
+     * 특정 날의 걸음 수
+     */
+    public static final class Sample {
+        /** {@link StepHistory#getDay(long)} 의 날짜 번호 */
+        public final long day;
+        public final long steps;
+
+        Sample(long day, long steps) {
+            this.day = day;
+            this.steps = steps;
+        }
+    }
+
+    /**
+     * 센서 스레드에서 호출한다.
+     */
+    public static void publish(long day, long steps) {
+        sLatest.set(new Sample(day, steps));
+        sEventsReceived.incrementAndGet();
+    }
+
+    /**
+     * @return 가장 최근에 받은 값. 아직 센서 이벤트를 받지 못했다면 null
+     */
+    public static Sample get() {
+        return sLatest.get();
+    }
+
+    /**
+     * 화면을 갱신할 때 호출한다.
+     */
+    public static void onRedraw() {
+        sRedrawsPerformed.incrementAndGet();
+    }
+
+    public static long getEventsReceived() {
+        return sEventsReceived.get();
+    }
+
+    public static long getRedrawsPerformed() {
+        return sRedrawsPerformed.get();
+    }
+
+    private LatestStepCount() { }
+}
@@ -3,7 +3,6 @@ package com.siddique.androidwear.today;
 import android.app.Activity;
 import android.content.res.Resources;
 import android.os.Bundle;
-import android.support.annotation.NonNull;
 import android.support.wearable.view.DotsPageIndicator;
 import android.support.wearable.view.GridViewPager;
 import android.util.Log;
@@ -13,24 +12,21 @@ import android.widget.Toast;
 
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.wearable.DataApi;
 import com.google.android.gms.wearable.DataEvent;
 import com.google.android.gms.wearable.DataEventBuffer;
 import com.google.android.gms.wearable.DataItem;
 import com.google.android.gms.wearable.DataMap;
 import com.google.android.gms.wearable.DataMapItem;
-import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.NodeApi;
 import com.google.android.gms.wearable.Wearable;
 
 import java.util.ArrayList;
 
 
 public class OnThisDayActivity extends Activity implements
-        DataApi.DataListener, GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
+        DataApi.DataListener, ApiClientManager.Callback {
 
-    private GoogleApiClient mGoogleApiClient;
+    private ApiClientManager.Lease mApiClientLease;
     private boolean mResolvingError;
 
     private static final String TAG = OnThisDayActivity.class.getName();
@@ -44,11 +40,6 @@ public class OnThisDayActivity extends Activity implements
 
         if (onThisDay == null) {
             Toast.makeText(this, "Fetching from Wikipedia...", Toast.LENGTH_LONG).show();
-            mGoogleApiClient = new GoogleApiClient.Builder(this)
-                    .addApi(Wearable.API)
-                    .addConnectionCallbacks(this)
-                    .addOnConnectionFailedListener(this)
-                    .build();
         } else {
             showOnThisDay(onThisDay);
         }
@@ -59,44 +50,47 @@ public class OnThisDayActivity extends Activity implements
         super.onStart();
         if (!mResolvingError && onThisDay == null) {
             Log.i(TAG, "Connecting to Google Api Client");
-            mGoogleApiClient.connect();
+            mApiClientLease = ApiClientManager.getInstance(this).acquire();
+            mApiClientLease.whenConnected(this);
         } else {
             showOnThisDay(onThisDay);
         }
     }
 
 
-    @Override
-    public void onConnected(Bundle connectionHint) {
+    @Override // ApiClientManager.Callback
+    public void onConnected(GoogleApiClient client) {
         Log.i(TAG, "Connected to Data Api");
-        Wearable.DataApi.addListener(mGoogleApiClient, this);
-        sendMessage(Constants.ON_THIS_DAY_REQUEST, "OnThisDay".getBytes());
+        Wearable.DataApi.addListener(client, this);
+        sendMessage(client, Constants.ON_THIS_DAY_REQUEST, "OnThisDay".getBytes());
     }
 
-    private void sendMessage(final String path, final byte[] data) {
+    private void sendMessage(final GoogleApiClient client, final String path, final byte[] data) {
         Log.i(TAG, "Sending message to path " + path);
-        Wearable.NodeApi.getConnectedNodes(mGoogleApiClient).setResultCallback(
-                new ResultCallback<NodeApi.GetConnectedNodesResult>() {
+        WearableCalls.sendMessageToConnectedNodes(client, path, data).addListener(
+                new ResultFuture.Listener<Integer>() {
                     @Override
-                    public void onResult(NodeApi.GetConnectedNodesResult nodes) {
-                        for (Node node : nodes.getNodes()) {
-                            Wearable.MessageApi
-                                    .sendMessage(mGoogleApiClient, node.getId(), path, data);
-                        }
+                    public void onSuccess(Integer nodeCount) {
+                        Log.i(TAG, "Message sent to " + nodeCount + " nodes");
                     }
-                });
-    }
 
-    @Override
-    public void onConnectionSuspended(int i) {
-        Log.i(TAG, "Connection Suspended");
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.e(TAG, "Unable to send message to path " + path, error);
+                    }
+                }, AsyncExecutors.mainThread());
     }
 
     @Override
     protected void onStop() {
-        if (null != mGoogleApiClient && mGoogleApiClient.isConnected()) {
-            Wearable.DataApi.removeListener(mGoogleApiClient, this);
-            mGoogleApiClient.disconnect();
+        if (mApiClientLease != null) {
+            // 연결은 다른 화면과 공유하므로 이 화면의 리스너만 제거하고 사용권을 반납한다
+            GoogleApiClient client = mApiClientLease.getClient();
+            if (client.isConnected()) {
+                Wearable.DataApi.removeListener(client, this);
+            }
+            mApiClientLease.release();
+            mApiClientLease = null;
         }
         super.onStop();
     }
@@ -146,8 +140,8 @@ public class OnThisDayActivity extends Activity implements
 
     }
 
-    @Override
-    public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
+    @Override // ApiClientManager.Callback
+    public void onConnectionFailed(ConnectionResult connectionResult) {
         Log.i(TAG, "Connection Failed " + connectionResult);
         mResolvingError = true;
     }
@@ -0,0 +1,20 @@
+package com.siddique.androidwear.today;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * {@link RefreshScheduler} 가 등록한 대기 모드 알람을 받아서 등록된 화면을 갱신한다.
+ */
+public class RefreshAlarmReceiver extends BroadcastReceiver {
+
+    private static final String TAG = RefreshAlarmReceiver.class.getSimpleName();
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        Log.d(TAG, "onReceive(): " + intent);
+        RefreshScheduler.getInstance(context).onAmbientAlarm();
+    }
+}
@@ -0,0 +1,200 @@
+package com.siddique.androidwear.today;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대기 모드를 지원하는 여러 화면이 함께 사용하는 화면 갱신 스케줄러.
+ *
+ * 대화 모드에선 핸들러를, 대기 모드에선 프로세서를 깨울 수 있는 알람을 사용한다. (자세한 이유는
+ * {@link DailyTotalActivity} 의 설명을 참고) 각 화면은 {@link RenderClient} 로 등록만 하고, 갱신 시각은
+ * 모든 화면이 같은 경계(주기의 배수가 되는 시각)에 맞춰지기 때문에 여러 화면이 동시에 활성화되어도
+ * 핸들러 메시지와 알람은 하나씩만 등록된다. 대기 모드 알람은 정확한 시각 대신 {@link #AMBIENT_WINDOW_MS}
+ * 범위 안에서 실행되도록 등록해서 시스템이 다른 알람과 함께 처리할 수 있게 한다.
+ */
+public final class RefreshScheduler {
+
+    private static final String TAG = RefreshScheduler.class.getSimpleName();
+
+    /** 상태 별 업데이트 주기. 단위는 밀리초 */
+    public static final long ACTIVE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
+    public static final long AMBIENT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(20);
+
+    /** 대기 모드 알람이 실행될 수 있는 시간 범위. 20초 주기에선 몇 초 정도의 오차는 눈에 띄지 않는다. */
+    private static final long AMBIENT_WINDOW_MS = TimeUnit.SECONDS.toMillis(5);
+
+    /** 핸들러에 전달하는 메시지의 'what' 값 */
+    private static final int MSG_UPDATE_SCREEN = 0;
+
+    /**
+     * 스케줄러에 등록되어 주기적으로 화면을 갱신하는 화면
+     */
+    public interface RenderClient {
+        /**
+         * 데이터를 읽고 화면을 갱신한다. 항상 메인 스레드에서 호출된다.
+         *
+         * @param ambient 대기 모드 여부
+         */
+        void onRefresh(boolean ambient);
+    }
+
+    private static RefreshScheduler sInstance;
+
+    /** 등록된 화면과 각 화면의 대기 모드 여부 */
+    private final Map<RenderClient, Boolean> mClients = new LinkedHashMap<RenderClient, Boolean>();
+
+    private final AlarmManager mAlarmManager;
+    private final PendingIntent mAmbientPendingIntent;
+
+    /** 현재 등록된 대기 모드 알람의 실행 시각. 등록되지 않았다면 0 */
+    private long mAmbientAlarmTimeMs;
+
+    private final Handler mActiveModeUpdateHandler = new Handler(Looper.getMainLooper()) {
+        @Override
+        public void handleMessage(Message message) {
+            switch (message.what) {
+                case MSG_UPDATE_SCREEN:
+                    dispatch(false);
+                    scheduleActiveUpdate();
+                    break;
+            }
+        }
+    };
+
+    /**
+     * 메인 스레드에서 호출해야 한다.
+     */
+    public static RefreshScheduler getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RefreshScheduler(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RefreshScheduler(Context context) {
+        mAlarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        mAmbientPendingIntent = PendingIntent.getBroadcast(
+                context,
+                0 /* 요청 코드 */,
+                new Intent(context, RefreshAlarmReceiver.class),
+                PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    /**
+     * 화면을 등록하고 바로 한 번 갱신한다.
+     */
+    public void register(RenderClient client, boolean ambient) {
+        mClients.put(client, ambient);
+        client.onRefresh(ambient);
+        reschedule();
+    }
+
+    public void unregister(RenderClient client) {
+        if (mClients.remove(client) != null) {
+            reschedule();
+        }
+    }
+
+    /**
+     * 화면의 대기 모드 여부가 바뀌면 호출한다. 화면을 바로 갱신하고, 바뀐 모드에 맞춰 다음 갱신을 예약한다.
+     */
+    public void setAmbient(RenderClient client, boolean ambient) {
+        if (!mClients.containsKey(client)) {
+            return;
+        }
+        mClients.put(client, ambient);
+        client.onRefresh(ambient);
+        reschedule();
+    }
+
+    /**
+     * 예약과 상관없이 화면을 바로 갱신한다. onUpdateAmbient() 처럼 시스템이 이미 프로세서를 깨운 경우에 사용한다.
+     * 이미 등록된 알람이나 핸들러 메시지는 그대로 둔다.
+     */
+    public void refresh(RenderClient client) {
+        Boolean ambient = mClients.get(client);
+        if (ambient != null) {
+            client.onRefresh(ambient);
+        }
+    }
+
+    /**
+     * {@link RefreshAlarmReceiver} 가 대기 모드 알람을 받으면 호출한다.
+     */
+    void onAmbientAlarm() {
+        mAmbientAlarmTimeMs = 0;
+        dispatch(true);
+        scheduleAmbientUpdate();
+    }
+
+    private void dispatch(boolean ambient) {
+        // 갱신 중에 등록이 해제될 수 있으므로 복사본을 순회한다
+        List<RenderClient> clients = new ArrayList<RenderClient>(mClients.size());
+        for (Map.Entry<RenderClient, Boolean> entry : mClients.entrySet()) {
+            if (entry.getValue() == ambient) {
+                clients.add(entry.getKey());
+            }
+        }
+        for (RenderClient client : clients) {
+            client.onRefresh(ambient);
+        }
+    }
+
+    private void reschedule() {
+        scheduleActiveUpdate();
+        scheduleAmbientUpdate();
+    }
+
+    private void scheduleActiveUpdate() {
+        mActiveModeUpdateHandler.removeMessages(MSG_UPDATE_SCREEN);
+        if (hasClients(false)) {
+            /** 모든 화면이 같은 경계에서 갱신되도록 다음 주기의 시작 시각까지 기다린다 */
+            long timeMs = System.currentTimeMillis();
+            long delayMs = ACTIVE_INTERVAL_MS - (timeMs % ACTIVE_INTERVAL_MS);
+            mActiveModeUpdateHandler.sendEmptyMessageDelayed(MSG_UPDATE_SCREEN, delayMs);
+        }
+    }
+
+    private void scheduleAmbientUpdate() {
+        if (!hasClients(true)) {
+            if (mAmbientAlarmTimeMs != 0) {
+                mAlarmManager.cancel(mAmbientPendingIntent);
+                mAmbientAlarmTimeMs = 0;
+            }
+            return;
+        }
+
+        long timeMs = System.currentTimeMillis();
+        long triggerTimeMs = timeMs + AMBIENT_INTERVAL_MS - (timeMs % AMBIENT_INTERVAL_MS);
+        if (triggerTimeMs == mAmbientAlarmTimeMs) {
+            // 같은 경계에 이미 알람이 등록되어 있다면 다시 등록하지 않는다
+            return;
+        }
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Scheduling ambient update at " + triggerTimeMs);
+        }
+        mAlarmManager.setWindow(
+                AlarmManager.RTC_WAKEUP,
+                triggerTimeMs,
+                AMBIENT_WINDOW_MS,
+                mAmbientPendingIntent);
+        mAmbientAlarmTimeMs = triggerTimeMs;
+    }
+
+    private boolean hasClients(boolean ambient) {
+        return mClients.containsValue(ambient);
+    }
+}
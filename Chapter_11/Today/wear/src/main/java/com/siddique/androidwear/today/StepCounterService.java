@@ -0,0 +1,128 @@
+package com.siddique.androidwear.today;
+
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 백그라운드에서 걸음 수 센서를 수신하고 {@link StepStore} 와 {@link StepHistory} 에 저장하는 서비스.
+ *
+ * 센서 이벤트가 올 때마다 프로세서를 깨우지 않도록, 하드웨어 FIFO 에 이벤트를 모아 두었다가
+ * {@link #MAX_REPORT_LATENCY_US} 마다 한꺼번에 전달받는다. 걸음 수는 누적 값이기 때문에 FIFO 가 넘쳐서
+ * 중간 이벤트가 버려지더라도 합계는 정확하다.
+ */
+public class StepCounterService extends Service implements SensorEventListener {
+
+    private static final String TAG = StepCounterService.class.getName();
+
+    /** 화면에 최신 값을 보여줘야 할 때 FIFO 에 쌓인 이벤트를 즉시 전달받기 위한 액션 */
+    public static final String ACTION_FLUSH = "com.siddique.androidwear.today.action.FLUSH_STEPS";
+
+    /** 배치 전달 주기. 단위는 마이크로초 */
+    private static final int MAX_REPORT_LATENCY_US = (int) TimeUnit.MINUTES.toMicros(5);
+
+    private SensorManager mSensorManager;
+    private Sensor mSensor;
+    private HandlerThread mSensorThread;
+    private Handler mSensorHandler;
+
+    /**
+     * 한 번에 전달된 이벤트를 모두 기록한 후 집계 파일을 디스크에 쓴다. 배치의 이벤트는 센서 스레드에서 연달아 처리되므로,
+     * 이벤트마다 다시 예약하면 배치가 끝난 후 한 번만 실행된다.
+     */
+    private final Runnable mFlushHistory = new Runnable() {
+        @Override
+        public void run() {
+            StepHistory.getInstance(StepCounterService.this).flush();
+        }
+    };
+
+    public static void start(Context context) {
+        context.startService(new Intent(context, StepCounterService.class));
+    }
+
+    public static void flush(Context context) {
+        context.startService(new Intent(context, StepCounterService.class).setAction(ACTION_FLUSH));
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.i(TAG, "Created");
+
+        mSensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        mSensor = mSensorManager.getDefaultSensor(Sensor.TYPE_STEP_COUNTER);
+        if (mSensor == null) {
+            Log.w(TAG, "No step counter sensor on this device");
+            stopSelf();
+            return;
+        }
+
+        // 센서 이벤트 처리와 저장은 메인 스레드가 아닌 별도 스레드에서 수행한다
+        mSensorThread = new HandlerThread(TAG);
+        mSensorThread.start();
+        mSensorHandler = new Handler(mSensorThread.getLooper());
+
+        Log.i(TAG, "Step counter FIFO size = " + mSensor.getFifoMaxEventCount());
+        mSensorManager.registerListener(this, mSensor, SensorManager.SENSOR_DELAY_NORMAL,
+                MAX_REPORT_LATENCY_US, mSensorHandler);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (mSensor != null && intent != null && ACTION_FLUSH.equals(intent.getAction())) {
+            mSensorManager.flush(this);
+        }
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        Log.i(TAG, "Destroyed");
+        if (mSensor != null) {
+            mSensorManager.unregisterListener(this);
+            mSensorThread.quitSafely();
+        }
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() == Sensor.TYPE_STEP_COUNTER) {
+            // 배치로 전달된 이벤트는 최대 MAX_REPORT_LATENCY_US 전에 측정된 값이므로, 전달받은 시각이 아닌
+            // 이벤트의 측정 시각(부팅 후 경과 나노초)을 벽시계 시각으로 바꿔서 기록한다
+            long bootTimeMs = StepStore.getBootTime();
+            long eventTimeMs = bootTimeMs + TimeUnit.NANOSECONDS.toMillis(event.timestamp);
+            long steps = StepStore.onCounterValue(this, (long) event.values[0], eventTimeMs, bootTimeMs);
+            Log.d(TAG, "onSensorChanged - " + event.values[0] + ", new steps = " + steps);
+            StepHistory stepHistory = StepHistory.getInstance(this);
+            stepHistory.append(eventTimeMs, steps);
+            mSensorHandler.removeCallbacks(mFlushHistory);
+            mSensorHandler.post(mFlushHistory);
+
+            // 화면은 자신의 갱신 주기에 맞춰 이 값을 읽어간다
+            long nowMs = System.currentTimeMillis();
+            LatestStepCount.publish(StepHistory.getDay(nowMs), stepHistory.getDayTotal(nowMs));
+        }
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        Log.i(TAG, "onAccuracyChanged - " + sensor);
+    }
+}
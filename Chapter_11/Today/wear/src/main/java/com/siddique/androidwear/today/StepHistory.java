@@ -0,0 +1,332 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 걸음 수 기록을 저장하는 시계열 저장소.
+ *
+ * 두 개의 파일로 구성된다.
+ * <ul>
+ * <li>원본 로그 (steps.raw) : 8바이트 기준 시각 뒤에 (이전 기록과의 시간 차이(초), 걸음 수 증가분) 쌍을
+ * varint 로 인코딩해서 덧붙이기만 하는 파일. 크기가 {@link #MAX_RAW_LOG_BYTES} 를 넘으면 이전 파일 하나만 남기고 교체한다.</li>
+ * <li>집계 파일 (steps.ts) : 분/시/일 단위 버킷을 고정 크기 레코드(버킷 번호 8바이트 + 걸음 수 4바이트)의
+ * 링 버퍼로 저장하는 파일. 메모리 맵으로 읽고 쓰며, 기록을 추가할 때마다 세 단위의 버킷에 바로 집계한다.</li>
+ * </ul>
+ * 화면에서는 원본 로그를 읽지 않고 집계 파일의 버킷만 읽기 때문에, 조회 비용은 버킷 수에 비례한다.
+ * 링 버퍼의 크기가 곧 보관 기간이며, 집계 파일 전체 크기는 헤더 16바이트와 1974개 버킷을 합쳐 23,704 바이트이다.
+ * 원본 로그는 집계 파일이 없거나 손상되었을 때 버킷을 다시 만드는 데에만 읽는다.
+ *
+ * 처음 열 때 집계 파일을 만들고 0 으로 채우므로, 메인 스레드에서는 {@link #open(Context)} 로 연다.
+ * 버킷에 쓴 값은 {@link #flush()} 를 호출해야 디스크에 반영되므로, 기록을 한 묶음 추가한 후에 호출한다.
+ */
+public class StepHistory {
+
+    private static final String TAG = StepHistory.class.getName();
+
+    static final String RAW_LOG_FILE = "steps.raw";
+    static final String OLD_RAW_LOG_FILE = "steps.raw.old";
+    static final String BUCKET_FILE = "steps.ts";
+
+    static final int MAX_RAW_LOG_BYTES = 64 * 1024;
+
+    private static final int MAGIC = 0x53545053; // "STPS"
+    private static final int VERSION = 1;
+
+    /** 헤더 : 매직 넘버, 버전, 마지막 원본 기록 시각 */
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int OFFSET_LAST_RAW_TIME = 8;
+
+    /** 버킷 레코드 : 버킷 번호(long) + 걸음 수(int) */
+    private static final int BUCKET_BYTES = 8 + 4;
+
+    /** 분 단위 버킷 : 최근 하루 */
+    public static final Resolution MINUTE = new Resolution(TimeUnit.MINUTES.toMillis(1), 24 * 60, 0);
+    /** 시 단위 버킷 : 최근 일주일 */
+    public static final Resolution HOUR = new Resolution(TimeUnit.HOURS.toMillis(1), 24 * 7,
+            MINUTE.endOffset());
+    /** 일 단위 버킷 : 최근 일년 */
+    public static final Resolution DAY = new Resolution(TimeUnit.DAYS.toMillis(1), 366,
+            HOUR.endOffset());
+
+    private static final Resolution[] RESOLUTIONS = {MINUTE, HOUR, DAY};
+
+    private static StepHistory sInstance;
+
+    private final File mRawLogFile;
+    private final File mOldRawLogFile;
+    private final MappedByteBuffer mBuckets;
+
+    /**
+     * 집계 단위와 링 버퍼 내 위치
+     */
+    public static final class Resolution {
+        final long bucketMs;
+        final int slots;
+        final int offset;
+
+        private Resolution(long bucketMs, int slots, int offset) {
+            this.bucketMs = bucketMs;
+            this.slots = slots;
+            this.offset = offset;
+        }
+
+        private int endOffset() {
+            return offset + slots * BUCKET_BYTES;
+        }
+    }
+
+    /**
+     * 기록을 열어서 반환한다. 처음 호출할 때는 파일을 읽고 쓰므로 백그라운드 스레드에서 호출해야 한다.
+     */
+    public static synchronized StepHistory getInstance(Context context) {
+        if (sInstance == null) {
+            try {
+                sInstance = new StepHistory(context.getApplicationContext().getFilesDir());
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open step history", e);
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 기록을 백그라운드에서 연다. 이미 열려 있다면 완료된 결과를 반환한다.
+     */
+    public static ResultFuture<StepHistory> open(Context context) {
+        synchronized (StepHistory.class) {
+            if (sInstance != null) {
+                return ResultFuture.immediate(sInstance);
+            }
+        }
+        final Context appContext = context.getApplicationContext();
+        return ResultFuture.submit(AsyncExecutors.background(), new Callable<StepHistory>() {
+            @Override
+            public StepHistory call() {
+                return getInstance(appContext);
+            }
+        });
+    }
+
+    StepHistory(File directory) throws IOException {
+        mRawLogFile = new File(directory, RAW_LOG_FILE);
+        mOldRawLogFile = new File(directory, OLD_RAW_LOG_FILE);
+
+        int size = HEADER_BYTES + DAY.endOffset();
+        RandomAccessFile file = new RandomAccessFile(new File(directory, BUCKET_FILE), "rw");
+        try {
+            boolean created = file.length() != size;
+            file.setLength(size);
+            // 매핑은 파일을 닫은 후에도 유지된다
+            mBuckets = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (created || mBuckets.getInt(0) != MAGIC || mBuckets.getInt(4) != VERSION) {
+                Log.i(TAG, "Initializing step history buckets");
+                for (int i = 0; i < size; i++) {
+                    mBuckets.put(i, (byte) 0);
+                }
+                mBuckets.putInt(0, MAGIC);
+                mBuckets.putInt(4, VERSION);
+                replayRawLog(mOldRawLogFile);
+                replayRawLog(mRawLogFile);
+                mBuckets.force();
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * 걸음 수 증가분을 기록하고, 분/시/일 버킷에 집계한다.
+     */
+    public synchronized void append(long timeMs, long steps) {
+        if (steps <= 0) {
+            return;
+        }
+        int count = (int) Math.min(steps, Integer.MAX_VALUE);
+
+        try {
+            appendRawRecord(timeMs, count);
+        } catch (IOException e) {
+            // 원본 로그는 조회에 사용하지 않으므로 실패하더라도 집계는 계속한다
+            Log.e(TAG, "Unable to append raw step record", e);
+        }
+        addToBuckets(timeMs, count);
+    }
+
+    private void addToBuckets(long timeMs, int count) {
+        long localTimeMs = toLocalTime(timeMs);
+        for (Resolution resolution : RESOLUTIONS) {
+            long bucket = localTimeMs / resolution.bucketMs;
+            int position = slotPosition(resolution, bucket);
+            if (mBuckets.getLong(position) != bucket) {
+                // 보관 기간이 지난 버킷을 재사용한다
+                mBuckets.putLong(position, bucket);
+                mBuckets.putInt(position + 8, 0);
+            }
+            mBuckets.putInt(position + 8, mBuckets.getInt(position + 8) + count);
+        }
+    }
+
+    /**
+     * 집계 파일의 변경 내용을 디스크에 쓴다. 호출하기 전에 기기가 꺼지면 마지막 변경 내용을 잃을 수 있다.
+     */
+    public synchronized void flush() {
+        mBuckets.force();
+    }
+
+    /**
+     * @return 주어진 시각이 포함된 날의 걸음 수
+     */
+    public synchronized int getDayTotal(long timeMs) {
+        return getBucket(DAY, getDay(timeMs));
+    }
+
+    /**
+     * @return 주어진 시각이 포함된 로컬 날짜의 번호
+     */
+    public static long getDay(long timeMs) {
+        return toLocalTime(timeMs) / DAY.bucketMs;
+    }
+
+    /**
+     * 주어진 시각이 포함된 버킷으로 끝나는 최근 {@code count} 개 버킷의 걸음 수를 오래된 순서로 반환한다.
+     * 보관 기간을 벗어난 버킷은 0 이다.
+     */
+    public synchronized int[] getBuckets(Resolution resolution, long endTimeMs, int count) {
+        long lastBucket = toLocalTime(endTimeMs) / resolution.bucketMs;
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = getBucket(resolution, lastBucket - (count - 1 - i));
+        }
+        return values;
+    }
+
+    private int getBucket(Resolution resolution, long bucket) {
+        int position = slotPosition(resolution, bucket);
+        return mBuckets.getLong(position) == bucket ? mBuckets.getInt(position + 8) : 0;
+    }
+
+    private static int slotPosition(Resolution resolution, long bucket) {
+        return HEADER_BYTES + resolution.offset + (int) (bucket % resolution.slots) * BUCKET_BYTES;
+    }
+
+    private static long toLocalTime(long timeMs) {
+        return timeMs + TimeZone.getDefault().getOffset(timeMs);
+    }
+
+    private void appendRawRecord(long timeMs, int count) throws IOException {
+        long lastTimeMs = mBuckets.getLong(OFFSET_LAST_RAW_TIME);
+        if (lastTimeMs == 0) {
+            lastTimeMs = timeMs;
+        }
+
+        if (mRawLogFile.length() > MAX_RAW_LOG_BYTES) {
+            // 보관 용량을 넘으면 이전 파일 하나만 남긴다
+            if (mOldRawLogFile.exists() && !mOldRawLogFile.delete()) {
+                Log.w(TAG, "Unable to delete " + mOldRawLogFile);
+            }
+            if (!mRawLogFile.renameTo(mOldRawLogFile)) {
+                Log.w(TAG, "Unable to rotate " + mRawLogFile);
+            }
+        }
+
+        // 시계가 뒤로 돌아간 경우에도 기록 순서가 유지되도록 시간 차이는 0 이상으로 저장한다
+        long deltaSeconds = Math.max(0, TimeUnit.MILLISECONDS.toSeconds(timeMs - lastTimeMs));
+        boolean newFile = mRawLogFile.length() == 0;
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(mRawLogFile, true), 64));
+        try {
+            if (newFile) {
+                out.writeLong(lastTimeMs);
+            }
+            writeVarint(out, deltaSeconds);
+            writeVarint(out, count);
+        } finally {
+            out.close();
+        }
+        mBuckets.putLong(OFFSET_LAST_RAW_TIME, lastTimeMs + TimeUnit.SECONDS.toMillis(deltaSeconds));
+    }
+
+    /**
+     * 원본 로그의 기록을 버킷에 다시 집계한다. 마지막 기록이 쓰다가 끊겼다면 그 앞까지만 반영한다.
+     */
+    private void replayRawLog(File rawLogFile) {
+        if (!rawLogFile.exists()) {
+            return;
+        }
+        int records = 0;
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(rawLogFile)));
+            try {
+                long timeMs = in.readLong();
+                while (true) {
+                    long deltaSeconds = readVarint(in);
+                    if (deltaSeconds < 0) {
+                        break;
+                    }
+                    long count = readVarint(in);
+                    if (count < 0) {
+                        break;
+                    }
+                    timeMs += TimeUnit.SECONDS.toMillis(deltaSeconds);
+                    addToBuckets(timeMs, (int) Math.min(count, Integer.MAX_VALUE));
+                    mBuckets.putLong(OFFSET_LAST_RAW_TIME, timeMs);
+                    records++;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (EOFException e) {
+            // 기준 시각도 쓰지 못한 파일
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to replay " + rawLogFile, e);
+        }
+        Log.i(TAG, "Replayed " + records + " step records from " + rawLogFile);
+    }
+
+    /**
+     * @return 읽은 값. 파일 끝이라면 -1
+     */
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                return -1;
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,65 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * 시간대별 걸음 수를 막대 그래프로 간단히 보여주는 뷰
+ */
+public class StepSparklineView extends View {
+
+    private final Paint mBarPaint = new Paint();
+    private int[] mValues = new int[0];
+
+    public StepSparklineView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        mBarPaint.setColor(Color.BLACK);
+        mBarPaint.setAntiAlias(true);
+    }
+
+    public void setValues(int[] values) {
+        mValues = values;
+        invalidate();
+    }
+
+    /**
+     * 대기 모드에서는 검정 배경 위에 안티 앨리어싱 없이 흰색으로 그린다.
+     */
+    public void setAmbient(boolean ambient) {
+        mBarPaint.setColor(ambient ? Color.WHITE : Color.BLACK);
+        mBarPaint.setAntiAlias(!ambient);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mValues.length == 0) {
+            return;
+        }
+
+        int max = 0;
+        for (int value : mValues) {
+            max = Math.max(max, value);
+        }
+        if (max == 0) {
+            return;
+        }
+
+        float width = getWidth() - getPaddingLeft() - getPaddingRight();
+        float height = getHeight() - getPaddingTop() - getPaddingBottom();
+        float barWidth = width / mValues.length;
+        float bottom = getPaddingTop() + height;
+
+        for (int i = 0; i < mValues.length; i++) {
+            float left = getPaddingLeft() + i * barWidth;
+            float barHeight = height * mValues[i] / max;
+            // 막대 사이에 1픽셀 간격을 둔다
+            canvas.drawRect(left, bottom - barHeight, left + barWidth - 1, bottom, mBarPaint);
+        }
+    }
+}
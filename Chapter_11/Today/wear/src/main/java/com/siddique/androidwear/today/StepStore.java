@@ -0,0 +1,113 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 걸음 수 센서 값을 새로 걸은 걸음 수로 바꾼다. 걸음 수 기록은 {@link StepHistory} 가 저장한다.
+ *
+ * TYPE_STEP_COUNTER 센서는 마지막 부팅 이후의 누적 값을 전달하기 때문에, 마지막으로 받은 센서 값과 부팅 시각
+ * (currentTimeMillis - elapsedRealtime) 을 스냅샷으로 저장해 두고 그 차이만큼을 새로 걸은 걸음 수로 돌려준다.
+ * 부팅 시각이 {@link #BOOT_TIME_TOLERANCE_MS} 보다 많이 바뀌었거나 누적 값이 줄어들면 재부팅한 것으로 보고 새로 받은 값
+ * 전체를 재부팅 이후 걸은 걸음 수로 간주한다. 재부팅 후 이전보다 오래 켜져 있다가 첫 값을 받아서 누적 값과 경과 시간이 모두
+ * 늘어난 경우에도 부팅 시각은 달라지므로 재부팅을 놓치지 않는다.
+ *
+ * 부팅 시각은 벽시계로 계산하므로 시계를 바꾸면 함께 바뀐다. 폰과의 시간 동기화나 사용자가 시계를 바꾸면
+ * {@link BootCompletedReceiver} 가 {@link #onClockChanged(Context)} 를 호출해서 저장한 부팅 시각을 옮긴다.
+ */
+public class StepStore {
+
+    private static final String TAG = StepStore.class.getName();
+
+    private static final String PREF_NAME = "StepStore";
+
+    private static final String KEY_LAST_COUNTER = "lastCounter";
+    private static final String KEY_BOOT_TIME = "bootTime";
+    private static final String KEY_LAST_EVENT_TIME = "lastEventTime";
+
+    /**
+     * 부팅 시각 추정치의 허용 오차. 두 시계를 따로 읽는 사이의 지연과 작은 시간 보정은 재부팅으로 보지 않는다.
+     */
+    static final long BOOT_TIME_TOLERANCE_MS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * @return 현재 부팅의 시작 시각 (벽시계)
+     */
+    public static long getBootTime() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * 센서가 전달한 누적 걸음 수를 반영한다.
+     *
+     * @param eventTimeMs 걸음이 측정된 시각 (벽시계). 배치로 늦게 전달되더라도 전달된 시각이 아닌 측정 시각이다.
+     * @param bootTimeMs  {@link #getBootTime()}
+     * @return 이전 센서 값 이후 새로 걸은 걸음 수
+     */
+    public static long onCounterValue(Context context, long counter, long eventTimeMs, long bootTimeMs) {
+        return onCounterValue(getPreferences(context), counter, eventTimeMs, bootTimeMs);
+    }
+
+    static synchronized long onCounterValue(SharedPreferences preferences, long counter, long eventTimeMs,
+            long bootTimeMs) {
+        long lastCounter = preferences.getLong(KEY_LAST_COUNTER, -1);
+        long lastBootTime = preferences.getLong(KEY_BOOT_TIME, bootTimeMs);
+
+        long delta;
+        if (lastCounter < 0) {
+            // 처음 받은 값은 기준 값으로만 사용한다
+            delta = 0;
+        } else if (Math.abs(bootTimeMs - lastBootTime) > BOOT_TIME_TOLERANCE_MS) {
+            Log.i(TAG, "Reboot detected: boot time " + lastBootTime + " -> " + bootTimeMs);
+            delta = counter;
+        } else if (counter < lastCounter) {
+            Log.i(TAG, "Step counter reset detected: " + lastCounter + " -> " + counter);
+            delta = counter;
+        } else {
+            delta = counter - lastCounter;
+        }
+
+        preferences.edit()
+                .putLong(KEY_LAST_COUNTER, counter)
+                .putLong(KEY_BOOT_TIME, bootTimeMs)
+                .putLong(KEY_LAST_EVENT_TIME, eventTimeMs)
+                .apply();
+        return delta;
+    }
+
+    /**
+     * 벽시계가 바뀌었을 때 호출한다. 저장한 부팅 시각을 새 시계 기준으로 옮겨서 재부팅으로 오인하지 않게 한다.
+     */
+    public static void onClockChanged(Context context) {
+        onClockChanged(getPreferences(context), getBootTime(), SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * @param elapsedMs 현재 부팅 후 경과 시간
+     */
+    static synchronized void onClockChanged(SharedPreferences preferences, long bootTimeMs, long elapsedMs) {
+        if (!preferences.contains(KEY_BOOT_TIME)) {
+            return;
+        }
+        long lastBootTime = preferences.getLong(KEY_BOOT_TIME, bootTimeMs);
+        long lastEventTime = preferences.getLong(KEY_LAST_EVENT_TIME, lastBootTime);
+        if (elapsedMs < lastEventTime - lastBootTime) {
+            // 마지막 값을 받은 후 재부팅했다. 저장한 부팅 시각을 그대로 두어야 다음 값에서 재부팅을 알 수 있다.
+            return;
+        }
+        long shift = bootTimeMs - lastBootTime;
+        Log.i(TAG, "Clock changed, moving boot time by " + shift + "ms");
+        preferences.edit()
+                .putLong(KEY_BOOT_TIME, bootTimeMs)
+                .putLong(KEY_LAST_EVENT_TIME, lastEventTime + shift)
+                .apply();
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+}
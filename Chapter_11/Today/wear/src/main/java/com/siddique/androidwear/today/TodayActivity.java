@@ -13,21 +13,15 @@ import android.widget.TextView;
 
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.ResultCallback;
-import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.NodeApi;
-import com.google.android.gms.wearable.Wearable;
 
 import java.util.List;
 
 
 public class TodayActivity extends Activity implements
-        WearableListView.ClickListener,
-        GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
+        WearableListView.ClickListener, ApiClientManager.Callback {
 
     private static final String TAG = TodayActivity.class.getName();
-    private GoogleApiClient mGoogleApiClient;
-    private boolean mResolvingError;
+    private ApiClientManager.Lease mApiClientLease;
     private String spokenText;
 
 
@@ -71,13 +65,10 @@ public class TodayActivity extends Activity implements
             Log.i(TAG, "Spoken Text = " + spokenText);
 
             if (spokenText.startsWith("home") || spokenText.startsWith("work")) {
-                Log.i(TAG, "Creating Google Api Client");
-                mGoogleApiClient = new GoogleApiClient.Builder(this)
-                        .addApi(Wearable.API)
-                        .addConnectionCallbacks(this)
-                        .addOnConnectionFailedListener(this)
-                        .build();
-                mGoogleApiClient.connect();
+                if (mApiClientLease == null) {
+                    mApiClientLease = ApiClientManager.getInstance(this).acquire();
+                }
+                mApiClientLease.whenConnected(this);
             }
         } else {
             super.onActivityResult(requestCode, resultCode, data);
@@ -98,51 +89,50 @@ public class TodayActivity extends Activity implements
 
     }
 
-    @Override
-    public void onConnected(Bundle bundle) {
+    @Override // ApiClientManager.Callback
+    public void onConnected(GoogleApiClient client) {
         Log.i(TAG, "Connected to Data Api");
         if (spokenText != null) {
             if (spokenText.startsWith("home")) {
                 String todoItem = spokenText.substring("home".length());
-                sendMessage(Constants.HOME_TODO_ITEM, todoItem.getBytes());
+                sendMessage(client, Constants.HOME_TODO_ITEM, todoItem.getBytes());
             } else if (spokenText.startsWith("work")) {
                 String todoItem = spokenText.substring("work".length());
-                sendMessage(Constants.WORK_TODO_ITEM, todoItem.getBytes());
+                sendMessage(client, Constants.WORK_TODO_ITEM, todoItem.getBytes());
             }
         }
     }
 
-    private void sendMessage(final String path, final byte[] data) {
+    private void sendMessage(final GoogleApiClient client, final String path, final byte[] data) {
         Log.i(TAG, "Sending message to path " + path);
-        Wearable.NodeApi.getConnectedNodes(mGoogleApiClient).setResultCallback(
-                new ResultCallback<NodeApi.GetConnectedNodesResult>() {
+        WearableCalls.sendMessageToConnectedNodes(client, path, data).addListener(
+                new ResultFuture.Listener<Integer>() {
                     @Override
-                    public void onResult(NodeApi.GetConnectedNodesResult nodes) {
-                        for (Node node : nodes.getNodes()) {
-                            Wearable.MessageApi
-                                    .sendMessage(mGoogleApiClient, node.getId(), path, data);
+                    public void onSuccess(Integer nodeCount) {
+                        Log.i(TAG, "Message sent to " + nodeCount + " nodes");
+                        if (nodeCount > 0) {
                             spokenText = null;
                         }
                     }
-                });
-    }
 
-
-    @Override
-    public void onConnectionSuspended(int i) {
-        Log.i(TAG, "Connection Suspended");
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.e(TAG, "Unable to send message to path " + path, error);
+                    }
+                }, AsyncExecutors.mainThread());
     }
 
 
-    @Override
+    @Override // ApiClientManager.Callback
     public void onConnectionFailed(ConnectionResult connectionResult) {
         Log.e(TAG, "Connection Failed " + connectionResult);
     }
 
     @Override
     protected void onStop() {
-        if (null != mGoogleApiClient && mGoogleApiClient.isConnected()) {
-            mGoogleApiClient.disconnect();
+        if (mApiClientLease != null) {
+            mApiClientLease.release();
+            mApiClientLease = null;
         }
         super.onStop();
     }
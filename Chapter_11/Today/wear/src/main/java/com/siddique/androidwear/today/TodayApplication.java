@@ -0,0 +1,15 @@
+package com.siddique.androidwear.today;
+
+import android.app.Application;
+
+/**
+ * 웨어 앱 프로세스를 초기화한다. 공유 연결에는 웨어러블 API 만 사용한다.
+ */
+public class TodayApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ApiClientManager.init(this);
+    }
+}
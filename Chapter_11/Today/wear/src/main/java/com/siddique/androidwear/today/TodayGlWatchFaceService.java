@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.siddique.androidwear.today;
+
+import android.opengl.GLES20;
+import android.os.Bundle;
+import android.support.wearable.watchface.Gles2WatchFaceService;
+import android.util.Log;
+import android.view.SurfaceHolder;
+import android.view.WindowInsets;
+
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
+/**
+ * {@link TodayWatchFaceService} 와 같은 내용을 OpenGL ES 2.0 으로 그리는 워치페이스.
+ *
+ * 글자는 텍스처 아틀라스에서 가져오고, 한 프레임의 모든 글자를 한 번의 glDrawArrays 로 그린다.
+ * 시각, 날짜, 탭 동작, 설정 동기화는 {@link WatchFaceController} 를 그대로 사용한다.
+ * 두 엔진 중 어느 것을 사용할지는 bools.xml 의 watch_face_canvas_enabled, watch_face_gles_enabled 로 정한다.
+ */
+public class TodayGlWatchFaceService extends Gles2WatchFaceService {
+    private static final String TAG = TodayGlWatchFaceService.class.getSimpleName();
+
+    @Override
+    public Engine onCreateEngine() {
+        return new Engine();
+    }
+
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        WatchFaceController.dumpLatencyStats(writer);
+    }
+
+    private class Engine extends Gles2WatchFaceService.Engine implements WatchFaceController.Host {
+
+        private WatchFaceController mController;
+        private GlWatchFaceRenderer mRenderer;
+
+        @Override
+        public void onCreate(SurfaceHolder holder) {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "onCreate");
+            }
+            // super.onCreate 에서 GL 컨텍스트를 만들며 onGlContextCreated 를 호출하므로 먼저 만든다
+            mController = new WatchFaceController(TodayGlWatchFaceService.this, this);
+            mController.onCreate();
+            mRenderer = new GlWatchFaceRenderer(mController);
+            super.onCreate(holder);
+
+            setWatchFaceStyle(WatchFaceController.createWatchFaceStyle(TodayGlWatchFaceService.this));
+        }
+
+        @Override
+        public void onDestroy() {
+            mController.onDestroy();
+            super.onDestroy();
+        }
+
+        @Override
+        public void onGlContextCreated() {
+            super.onGlContextCreated();
+            mRenderer.onGlContextCreated();
+        }
+
+        @Override
+        public void onGlSurfaceCreated(int width, int height) {
+            super.onGlSurfaceCreated(width, height);
+            GLES20.glViewport(0, 0, width, height);
+            mRenderer.onGlSurfaceCreated(width, height);
+        }
+
+        @Override
+        public void onVisibilityChanged(boolean visible) {
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "onVisibilityChanged: " + visible);
+            }
+            super.onVisibilityChanged(visible);
+            mController.onVisibilityChanged(visible);
+        }
+
+        @Override
+        public void onApplyWindowInsets(WindowInsets insets) {
+            super.onApplyWindowInsets(insets);
+            mController.onApplyWindowInsets(insets);
+        }
+
+        @Override
+        public void onPropertiesChanged(Bundle properties) {
+            super.onPropertiesChanged(properties);
+            mController.onPropertiesChanged(properties);
+        }
+
+        @Override
+        public void onTimeTick() {
+            super.onTimeTick();
+            mController.onTimeTick();
+        }
+
+        @Override
+        public void onAmbientModeChanged(boolean inAmbientMode) {
+            super.onAmbientModeChanged(inAmbientMode);
+            mController.onAmbientModeChanged(inAmbientMode);
+        }
+
+        @Override
+        public void onInterruptionFilterChanged(int interruptionFilter) {
+            super.onInterruptionFilterChanged(interruptionFilter);
+            mController.onInterruptionFilterChanged(interruptionFilter);
+        }
+
+        @Override
+        public void onTapCommand(int tapType, int x, int y, long eventTime) {
+            if (!mController.onTapCommand(tapType)) {
+                super.onTapCommand(tapType, x, y, eventTime);
+            }
+        }
+
+        @Override
+        public void onDraw() {
+            super.onDraw();
+
+            mRenderer.begin();
+            mController.drawFrame(mRenderer);
+            if (!mRenderer.end()) {
+                // 아틀라스를 새로 채우느라 일부 글자가 잘못 그려졌다
+                invalidate();
+            }
+        }
+
+        @Override  // WatchFaceController.Host
+        public boolean isPeekCardEmpty() {
+            return getPeekCardPosition().isEmpty();
+        }
+    }
+}
@@ -1,18 +1,123 @@
 package com.siddique.androidwear.today;
 
+import java.text.DateFormat;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
 
 /**
  * Created by siddique on 9/5/16.
  */
 public class TodayUtil {
 
+    /**
+     * 하루 동안 바뀌지 않는 날짜 값. 그 날의 자정부터 다음 자정 전까지만 유효하다.
+     */
+    public static final class DateValues {
+        public final int dayOfYear;
+        public final int daysLeftInYear;
+        public final String dayOfYearText;
+        public final String daysLeftInYearText;
+
+        /** 요일과 날짜 문자열. 형식을 넘기지 않았다면 null */
+        public final String dayOfWeekText;
+        public final String dateText;
+
+        private final TimeZone mTimeZone;
+        private final long mStartMs;
+        private final long mEndMs;
+
+        private DateValues(Calendar calendar, DateFormat dayOfWeekFormat, DateFormat dateFormat) {
+            Date date = calendar.getTime();
+            dayOfYear = getDayOfYear(calendar);
+            daysLeftInYear = getDaysLeftInYear(calendar);
+            dayOfYearText = Integer.toString(dayOfYear);
+            daysLeftInYearText = Integer.toString(daysLeftInYear);
+            dayOfWeekText = dayOfWeekFormat != null ? dayOfWeekFormat.format(date) : null;
+            dateText = dateFormat != null ? dateFormat.format(date) : null;
+            mTimeZone = calendar.getTimeZone();
+
+            mStartMs = getStartOfDay(calendar);
+            // 자정이 없는 날은 시작 시각이 01:00 이므로, 다음 날로 넘긴 후 다시 그 날의 시작 시각을 구한다
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            mEndMs = getStartOfDay(calendar);
+        }
+
+        /**
+         * @return {@code calendar} 날짜의 첫 시각. 일광 절약 시간 때문에 자정이 없는 날이라면 자정 다음의 첫 시각
+         */
+        private static long getStartOfDay(Calendar calendar) {
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            return calendar.getTimeInMillis();
+        }
+
+        /**
+         * @return {@code timeMs} 가 이 값을 계산한 날에 속하는지 여부. 시계를 뒤로 돌린 경우에도 false 다.
+         */
+        public boolean isValidAt(long timeMs) {
+            return timeMs >= mStartMs && timeMs < mEndMs;
+        }
+    }
+
+    /**
+     * {@link #getDayOfYear()}, {@link #getDaysLeftInYear()} 가 사용하는 오늘의 값. 자정이 지나거나
+     * 시간대가 바뀌면 다시 계산한다.
+     */
+    private static volatile DateValues sToday;
+
+    /**
+     * {@code timeMs} 가 속한 날의 날짜 값을 계산한다. 형식의 달력은 {@code timeZone} 과 같은 시간대여야 한다.
+     *
+     * @param dayOfWeekFormat 요일 형식. null 이면 요일 문자열을 만들지 않는다.
+     * @param dateFormat 날짜 형식. null 이면 날짜 문자열을 만들지 않는다.
+     */
+    public static DateValues computeDateValues(long timeMs, TimeZone timeZone,
+            DateFormat dayOfWeekFormat, DateFormat dateFormat) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(timeMs);
+        return new DateValues(calendar, dayOfWeekFormat, dateFormat);
+    }
+
+    /**
+     * 시간대나 로케일이 바뀌었을 때 호출해서 캐시된 오늘의 값을 버린다.
+     */
+    public static void invalidateDateValues() {
+        sToday = null;
+    }
+
+    private static DateValues getToday() {
+        long now = System.currentTimeMillis();
+        TimeZone timeZone = TimeZone.getDefault();
+        DateValues today = sToday;
+        if (today == null || !today.isValidAt(now) || !today.mTimeZone.hasSameRules(timeZone)) {
+            today = computeDateValues(now, timeZone, null, null);
+            sToday = today;
+        }
+        return today;
+    }
+
     public static int getDayOfYear() {
-        return Calendar.getInstance().get(Calendar.DAY_OF_YEAR);
+        return getToday().dayOfYear;
+    }
+
+    /**
+     * @return {@code calendar} 의 시각이 1년 중 몇 번째 날인지
+     */
+    public static int getDayOfYear(Calendar calendar) {
+        return calendar.get(Calendar.DAY_OF_YEAR);
     }
 
     public static int getDaysLeftInYear() {
-        Calendar calendar = Calendar.getInstance();
+        return getToday().daysLeftInYear;
+    }
+
+    /**
+     * @return {@code calendar} 의 시각을 기준으로 올해 남은 날 수
+     */
+    public static int getDaysLeftInYear(Calendar calendar) {
         return calendar.getActualMaximum(Calendar.DAY_OF_YEAR) - calendar.get(Calendar.DAY_OF_YEAR);
     }
 }
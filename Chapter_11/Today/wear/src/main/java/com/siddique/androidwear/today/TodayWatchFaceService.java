@@ -16,174 +16,45 @@
 
 package com.siddique.androidwear.today;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.res.AssetManager;
-import android.content.res.Resources;
 import android.graphics.Canvas;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.Typeface;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.support.wearable.watchface.CanvasWatchFaceService;
-import android.support.wearable.watchface.WatchFaceService;
-import android.support.wearable.watchface.WatchFaceStyle;
-import android.text.format.DateFormat;
 import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.DataApi;
-import com.google.android.gms.wearable.DataEvent;
-import com.google.android.gms.wearable.DataEventBuffer;
-import com.google.android.gms.wearable.DataItem;
-import com.google.android.gms.wearable.DataMap;
-import com.google.android.gms.wearable.DataMapItem;
-import com.google.android.gms.wearable.Wearable;
-
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
-import java.util.TimeZone;
-import java.util.concurrent.TimeUnit;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 
 /**
  * 콜론과 초 부분이 점멸하는 워치페이스. 대기 모드에선 초 대신 AM/PM 을 표시하고, 콜론도 점멸하지 않는다.
  * 대기 모드에서 제한된 컬러 비트만 사용하는 디바이스에선 대기 모드의 텍스트에 안티 앨리어싱 효과가 적용되지 않는다.
- * 번인 방지가 필요한 디바이스에선 시간 표시를 볼드 체가 아닌 일반 폰트로 표시한다.
+ * 번인 방지가 필요한 디바이스에선 대기 모드의 텍스트를 외곽선으로만 그리고, 1분 마다 위치를 조금씩 옮긴다.
  * 뮤트 모드에선 초는 표시하지 않고, 시각도 대비가 낮은 색깔로 표시된다.
+ *
+ * 캔버스로 그리는 엔진이다. 상태와 배치는 {@link WatchFaceController} 가 담당하며, OpenGL 로 그리는
+ * {@link TodayGlWatchFaceService} 와 같은 내용을 그린다. 대기 모드에선 {@link AmbientWatchFaceRenderer} 가
+ * 1분에 한 번 그려둔 비트맵을 복사한다.
  */
 public class TodayWatchFaceService extends CanvasWatchFaceService {
     private static final String TAG = TodayWatchFaceService.class.getSimpleName();
 
-    private Typeface WATCH_TYPE_FACE = null;
-
-    /**
-     * 대기 모드나 뮤트 모드가 아닌 일반 모드의 업데이트 주기 (밀리세컨드 단위). 콜론을 깜빡이기 위해 0.5초 마다 갱신한다.
-     */
-    private static final long NORMAL_UPDATE_RATE_MS = 500;
-
-    /**
-     * 뮤트 모드의 업데이트 주기. 대기 모드와 같이 1분 마다 갱신한다.
-     */
-    private static final long MUTE_UPDATE_RATE_MS = TimeUnit.MINUTES.toMillis(1);
-
-    private int tapCount = 0;
-
     @Override
     public Engine onCreateEngine() {
         return new Engine();
     }
 
-    private class Engine extends CanvasWatchFaceService.Engine implements DataApi.DataListener,
-            GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
-        static final String COLON_STRING = ":";
-
-        /**
-         * 뮤트 모드의 시각 텍스트 알파 값
-         */
-        static final int MUTE_ALPHA = 100;
-
-        /**
-         * 뮤트 모드 이외의 모드의 시각 텍스트 알파 값
-         */
-        static final int NORMAL_ALPHA = 255;
-
-        static final int MSG_UPDATE_TIME = 0;
-
-        /**
-         * {@link #mUpdateTimeHandler} 의 갱신주기. 밀리초 단위.
-         */
-        long mInteractiveUpdateRateMs = NORMAL_UPDATE_RATE_MS;
-
-        /**
-         * 대화 모드에서 주기적으로 시각을 갱신하기 위한 핸들러
-         */
-        final Handler mUpdateTimeHandler = new Handler() {
-            @Override
-            public void handleMessage(Message message) {
-                switch (message.what) {
-                    case MSG_UPDATE_TIME:
-                        if (Log.isLoggable(TAG, Log.VERBOSE)) {
-                            Log.v(TAG, "updating time");
-                        }
-                        invalidate();
-                        if (shouldTimerBeRunning()) {
-                            long timeMs = System.currentTimeMillis();
-                            long delayMs =
-                                    mInteractiveUpdateRateMs - (timeMs % mInteractiveUpdateRateMs);
-                            mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
-                        }
-                        break;
-                }
-            }
-        };
-
-        GoogleApiClient mGoogleApiClient = new GoogleApiClient.Builder(TodayWatchFaceService.this)
-                .addConnectionCallbacks(this)
-                .addOnConnectionFailedListener(this)
-                .addApi(Wearable.API)
-                .build();
-
-        /**
-         * 시간대와 로케일 변경 처리
-         */
-        final BroadcastReceiver mReceiver = new BroadcastReceiver() {
-            @Override
-            public void onReceive(Context context, Intent intent) {
-                mCalendar.setTimeZone(TimeZone.getDefault());
-                initFormats();
-                invalidate();
-            }
-        };
-
-        /**
-         * 등록하지 않은 리시버를 등록해제하려고 할 경우 예외가 발생하므로, 이런 상황을 막기 위해 등록 상태를 관리함
-         */
-        boolean mRegisteredReceiver = false;
-
-        Paint mBackgroundPaint;
-        Paint mDatePaint;
-        Paint mHourPaint;
-        Paint mMinutePaint;
-        Paint mSecondPaint;
-        Paint mAmPmPaint;
-        Paint mColonPaint;
-        float mColonWidth;
-        boolean mMute;
-
-        Calendar mCalendar;
-        Date mDate;
-        SimpleDateFormat mDayOfWeekFormat;
-        java.text.DateFormat mDateFormat;
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        WatchFaceController.dumpLatencyStats(writer);
+    }
 
-        boolean mShouldDrawColons;
-        float mXOffset;
-        float mYOffset;
-        float mLineHeight;
-        String mAmString;
-        String mPmString;
-        int mInteractiveBackgroundColor =
-                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND;
-        int mInteractiveHourDigitsColor =
-                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS;
-        int mInteractiveMinuteDigitsColor =
-                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS;
-        int mInteractiveSecondDigitsColor =
-                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS;
+    private class Engine extends CanvasWatchFaceService.Engine implements WatchFaceController.Host {
 
-        /**
-         * 디스플레이가 대기 모드에서 적은 컬러 비트만 사용하는 기능을 지원하는지 여부.
-         * true일 경우, 대기 모드에서 안티 앨리어싱을 사용하지 않는다.
-         */
-        boolean mLowBitAmbient;
+        private WatchFaceController mController;
+        private CanvasWatchFaceRenderer mRenderer;
+        private AmbientWatchFaceRenderer mAmbientRenderer;
 
         @Override
         public void onCreate(SurfaceHolder holder) {
@@ -192,104 +63,27 @@ public class TodayWatchFaceService extends CanvasWatchFaceService {
             }
             super.onCreate(holder);
 
-            setWatchFaceStyle(new WatchFaceStyle.Builder(TodayWatchFaceService.this)
-                    .setCardPeekMode(WatchFaceStyle.PEEK_MODE_VARIABLE)
-                    .setBackgroundVisibility(WatchFaceStyle.BACKGROUND_VISIBILITY_INTERRUPTIVE)
-                    .setShowSystemUiTime(false)
-                    .setAcceptsTapEvents(true)
-                    .build());
-            Resources resources = TodayWatchFaceService.this.getResources();
-            mYOffset = resources.getDimension(R.dimen.digital_y_offset);
-            mLineHeight = resources.getDimension(R.dimen.digital_line_height);
-            mAmString = resources.getString(R.string.digital_am);
-            mPmString = resources.getString(R.string.digital_pm);
-
-            AssetManager assets = getApplicationContext().getAssets();
-            WATCH_TYPE_FACE = Typeface.createFromAsset(assets, "fonts/digital-7.ttf");
-
-            mBackgroundPaint = new Paint();
-            mBackgroundPaint.setColor(mInteractiveBackgroundColor);
-            mDatePaint = createTextPaint(resources.getColor(R.color.digital_date));
-            mHourPaint = createTextPaint(mInteractiveHourDigitsColor);
-            mMinutePaint = createTextPaint(mInteractiveMinuteDigitsColor);
-            mSecondPaint = createTextPaint(mInteractiveSecondDigitsColor);
-            mAmPmPaint = createTextPaint(resources.getColor(R.color.digital_am_pm));
-            mColonPaint = createTextPaint(resources.getColor(R.color.digital_colons));
-
-            mCalendar = Calendar.getInstance();
-            mDate = new Date();
-            initFormats();
+            setWatchFaceStyle(WatchFaceController.createWatchFaceStyle(TodayWatchFaceService.this));
+            mController = new WatchFaceController(TodayWatchFaceService.this, this);
+            mController.onCreate();
+            mRenderer = new CanvasWatchFaceRenderer(mController);
+            mAmbientRenderer = new AmbientWatchFaceRenderer(mController);
         }
 
         @Override
         public void onDestroy() {
-            mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mController.onDestroy();
+            mAmbientRenderer.release();
             super.onDestroy();
         }
 
-        private Paint createTextPaint(int defaultInteractiveColor) {
-            return createTextPaint(defaultInteractiveColor, WATCH_TYPE_FACE);
-        }
-
-        private Paint createTextPaint(int defaultInteractiveColor, Typeface typeface) {
-            Paint paint = new Paint();
-            paint.setColor(defaultInteractiveColor);
-            paint.setTypeface(typeface);
-            paint.setAntiAlias(true);
-            return paint;
-        }
-
         @Override
         public void onVisibilityChanged(boolean visible) {
             if (Log.isLoggable(TAG, Log.DEBUG)) {
                 Log.d(TAG, "onVisibilityChanged: " + visible);
             }
             super.onVisibilityChanged(visible);
-
-            if (visible) {
-                mGoogleApiClient.connect();
-
-                registerReceiver();
-
-                // 화면에 보이지 않은 상태에서 시간대가 바뀐 경우에 대비하여 시간대와 날짜 포맷을 갱신한다.
-                mCalendar.setTimeZone(TimeZone.getDefault());
-                initFormats();
-            } else {
-                unregisterReceiver();
-
-                if (mGoogleApiClient != null && mGoogleApiClient.isConnected()) {
-                    Wearable.DataApi.removeListener(mGoogleApiClient, this);
-                    mGoogleApiClient.disconnect();
-                }
-            }
-
-            // 화면 표시 여부와 대기 모드 여부에 따라 타이머를 실행할지 결정해야 하기 때문에, 타이머를 시작하거나 멈춘다.
-            updateTimer();
-        }
-
-        private void initFormats() {
-            mDayOfWeekFormat = new SimpleDateFormat("EEEE", Locale.getDefault());
-            mDayOfWeekFormat.setCalendar(mCalendar);
-            mDateFormat = DateFormat.getDateFormat(TodayWatchFaceService.this);
-            mDateFormat.setCalendar(mCalendar);
-        }
-
-        private void registerReceiver() {
-            if (mRegisteredReceiver) {
-                return;
-            }
-            mRegisteredReceiver = true;
-            IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
-            filter.addAction(Intent.ACTION_LOCALE_CHANGED);
-            TodayWatchFaceService.this.registerReceiver(mReceiver, filter);
-        }
-
-        private void unregisterReceiver() {
-            if (!mRegisteredReceiver) {
-                return;
-            }
-            mRegisteredReceiver = false;
-            TodayWatchFaceService.this.unregisterReceiver(mReceiver);
+            mController.onVisibilityChanged(visible);
         }
 
         @Override
@@ -298,40 +92,13 @@ public class TodayWatchFaceService extends CanvasWatchFaceService {
                 Log.d(TAG, "onApplyWindowInsets: " + (insets.isRound() ? "round" : "square"));
             }
             super.onApplyWindowInsets(insets);
-
-            // 원형 시계에서 사용할 리소스를 읽어들인다.
-            Resources resources = TodayWatchFaceService.this.getResources();
-            boolean isRound = insets.isRound();
-            mXOffset = resources.getDimension(isRound
-                    ? R.dimen.digital_x_offset_round : R.dimen.digital_x_offset);
-            float textSize = resources.getDimension(isRound
-                    ? R.dimen.digital_text_size_round : R.dimen.digital_text_size);
-            float amPmSize = resources.getDimension(isRound
-                    ? R.dimen.digital_am_pm_size_round : R.dimen.digital_am_pm_size);
-
-            mDatePaint.setTextSize(resources.getDimension(R.dimen.digital_date_text_size));
-            mHourPaint.setTextSize(textSize);
-            mMinutePaint.setTextSize(textSize);
-            mSecondPaint.setTextSize(textSize);
-            mAmPmPaint.setTextSize(amPmSize);
-            mColonPaint.setTextSize(textSize);
-
-            mColonWidth = mColonPaint.measureText(COLON_STRING);
+            mController.onApplyWindowInsets(insets);
         }
 
         @Override
         public void onPropertiesChanged(Bundle properties) {
             super.onPropertiesChanged(properties);
-
-            boolean burnInProtection = properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
-            mHourPaint.setTypeface(burnInProtection ? WATCH_TYPE_FACE : WATCH_TYPE_FACE);
-
-            mLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
-
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "onPropertiesChanged: burn-in protection = " + burnInProtection
-                        + ", low-bit ambient = " + mLowBitAmbient);
-            }
+            mController.onPropertiesChanged(properties);
         }
 
         @Override
@@ -340,7 +107,7 @@ public class TodayWatchFaceService extends CanvasWatchFaceService {
             if (Log.isLoggable(TAG, Log.DEBUG)) {
                 Log.d(TAG, "onTimeTick: ambient = " + isInAmbientMode());
             }
-            invalidate();
+            mController.onTimeTick();
         }
 
         @Override
@@ -349,34 +116,10 @@ public class TodayWatchFaceService extends CanvasWatchFaceService {
             if (Log.isLoggable(TAG, Log.DEBUG)) {
                 Log.d(TAG, "onAmbientModeChanged: " + inAmbientMode);
             }
-            adjustPaintColorToCurrentMode(mBackgroundPaint, mInteractiveBackgroundColor,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND);
-            adjustPaintColorToCurrentMode(mHourPaint, mInteractiveHourDigitsColor,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS);
-            adjustPaintColorToCurrentMode(mMinutePaint, mInteractiveMinuteDigitsColor,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS);
-            // 대기 모드에선 초를 표시하지 않기 때문에, 대기 모드용 색상은 아무 값이나 넘겨도 되긴 함
-            adjustPaintColorToCurrentMode(mSecondPaint, mInteractiveSecondDigitsColor,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS);
-
-            if (mLowBitAmbient) {
-                boolean antiAlias = !inAmbientMode;
-                mDatePaint.setAntiAlias(antiAlias);
-                mHourPaint.setAntiAlias(antiAlias);
-                mMinutePaint.setAntiAlias(antiAlias);
-                mSecondPaint.setAntiAlias(antiAlias);
-                mAmPmPaint.setAntiAlias(antiAlias);
-                mColonPaint.setAntiAlias(antiAlias);
+            mController.onAmbientModeChanged(inAmbientMode);
+            if (!inAmbientMode) {
+                mAmbientRenderer.release();
             }
-            invalidate();
-
-            // 화면 표시 여부와 대기 모드 여부에 따라 타이머를 실행할지 결정해야 하기 때문에, 타이머를 시작하거나 멈춘다.
-            updateTimer();
-        }
-
-        private void adjustPaintColorToCurrentMode(Paint paint, int interactiveColor,
-                                                   int ambientColor) {
-            paint.setColor(isInAmbientMode() ? ambientColor : interactiveColor);
         }
 
         @Override
@@ -385,316 +128,30 @@ public class TodayWatchFaceService extends CanvasWatchFaceService {
                 Log.d(TAG, "onInterruptionFilterChanged: " + interruptionFilter);
             }
             super.onInterruptionFilterChanged(interruptionFilter);
-
-            boolean inMuteMode = interruptionFilter == WatchFaceService.INTERRUPTION_FILTER_NONE;
-            // 뮤트 모드에선 1분 마다 화면을 갱신하면 된다.
-            setInteractiveUpdateRateMs(inMuteMode ? MUTE_UPDATE_RATE_MS : NORMAL_UPDATE_RATE_MS);
-
-            if (mMute != inMuteMode) {
-                mMute = inMuteMode;
-                int alpha = inMuteMode ? MUTE_ALPHA : NORMAL_ALPHA;
-                mDatePaint.setAlpha(alpha);
-                mHourPaint.setAlpha(alpha);
-                mMinutePaint.setAlpha(alpha);
-                mColonPaint.setAlpha(alpha);
-                mAmPmPaint.setAlpha(alpha);
-                invalidate();
-            }
-        }
-
-        public void setInteractiveUpdateRateMs(long updateRateMs) {
-            if (updateRateMs == mInteractiveUpdateRateMs) {
-                return;
-            }
-            mInteractiveUpdateRateMs = updateRateMs;
-
-            // 새로운 갱신 주기를 반영하기 위해 타이머를 멈췄다 다시 시작한다.
-            if (shouldTimerBeRunning()) {
-                updateTimer();
-            }
-        }
-
-        private void updatePaintIfInteractive(Paint paint, int interactiveColor) {
-            if (!isInAmbientMode() && paint != null) {
-                paint.setColor(interactiveColor);
-            }
-        }
-
-        private void setInteractiveBackgroundColor(int color) {
-            mInteractiveBackgroundColor = color;
-            updatePaintIfInteractive(mBackgroundPaint, color);
-        }
-
-        private void setInteractiveHourDigitsColor(int color) {
-            mInteractiveHourDigitsColor = color;
-            updatePaintIfInteractive(mHourPaint, color);
-        }
-
-        private void setInteractiveMinuteDigitsColor(int color) {
-            mInteractiveMinuteDigitsColor = color;
-            updatePaintIfInteractive(mMinutePaint, color);
-        }
-
-        private void setInteractiveSecondDigitsColor(int color) {
-            mInteractiveSecondDigitsColor = color;
-            updatePaintIfInteractive(mSecondPaint, color);
-        }
-
-        private String formatTwoDigitNumber(int hour) {
-            return String.format("%02d", hour);
-        }
-
-        private String getAmPmString(int amPm) {
-            return amPm == Calendar.AM ? mAmString : mPmString;
+            mController.onInterruptionFilterChanged(interruptionFilter);
         }
 
         @Override
         public void onTapCommand(int tapType, int x, int y, long eventTime) {
-            Log.i(TAG, "Tapped " + tapType);
-            switch (tapType) {
-                case WatchFaceService.TAP_TYPE_TAP: {
-                    tapCount++;
-                    if (tapCount > 2) {
-                        tapCount = 0;
-                    }
-                    break;
-                }
-                default:
-                    super.onTapCommand(tapType, x, y, eventTime);
-                    break;
+            if (!mController.onTapCommand(tapType)) {
+                super.onTapCommand(tapType, x, y, eventTime);
             }
-
         }
 
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
-            long now = System.currentTimeMillis();
-            mCalendar.setTimeInMillis(now);
-            mDate.setTime(now);
-            boolean is24Hour = DateFormat.is24HourFormat(TodayWatchFaceService.this);
-
-            // 시각을 갱신할 때, 1초의 앞 0.5초일 경우 콜론을 보여준다.
-            mShouldDrawColons = (System.currentTimeMillis() % 1000) < 500;
-
-            // 배경을 그린다.
-            canvas.drawRect(0, 0, bounds.width(), bounds.height(), mBackgroundPaint);
-
-            // 시간을 그린다.
-            float x = mXOffset;
-            String hourString;
-            if (is24Hour) {
-                hourString = formatTwoDigitNumber(mCalendar.get(Calendar.HOUR_OF_DAY));
-            } else {
-                int hour = mCalendar.get(Calendar.HOUR);
-                if (hour == 0) {
-                    hour = 12;
-                }
-                hourString = String.valueOf(hour);
-            }
-            canvas.drawText(hourString, x, mYOffset, mHourPaint);
-            x += mHourPaint.measureText(hourString);
-
-            // 대기 모드와 뮤트 모드에선 항상 첫번째 콜론을 그린다.그 외의 경우엔 1초의 앞 0.5초에만 콜론을 그린다.
-            if (isInAmbientMode() || mMute || mShouldDrawColons) {
-                canvas.drawText(COLON_STRING, x, mYOffset, mColonPaint);
-            }
-            x += mColonWidth;
-
-            // 분을 그린다.
-            String minuteString = formatTwoDigitNumber(mCalendar.get(Calendar.MINUTE));
-            canvas.drawText(minuteString, x, mYOffset, mMinutePaint);
-            x += mMinutePaint.measureText(minuteString);
-
-            // 뮤트되지 않은 대화 모드에선, 두 번째 콜론을 그리고 초를 그린다.
-            // 그 외의 모드에선 12시 시각 표시 모드일 경우 AM/PM 표시를 그린다.
-            if (!isInAmbientMode() && !mMute) {
-                if (mShouldDrawColons) {
-                    canvas.drawText(COLON_STRING, x, mYOffset, mColonPaint);
-                }
-                x += mColonWidth;
-                canvas.drawText(formatTwoDigitNumber(
-                        mCalendar.get(Calendar.SECOND)), x, mYOffset, mSecondPaint);
-            } else if (!is24Hour) {
-                x += mColonWidth;
-                canvas.drawText(getAmPmString(
-                        mCalendar.get(Calendar.AM_PM)), x, mYOffset, mAmPmPaint);
-            }
-
-            // 대기 모드에서 카드와 겹쳐 보이지 않도록, 보여줄 카드가 없을 때에만 요일과 날짜를 그린다.
-            if (getPeekCardPosition().isEmpty()) {
-                if (tapCount == 0) {
-                    // 요일
-                    canvas.drawText(
-                            mDayOfWeekFormat.format(mDate),
-                            mXOffset, mYOffset + mLineHeight, mDatePaint);
-                    canvas.drawText(
-                            mDateFormat.format(mDate),
-                            mXOffset, mYOffset + mLineHeight * 2, mDatePaint);
-                } else if (tapCount == 1) {
-                    // 1년 중 몇번째 날인지
-                    canvas.drawText(
-                            "Day of year",
-                            mXOffset, mYOffset + mLineHeight, mDatePaint);
-                    canvas.drawText(
-                            Integer.toString(TodayUtil.getDayOfYear()),
-                            mXOffset, mYOffset + mLineHeight * 2, mDatePaint);
-                } else if (tapCount == 2) {
-                    // 1년 중 남은 날짜
-                    canvas.drawText(
-                            "Days left in year",
-                            mXOffset, mYOffset + mLineHeight, mDatePaint);
-                    canvas.drawText(
-                            Integer.toString(TodayUtil.getDaysLeftInYear()),
-                            mXOffset, mYOffset + mLineHeight * 2, mDatePaint);
-                }
-
-            }
-        }
-
-        /**
-         * {@link #mUpdateTimeHandler} 가 동작해야 하는데 동작하지 않고 있다면 타이머를 시작한다.
-         * 반대로 동작하지 않아야 하는데 동작하고 있다면 멈춘다.
-         */
-        private void updateTimer() {
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "updateTimer");
-            }
-            mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
-            if (shouldTimerBeRunning()) {
-                mUpdateTimeHandler.sendEmptyMessage(MSG_UPDATE_TIME);
-            }
-        }
-
-        /**
-         * {@link #mUpdateTimeHandler} 타이머가 동작 상태여야 하는지를 반환한다.
-         * 타이머는 화면에 보이는 상태이고 대화 모드일 경우에만 동작해야 한다.
-         */
-        private boolean shouldTimerBeRunning() {
-            return isVisible() && !isInAmbientMode();
-        }
-
-        private void updateConfigDataItemAndUiOnStartup() {
-            WatchFaceUtil.fetchConfigDataMap(mGoogleApiClient,
-                    new WatchFaceUtil.FetchConfigDataMapCallback() {
-                        @Override
-                        public void onConfigDataMapFetched(DataMap startupConfig) {
-                            // DataItem 이 아직 생성되지 않았거나 일부 키가 누락되었다면, 기본 값을 사용한다.
-                            setDefaultValuesForMissingConfigKeys(startupConfig);
-                            WatchFaceUtil.putConfigDataItem(mGoogleApiClient, startupConfig);
-
-                            updateUiForConfigDataMap(startupConfig);
-                        }
-                    }
-            );
-        }
-
-        private void setDefaultValuesForMissingConfigKeys(DataMap config) {
-            addIntKeyIfMissing(config, WatchFaceUtil.KEY_BACKGROUND_COLOR,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND);
-            addIntKeyIfMissing(config, WatchFaceUtil.KEY_HOURS_COLOR,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS);
-            addIntKeyIfMissing(config, WatchFaceUtil.KEY_MINUTES_COLOR,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS);
-            addIntKeyIfMissing(config, WatchFaceUtil.KEY_SECONDS_COLOR,
-                    WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS);
-        }
-
-        private void addIntKeyIfMissing(DataMap config, String key, int color) {
-            if (!config.containsKey(key)) {
-                config.putInt(key, color);
-            }
-        }
-
-        @Override // DataApi.DataListener
-        public void onDataChanged(DataEventBuffer dataEvents) {
-            for (DataEvent dataEvent : dataEvents) {
-                if (dataEvent.getType() != DataEvent.TYPE_CHANGED) {
-                    continue;
-                }
-
-                DataItem dataItem = dataEvent.getDataItem();
-                if (!dataItem.getUri().getPath().equals(
-                        WatchFaceUtil.PATH_WITH_FEATURE)) {
-                    continue;
-                }
-
-                DataMapItem dataMapItem = DataMapItem.fromDataItem(dataItem);
-                DataMap config = dataMapItem.getDataMap();
-                if (Log.isLoggable(TAG, Log.DEBUG)) {
-                    Log.d(TAG, "Config DataItem updated:" + config);
-                }
-                updateUiForConfigDataMap(config);
-            }
-        }
-
-        private void updateUiForConfigDataMap(final DataMap config) {
-            boolean uiUpdated = false;
-            for (String configKey : config.keySet()) {
-                if (!config.containsKey(configKey)) {
-                    continue;
-                }
-                int color = config.getInt(configKey);
-                if (Log.isLoggable(TAG, Log.DEBUG)) {
-                    Log.d(TAG, "Found watch face config key: " + configKey + " -> "
-                            + Integer.toHexString(color));
-                }
-                if (updateUiForKey(configKey, color)) {
-                    uiUpdated = true;
-                }
-            }
-            if (uiUpdated) {
-                invalidate();
-            }
-        }
-
-        /**
-         * 주어진 {@code configKey} 값에 따른 UI 항목의 색깔을 갱신한다.
-         * 모르는 {@code configKey} 라면 아무 처리도 하지 않는다.
-         *
-         * @return UI가 갱신되었는지 여부
-         */
-        private boolean updateUiForKey(String configKey, int color) {
-            switch (configKey) {
-                case WatchFaceUtil.KEY_BACKGROUND_COLOR:
-                    setInteractiveBackgroundColor(color);
-                    break;
-                case WatchFaceUtil.KEY_HOURS_COLOR:
-                    setInteractiveHourDigitsColor(color);
-                    break;
-                case WatchFaceUtil.KEY_MINUTES_COLOR:
-                    setInteractiveMinuteDigitsColor(color);
-                    break;
-                case WatchFaceUtil.KEY_SECONDS_COLOR:
-                    setInteractiveSecondDigitsColor(color);
-                    break;
-                default:
-                    Log.w(TAG, "Ignoring unknown config key: " + configKey);
-                    return false;
-            }
-            return true;
-        }
-
-        @Override  // GoogleApiClient.ConnectionCallbacks
-        public void onConnected(Bundle connectionHint) {
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "onConnected: " + connectionHint);
-            }
-            Wearable.DataApi.addListener(mGoogleApiClient, Engine.this);
-            updateConfigDataItemAndUiOnStartup();
-        }
-
-        @Override  // GoogleApiClient.ConnectionCallbacks
-        public void onConnectionSuspended(int cause) {
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "onConnectionSuspended: " + cause);
+            if (isInAmbientMode()) {
+                mAmbientRenderer.draw(canvas, bounds, isPeekCardEmpty());
+                return;
             }
+            mRenderer.setTarget(canvas, bounds);
+            mController.drawFrame(mRenderer);
+            mRenderer.setTarget(null, null);
         }
 
-        @Override  // GoogleApiClient.OnConnectionFailedListener
-        public void onConnectionFailed(ConnectionResult result) {
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "onConnectionFailed: " + result);
-            }
+        @Override  // WatchFaceController.Host
+        public boolean isPeekCardEmpty() {
+            return getPeekCardPosition().isEmpty();
         }
     }
 }
@@ -0,0 +1,88 @@
+package com.siddique.androidwear.today;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 폰이 게시한 한 종류의 할 일 목록. 화면에는 {@link #PAGE_SIZE} 개씩 나눠서 보여준다.
+ * 폰은 목록 전체를 DataItem 하나로 게시하므로 페이지는 화면에서만 나누며, 페이지 별로 따로 읽지 않는다.
+ *
+ * 만든 후에는 바뀌지 않으므로 여러 화면이 함께 사용해도 된다. 안드로이드 API 를 사용하지 않는다.
+ */
+final class TodoItemPages {
+
+    /** 한 번에 보여주는 할 일 수 */
+    static final int PAGE_SIZE = 5;
+
+    static final TodoItemPages EMPTY = new TodoItemPages(Collections.<String>emptyList());
+
+    private final List<String> mItems;
+
+    TodoItemPages(List<String> items) {
+        mItems = Collections.unmodifiableList(items);
+    }
+
+    /**
+     * 노드 별로 게시된 목록에서 보여줄 목록을 만든다. 폰을 바꾸면 이전 폰이 게시한 DataItem 이 남아있을 수 있으므로,
+     * 연결된 노드가 게시한 목록이 있다면 그 목록만 사용한다. 연결된 노드의 목록이 없다면 (폰과 연결이 끊긴 경우) 모든 노드의
+     * 목록을 사용한다. 여러 목록을 합칠 때는 같은 항목을 한 번만 넣고 정렬한다.
+     *
+     * @param itemsByNode 노드 ID 별 목록. 각 목록은 폰이 정렬해서 게시한 것이다.
+     */
+    static TodoItemPages fromNodes(Map<String, List<String>> itemsByNode,
+            Collection<String> connectedNodeIds) {
+        List<List<String>> lists = new ArrayList<List<String>>();
+        for (Map.Entry<String, List<String>> entry : itemsByNode.entrySet()) {
+            if (connectedNodeIds.contains(entry.getKey())) {
+                lists.add(entry.getValue());
+            }
+        }
+        if (lists.isEmpty()) {
+            lists.addAll(itemsByNode.values());
+        }
+
+        if (lists.size() == 1) {
+            List<String> items = lists.get(0);
+            return items.isEmpty() ? EMPTY : new TodoItemPages(items);
+        }
+        Set<String> merged = new LinkedHashSet<String>();
+        for (List<String> items : lists) {
+            merged.addAll(items);
+        }
+        if (merged.isEmpty()) {
+            return EMPTY;
+        }
+        List<String> items = new ArrayList<String>(merged);
+        Collections.sort(items);
+        return new TodoItemPages(items);
+    }
+
+    int size() {
+        return mItems.size();
+    }
+
+    boolean isEmpty() {
+        return mItems.isEmpty();
+    }
+
+    int getPageCount() {
+        return (mItems.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+
+    /**
+     * @param page 0 부터 시작하는 페이지 번호
+     * @return 해당 페이지의 할 일. 범위를 벗어나면 빈 목록
+     */
+    List<String> getPage(int page) {
+        int from = page * PAGE_SIZE;
+        if (page < 0 || from >= mItems.size()) {
+            return Collections.emptyList();
+        }
+        return mItems.subList(from, Math.min(from + PAGE_SIZE, mItems.size()));
+    }
+}
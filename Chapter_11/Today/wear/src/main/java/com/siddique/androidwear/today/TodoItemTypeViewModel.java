@@ -0,0 +1,183 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link TodosActivity} 에서 한 종류의 할 일 화면이 보여줄 상태. 읽어 온 목록과 펼쳐 둔 페이지 수를 보관한다.
+ *
+ * 종류 별로 프로세스에 하나씩 있으며 ({@link #getInstance}), 화면(프래그먼트)이나 액티비티와 따로 살아있으므로 종류를
+ * 바꿨다가 돌아오거나 화면을 돌려서 액티비티가 다시 만들어져도 같은 상태를 그대로 보여준다. 목록은
+ * {@link TodoItemsRepository} 에서 받으며, 상태가 바뀌면 {@link Listener} 에 알린다. 메인 스레드에서만 사용한다.
+ */
+final class TodoItemTypeViewModel {
+
+    /**
+     * 목록을 읽어오는 곳. 앱에서는 {@link TodoItemsRepository} 이다.
+     */
+    interface Loader {
+        /**
+         * @return 마지막으로 읽은 목록. 아직 읽지 못했다면 null
+         */
+        TodoItemPages getCached(String todoType);
+
+        /**
+         * @return 진행 중이거나 완료된 읽기. 다시 읽을 필요가 없다면 이전과 같은 결과를 돌려준다.
+         */
+        ResultFuture<TodoItemPages> load(String todoType);
+    }
+
+    private static final Map<TodoItemType, TodoItemTypeViewModel> sInstances =
+            new EnumMap<TodoItemType, TodoItemTypeViewModel>(TodoItemType.class);
+
+    /**
+     * 상태가 바뀌었을 때 메인 스레드에서 호출된다.
+     */
+    interface Listener {
+        void onChanged(TodoItemTypeViewModel viewModel);
+    }
+
+    private final TodoItemType mType;
+    private final Loader mLoader;
+
+    /** 읽기 결과를 받을 Executor. 앱에서는 메인 스레드이다. */
+    private final Executor mExecutor;
+
+    private Listener mListener;
+
+    /** 마지막으로 받은 목록. 아직 받지 못했다면 null */
+    private TodoItemPages mPages;
+
+    private boolean mLoading;
+    private boolean mLoadFailed;
+
+    /** 펼쳐 둔 페이지 수 */
+    private int mExpandedPageCount = 1;
+
+    /** 마지막으로 시작한 읽기. 늦게 도착한 이전 결과를 무시하는 데 사용한다. */
+    private ResultFuture<TodoItemPages> mLoad;
+
+    /**
+     * @return 종류의 상태. 처음 요청할 때 만든다.
+     */
+    static TodoItemTypeViewModel getInstance(Context context, TodoItemType type) {
+        TodoItemTypeViewModel viewModel = sInstances.get(type);
+        if (viewModel == null) {
+            viewModel = new TodoItemTypeViewModel(type, TodoItemsRepository.getInstance(context),
+                    AsyncExecutors.mainThread());
+            sInstances.put(type, viewModel);
+        }
+        return viewModel;
+    }
+
+    TodoItemTypeViewModel(TodoItemType type, Loader loader, Executor executor) {
+        mType = type;
+        mLoader = loader;
+        mExecutor = executor;
+        mPages = loader.getCached(type.getTypeValue());
+    }
+
+    TodoItemType getType() {
+        return mType;
+    }
+
+    /**
+     * 프래그먼트의 뷰가 있는 동안에만 지정한다. 뷰가 사라지면 {@link #removeListener} 로 해제한다.
+     */
+    void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 지정된 리스너가 {@code listener} 일 때만 해제한다. 액티비티가 다시 만들어질 때 새 프래그먼트가 먼저 지정했을 수 있다.
+     */
+    void removeListener(Listener listener) {
+        if (mListener == listener) {
+            mListener = null;
+        }
+    }
+
+    /**
+     * @return 보여줄 목록. 아직 읽지 못했다면 null
+     */
+    TodoItemPages getPages() {
+        return mPages;
+    }
+
+    boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * @return 목록을 한 번도 받지 못한 채 읽기에 실패했는지 여부
+     */
+    boolean isLoadFailed() {
+        return mLoadFailed;
+    }
+
+    /**
+     * @return 보여줄 페이지 수. 목록이 줄었다면 남은 페이지 수까지만 보여준다.
+     */
+    int getShownPageCount() {
+        return mPages == null ? 0 : Math.min(mExpandedPageCount, mPages.getPageCount());
+    }
+
+    boolean hasMorePages() {
+        return mPages != null && getShownPageCount() < mPages.getPageCount();
+    }
+
+    void showNextPage() {
+        if (hasMorePages()) {
+            mExpandedPageCount = getShownPageCount() + 1;
+            notifyChanged();
+        }
+    }
+
+    /**
+     * 목록을 읽는다. 저장소에 이미 읽은 목록이 있다면 다시 읽지 않고 그 목록을 사용한다.
+     * 폰에서 목록이 바뀌었다면 저장소를 무효화한 후에 호출한다.
+     */
+    void load() {
+        final ResultFuture<TodoItemPages> load = mLoader.load(mType.getTypeValue());
+        if (load == mLoad) {
+            return;
+        }
+        mLoad = load;
+        mLoading = true;
+        load.addListener(new ResultFuture.Listener<TodoItemPages>() {
+            @Override
+            public void onSuccess(TodoItemPages pages) {
+                if (load != mLoad) {
+                    return;
+                }
+                mLoading = false;
+                mLoadFailed = false;
+                if (pages != mPages) {
+                    mPages = pages;
+                    notifyChanged();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                if (load != mLoad) {
+                    return;
+                }
+                // 다음 load() 에서 다시 시도한다. 이전 목록이 있다면 그대로 보여준다.
+                mLoad = null;
+                mLoading = false;
+                mLoadFailed = mPages == null;
+                notifyChanged();
+            }
+        }, mExecutor);
+    }
+
+    private void notifyChanged() {
+        if (mListener != null) {
+            mListener.onChanged(this);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataItemBuffer;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.DataMapItem;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 폰이 종류 별로 게시한 할 일 DataItem ({@link Constants#TODO_ITEMS_PATH}/종류) 을 읽어서 {@link TodoItemPages} 로
+ * 보관한다.
+ *
+ * 종류 별 목록은 DataItem 하나에 모두 들어있으므로 한 번에 읽으며, 페이지는 화면에서만 나눈다. 폰을 바꾸면 노드마다
+ * DataItem 이 남아있을 수 있으므로 연결된 폰이 게시한 것을 고른다 ({@link TodoItemPages#fromNodes}).
+ *
+ * 한 번 읽은 목록은 프로세스가 살아있는 동안 보관하므로, 화면을 다시 열거나 종류를 바꿔도 다시 읽지 않는다.
+ * DataItem 이 바뀌었다는 알림을 받으면 {@link #invalidate(String)} 로 다음 {@link #load(String)} 에서 다시 읽게 하고,
+ * 새 목록을 받을 때까지는 이전 목록을 그대로 돌려준다. 메인 스레드에서만 사용한다.
+ */
+final class TodoItemsRepository implements TodoItemTypeViewModel.Loader {
+
+    private static final String TAG = TodoItemsRepository.class.getName();
+
+    private static TodoItemsRepository sInstance;
+
+    private final Context mContext;
+
+    /** 종류 별로 진행 중이거나 완료된 읽기. 실패하거나 무효화되면 지운다. */
+    private final Map<String, ResultFuture<TodoItemPages>> mLoads =
+            new HashMap<String, ResultFuture<TodoItemPages>>();
+
+    /** 종류 별로 마지막으로 읽은 목록 */
+    private final Map<String, TodoItemPages> mPages = new HashMap<String, TodoItemPages>();
+
+    static synchronized TodoItemsRepository getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new TodoItemsRepository(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private TodoItemsRepository(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * @return 마지막으로 읽은 목록. 아직 읽지 못했다면 null
+     */
+    @Override
+    public TodoItemPages getCached(String todoType) {
+        return mPages.get(todoType);
+    }
+
+    /**
+     * 목록을 읽는다. 이미 읽었거나 읽는 중이라면 그 결과를 돌려준다. 결과는 메인 스레드에서 받아야 한다.
+     */
+    @Override
+    public ResultFuture<TodoItemPages> load(final String todoType) {
+        ResultFuture<TodoItemPages> load = mLoads.get(todoType);
+        if (load != null) {
+            return load;
+        }
+
+        final ResultFuture<TodoItemPages> result = fetch(todoType);
+        mLoads.put(todoType, result);
+        result.addListener(new ResultFuture.Listener<TodoItemPages>() {
+            @Override
+            public void onSuccess(TodoItemPages pages) {
+                if (mLoads.get(todoType) == result) {
+                    mPages.put(todoType, pages);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                // 실패한 결과는 보관하지 않고 다음에 다시 시도한다
+                Log.w(TAG, "Unable to load " + todoType + " todo items", error);
+                if (mLoads.get(todoType) == result) {
+                    mLoads.remove(todoType);
+                }
+            }
+        }, AsyncExecutors.mainThread());
+        return result;
+    }
+
+    /**
+     * DataItem 이 바뀌었을 때 호출한다. 다음 {@link #load(String)} 에서 다시 읽는다.
+     *
+     * @param path 바뀐 DataItem 의 경로
+     * @return 할 일 DataItem 이었다면 그 종류, 아니라면 null
+     */
+    String invalidate(String path) {
+        String prefix = Constants.TODO_ITEMS_PATH + "/";
+        if (!path.startsWith(prefix)) {
+            return null;
+        }
+        String todoType = path.substring(prefix.length());
+        mLoads.remove(todoType);
+        return todoType;
+    }
+
+    private ResultFuture<TodoItemPages> fetch(final String todoType) {
+        final ApiClientManager.Lease lease = ApiClientManager.getInstance(mContext).acquire();
+        ResultFuture<TodoItemPages> result = lease.connected()
+                .then(new ResultFuture.AsyncFunction<GoogleApiClient, TodoItemPages>() {
+                    @Override
+                    public ResultFuture<TodoItemPages> apply(GoogleApiClient client) {
+                        return readPages(client, todoType);
+                    }
+                }, AsyncExecutors.direct());
+        result.addListener(new ResultFuture.Listener<TodoItemPages>() {
+            @Override
+            public void onSuccess(TodoItemPages pages) {
+                lease.release();
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                lease.release();
+            }
+        }, AsyncExecutors.direct());
+        return result;
+    }
+
+    private static ResultFuture<TodoItemPages> readPages(final GoogleApiClient client,
+            final String todoType) {
+        return WearableCalls.getConnectedNodes(client)
+                .then(new ResultFuture.AsyncFunction<List<Node>, TodoItemPages>() {
+                    @Override
+                    public ResultFuture<TodoItemPages> apply(List<Node> nodes) {
+                        final Set<String> connectedNodeIds = new HashSet<String>();
+                        for (Node node : nodes) {
+                            connectedNodeIds.add(node.getId());
+                        }
+                        // 호스트를 지정하지 않으면 모든 노드의 DataItem 을 찾는다
+                        Uri uri = new Uri.Builder()
+                                .scheme(PutDataRequest.WEAR_URI_SCHEME)
+                                .path(Constants.TODO_ITEMS_PATH + "/" + todoType)
+                                .build();
+                        return PendingResults.toFuture(Wearable.DataApi.getDataItems(client, uri))
+                                .map(new ResultFuture.Function<DataItemBuffer, TodoItemPages>() {
+                                    @Override
+                                    public TodoItemPages apply(DataItemBuffer dataItems) {
+                                        try {
+                                            return TodoItemPages.fromNodes(
+                                                    readItemsByNode(dataItems), connectedNodeIds);
+                                        } finally {
+                                            dataItems.release();
+                                        }
+                                    }
+                                }, AsyncExecutors.direct());
+                    }
+                }, AsyncExecutors.direct());
+    }
+
+    private static Map<String, List<String>> readItemsByNode(DataItemBuffer dataItems) {
+        Map<String, List<String>> itemsByNode = new LinkedHashMap<String, List<String>>();
+        for (DataItem dataItem : dataItems) {
+            DataMap dataMap = DataMapItem.fromDataItem(dataItem).getDataMap();
+            ArrayList<String> items = dataMap.getStringArrayList(Constants.TODO_ITEMS_KEY);
+            if (items != null) {
+                itemsByNode.put(dataItem.getUri().getHost(), items);
+            }
+        }
+        return itemsByNode;
+    }
+}
@@ -2,30 +2,58 @@ package com.siddique.androidwear.today;
 
 import android.app.Fragment;
 import android.app.FragmentManager;
+import android.app.FragmentTransaction;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.support.wearable.activity.WearableActivity;
 import android.support.wearable.view.drawer.WearableActionDrawer;
 import android.support.wearable.view.drawer.WearableDrawerLayout;
 import android.support.wearable.view.drawer.WearableNavigationDrawer;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataEvent;
+import com.google.android.gms.wearable.DataEventBuffer;
+import com.google.android.gms.wearable.Wearable;
+
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * 폰이 게시한 할 일을 종류 별로 보여주는 화면. 할 일 목록은 {@link TodoItemsRepository} 가 보관하므로
+ * 종류를 바꾸거나 화면을 다시 열어도 다시 읽지 않으며, 화면이 보이는 동안 폰에서 목록이 바뀌면 다시 읽는다.
+ *
+ * 종류 별 상태는 액티비티가 아니라 프로세스에 하나씩 있는 {@link TodoItemTypeViewModel} 이 보관하므로 액티비티가 다시
+ * 만들어져도 펼쳐 둔 페이지를 잃지 않는다. 종류 별로 프래그먼트를 하나씩 두어 내비게이션 드로어에서
+ * 종류를 바꿀 때 다시 만들지 않고 숨기거나 보여주기만 한다. 종류를 보여준 후 메인 스레드가 한가해지면 다음 종류의
+ * 프래그먼트를 숨긴 채로 미리 만들고, 목록과 배경 이미지도 백그라운드에서 미리 읽어 둔다.
+ */
 public class TodosActivity extends WearableActivity implements
-        WearableActionDrawer.OnMenuItemClickListener {
+        WearableActionDrawer.OnMenuItemClickListener, DataApi.DataListener,
+        ApiClientManager.Callback {
 
     private static final String TAG = TodosActivity.class.getName();
 
+    private static final String STATE_SELECTED_TODO_TYPE = "selected_todo_type";
+
     private WearableDrawerLayout mWearableDrawerLayout;
     private WearableNavigationDrawer mWearableNavigationDrawer;
     private WearableActionDrawer mWearableActionDrawer;
@@ -33,7 +61,12 @@ public class TodosActivity extends WearableActivity implements
     private List<TodoItemType> todoItemTypes = Arrays.asList(TodoItemType.HOME, TodoItemType.WORK);
     private TodoItemType mSelectedTodoItemType;
 
-    private TodoItemTypeFragment mTodoItemTypeFragment;
+    private NavigationAdapter mNavigationAdapter;
+
+    /** 내비게이션 드로어 아이콘의 한 변 크기 (픽셀) */
+    private int mNavigationIconSize;
+
+    private ApiClientManager.Lease mApiClientLease;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,18 +76,10 @@ public class TodosActivity extends WearableActivity implements
         setContentView(R.layout.activity_todo_main);
         setAmbientEnabled();
 
-        mSelectedTodoItemType = TodoItemType.HOME;
-
-        // 컨텐트 초기화
-        mTodoItemTypeFragment = new TodoItemTypeFragment();
-        Bundle args = new Bundle();
-
-        args.putString(TodoItemTypeFragment.ARG_TODO_TYPE, mSelectedTodoItemType.toString());
-
-        mTodoItemTypeFragment.setArguments(args);
-        FragmentManager fragmentManager = getFragmentManager();
-        fragmentManager.beginTransaction().replace(R.id.content_frame, mTodoItemTypeFragment).commit();
-
+        // 컨텐트 초기화. 다시 만들어진 경우엔 프래그먼트 매니저가 종류 별 프래그먼트를 복원한다.
+        mSelectedTodoItemType = savedInstanceState == null ? TodoItemType.HOME
+                : TodoItemType.valueOf(savedInstanceState.getString(STATE_SELECTED_TODO_TYPE));
+        showTodoItemType(mSelectedTodoItemType);
 
         // 모든 컨텐트를 포함하는 메인 WearableDrawerLayout
         mWearableDrawerLayout = (WearableDrawerLayout) findViewById(R.id.drawer_layout);
@@ -64,7 +89,11 @@ public class TodosActivity extends WearableActivity implements
                 (WearableNavigationDrawer) findViewById(R.id.top_navigation_drawer);
 
         Log.i(TAG, "mWearableNavigationDrawer  = " + mWearableNavigationDrawer);
-        mWearableNavigationDrawer.setAdapter(new NavigationAdapter(this));
+        mNavigationIconSize = getResources().getDimensionPixelSize(R.dimen.todo_navigation_icon_size);
+        mNavigationAdapter = new NavigationAdapter(this);
+        mWearableNavigationDrawer.setAdapter(mNavigationAdapter);
+        mWearableNavigationDrawer.setCurrentItem(todoItemTypes.indexOf(mSelectedTodoItemType), false);
+        loadNavigationIcons();
 
         // 상단의 NavigationDrawer를 보여줌
         mWearableDrawerLayout.peekDrawer(Gravity.TOP);
@@ -81,6 +110,165 @@ public class TodosActivity extends WearableActivity implements
     }
 
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_SELECTED_TODO_TYPE, mSelectedTodoItemType.toString());
+    }
+
+    /**
+     * 종류의 상태. 액티비티보다 오래 살아있다.
+     */
+    TodoItemTypeViewModel getViewModel(TodoItemType todoItemType) {
+        return TodoItemTypeViewModel.getInstance(this, todoItemType);
+    }
+
+    private static String getFragmentTag(TodoItemType todoItemType) {
+        return "todo_type_" + todoItemType.name();
+    }
+
+    /**
+     * 종류의 프래그먼트를 보여주고 나머지는 숨긴다. 프래그먼트가 없을 때만 새로 만든다.
+     */
+    private void showTodoItemType(TodoItemType todoItemType) {
+        mSelectedTodoItemType = todoItemType;
+        getViewModel(todoItemType).load();
+
+        FragmentManager fragmentManager = getFragmentManager();
+        FragmentTransaction transaction = fragmentManager.beginTransaction();
+        for (TodoItemType type : todoItemTypes) {
+            Fragment fragment = fragmentManager.findFragmentByTag(getFragmentTag(type));
+            if (type == todoItemType) {
+                if (fragment == null) {
+                    transaction.add(R.id.content_frame,
+                            TodoItemTypeFragment.newInstance(type), getFragmentTag(type));
+                } else if (fragment.isHidden()) {
+                    transaction.show(fragment);
+                }
+            } else if (fragment != null && !fragment.isHidden()) {
+                transaction.hide(fragment);
+            }
+        }
+        transaction.commit();
+
+        Looper.myQueue().removeIdleHandler(mPreloadAdjacentType);
+        Looper.myQueue().addIdleHandler(mPreloadAdjacentType);
+    }
+
+    /**
+     * 선택한 종류의 다음 종류를 미리 준비한다. 드로어를 넘기면 보통 바로 옆 종류로 가기 때문이다.
+     */
+    private final MessageQueue.IdleHandler mPreloadAdjacentType = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            if (isDestroyed()) {
+                return false;
+            }
+            int position = todoItemTypes.indexOf(mSelectedTodoItemType);
+            TodoItemType adjacentType = todoItemTypes.get((position + 1) % todoItemTypes.size());
+            if (adjacentType == mSelectedTodoItemType) {
+                return false;
+            }
+
+            // 목록과 배경 이미지는 백그라운드에서 읽는다
+            getViewModel(adjacentType).load();
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            BitmapLoader.getInstance(TodosActivity.this).load(
+                    getBackgroundResId(TodosActivity.this, adjacentType),
+                    metrics.widthPixels, metrics.heightPixels);
+
+            // 화면을 만드는 일은 메인 스레드에서 해야 하므로, 한가할 때 숨긴 채로 만들어 둔다
+            FragmentManager fragmentManager = getFragmentManager();
+            if (!isFinishing() && !fragmentManager.isDestroyed()
+                    && fragmentManager.findFragmentByTag(getFragmentTag(adjacentType)) == null) {
+                Fragment fragment = TodoItemTypeFragment.newInstance(adjacentType);
+                fragmentManager.beginTransaction()
+                        .add(R.id.content_frame, fragment, getFragmentTag(adjacentType))
+                        .hide(fragment)
+                        .commitAllowingStateLoss();
+            }
+            return false;
+        }
+    };
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // 화면이 보이는 동안 폰에서 할 일이 바뀌면 다시 읽는다
+        mApiClientLease = ApiClientManager.getInstance(this).acquire();
+        mApiClientLease.whenConnected(this);
+    }
+
+    @Override
+    protected void onStop() {
+        // 연결은 다른 화면과 공유하므로 이 화면의 리스너만 제거하고 사용권을 반납한다
+        GoogleApiClient client = mApiClientLease.getClient();
+        if (client.isConnected()) {
+            Wearable.DataApi.removeListener(client, this);
+        }
+        mApiClientLease.release();
+        mApiClientLease = null;
+        super.onStop();
+    }
+
+    @Override // ApiClientManager.Callback
+    public void onConnected(GoogleApiClient client) {
+        Wearable.DataApi.addListener(client, this);
+    }
+
+    @Override // ApiClientManager.Callback
+    public void onConnectionFailed(ConnectionResult result) {
+        Log.w(TAG, "Connection Failed " + result);
+    }
+
+    @Override // DataApi.DataListener
+    public void onDataChanged(DataEventBuffer dataEvents) {
+        TodoItemsRepository repository = TodoItemsRepository.getInstance(this);
+        for (DataEvent event : dataEvents) {
+            String todoType = repository.invalidate(event.getDataItem().getUri().getPath());
+            if (todoType == null) {
+                continue;
+            }
+            // 숨겨 둔 종류도 다시 보여줄 때 최신 목록이어야 하므로 보이지 않는 종류도 다시 읽는다
+            for (TodoItemType todoItemType : todoItemTypes) {
+                if (todoItemType.getTypeValue().equals(todoType)) {
+                    getViewModel(todoItemType).load();
+                }
+            }
+        }
+    }
+
+    /**
+     * 할 일 유형의 배경 이미지 리소스 아이디
+     */
+    static int getBackgroundResId(Context context, TodoItemType todoItemType) {
+        return context.getResources().getIdentifier(
+                todoItemType.getBackgroundImage(), "drawable", context.getPackageName());
+    }
+
+    /**
+     * 내비게이션 아이콘을 아이콘 크기로 줄여서 백그라운드에서 읽고, 모두 읽으면 드로어를 다시 그린다.
+     */
+    private void loadNavigationIcons() {
+        for (TodoItemType todoItemType : todoItemTypes) {
+            BitmapLoader.getInstance(this).load(getBackgroundResId(this, todoItemType),
+                    mNavigationIconSize, mNavigationIconSize).addListener(
+                    new ResultFuture.Listener<Bitmap>() {
+                        @Override
+                        public void onSuccess(Bitmap bitmap) {
+                            if (bitmap != null && !isDestroyed()) {
+                                mNavigationAdapter.notifyDataSetChanged();
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Throwable error) {
+                            Log.w(TAG, "Unable to load navigation icon", error);
+                        }
+                    }, AsyncExecutors.mainThread());
+        }
+    }
+
     @Override
     public boolean onMenuItemClick(MenuItem menuItem) {
         Log.d(TAG, "onMenuItemClick(): " + menuItem);
@@ -132,12 +320,7 @@ public class TodosActivity extends WearableActivity implements
         @Override
         public void onItemSelected(int position) {
             Log.d(TAG, "WearableNavigationDrawerAdapter.onItemSelected(): " + position);
-            mSelectedTodoItemType = todoItemTypes.get(position);
-
-            String selectedTodoImage = mSelectedTodoItemType.getBackgroundImage();
-            int drawableId =
-                    getResources().getIdentifier(selectedTodoImage, "drawable", getPackageName());
-            mTodoItemTypeFragment.updateFragment(mSelectedTodoItemType);
+            showTodoItemType(todoItemTypes.get(position));
         }
 
         @Override
@@ -147,49 +330,152 @@ public class TodosActivity extends WearableActivity implements
 
         @Override
         public Drawable getItemDrawable(int position) {
-
-            mSelectedTodoItemType = todoItemTypes.get(position);
-
-            String navigationIcon = mSelectedTodoItemType.getBackgroundImage();
-
-            int drawableNavigationIconId =
-                    getResources().getIdentifier(navigationIcon, "drawable", getPackageName());
-
-            return mContext.getDrawable(drawableNavigationIconId);
+            // 원본 사진을 메인 스레드에서 디코딩하지 않도록 캐시에 있는 아이콘만 사용한다.
+            // 아직 읽지 못했다면 빈 아이콘을 보여주고, 다 읽으면 loadNavigationIcons 가 다시 그린다.
+            int resId = getBackgroundResId(mContext, todoItemTypes.get(position));
+            Bitmap icon = BitmapLoader.getInstance(mContext)
+                    .getCached(resId, mNavigationIconSize, mNavigationIconSize);
+            if (icon == null) {
+                return new ColorDrawable(Color.TRANSPARENT);
+            }
+            return new BitmapDrawable(mContext.getResources(), icon);
         }
     }
 
     /**
-     * content_frame 에 표시되는 프래그먼트. 현재 선택된 할일 항목 타입을 보여줌
+     * content_frame 에 표시되는 프래그먼트. 한 종류의 할일 항목을 보여줌.
+     * 종류 별로 하나씩 만들어서 숨기거나 보여주며, 보여줄 상태는 액티비티의 {@link TodoItemTypeViewModel} 에서 가져온다.
      */
-    public static class TodoItemTypeFragment extends Fragment {
+    public static class TodoItemTypeFragment extends Fragment
+            implements TodoItemTypeViewModel.Listener {
         public static final String ARG_TODO_TYPE = "todo_type";
 
         TextView titleView = null;
         TextView descView = null;
+        private View mRootView;
+        private LinearLayout mItemsView;
+        private TextView mMoreView;
+        private LayoutInflater mInflater;
+
+        private TodoItemTypeViewModel mViewModel;
 
         public TodoItemTypeFragment() {
             // 프래그먼트의 자식 클래스는 아무 인자도 갖지 않는 생성자를 가져야 한다
         }
 
+        static TodoItemTypeFragment newInstance(TodoItemType todoItemType) {
+            TodoItemTypeFragment fragment = new TodoItemTypeFragment();
+            Bundle args = new Bundle();
+            args.putString(ARG_TODO_TYPE, todoItemType.toString());
+            fragment.setArguments(args);
+            return fragment;
+        }
+
         @Override
         public View onCreateView(LayoutInflater inflater, ViewGroup container,
                                  Bundle savedInstanceState) {
             View rootView = inflater.inflate(R.layout.fragment_todo_item, container, false);
+            mRootView = rootView;
+            mInflater = inflater;
 
             titleView = (TextView) rootView.findViewById(R.id.todo_card_title);
             descView = (TextView) rootView.findViewById(R.id.todo_card_desc);
+            mItemsView = (LinearLayout) rootView.findViewById(R.id.todo_card_items);
+            mMoreView = (TextView) rootView.findViewById(R.id.todo_card_more);
+            mMoreView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    mViewModel.showNextPage();
+                }
+            });
 
             String todoType = getArguments().getString(ARG_TODO_TYPE);
             TodoItemType todoItemType = TodoItemType.valueOf(todoType);
-            updateFragment(todoItemType);
+            titleView.setText(todoItemType.getTypeValue() + " Todos");
+
+            mViewModel = ((TodosActivity) getActivity()).getViewModel(todoItemType);
+            mViewModel.setListener(this);
+            mViewModel.load();
+            showItems();
+            loadBackground(todoItemType);
 
             return rootView;
         }
 
-        public void updateFragment(TodoItemType todoItemType) {
-            titleView.setText(todoItemType.getTypeValue() + " Todos");
-            descView.setText("List description");
+        @Override
+        public void onDestroyView() {
+            mViewModel.removeListener(this);
+            mRootView = null;
+            super.onDestroyView();
+        }
+
+        @Override // TodoItemTypeViewModel.Listener
+        public void onChanged(TodoItemTypeViewModel viewModel) {
+            showItems();
+        }
+
+        /**
+         * 펼쳐 둔 페이지 수만큼 할 일을 보여준다. 이미 있는 항목 뷰는 다시 사용하고, 모자란 뷰만 만든다.
+         */
+        private void showItems() {
+            TodoItemPages pages = mViewModel.getPages();
+            if (pages == null) {
+                mItemsView.removeAllViews();
+                mMoreView.setVisibility(View.GONE);
+                descView.setText(mViewModel.isLoadFailed()
+                        ? R.string.todo_empty : R.string.todo_loading);
+                return;
+            }
+
+            int index = 0;
+            int pageCount = mViewModel.getShownPageCount();
+            for (int page = 0; page < pageCount; page++) {
+                for (String item : pages.getPage(page)) {
+                    TextView itemView;
+                    if (index < mItemsView.getChildCount()) {
+                        itemView = (TextView) mItemsView.getChildAt(index);
+                    } else {
+                        itemView = (TextView) mInflater.inflate(
+                                R.layout.todo_list_item, mItemsView, false);
+                        mItemsView.addView(itemView);
+                    }
+                    if (!item.contentEquals(itemView.getText())) {
+                        itemView.setText(item);
+                    }
+                    index++;
+                }
+            }
+            if (index < mItemsView.getChildCount()) {
+                mItemsView.removeViews(index, mItemsView.getChildCount() - index);
+            }
+
+            descView.setText(pages.isEmpty() ? getString(R.string.todo_empty)
+                    : getString(R.string.todo_count, pages.size()));
+            mMoreView.setVisibility(mViewModel.hasMorePages() ? View.VISIBLE : View.GONE);
+        }
+
+        /**
+         * 유형의 사진을 화면 크기로 줄여서 백그라운드에서 읽고, 다 읽으면 배경으로 지정한다.
+         * 읽는 동안에는 레이아웃의 기본 배경을 보여준다.
+         */
+        private void loadBackground(TodoItemType todoItemType) {
+            int resId = getBackgroundResId(getActivity(), todoItemType);
+            DisplayMetrics metrics = getResources().getDisplayMetrics();
+            BitmapLoader.getInstance(getActivity())
+                    .load(resId, metrics.widthPixels, metrics.heightPixels)
+                    .addListener(new ResultFuture.Listener<Bitmap>() {
+                        @Override
+                        public void onSuccess(Bitmap bitmap) {
+                            if (bitmap != null && mRootView != null) {
+                                mRootView.setBackground(new BitmapDrawable(getResources(), bitmap));
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Throwable error) {
+                            Log.w(TAG, "Unable to load background", error);
+                        }
+                    }, AsyncExecutors.mainThread());
         }
     }
 }
@@ -0,0 +1,147 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.wearable.DataMap;
+
+/**
+ * {@link TodayWatchFaceService} 설정 값. 설정 {@link DataMap} 을 한 번만 해석해서 타입이 있는 필드로 보관한다.
+ *
+ * 변경할 수 없는 객체이며, 설정이 바뀌면 새 객체를 만들고 {@link #diff(WatchFaceConfig)} 로 바뀐 항목만 확인한다.
+ * 이 버전이 모르는 키(이후 버전에서 추가된 글꼴, 컴플리케이션 등)는 해석하지 않고 그대로 보관했다가
+ * {@link #toDataMap()} 에서 다시 내보내므로, 이전 버전의 앱이 설정을 다시 쓰더라도 지워지지 않는다.
+ *
+ * 더 높은 스키마 버전으로 쓰인 설정({@link #isFromNewerSchema()})은 이 버전이 아는 키의 의미가 바뀌었을 수 있으므로,
+ * 아는 키가 빠져 있더라도 기본 값을 채워서 다시 쓰지 않는다. 읽을 때는 아는 키만 해석하고 없는 키는 기본 값을 사용한다.
+ */
+public final class WatchFaceConfig {
+
+    /**
+     * 이 버전이 이해하는 설정 스키마 버전. 키를 추가하거나 의미를 바꾸면 증가시킨다.
+     */
+    public static final int SCHEMA_VERSION = 1;
+
+    /**
+     * {@link DataMap} 의 스키마 버전 키 값
+     */
+    public static final String KEY_SCHEMA_VERSION = "SCHEMA_VERSION";
+
+    /** {@link #diff(WatchFaceConfig)} 가 반환하는 변경 항목 */
+    public static final int CHANGED_BACKGROUND_COLOR = 1;
+    public static final int CHANGED_HOURS_COLOR = 1 << 1;
+    public static final int CHANGED_MINUTES_COLOR = 1 << 2;
+    public static final int CHANGED_SECONDS_COLOR = 1 << 3;
+
+    /**
+     * 아무 값도 설정되지 않았을 때의 기본 설정
+     */
+    public static final WatchFaceConfig DEFAULT = new WatchFaceConfig(new DataMap());
+
+    public final int backgroundColor;
+    public final int hoursColor;
+    public final int minutesColor;
+    public final int secondsColor;
+
+    /** {@link WatchFaceUtil#KEY_CONFIG_VERSION}. 없으면 0 */
+    public final long version;
+
+    /** 원본 {@link DataMap} 의 스키마 버전. 없으면 현재 버전 */
+    private final int mSchemaVersion;
+
+    /** 이 버전이 모르는 키와 값 */
+    private final DataMap mUnknown;
+
+    /** 원본에 이 버전이 아는 키가 모두 있었는지 여부 */
+    private final boolean mComplete;
+
+    public static WatchFaceConfig fromDataMap(DataMap config) {
+        return new WatchFaceConfig(config);
+    }
+
+    private WatchFaceConfig(DataMap config) {
+        backgroundColor = config.getInt(WatchFaceUtil.KEY_BACKGROUND_COLOR,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND);
+        hoursColor = config.getInt(WatchFaceUtil.KEY_HOURS_COLOR,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS);
+        minutesColor = config.getInt(WatchFaceUtil.KEY_MINUTES_COLOR,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS);
+        secondsColor = config.getInt(WatchFaceUtil.KEY_SECONDS_COLOR,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS);
+        version = config.getLong(WatchFaceUtil.KEY_CONFIG_VERSION, 0);
+        mSchemaVersion = config.getInt(KEY_SCHEMA_VERSION, SCHEMA_VERSION);
+
+        mComplete = config.containsKey(WatchFaceUtil.KEY_BACKGROUND_COLOR)
+                && config.containsKey(WatchFaceUtil.KEY_HOURS_COLOR)
+                && config.containsKey(WatchFaceUtil.KEY_MINUTES_COLOR)
+                && config.containsKey(WatchFaceUtil.KEY_SECONDS_COLOR);
+
+        mUnknown = new DataMap();
+        mUnknown.putAll(config);
+        mUnknown.remove(WatchFaceUtil.KEY_BACKGROUND_COLOR);
+        mUnknown.remove(WatchFaceUtil.KEY_HOURS_COLOR);
+        mUnknown.remove(WatchFaceUtil.KEY_MINUTES_COLOR);
+        mUnknown.remove(WatchFaceUtil.KEY_SECONDS_COLOR);
+        mUnknown.remove(WatchFaceUtil.KEY_CONFIG_VERSION);
+        mUnknown.remove(KEY_SCHEMA_VERSION);
+    }
+
+    /**
+     * @return 원본에 없어서 기본 값을 사용한 키가 있다면 true. 이 경우 {@link #toDataMap()} 을 다시 써서 기본 값을 저장한다.
+     * 단, {@link #isFromNewerSchema()} 라면 다시 쓰지 않는다.
+     */
+    public boolean hasMissingKeys() {
+        return !mComplete;
+    }
+
+    /**
+     * @return 원본이 이 버전보다 높은 스키마 버전으로 쓰였다면 true
+     */
+    public boolean isFromNewerSchema() {
+        return mSchemaVersion > SCHEMA_VERSION;
+    }
+
+    /**
+     * @return {@code previous} 와 비교해서 바뀐 항목의 CHANGED_* 비트 조합. 바뀐 항목이 없다면 0
+     */
+    public int diff(WatchFaceConfig previous) {
+        int changed = 0;
+        if (backgroundColor != previous.backgroundColor) {
+            changed |= CHANGED_BACKGROUND_COLOR;
+        }
+        if (hoursColor != previous.hoursColor) {
+            changed |= CHANGED_HOURS_COLOR;
+        }
+        if (minutesColor != previous.minutesColor) {
+            changed |= CHANGED_MINUTES_COLOR;
+        }
+        if (secondsColor != previous.secondsColor) {
+            changed |= CHANGED_SECONDS_COLOR;
+        }
+        return changed;
+    }
+
+    /**
+     * 모르는 키를 포함한 전체 설정을 {@link DataMap} 으로 만든다. 스키마 버전은 원본과 현재 버전 중 높은 값을 유지한다.
+     */
+    public DataMap toDataMap() {
+        DataMap config = new DataMap();
+        config.putAll(mUnknown);
+        config.putInt(WatchFaceUtil.KEY_BACKGROUND_COLOR, backgroundColor);
+        config.putInt(WatchFaceUtil.KEY_HOURS_COLOR, hoursColor);
+        config.putInt(WatchFaceUtil.KEY_MINUTES_COLOR, minutesColor);
+        config.putInt(WatchFaceUtil.KEY_SECONDS_COLOR, secondsColor);
+        config.putInt(KEY_SCHEMA_VERSION, Math.max(mSchemaVersion, SCHEMA_VERSION));
+        if (version != 0) {
+            config.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, version);
+        }
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        return "WatchFaceConfig{v" + version
+                + " background=" + Integer.toHexString(backgroundColor)
+                + " hours=" + Integer.toHexString(hoursColor)
+                + " minutes=" + Integer.toHexString(minutesColor)
+                + " seconds=" + Integer.toHexString(secondsColor)
+                + " unknown=" + mUnknown.keySet() + "}";
+    }
+}
@@ -26,17 +26,13 @@ import android.support.v7.widget.RecyclerView;
 import android.support.wearable.view.BoxInsetLayout;
 import android.support.wearable.view.CircledImageView;
 import android.support.wearable.view.WearableListView;
-import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowInsets;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.common.api.GoogleApiClient;
 import com.google.android.gms.wearable.DataMap;
-import com.google.android.gms.wearable.Wearable;
 
 /**
  * 워치의 {@link TodayWatchFaceService} 설정 액티비티. 배경 색깔을 설정할 수 있다.
@@ -45,7 +41,6 @@ public class WatchFaceConfigActivity extends Activity implements
         WearableListView.ClickListener, WearableListView.OnScrollListener {
     private static final String TAG = WatchFaceConfigActivity.class.getSimpleName();
 
-    private GoogleApiClient mGoogleApiClient;
     private TextView mHeader;
 
     @Override
@@ -77,47 +72,6 @@ public class WatchFaceConfigActivity extends Activity implements
 
         String[] colors = getResources().getStringArray(R.array.color_array);
         listView.setAdapter(new ColorListAdapter(colors));
-
-        mGoogleApiClient = new GoogleApiClient.Builder(this)
-                .addConnectionCallbacks(new GoogleApiClient.ConnectionCallbacks() {
-                    @Override
-                    public void onConnected(Bundle connectionHint) {
-                        if (Log.isLoggable(TAG, Log.DEBUG)) {
-                            Log.d(TAG, "onConnected: " + connectionHint);
-                        }
-                    }
-
-                    @Override
-                    public void onConnectionSuspended(int cause) {
-                        if (Log.isLoggable(TAG, Log.DEBUG)) {
-                            Log.d(TAG, "onConnectionSuspended: " + cause);
-                        }
-                    }
-                })
-                .addOnConnectionFailedListener(new GoogleApiClient.OnConnectionFailedListener() {
-                    @Override
-                    public void onConnectionFailed(ConnectionResult result) {
-                        if (Log.isLoggable(TAG, Log.DEBUG)) {
-                            Log.d(TAG, "onConnectionFailed: " + result);
-                        }
-                    }
-                })
-                .addApi(Wearable.API)
-                .build();
-    }
-
-    @Override
-    protected void onStart() {
-        super.onStart();
-        mGoogleApiClient.connect();
-    }
-
-    @Override
-    protected void onStop() {
-        if (mGoogleApiClient != null && mGoogleApiClient.isConnected()) {
-            mGoogleApiClient.disconnect();
-        }
-        super.onStop();
     }
 
     @Override // WearableListView.ClickListener
@@ -149,7 +103,8 @@ public class WatchFaceConfigActivity extends Activity implements
         DataMap configKeysToOverwrite = new DataMap();
         configKeysToOverwrite.putInt(WatchFaceUtil.KEY_BACKGROUND_COLOR,
                 backgroundColor);
-        WatchFaceUtil.overwriteKeysInConfigDataMap(mGoogleApiClient, configKeysToOverwrite);
+        // 선택 직후에 액티비티가 종료되므로, 액티비티보다 오래 유지되는 쓰기 파이프라인에 넘긴다
+        WatchFaceConfigWriter.getInstance(this).write(configKeysToOverwrite);
     }
 
     private class ColorListAdapter extends WearableListView.Adapter {
@@ -0,0 +1,252 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataMap;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link TodayWatchFaceService} 설정 쓰기를 모아서 처리하는 파이프라인.
+ *
+ * {@link #write(DataMap)} 로 받은 변경 사항은 바로 메모리 사본에 반영하고, {@link #COALESCE_WINDOW_MS} 동안 더 들어오는
+ * 변경 사항과 합쳐서 한 번의 putDataItem 으로 보낸다. 보낼 때는 저장된 설정의
+ * {@link WatchFaceUtil#KEY_CONFIG_VERSION} 보다 높고 이 프로세스가 이전에 보낸 버전보다도 높은 버전을 붙이므로, 늦게 도착한
+ * 이전 쓰기의 결과나 onDataChanged 알림이 더 새로운 값을 덮어쓰지 않는다. 프로세스가 다시 시작되었고 시계가 저장된 버전보다
+ * 뒤로 가 있더라도 새로 쓴 설정이 "이전 버전" 으로 무시되지 않는다.
+ *
+ * 설정 화면은 선택 직후에 종료되므로 프로세스 단위로 하나만 만들고, 보낼 변경 사항이 남아있는 동안에만 공유 연결의 사용권을 유지한다.
+ * 모든 메소드는 메인 스레드에서 호출해야 한다.
+ */
+public final class WatchFaceConfigWriter {
+
+    private static final String TAG = WatchFaceConfigWriter.class.getSimpleName();
+
+    /** 변경 사항을 모으는 시간. 연달아 선택해도 마지막 선택 후 이 시간이 지나야 한 번만 쓴다. */
+    static final long COALESCE_WINDOW_MS = 300;
+
+    /**
+     * 설정을 읽고 쓰는 곳. 앱에서는 공유 연결로 설정 {@link com.google.android.gms.wearable.DataItem} 과 메모리 사본을 사용한다.
+     */
+    interface Store {
+        /** 보낼 변경 사항이 생겼을 때 호출한다. 쓰기에 필요한 연결을 미리 시작한다. */
+        void acquire();
+
+        /** 보낼 변경 사항도 진행 중인 쓰기도 없을 때 호출한다. */
+        void release();
+
+        /** 쓰기 전에 바뀐 키를 메모리 사본에 먼저 반영한다. */
+        void applyLocally(DataMap changes);
+
+        /** 먼저 반영한 값이 실제로는 쓰이지 않았을 때 호출한다. 다음 조회는 저장된 설정을 다시 읽어야 한다. */
+        void discardLocal();
+
+        ResultFuture<DataMap> fetch();
+
+        ResultFuture<Void> put(DataMap config);
+    }
+
+    private static WatchFaceConfigWriter sInstance;
+
+    private final Store mStore;
+
+    /** 쓰기 결과를 받을 Executor. 앱에서는 메인 스레드이다. */
+    private final Executor mExecutor;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    /** 아직 보내지 않은 변경 사항 */
+    private final DataMap mPending = new DataMap();
+
+    /** 메모리 사본에 먼저 반영할 때 붙인 마지막 버전 */
+    private long mVersion;
+
+    /** 실제로 보낸 마지막 버전. 조회 결과를 받은 스레드에서 정하므로 {@link #stampVersion} 에서만 사용한다. */
+    private long mLastSentVersion;
+
+    /** 지금까지 보낸 쓰기 요청 수 */
+    private int mFlushCount;
+
+    /** 보냈지만 결과를 받지 못한 쓰기 요청 수 */
+    private int mInFlight;
+
+    private boolean mAcquired;
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public static WatchFaceConfigWriter getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new WatchFaceConfigWriter(new ApiClientStore(context.getApplicationContext()),
+                    AsyncExecutors.mainThread());
+        }
+        return sInstance;
+    }
+
+    WatchFaceConfigWriter(Store store, Executor executor) {
+        mStore = store;
+        mExecutor = executor;
+    }
+
+    /**
+     * 변경할 키와 값을 쓰기 대기열에 추가한다. 같은 키를 여러 번 쓰면 마지막 값만 보낸다.
+     */
+    public void write(DataMap changes) {
+        mVersion = Math.max(System.currentTimeMillis(), mVersion + 1);
+        mPending.putAll(changes);
+        mPending.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, mVersion);
+
+        // 쓰기가 끝나기 전에 설정을 읽더라도 새 값이 보이도록 사본에 먼저 반영한다
+        mStore.applyLocally(mPending);
+
+        if (!mAcquired) {
+            mStore.acquire();
+            mAcquired = true;
+        }
+        mHandler.removeCallbacks(mFlush);
+        mHandler.postDelayed(mFlush, COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * 모아 둔 변경 사항을 보낸다. {@link #COALESCE_WINDOW_MS} 가 지나면 호출된다.
+     */
+    void flush() {
+        mHandler.removeCallbacks(mFlush);
+        if (mPending.isEmpty()) {
+            return;
+        }
+        final DataMap changes = new DataMap();
+        changes.putAll(mPending);
+        mPending.clear();
+        final int flushCount = ++mFlushCount;
+        mInFlight++;
+
+        mStore.fetch()
+                .then(new ResultFuture.AsyncFunction<DataMap, Long>() {
+                    @Override
+                    public ResultFuture<Long> apply(DataMap current) {
+                        DataMap merged = new DataMap();
+                        merged.putAll(current);
+                        merged.putAll(changes);
+                        final long version = stampVersion(changes, current);
+                        merged.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, version);
+                        return mStore.put(merged).map(new ResultFuture.Function<Void, Long>() {
+                            @Override
+                            public Long apply(Void result) {
+                                return version;
+                            }
+                        }, AsyncExecutors.direct());
+                    }
+                }, AsyncExecutors.direct())
+                .addListener(new ResultFuture.Listener<Long>() {
+                    @Override
+                    public void onSuccess(Long version) {
+                        if (Log.isLoggable(TAG, Log.DEBUG)) {
+                            Log.d(TAG, "Config version " + version + " written");
+                        }
+                        mVersion = Math.max(mVersion, version);
+                        onWriteFinished();
+                    }
+
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.w(TAG, "Unable to write config", error);
+                        if (flushCount == mFlushCount && mPending.isEmpty()) {
+                            // 먼저 반영해 둔 값이 실제로는 쓰이지 않았으므로, 다음 조회에서 DataItem 을 다시 읽게 한다.
+                            // 이후의 쓰기가 있다면 그 쓰기가 사본에서 이 값까지 함께 읽어서 보낸다.
+                            mStore.discardLocal();
+                        }
+                        onWriteFinished();
+                    }
+                }, mExecutor);
+    }
+
+    /**
+     * @return 보낼 버전. 대기열에서 붙인 버전, 저장된 설정의 다음 버전, 이전에 보낸 버전의 다음 버전 중 가장 높은 값
+     */
+    private synchronized long stampVersion(DataMap changes, DataMap current) {
+        long version = Math.max(changes.getLong(WatchFaceUtil.KEY_CONFIG_VERSION, 0),
+                current.getLong(WatchFaceUtil.KEY_CONFIG_VERSION, 0) + 1);
+        version = Math.max(version, mLastSentVersion + 1);
+        mLastSentVersion = version;
+        return version;
+    }
+
+    private void onWriteFinished() {
+        mInFlight--;
+        if (mInFlight == 0 && mPending.isEmpty() && mAcquired) {
+            mStore.release();
+            mAcquired = false;
+        }
+    }
+
+    /**
+     * 공유 연결로 설정 DataItem 을 읽고 쓰며, {@link WatchFaceUtil} 의 메모리 사본을 사용한다.
+     */
+    private static final class ApiClientStore implements Store {
+        private final Context mContext;
+        private ApiClientManager.Lease mLease;
+
+        ApiClientStore(Context context) {
+            mContext = context;
+        }
+
+        @Override
+        public void acquire() {
+            mLease = ApiClientManager.getInstance(mContext).acquire();
+        }
+
+        @Override
+        public void release() {
+            mLease.release();
+            mLease = null;
+        }
+
+        @Override
+        public void applyLocally(DataMap changes) {
+            WatchFaceUtil.applyToConfigMirror(changes);
+        }
+
+        @Override
+        public void discardLocal() {
+            WatchFaceUtil.invalidateConfigMirror();
+        }
+
+        @Override
+        public ResultFuture<DataMap> fetch() {
+            return mLease.connected()
+                    .then(new ResultFuture.AsyncFunction<GoogleApiClient, DataMap>() {
+                        @Override
+                        public ResultFuture<DataMap> apply(GoogleApiClient client) {
+                            return WatchFaceUtil.fetchConfigDataMap(client);
+                        }
+                    }, AsyncExecutors.direct());
+        }
+
+        @Override
+        public ResultFuture<Void> put(final DataMap config) {
+            return mLease.connected()
+                    .then(new ResultFuture.AsyncFunction<GoogleApiClient, DataApi.DataItemResult>() {
+                        @Override
+                        public ResultFuture<DataApi.DataItemResult> apply(GoogleApiClient client) {
+                            return WatchFaceUtil.putConfigDataItem(client, config);
+                        }
+                    }, AsyncExecutors.direct())
+                    .map(new ResultFuture.Function<DataApi.DataItemResult, Void>() {
+                        @Override
+                        public Void apply(DataApi.DataItemResult result) {
+                            return null;
+                        }
+                    }, AsyncExecutors.direct());
+        }
+    }
+}
@@ -0,0 +1,905 @@
+package com.siddique.androidwear.today;
+
+import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.database.ContentObserver;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Message;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.support.wearable.watchface.WatchFaceService;
+import android.support.wearable.watchface.WatchFaceStyle;
+import android.text.format.DateFormat;
+import android.util.Log;
+import android.view.WindowInsets;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataEvent;
+import com.google.android.gms.wearable.DataEventBuffer;
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.DataMapItem;
+import com.google.android.gms.wearable.Wearable;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 캔버스 엔진({@link TodayWatchFaceService})과 OpenGL 엔진({@link TodayGlWatchFaceService})이 함께 사용하는 워치페이스 상태.
+ *
+ * 그리는 방법을 제외한 모든 것(설정 동기화, 시간대와 로케일 변경 처리, 대기 모드와 뮤트 모드의 색과 알파, 갱신 타이머, 탭 처리)을
+ * 담당한다. 각 엔진은 생명주기 콜백을 그대로 전달하고, {@link #drawFrame} 에 자신의 {@link WatchFaceRenderer} 를
+ * 넘겨서 한 프레임을 그린다. 텍스트 종류 별 색, 크기, 글꼴은 {@link #getPaint(int)} 의 페인트에 담겨 있다.
+ */
+final class WatchFaceController implements DataApi.DataListener, ApiClientManager.Callback {
+
+    private static final String TAG = WatchFaceController.class.getSimpleName();
+
+    /**
+     * 대기 모드나 뮤트 모드가 아닌 일반 모드의 업데이트 주기 (밀리세컨드 단위). 콜론을 깜빡이기 위해 0.5초 마다 갱신한다.
+     */
+    private static final long NORMAL_UPDATE_RATE_MS = 500;
+
+    /**
+     * 뮤트 모드의 업데이트 주기. 대기 모드와 같이 1분 마다 갱신한다.
+     */
+    private static final long MUTE_UPDATE_RATE_MS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 뮤트 모드의 시각 텍스트 알파 값
+     */
+    private static final int MUTE_ALPHA = 100;
+
+    /**
+     * 뮤트 모드 이외의 모드의 시각 텍스트 알파 값
+     */
+    private static final int NORMAL_ALPHA = 255;
+
+    /**
+     * 번인 방지가 필요한 디바이스에서 대기 모드의 배치를 옮기는 최대 거리 (픽셀)
+     */
+    private static final int BURN_IN_SHIFT_PX = 4;
+
+    /**
+     * 번인 방지가 필요한 디바이스의 대기 모드에서 글자 외곽선의 두께 (픽셀)
+     */
+    private static final float AMBIENT_OUTLINE_WIDTH = 1f;
+
+    private static final int MSG_UPDATE_TIME = 0;
+
+    /**
+     * 워치페이스 엔진 중 컨트롤러가 사용하는 부분
+     */
+    interface Host {
+        void invalidate();
+
+        boolean isVisible();
+
+        boolean isInAmbientMode();
+
+        /**
+         * @return 화면에 보여줄 카드가 없는지 여부
+         */
+        boolean isPeekCardEmpty();
+    }
+
+    private final Context mContext;
+    private final Host mHost;
+    private final WatchFaceLayout mLayout = new WatchFaceLayout();
+
+    /**
+     * 프레임을 결정하는 상태. {@link #onCreate()} 에서 만든다.
+     */
+    private WatchFaceModel mModel;
+
+    /**
+     * {@link #mUpdateTimeHandler} 의 갱신주기. 밀리초 단위.
+     */
+    private long mInteractiveUpdateRateMs = NORMAL_UPDATE_RATE_MS;
+
+    /**
+     * 대화 모드에서 주기적으로 시각을 갱신하기 위한 핸들러
+     */
+    private final Handler mUpdateTimeHandler = new Handler() {
+        @Override
+        public void handleMessage(Message message) {
+            switch (message.what) {
+                case MSG_UPDATE_TIME:
+                    if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                        Log.v(TAG, "updating time");
+                    }
+                    invalidate();
+                    if (shouldTimerBeRunning()) {
+                        long timeMs = System.currentTimeMillis();
+                        long delayMs =
+                                mInteractiveUpdateRateMs - (timeMs % mInteractiveUpdateRateMs);
+                        mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
+                    }
+                    break;
+            }
+        }
+    };
+
+    /**
+     * 화면에 보이는 동안 유지하는 공유 GoogleApiClient 의 사용권
+     */
+    private ApiClientManager.Lease mApiClientLease;
+
+    /**
+     * 연결을 요청한 시각 (SystemClock.elapsedRealtime). 설정이 적용된 첫 프레임을 그릴 때까지 걸린 시간을 기록하며,
+     * 기록한 후에는 0 이다.
+     */
+    private long mConnectRequestedAtMs;
+
+    /**
+     * 설정이 적용되어 다음 프레임에서 연결부터 첫 프레임까지의 시간을 기록해야 하는지 여부
+     */
+    private boolean mStyledFramePending;
+
+    /** 기록할 설정을 메모리 사본에서 바로 읽었는지 여부 */
+    private boolean mStyledFrameFromMirror;
+
+    /**
+     * 프로세스에서 측정한 시간. 엔진을 다시 만들어도 이어서 모으며, dumpsys 로 {@link #dumpLatencyStats} 를 출력한다.
+     */
+    private static final LatencyStats sFirstFrameStats = new LatencyStats("onCreate to first frame");
+    private static final LatencyStats sStyledFrameColdStats =
+            new LatencyStats("Connect to first styled frame (DataItem read)");
+    private static final LatencyStats sStyledFrameWarmStats =
+            new LatencyStats("Connect to first styled frame (config mirror)");
+
+    /**
+     * DataApi 리스너를 붙여 둔 연결. 화면이 꺼져도 리스너를 유지해서 설정 사본을 최신으로 유지하며,
+     * 연결이 끊기면 리스너도 사라지므로 null 이 된다.
+     */
+    private GoogleApiClient mListeningClient;
+
+    /**
+     * 연결이 끊기면 DataApi 리스너도 사라지므로 설정 사본이 최신이라는 보장이 없다. 화면에 보이는 중이라면 다시 연결되었을 때
+     * 리스너를 붙이고 설정을 다시 읽는다.
+     */
+    private final ApiClientManager.DisconnectListener mDisconnectListener =
+            new ApiClientManager.DisconnectListener() {
+                @Override
+                public void onDisconnected() {
+                    if (mListeningClient == null) {
+                        return;
+                    }
+                    mListeningClient = null;
+                    WatchFaceUtil.invalidateConfigMirror();
+                    if (mApiClientLease != null) {
+                        mApiClientLease.whenConnected(WatchFaceController.this);
+                    }
+                }
+            };
+
+    /**
+     * 시간대와 로케일 변경 처리
+     */
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (updateFormats()) {
+                invalidate();
+            }
+        }
+    };
+
+    /**
+     * 12/24시간 설정 변경 처리. 프레임마다 설정을 조회하지 않도록 값을 {@link #mIs24Hour} 에 보관한다.
+     */
+    private final ContentObserver mTimeFormatObserver = new ContentObserver(mUpdateTimeHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            boolean is24Hour = DateFormat.is24HourFormat(mContext);
+            if (is24Hour != mIs24Hour) {
+                mIs24Hour = is24Hour;
+                invalidate();
+            }
+        }
+    };
+
+    /**
+     * 날짜 영역에 표시하는 데이터 슬롯. 탭할 때마다 날짜 표시 다음에 순서대로 보여준다.
+     */
+    private WatchFaceDataSlot mStepsSlot;
+    private WatchFaceDataSlot mNextTodoSlot;
+    private WatchFaceDataSlot mOnThisDaySlot;
+    private WatchFaceDataSlot.CachedSource mOnThisDaySource;
+
+    private final Runnable mInvalidateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+        }
+    };
+
+    /**
+     * 슬롯의 값은 백그라운드 스레드에서 바뀌므로, 메인 스레드에서 다시 그리도록 요청한다.
+     */
+    private final WatchFaceDataSlot.Listener mDataSlotListener = new WatchFaceDataSlot.Listener() {
+        @Override
+        public void onValueChanged(WatchFaceDataSlot slot) {
+            mUpdateTimeHandler.post(mInvalidateRunnable);
+        }
+    };
+
+    /**
+     * 데이터 슬롯이 사용하는 연결. 화면에 보이는 동안에만 있다.
+     */
+    private final WatchFaceDataSources.ClientProvider mClientProvider =
+            new WatchFaceDataSources.ClientProvider() {
+                @Override
+                public ResultFuture<GoogleApiClient> connected() {
+                    if (mApiClientLease == null) {
+                        return ResultFuture.failed(new IllegalStateException("Watch face is not visible"));
+                    }
+                    return mApiClientLease.connected();
+                }
+            };
+
+    /**
+     * 날짜 형식을 만든 로케일과 시간대. 둘 다 그대로라면 형식을 다시 만들지 않는다.
+     */
+    private Locale mFormatLocale;
+    private TimeZone mFormatTimeZone;
+
+    private boolean mIs24Hour;
+
+    /**
+     * 등록하지 않은 리시버를 등록해제하려고 할 경우 예외가 발생하므로, 이런 상황을 막기 위해 등록 상태를 관리함
+     */
+    private boolean mRegisteredReceiver = false;
+
+    /**
+     * 프로세스 전체에서 공유하는 워치페이스 글꼴. 엔진을 다시 만들 때마다 애셋을 읽지 않도록 한 번만 만든다.
+     */
+    private static Typeface sTypeface;
+
+    private Typeface mTypeface;
+
+    /** onCreate 를 호출한 시각 (SystemClock.elapsedRealtime). 첫 프레임을 그린 후에는 0 이다. */
+    private long mCreatedAtMs;
+
+    /** 첫 프레임 이후로 미룬 초기화를 마쳤는지 여부 */
+    private boolean mDeferredInitDone;
+
+    /** 보이는 상태여서 첫 프레임 이후에 연결해야 하는지 여부 */
+    private boolean mConnectPending;
+
+    private boolean mTimeFormatObserverRegistered;
+
+    /**
+     * 첫 프레임에 필요하지 않은 초기화. 첫 프레임을 그린 직후에 메인 스레드에서 실행한다.
+     */
+    private final Runnable mDeferredInit = new Runnable() {
+        @Override
+        public void run() {
+            initDeferred();
+        }
+    };
+
+    private Paint mBackgroundPaint;
+
+    /** 텍스트 종류(WatchFaceRenderer.STYLE_*) 별 페인트 */
+    private final Paint[] mPaints = new Paint[WatchFaceRenderer.STYLE_COUNT];
+
+    private int mInteractiveBackgroundColor =
+            WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND;
+    private int mInteractiveHourDigitsColor =
+            WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS;
+    private int mInteractiveMinuteDigitsColor =
+            WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS;
+    private int mInteractiveSecondDigitsColor =
+            WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS;
+
+    /**
+     * 현재 적용된 설정. 새 설정과 비교해서 바뀐 항목만 반영한다.
+     */
+    private WatchFaceConfig mConfig = WatchFaceConfig.DEFAULT;
+
+    /**
+     * 디스플레이가 대기 모드에서 적은 컬러 비트만 사용하는 기능을 지원하는지 여부.
+     * true일 경우, 대기 모드에서 안티 앨리어싱을 사용하지 않는다.
+     */
+    private boolean mLowBitAmbient;
+
+    /**
+     * 디스플레이가 번인 방지를 필요로 하는지 여부.
+     * true일 경우, 대기 모드에서 글자를 외곽선으로만 그리고 1분 마다 배치를 조금씩 옮긴다.
+     */
+    private boolean mBurnInProtection;
+
+    /** 대기 모드에서 배치를 옮긴 횟수. 옮길 위치를 순서대로 고르는 데 사용한다. */
+    private int mBurnInShiftIndex;
+
+    /**
+     * 그릴 내용이 바뀔 때마다 증가한다. 대기 모드에서 미리 그려둔 프레임을 다시 그려야 하는지 판단하는 데 사용한다.
+     */
+    private int mFrameVersion;
+
+    /**
+     * 두 엔진이 같은 스타일을 사용하도록 여기서 만든다.
+     */
+    static WatchFaceStyle createWatchFaceStyle(Service service) {
+        return new WatchFaceStyle.Builder(service)
+                .setCardPeekMode(WatchFaceStyle.PEEK_MODE_VARIABLE)
+                .setBackgroundVisibility(WatchFaceStyle.BACKGROUND_VISIBILITY_INTERRUPTIVE)
+                .setShowSystemUiTime(false)
+                .setAcceptsTapEvents(true)
+                .build();
+    }
+
+    /**
+     * 메인 스레드에서 만들어야 한다.
+     */
+    WatchFaceController(Context context, Host host) {
+        mContext = context;
+        mHost = host;
+    }
+
+    /**
+     * 워치페이스 글꼴. 처음 호출할 때 애셋에서 읽는다.
+     */
+    static synchronized Typeface getTypeface(Context context) {
+        if (sTypeface == null) {
+            AssetManager assets = context.getApplicationContext().getAssets();
+            sTypeface = Typeface.createFromAsset(assets, "fonts/digital-7.ttf");
+        }
+        return sTypeface;
+    }
+
+    /**
+     * 첫 프레임에 필요한 것만 준비한다. 데이터 슬롯, 설정 관찰, GoogleApiClient 연결은 첫 프레임을 그린 후로 미룬다.
+     */
+    void onCreate() {
+        mCreatedAtMs = SystemClock.elapsedRealtime();
+        Resources resources = mContext.getResources();
+        mLayout.mYOffset = resources.getDimension(R.dimen.digital_y_offset);
+        mLayout.mLineHeight = resources.getDimension(R.dimen.digital_line_height);
+        mLayout.mAmString = resources.getString(R.string.digital_am);
+        mLayout.mPmString = resources.getString(R.string.digital_pm);
+
+        mTypeface = getTypeface(mContext);
+
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(mInteractiveBackgroundColor);
+        mPaints[WatchFaceRenderer.STYLE_DATE] = createTextPaint(resources.getColor(R.color.digital_date));
+        mPaints[WatchFaceRenderer.STYLE_HOUR] = createTextPaint(mInteractiveHourDigitsColor);
+        mPaints[WatchFaceRenderer.STYLE_MINUTE] = createTextPaint(mInteractiveMinuteDigitsColor);
+        mPaints[WatchFaceRenderer.STYLE_SECOND] = createTextPaint(mInteractiveSecondDigitsColor);
+        mPaints[WatchFaceRenderer.STYLE_AM_PM] = createTextPaint(resources.getColor(R.color.digital_am_pm));
+        mPaints[WatchFaceRenderer.STYLE_COLON] = createTextPaint(resources.getColor(R.color.digital_colons));
+
+        mFormatLocale = Locale.getDefault();
+        mFormatTimeZone = TimeZone.getDefault();
+        mModel = new WatchFaceModel(mLayout, mFormatLocale, mFormatTimeZone,
+                DateFormat.getDateFormat(mContext));
+        mIs24Hour = DateFormat.is24HourFormat(mContext);
+    }
+
+    private void initDeferred() {
+        if (mDeferredInitDone) {
+            return;
+        }
+        mDeferredInitDone = true;
+        Resources resources = mContext.getResources();
+
+        // 걸음 수는 자주 바뀌고 로컬에서 읽으므로 짧게, 폰에서 오는 값은 변경 알림을 받으므로 길게 갱신한다
+        mStepsSlot = new WatchFaceDataSlot(resources.getString(R.string.daily_step_count_title),
+                WatchFaceDataSources.steps(mContext),
+                TimeUnit.SECONDS.toMillis(30), TimeUnit.MINUTES.toMillis(5));
+        mNextTodoSlot = new WatchFaceDataSlot(resources.getString(R.string.todos_title),
+                WatchFaceDataSources.nextTodo(TodoItemsRepository.getInstance(mContext),
+                        AsyncExecutors.mainThread()),
+                TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(30));
+        mOnThisDaySource = WatchFaceDataSources.onThisDay(mClientProvider);
+        mOnThisDaySlot = new WatchFaceDataSlot(resources.getString(R.string.on_this_day_title),
+                mOnThisDaySource,
+                TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(6));
+        mModel.setDataSlots(Arrays.asList(mStepsSlot, mNextTodoSlot, mOnThisDaySlot));
+
+        // 화면에 보이지 않는 동안의 변경도 놓치지 않도록 엔진이 살아있는 동안 계속 등록해 둔다.
+        // onCreate 이후 등록 전까지 바뀌었을 수 있으므로 한 번 더 읽는다.
+        mContext.getContentResolver().registerContentObserver(
+                Settings.System.getUriFor(Settings.System.TIME_12_24), false, mTimeFormatObserver);
+        mTimeFormatObserverRegistered = true;
+        mTimeFormatObserver.onChange(false);
+
+        if (mConnectPending) {
+            mConnectPending = false;
+            connect();
+        }
+    }
+
+    void onDestroy() {
+        ApiClientManager.getInstance(mContext).removeDisconnectListener(mDisconnectListener);
+        if (mListeningClient != null) {
+            if (mListeningClient.isConnected()) {
+                Wearable.DataApi.removeListener(mListeningClient, this);
+            }
+            mListeningClient = null;
+            // 리스너를 제거했으므로 설정 사본이 최신이라는 보장이 없다
+            WatchFaceUtil.invalidateConfigMirror();
+        }
+        if (mApiClientLease != null) {
+            mApiClientLease.release();
+            mApiClientLease = null;
+        }
+        if (mTimeFormatObserverRegistered) {
+            mContext.getContentResolver().unregisterContentObserver(mTimeFormatObserver);
+        }
+        mUpdateTimeHandler.removeCallbacks(mDeferredInit);
+        mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+        mUpdateTimeHandler.removeCallbacks(mInvalidateRunnable);
+    }
+
+    private Paint createTextPaint(int defaultInteractiveColor) {
+        Paint paint = new Paint();
+        paint.setColor(defaultInteractiveColor);
+        paint.setTypeface(mTypeface);
+        paint.setAntiAlias(true);
+        return paint;
+    }
+
+    Paint getBackgroundPaint() {
+        return mBackgroundPaint;
+    }
+
+    /**
+     * @param style WatchFaceRenderer.STYLE_*
+     */
+    Paint getPaint(int style) {
+        return mPaints[style];
+    }
+
+    void onVisibilityChanged(boolean visible) {
+        if (visible) {
+            if (mDeferredInitDone) {
+                connect();
+            } else {
+                // 첫 프레임을 그린 후에 연결한다
+                mConnectPending = true;
+            }
+
+            registerReceiver();
+
+            // 화면에 보이지 않은 상태에서 시간대가 바뀐 경우에 대비하여 시간대와 날짜 포맷을 갱신한다.
+            updateFormats();
+        } else {
+            unregisterReceiver();
+
+            mConnectPending = false;
+            mConnectRequestedAtMs = 0;
+            mStyledFramePending = false;
+            if (mApiClientLease != null) {
+                // DataApi 리스너는 연결이 끊길 때까지 남겨 두므로, 손목을 다시 들면 설정 사본을 IPC 없이 바로 사용한다
+                mApiClientLease.release();
+                mApiClientLease = null;
+            }
+        }
+
+        // 화면 표시 여부와 대기 모드 여부에 따라 타이머를 실행할지 결정해야 하기 때문에, 타이머를 시작하거나 멈춘다.
+        updateTimer();
+    }
+
+    private void connect() {
+        if (mApiClientLease != null) {
+            return;
+        }
+        mConnectRequestedAtMs = SystemClock.elapsedRealtime();
+        ApiClientManager manager = ApiClientManager.getInstance(mContext);
+        manager.addDisconnectListener(mDisconnectListener);
+        mApiClientLease = manager.acquire();
+        mApiClientLease.whenConnected(this);
+    }
+
+    /**
+     * 로케일이나 시간대가 실제로 바뀐 경우에만 날짜 형식을 다시 만든다. 손목을 들 때마다 호출되므로 대부분은 아무 일도 하지 않는다.
+     *
+     * @return 형식을 다시 만들었다면 true
+     */
+    private boolean updateFormats() {
+        Locale locale = Locale.getDefault();
+        TimeZone timeZone = TimeZone.getDefault();
+        if (locale.equals(mFormatLocale) && timeZone.getID().equals(mFormatTimeZone.getID())
+                && timeZone.hasSameRules(mFormatTimeZone)) {
+            return false;
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Rebuilding formats for " + locale + ", " + timeZone.getID());
+        }
+        mFormatLocale = locale;
+        mFormatTimeZone = timeZone;
+        TodayUtil.invalidateDateValues();
+        mModel.setFormats(locale, timeZone, DateFormat.getDateFormat(mContext));
+        return true;
+    }
+
+    private void registerReceiver() {
+        if (mRegisteredReceiver) {
+            return;
+        }
+        mRegisteredReceiver = true;
+        IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+        filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+        mContext.registerReceiver(mReceiver, filter);
+    }
+
+    private void unregisterReceiver() {
+        if (!mRegisteredReceiver) {
+            return;
+        }
+        mRegisteredReceiver = false;
+        mContext.unregisterReceiver(mReceiver);
+    }
+
+    void onApplyWindowInsets(WindowInsets insets) {
+        // 원형 시계에서 사용할 리소스를 읽어들인다.
+        Resources resources = mContext.getResources();
+        boolean isRound = insets.isRound();
+        mLayout.mXOffset = resources.getDimension(isRound
+                ? R.dimen.digital_x_offset_round : R.dimen.digital_x_offset);
+        float textSize = resources.getDimension(isRound
+                ? R.dimen.digital_text_size_round : R.dimen.digital_text_size);
+        float amPmSize = resources.getDimension(isRound
+                ? R.dimen.digital_am_pm_size_round : R.dimen.digital_am_pm_size);
+
+        mPaints[WatchFaceRenderer.STYLE_DATE].setTextSize(
+                resources.getDimension(R.dimen.digital_date_text_size));
+        mPaints[WatchFaceRenderer.STYLE_HOUR].setTextSize(textSize);
+        mPaints[WatchFaceRenderer.STYLE_MINUTE].setTextSize(textSize);
+        mPaints[WatchFaceRenderer.STYLE_SECOND].setTextSize(textSize);
+        mPaints[WatchFaceRenderer.STYLE_AM_PM].setTextSize(amPmSize);
+        mPaints[WatchFaceRenderer.STYLE_COLON].setTextSize(textSize);
+
+        mLayout.mColonWidth = mPaints[WatchFaceRenderer.STYLE_COLON]
+                .measureText(WatchFaceLayout.COLON_STRING);
+    }
+
+    void onPropertiesChanged(Bundle properties) {
+        mBurnInProtection = properties.getBoolean(
+                WatchFaceService.PROPERTY_BURN_IN_PROTECTION, false);
+        mLowBitAmbient = properties.getBoolean(WatchFaceService.PROPERTY_LOW_BIT_AMBIENT, false);
+
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "onPropertiesChanged: burn-in protection = " + mBurnInProtection
+                    + ", low-bit ambient = " + mLowBitAmbient);
+        }
+        updateAmbientTextStyle();
+        invalidate();
+    }
+
+    /**
+     * 1분 마다 호출된다. 번인 방지가 필요한 디바이스의 대기 모드에선 배치를 다음 위치로 옮긴다.
+     */
+    void onTimeTick() {
+        if (mBurnInProtection && mHost.isInAmbientMode()) {
+            mBurnInShiftIndex = (mBurnInShiftIndex + 1) % WatchFaceLayout.BURN_IN_SHIFT_POSITIONS;
+            mLayout.setBurnInShift(mBurnInShiftIndex, BURN_IN_SHIFT_PX);
+        }
+        invalidate();
+    }
+
+    /**
+     * 대기 모드에서 미리 그려둔 프레임이 아직 유효한지 판단하기 위한 값. 같은 분 안에서 이 값이 같다면 같은 프레임을 그린다.
+     */
+    int getFrameVersion() {
+        return mFrameVersion;
+    }
+
+    private void invalidate() {
+        mFrameVersion++;
+        mHost.invalidate();
+    }
+
+    /**
+     * 번인 방지가 필요한 디바이스의 대기 모드에선 채운 글자 대신 얇은 외곽선만 그려서 켜지는 픽셀을 줄인다.
+     * 대화 모드로 돌아가면 배치도 원래 위치로 되돌린다.
+     */
+    private void updateAmbientTextStyle() {
+        boolean ambient = mHost.isInAmbientMode();
+        boolean outline = mBurnInProtection && ambient;
+        for (Paint paint : mPaints) {
+            paint.setStyle(outline ? Paint.Style.STROKE : Paint.Style.FILL);
+            paint.setStrokeWidth(outline ? AMBIENT_OUTLINE_WIDTH : 0);
+        }
+        if (!ambient) {
+            mLayout.clearBurnInShift();
+        }
+    }
+
+    void onAmbientModeChanged(boolean inAmbientMode) {
+        adjustPaintColorToCurrentMode(mBackgroundPaint, mInteractiveBackgroundColor,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND);
+        adjustPaintColorToCurrentMode(mPaints[WatchFaceRenderer.STYLE_HOUR], mInteractiveHourDigitsColor,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS);
+        adjustPaintColorToCurrentMode(mPaints[WatchFaceRenderer.STYLE_MINUTE], mInteractiveMinuteDigitsColor,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS);
+        // 대기 모드에선 초를 표시하지 않기 때문에, 대기 모드용 색상은 아무 값이나 넘겨도 되긴 함
+        adjustPaintColorToCurrentMode(mPaints[WatchFaceRenderer.STYLE_SECOND], mInteractiveSecondDigitsColor,
+                WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS);
+
+        if (mLowBitAmbient) {
+            boolean antiAlias = !inAmbientMode;
+            for (Paint paint : mPaints) {
+                paint.setAntiAlias(antiAlias);
+            }
+        }
+        updateAmbientTextStyle();
+        invalidate();
+
+        // 화면 표시 여부와 대기 모드 여부에 따라 타이머를 실행할지 결정해야 하기 때문에, 타이머를 시작하거나 멈춘다.
+        updateTimer();
+    }
+
+    private void adjustPaintColorToCurrentMode(Paint paint, int interactiveColor,
+                                               int ambientColor) {
+        paint.setColor(mHost.isInAmbientMode() ? ambientColor : interactiveColor);
+    }
+
+    void onInterruptionFilterChanged(int interruptionFilter) {
+        boolean inMuteMode = interruptionFilter == WatchFaceService.INTERRUPTION_FILTER_NONE;
+        // 뮤트 모드에선 1분 마다 화면을 갱신하면 된다.
+        setInteractiveUpdateRateMs(inMuteMode ? MUTE_UPDATE_RATE_MS : NORMAL_UPDATE_RATE_MS);
+
+        if (mModel.setMute(inMuteMode)) {
+            int alpha = inMuteMode ? MUTE_ALPHA : NORMAL_ALPHA;
+            mPaints[WatchFaceRenderer.STYLE_DATE].setAlpha(alpha);
+            mPaints[WatchFaceRenderer.STYLE_HOUR].setAlpha(alpha);
+            mPaints[WatchFaceRenderer.STYLE_MINUTE].setAlpha(alpha);
+            mPaints[WatchFaceRenderer.STYLE_COLON].setAlpha(alpha);
+            mPaints[WatchFaceRenderer.STYLE_AM_PM].setAlpha(alpha);
+            invalidate();
+        }
+    }
+
+    private void setInteractiveUpdateRateMs(long updateRateMs) {
+        if (updateRateMs == mInteractiveUpdateRateMs) {
+            return;
+        }
+        mInteractiveUpdateRateMs = updateRateMs;
+
+        // 새로운 갱신 주기를 반영하기 위해 타이머를 멈췄다 다시 시작한다.
+        if (shouldTimerBeRunning()) {
+            updateTimer();
+        }
+    }
+
+    /**
+     * @return 탭을 처리했다면 true. false 라면 엔진이 기본 동작을 수행한다.
+     */
+    boolean onTapCommand(int tapType) {
+        Log.i(TAG, "Tapped " + tapType);
+        if (tapType != WatchFaceService.TAP_TYPE_TAP) {
+            return false;
+        }
+        mModel.onTap();
+        return true;
+    }
+
+    /**
+     * 현재 시각과 모드로 한 프레임을 그린다.
+     */
+    void drawFrame(WatchFaceRenderer renderer) {
+        if (mCreatedAtMs != 0) {
+            sFirstFrameStats.record(SystemClock.elapsedRealtime() - mCreatedAtMs);
+            Log.i(TAG, sFirstFrameStats.toString());
+            mCreatedAtMs = 0;
+            mUpdateTimeHandler.post(mDeferredInit);
+        }
+        if (mStyledFramePending) {
+            mStyledFramePending = false;
+            LatencyStats stats = mStyledFrameFromMirror ? sStyledFrameWarmStats : sStyledFrameColdStats;
+            stats.record(SystemClock.elapsedRealtime() - mConnectRequestedAtMs);
+            Log.i(TAG, stats.toString());
+            mConnectRequestedAtMs = 0;
+        }
+
+        long now = System.currentTimeMillis();
+        boolean ambient = mHost.isInAmbientMode();
+        if (mApiClientLease != null) {
+            // 불러오기만 시작하고 기다리지 않는다. 이번 프레임은 마지막으로 받은 값으로 그린다.
+            for (WatchFaceDataSlot slot : mModel.getDataSlots()) {
+                slot.refreshIfDue(now, ambient, mDataSlotListener);
+            }
+        }
+        mModel.drawFrame(renderer, now, mIs24Hour, ambient, mHost.isPeekCardEmpty());
+    }
+
+    /**
+     * 측정한 시간의 요약을 출력한다. 서비스의 dump() 에서 호출하므로
+     * {@code adb shell dumpsys activity service com.siddique.androidwear.today} 로 볼 수 있다.
+     */
+    static void dumpLatencyStats(PrintWriter writer) {
+        writer.println(sFirstFrameStats);
+        writer.println(sStyledFrameColdStats);
+        writer.println(sStyledFrameWarmStats);
+    }
+
+    /**
+     * {@link #mUpdateTimeHandler} 가 동작해야 하는데 동작하지 않고 있다면 타이머를 시작한다.
+     * 반대로 동작하지 않아야 하는데 동작하고 있다면 멈춘다.
+     */
+    private void updateTimer() {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "updateTimer");
+        }
+        mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+        if (shouldTimerBeRunning()) {
+            mUpdateTimeHandler.sendEmptyMessage(MSG_UPDATE_TIME);
+        }
+    }
+
+    /**
+     * {@link #mUpdateTimeHandler} 타이머가 동작 상태여야 하는지를 반환한다.
+     * 타이머는 화면에 보이는 상태이고 대화 모드일 경우에만 동작해야 한다.
+     */
+    private boolean shouldTimerBeRunning() {
+        return mHost.isVisible() && !mHost.isInAmbientMode();
+    }
+
+    private void updatePaintIfInteractive(Paint paint, int interactiveColor) {
+        if (!mHost.isInAmbientMode() && paint != null) {
+            paint.setColor(interactiveColor);
+        }
+    }
+
+    private void setInteractiveBackgroundColor(int color) {
+        mInteractiveBackgroundColor = color;
+        updatePaintIfInteractive(mBackgroundPaint, color);
+    }
+
+    private void setInteractiveHourDigitsColor(int color) {
+        mInteractiveHourDigitsColor = color;
+        updatePaintIfInteractive(mPaints[WatchFaceRenderer.STYLE_HOUR], color);
+    }
+
+    private void setInteractiveMinuteDigitsColor(int color) {
+        mInteractiveMinuteDigitsColor = color;
+        updatePaintIfInteractive(mPaints[WatchFaceRenderer.STYLE_MINUTE], color);
+    }
+
+    private void setInteractiveSecondDigitsColor(int color) {
+        mInteractiveSecondDigitsColor = color;
+        updatePaintIfInteractive(mPaints[WatchFaceRenderer.STYLE_SECOND], color);
+    }
+
+    private void updateConfigDataItemAndUiOnStartup(final GoogleApiClient client) {
+        mStyledFrameFromMirror = WatchFaceUtil.hasConfigMirror();
+        WatchFaceUtil.fetchConfigDataMap(client,
+                new WatchFaceUtil.FetchConfigDataMapCallback() {
+                    @Override
+                    public void onConfigDataMapFetched(DataMap startupConfig) {
+                        WatchFaceConfig config = WatchFaceConfig.fromDataMap(startupConfig);
+                        // DataItem 이 아직 생성되지 않았거나 일부 키가 누락되었다면, 기본 값을 사용한다.
+                        // 기본 값을 추가한 경우에만 DataItem 을 다시 쓰며, 모르는 키는 그대로 유지한다.
+                        // 더 새로운 스키마로 쓰인 설정에는 기본 값을 덮어쓰지 않는다.
+                        if (config.hasMissingKeys() && !config.isFromNewerSchema()) {
+                            WatchFaceUtil.putConfigDataItem(client, config.toDataMap());
+                        }
+
+                        applyConfig(config);
+                        if (mConnectRequestedAtMs != 0) {
+                            mStyledFramePending = true;
+                            invalidate();
+                        }
+                    }
+                }
+        );
+    }
+
+    @Override // DataApi.DataListener
+    public void onDataChanged(DataEventBuffer dataEvents) {
+        for (DataEvent dataEvent : dataEvents) {
+            DataItem dataItem = dataEvent.getDataItem();
+            String path = dataItem.getUri().getPath();
+            if (path.startsWith(Constants.TODO_ITEMS_PATH)) {
+                TodoItemsRepository.getInstance(mContext).invalidate(path);
+                mNextTodoSlot.invalidate();
+                invalidate();
+                continue;
+            }
+            if (path.equals(Constants.ON_THIS_DAY_DATA_ITEM_HEADER)) {
+                mOnThisDaySource.invalidate();
+                mOnThisDaySlot.invalidate();
+                invalidate();
+                continue;
+            }
+
+            if (dataEvent.getType() != DataEvent.TYPE_CHANGED) {
+                continue;
+            }
+            if (!path.equals(WatchFaceUtil.PATH_WITH_FEATURE)) {
+                continue;
+            }
+
+            DataMapItem dataMapItem = DataMapItem.fromDataItem(dataItem);
+            DataMap config = dataMapItem.getDataMap();
+            if (Log.isLoggable(TAG, Log.DEBUG)) {
+                Log.d(TAG, "Config DataItem updated:" + config);
+            }
+            if (!WatchFaceUtil.updateConfigMirror(config)) {
+                // 더 새로운 설정이 이미 적용되었다
+                continue;
+            }
+            applyConfig(WatchFaceConfig.fromDataMap(config));
+        }
+    }
+
+    /**
+     * 이전 설정과 비교해서 바뀐 항목의 페인트만 갱신한다.
+     */
+    private void applyConfig(WatchFaceConfig config) {
+        int changed = config.diff(mConfig);
+        mConfig = config;
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Applying " + config + ", changed=" + Integer.toBinaryString(changed));
+        }
+        if (changed == 0) {
+            return;
+        }
+        if ((changed & WatchFaceConfig.CHANGED_BACKGROUND_COLOR) != 0) {
+            setInteractiveBackgroundColor(config.backgroundColor);
+        }
+        if ((changed & WatchFaceConfig.CHANGED_HOURS_COLOR) != 0) {
+            setInteractiveHourDigitsColor(config.hoursColor);
+        }
+        if ((changed & WatchFaceConfig.CHANGED_MINUTES_COLOR) != 0) {
+            setInteractiveMinuteDigitsColor(config.minutesColor);
+        }
+        if ((changed & WatchFaceConfig.CHANGED_SECONDS_COLOR) != 0) {
+            setInteractiveSecondDigitsColor(config.secondsColor);
+        }
+        invalidate();
+    }
+
+    @Override  // ApiClientManager.Callback
+    public void onConnected(GoogleApiClient client) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "onConnected");
+        }
+        if (mListeningClient == null) {
+            Wearable.DataApi.addListener(client, this);
+            mListeningClient = client;
+            invalidatePhoneDataSlots();
+        }
+        updateConfigDataItemAndUiOnStartup(client);
+    }
+
+    /**
+     * 리스너를 등록하지 않은 동안 폰이 새로 게시한 값은 알림을 받지 못했으므로, 보관한 값을 버리고 다시 읽게 한다.
+     */
+    private void invalidatePhoneDataSlots() {
+        if (mOnThisDaySource == null) {
+            return;
+        }
+        TodoItemsRepository repository = TodoItemsRepository.getInstance(mContext);
+        for (TodoItemType type : TodoItemType.values()) {
+            repository.invalidate(Constants.TODO_ITEMS_PATH + "/" + type.getTypeValue());
+        }
+        mNextTodoSlot.invalidate();
+        mOnThisDaySource.invalidate();
+        mOnThisDaySlot.invalidate();
+    }
+
+    @Override  // ApiClientManager.Callback
+    public void onConnectionFailed(ConnectionResult result) {
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "onConnectionFailed: " + result);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.siddique.androidwear.today;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 워치페이스의 날짜 영역에 표시하는 값 하나 (걸음 수, 다음 할 일, 오늘의 역사 등).
+ *
+ * 값은 {@link Source} 가 백그라운드에서 불러오고, 결과는 {@link AtomicReference} 로 교체만 한다. 프레임을 그릴 때는
+ * {@link #getValue()} 로 마지막 값을 읽기만 하므로 입출력이나 IPC 를 기다리지 않는다.
+ * 대화 모드와 대기 모드의 갱신 주기를 따로 가지며, {@link #refreshIfDue(long, boolean, Listener)} 가 주기가 지났을 때만
+ * 불러오기를 시작한다. 안드로이드 API 를 사용하지 않는다.
+ */
+final class WatchFaceDataSlot {
+
+    /** 불러오기에 실패했을 때 다시 시도할 때까지의 시간. 갱신 주기가 이보다 짧으면 갱신 주기를 따른다. */
+    static final long RETRY_INTERVAL_MS = 15 * 1000;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 표시할 값을 불러온다. 호출한 스레드를 막지 않아야 한다.
+     */
+    interface Source {
+        /**
+         * @return 표시할 문자열. 표시할 값이 없다면 null
+         */
+        ResultFuture<String> load();
+    }
+
+    /**
+     * 마지막으로 불러온 값을 보관하는 {@link Source}. {@link #invalidate()} 전까지는 원본을 다시 읽지 않으므로, 변경 알림을
+     * 받는 원본에 사용한다. 불러오는 중에 다시 요청하면 같은 결과를 돌려주고, 실패한 결과는 보관하지 않는다.
+     */
+    static final class CachedSource implements Source {
+        private final Source mSource;
+        private final AtomicReference<ResultFuture<String>> mLoad =
+                new AtomicReference<ResultFuture<String>>();
+
+        CachedSource(Source source) {
+            mSource = source;
+        }
+
+        /**
+         * 원본이 바뀌었을 때 호출한다. 다음 {@link #load()} 에서 다시 읽는다.
+         */
+        void invalidate() {
+            mLoad.set(null);
+        }
+
+        @Override
+        public ResultFuture<String> load() {
+            ResultFuture<String> load = mLoad.get();
+            if (load != null) {
+                return load;
+            }
+            final ResultFuture<String> result = mSource.load();
+            mLoad.set(result);
+            result.addListener(new ResultFuture.Listener<String>() {
+                @Override
+                public void onSuccess(String value) {
+                }
+
+                @Override
+                public void onFailure(Throwable error) {
+                    mLoad.compareAndSet(result, null);
+                }
+            }, DIRECT);
+            return result;
+        }
+    }
+
+    /**
+     * 값이 바뀌었을 때 불리는 리스너. 불러오기를 끝낸 스레드에서 호출된다.
+     */
+    interface Listener {
+        void onValueChanged(WatchFaceDataSlot slot);
+    }
+
+    private final String mTitle;
+    private final Source mSource;
+    private final long mInteractiveIntervalMs;
+    private final long mAmbientIntervalMs;
+
+    private final AtomicReference<String> mValue = new AtomicReference<String>();
+    private final AtomicBoolean mLoading = new AtomicBoolean();
+
+    /** 마지막 불러오기가 실패했는지 여부 */
+    private volatile boolean mFailed;
+
+    /** 갱신 주기와 관계없이 다음 기회에 불러와야 하는지 여부. 메인 스레드에서만 사용한다. */
+    private boolean mStale = true;
+
+    /** 마지막으로 불러오기를 시작한 시각. 메인 스레드에서만 사용한다. */
+    private long mLastLoadMs;
+
+    WatchFaceDataSlot(String title, Source source, long interactiveIntervalMs,
+            long ambientIntervalMs) {
+        mTitle = title;
+        mSource = source;
+        mInteractiveIntervalMs = interactiveIntervalMs;
+        mAmbientIntervalMs = ambientIntervalMs;
+    }
+
+    String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * @return 마지막으로 불러온 값. 아직 불러오지 못했거나 값이 없다면 null
+     */
+    String getValue() {
+        return mValue.get();
+    }
+
+    /**
+     * 원본 데이터가 바뀌었다는 알림을 받았을 때 호출한다. 다음 {@link #refreshIfDue} 에서 주기와 관계없이 다시 불러온다.
+     */
+    void invalidate() {
+        mStale = true;
+    }
+
+    /**
+     * 갱신 주기가 지났다면 불러오기를 시작한다. 이미 불러오는 중이라면 아무것도 하지 않는다.
+     *
+     * @param listener 불러온 값이 이전 값과 다를 때 호출된다
+     * @return 불러오기를 시작했다면 true
+     */
+    boolean refreshIfDue(long nowMs, boolean ambient, final Listener listener) {
+        if (mLoading.get()) {
+            return false;
+        }
+        long intervalMs = ambient ? mAmbientIntervalMs : mInteractiveIntervalMs;
+        if (mFailed) {
+            intervalMs = Math.min(intervalMs, RETRY_INTERVAL_MS);
+        }
+        // 시계를 뒤로 돌린 경우에도 불러온다
+        if (!mStale && nowMs >= mLastLoadMs && nowMs - mLastLoadMs < intervalMs) {
+            return false;
+        }
+
+        mStale = false;
+        mLastLoadMs = nowMs;
+        mLoading.set(true);
+        mSource.load().addListener(new ResultFuture.Listener<String>() {
+            @Override
+            public void onSuccess(String value) {
+                mFailed = false;
+                String previous = mValue.getAndSet(value);
+                mLoading.set(false);
+                if (value == null ? previous != null : !value.equals(previous)) {
+                    listener.onValueChanged(WatchFaceDataSlot.this);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                // 이전 값을 그대로 보여주고, 잠시 후 다시 시도한다
+                mFailed = true;
+                mLoading.set(false);
+            }
+        }, DIRECT);
+        return true;
+    }
+}
@@ -0,0 +1,163 @@
+package com.siddique.androidwear.today;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.DataApi;
+import com.google.android.gms.wearable.DataItem;
+import com.google.android.gms.wearable.DataItemBuffer;
+import com.google.android.gms.wearable.DataMap;
+import com.google.android.gms.wearable.DataMapItem;
+import com.google.android.gms.wearable.PutDataRequest;
+import com.google.android.gms.wearable.Wearable;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * 워치페이스 데이터 슬롯의 값을 불러오는 {@link WatchFaceDataSlot.Source} 모음.
+ *
+ * 걸음 수는 같은 프로세스의 {@link LatestStepCount} 나 {@link StepHistory} 에서, 할 일은 {@link TodoItemsRepository} 에서,
+ * 오늘의 역사는 폰이 게시한 DataItem 에서 읽는다. 할 일과 오늘의 역사는 읽은 값을 보관하므로 폰이 새로 게시하기 전까지는
+ * 갱신 주기가 지나도 IPC 를 하지 않는다. 모두 호출한 스레드를 막지 않는다.
+ */
+final class WatchFaceDataSources {
+
+    /**
+     * 연결된 GoogleApiClient 를 제공한다. 워치페이스가 보이지 않아서 연결이 없다면 실패한다.
+     */
+    interface ClientProvider {
+        ResultFuture<GoogleApiClient> connected();
+    }
+
+    /**
+     * @return 오늘 걸은 걸음 수. 센서 이벤트를 받았다면 그 값을, 아니라면 백그라운드에서 걸음 수 기록을 읽는다.
+     */
+    static WatchFaceDataSlot.Source steps(final Context context) {
+        final Context appContext = context.getApplicationContext();
+        return new WatchFaceDataSlot.Source() {
+            @Override
+            public ResultFuture<String> load() {
+                long timeMs = System.currentTimeMillis();
+                LatestStepCount.Sample latest = LatestStepCount.get();
+                if (latest != null && latest.day == StepHistory.getDay(timeMs)) {
+                    return ResultFuture.immediate(formatSteps(latest.steps));
+                }
+                return ResultFuture.submit(AsyncExecutors.background(), new Callable<String>() {
+                    @Override
+                    public String call() {
+                        long timeMs = System.currentTimeMillis();
+                        return formatSteps(StepHistory.getInstance(appContext).getDayTotal(timeMs));
+                    }
+                });
+            }
+        };
+    }
+
+    private static String formatSteps(long steps) {
+        return NumberFormat.getIntegerInstance().format(steps);
+    }
+
+    /**
+     * @return 폰이 게시한 할 일 목록 중 첫 번째 할 일. {@link TodoItemType} 의 순서를 따른다.
+     *
+     * @param loader   할 일 목록을 보관하는 곳. 앱에서는 연결된 폰의 목록을 고르는 {@link TodoItemsRepository} 이며,
+     *                 목록이 바뀌었다는 알림을 받기 전까지는 보관한 목록을 돌려주므로 다시 읽지 않는다.
+     * @param executor {@code loader} 를 호출할 스레드. 앱에서는 메인 스레드이다.
+     */
+    static WatchFaceDataSlot.Source nextTodo(final TodoItemTypeViewModel.Loader loader,
+            final Executor executor) {
+        return new WatchFaceDataSlot.Source() {
+            @Override
+            public ResultFuture<String> load() {
+                return ResultFuture.immediate((Void) null)
+                        .then(new ResultFuture.AsyncFunction<Void, List<TodoItemPages>>() {
+                            @Override
+                            public ResultFuture<List<TodoItemPages>> apply(Void input) {
+                                List<ResultFuture<TodoItemPages>> loads =
+                                        new ArrayList<ResultFuture<TodoItemPages>>();
+                                for (TodoItemType type : TodoItemType.values()) {
+                                    loads.add(loader.load(type.getTypeValue()));
+                                }
+                                return ResultFuture.all(loads);
+                            }
+                        }, executor)
+                        .map(new ResultFuture.Function<List<TodoItemPages>, String>() {
+                            @Override
+                            public String apply(List<TodoItemPages> lists) {
+                                for (TodoItemPages pages : lists) {
+                                    if (!pages.isEmpty()) {
+                                        return pages.getPage(0).get(0);
+                                    }
+                                }
+                                return null;
+                            }
+                        }, AsyncExecutors.direct());
+            }
+        };
+    }
+
+    /**
+     * @return 폰이 마지막으로 게시한 오늘의 역사 중 첫 번째 항목. 항목이 없다면 제목. 읽은 값을 보관하므로,
+     * 폰이 새로 게시했을 때 {@link WatchFaceDataSlot.CachedSource#invalidate()} 를 호출해야 다시 읽는다.
+     */
+    static WatchFaceDataSlot.CachedSource onThisDay(final ClientProvider clients) {
+        return new WatchFaceDataSlot.CachedSource(new WatchFaceDataSlot.Source() {
+            @Override
+            public ResultFuture<String> load() {
+                return getDataItems(clients, Constants.ON_THIS_DAY_DATA_ITEM_HEADER,
+                        new ResultFuture.Function<DataItemBuffer, String>() {
+                            @Override
+                            public String apply(DataItemBuffer dataItems) {
+                                for (DataItem dataItem : dataItems) {
+                                    DataMap dataMap = DataMapItem.fromDataItem(dataItem).getDataMap();
+                                    ArrayList<String> items = dataMap.getStringArrayList(
+                                            Constants.ON_THIS_DAY_DATA_ITEM_CONTENT);
+                                    if (items != null && !items.isEmpty()) {
+                                        return items.get(0);
+                                    }
+                                    return dataMap.getString(Constants.ON_THIS_DAY_DATA_ITEM_HEADER);
+                                }
+                                return null;
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * 모든 노드에서 {@code path} 로 시작하는 DataItem 을 읽어서 {@code parser} 로 변환한다. 버퍼는 변환 후 해제한다.
+     */
+    private static ResultFuture<String> getDataItems(ClientProvider clients, final String path,
+            final ResultFuture.Function<DataItemBuffer, String> parser) {
+        return clients.connected()
+                .then(new ResultFuture.AsyncFunction<GoogleApiClient, DataItemBuffer>() {
+                    @Override
+                    public ResultFuture<DataItemBuffer> apply(GoogleApiClient client) {
+                        // 호스트를 지정하지 않으면 모든 노드의 DataItem 을 찾는다
+                        Uri uri = new Uri.Builder()
+                                .scheme(PutDataRequest.WEAR_URI_SCHEME)
+                                .path(path)
+                                .build();
+                        return PendingResults.toFuture(
+                                Wearable.DataApi.getDataItems(client, uri, DataApi.FILTER_PREFIX));
+                    }
+                }, AsyncExecutors.direct())
+                .map(new ResultFuture.Function<DataItemBuffer, String>() {
+                    @Override
+                    public String apply(DataItemBuffer dataItems) {
+                        try {
+                            return parser.apply(dataItems);
+                        } finally {
+                            dataItems.release();
+                        }
+                    }
+                }, AsyncExecutors.direct());
+    }
+
+    private WatchFaceDataSources() { }
+}
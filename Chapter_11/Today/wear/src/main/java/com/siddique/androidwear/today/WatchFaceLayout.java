@@ -0,0 +1,154 @@
+package com.siddique.androidwear.today;
+
+import java.util.Calendar;
+
+/**
+ * 캔버스 엔진과 OpenGL 엔진이 함께 사용하는 워치페이스 배치.
+ *
+ * 어떤 문자열을 어느 위치에 그릴지만 결정하고, 실제로 그리는 일은 {@link WatchFaceRenderer} 에 맡긴다.
+ * 시각은 넘겨받은 달력에서, 날짜 영역의 문자열은 하루에 한 번 계산한 {@link TodayUtil.DateValues} 에서 가져오므로
+ * 같은 입력이면 항상 같은 프레임을 만든다. 안드로이드 API 를 사용하지 않는다.
+ */
+final class WatchFaceLayout {
+
+    static final String COLON_STRING = ":";
+
+    float mXOffset;
+    float mYOffset;
+    float mLineHeight;
+    float mColonWidth;
+    String mAmString;
+    String mPmString;
+
+    /** 번인 방지를 위해 대기 모드에서 전체 배치를 옮기는 거리 (픽셀). 대화 모드에선 0 이다. */
+    float mShiftX;
+    float mShiftY;
+
+    /** 번인 방지를 위해 배치를 옮기는 위치 수. 가운데를 포함한 3 x 3 위치를 차례로 돈다. */
+    static final int BURN_IN_SHIFT_POSITIONS = 9;
+
+    /**
+     * 번인 방지를 위해 전체 배치를 {@code step} 번째 위치로 옮긴다.
+     *
+     * @param step 0 부터 시작하는 순서. {@link #BURN_IN_SHIFT_POSITIONS} 마다 같은 위치로 돌아온다.
+     * @param shiftPx 가운데에서 가로, 세로로 옮기는 최대 거리 (픽셀)
+     */
+    void setBurnInShift(int step, float shiftPx) {
+        int position = step % BURN_IN_SHIFT_POSITIONS;
+        mShiftX = (position % 3 - 1) * shiftPx;
+        mShiftY = (position / 3 - 1) * shiftPx;
+    }
+
+    /**
+     * 배치를 원래 위치로 되돌린다.
+     */
+    void clearBurnInShift() {
+        mShiftX = 0;
+        mShiftY = 0;
+    }
+
+    /** 데이터 슬롯의 값을 아직 불러오지 못했을 때 표시하는 문자열 */
+    static final String NO_VALUE_STRING = "--";
+
+    /**
+     * 한 프레임을 배치한다.
+     *
+     * @param drawColons 점멸하는 콜론을 그릴 차례인지 여부
+     * @param tapCount 날짜 영역에 표시할 내용 (0 : 요일과 날짜, 1 : 올해의 몇 번째 날, 2 : 올해 남은 날, 그 이후 : dataSlot)
+     * @param showDate 날짜 영역을 그릴지 여부. 보여줄 카드가 있다면 카드와 겹치지 않도록 그리지 않는다.
+     * @param dateValues 날짜 영역의 문자열. 요일과 날짜 문자열이 있어야 한다.
+     * @param dataSlot tapCount 가 3 이상일 때 표시할 데이터 슬롯. 그 외에는 null
+     */
+    void draw(WatchFaceRenderer renderer, Calendar calendar, boolean is24Hour,
+            boolean ambient, boolean mute, boolean drawColons, int tapCount, boolean showDate,
+            TodayUtil.DateValues dateValues, WatchFaceDataSlot dataSlot) {
+        // 시간을 그린다.
+        float left = mXOffset + mShiftX;
+        float y = mYOffset + mShiftY;
+        float x = left;
+        String hourString;
+        if (is24Hour) {
+            hourString = formatTwoDigitNumber(calendar.get(Calendar.HOUR_OF_DAY));
+        } else {
+            int hour = calendar.get(Calendar.HOUR);
+            if (hour == 0) {
+                hour = 12;
+            }
+            hourString = String.valueOf(hour);
+        }
+        renderer.drawText(hourString, x, y, WatchFaceRenderer.STYLE_HOUR);
+        x += renderer.measureText(hourString, WatchFaceRenderer.STYLE_HOUR);
+
+        // 대기 모드와 뮤트 모드에선 항상 첫번째 콜론을 그린다.그 외의 경우엔 1초의 앞 0.5초에만 콜론을 그린다.
+        if (ambient || mute || drawColons) {
+            renderer.drawText(COLON_STRING, x, y, WatchFaceRenderer.STYLE_COLON);
+        }
+        x += mColonWidth;
+
+        // 분을 그린다.
+        String minuteString = formatTwoDigitNumber(calendar.get(Calendar.MINUTE));
+        renderer.drawText(minuteString, x, y, WatchFaceRenderer.STYLE_MINUTE);
+        x += renderer.measureText(minuteString, WatchFaceRenderer.STYLE_MINUTE);
+
+        // 뮤트되지 않은 대화 모드에선, 두 번째 콜론을 그리고 초를 그린다.
+        // 그 외의 모드에선 12시 시각 표시 모드일 경우 AM/PM 표시를 그린다.
+        if (!ambient && !mute) {
+            if (drawColons) {
+                renderer.drawText(COLON_STRING, x, y, WatchFaceRenderer.STYLE_COLON);
+            }
+            x += mColonWidth;
+            renderer.drawText(formatTwoDigitNumber(
+                    calendar.get(Calendar.SECOND)), x, y, WatchFaceRenderer.STYLE_SECOND);
+        } else if (!is24Hour) {
+            x += mColonWidth;
+            renderer.drawText(getAmPmString(
+                    calendar.get(Calendar.AM_PM)), x, y, WatchFaceRenderer.STYLE_AM_PM);
+        }
+
+        // 대기 모드에서 카드와 겹쳐 보이지 않도록, 보여줄 카드가 없을 때에만 요일과 날짜를 그린다.
+        if (showDate) {
+            if (tapCount == 0) {
+                // 요일
+                renderer.drawText(
+                        dateValues.dayOfWeekText,
+                        left, y + mLineHeight, WatchFaceRenderer.STYLE_DATE);
+                renderer.drawText(
+                        dateValues.dateText,
+                        left, y + mLineHeight * 2, WatchFaceRenderer.STYLE_DATE);
+            } else if (tapCount == 1) {
+                // 1년 중 몇번째 날인지
+                renderer.drawText(
+                        "Day of year",
+                        left, y + mLineHeight, WatchFaceRenderer.STYLE_DATE);
+                renderer.drawText(
+                        dateValues.dayOfYearText,
+                        left, y + mLineHeight * 2, WatchFaceRenderer.STYLE_DATE);
+            } else if (tapCount == 2) {
+                // 1년 중 남은 날짜
+                renderer.drawText(
+                        "Days left in year",
+                        left, y + mLineHeight, WatchFaceRenderer.STYLE_DATE);
+                renderer.drawText(
+                        dateValues.daysLeftInYearText,
+                        left, y + mLineHeight * 2, WatchFaceRenderer.STYLE_DATE);
+            } else if (dataSlot != null) {
+                // 걸음 수, 다음 할 일 등. 백그라운드에서 불러온 마지막 값을 읽기만 한다.
+                String value = dataSlot.getValue();
+                renderer.drawText(
+                        dataSlot.getTitle(),
+                        left, y + mLineHeight, WatchFaceRenderer.STYLE_DATE);
+                renderer.drawText(
+                        value != null ? value : NO_VALUE_STRING,
+                        left, y + mLineHeight * 2, WatchFaceRenderer.STYLE_DATE);
+            }
+        }
+    }
+
+    private static String formatTwoDigitNumber(int hour) {
+        return String.format("%02d", hour);
+    }
+
+    private String getAmPmString(int amPm) {
+        return amPm == Calendar.AM ? mAmString : mPmString;
+    }
+}
@@ -0,0 +1,130 @@
+package com.siddique.androidwear.today;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * 워치페이스 한 프레임을 결정하는 상태. 시간대와 날짜 형식, 뮤트 여부, 탭 상태를 보관하고,
+ * 주어진 시각과 모드로 {@link WatchFaceLayout} 을 통해 {@link WatchFaceRenderer} 에 그린다.
+ *
+ * 안드로이드 API 를 사용하지 않으므로, 테스트 도구 소스(src/testFixtures)의 RecordingWatchFaceRenderer 와 함께 JVM 에서
+ * 프레임을 재현하거나 측정할 수 있다.
+ * 시각을 직접 넘겨받기 때문에 같은 입력이면 항상 같은 프레임을 그린다.
+ */
+final class WatchFaceModel {
+
+    /** 데이터 슬롯을 제외하고 탭할 때마다 순환하는 날짜 영역 표시 상태 수 (요일과 날짜, 올해의 몇 번째 날, 올해 남은 날) */
+    static final int DATE_TAP_STATE_COUNT = 3;
+
+    private final WatchFaceLayout mLayout;
+    private final Calendar mCalendar;
+    private SimpleDateFormat mDayOfWeekFormat;
+    private DateFormat mDateFormat;
+
+    /**
+     * 오늘의 날짜 값. 자정이 지나거나 형식이 바뀌면 다시 계산하므로, 프레임마다 달력 계산과 문자열 생성을 하지 않는다.
+     */
+    private TodayUtil.DateValues mDateValues;
+
+    private boolean mMute;
+
+    /** 날짜 표시 상태 다음에 순서대로 표시하는 데이터 슬롯 */
+    private List<WatchFaceDataSlot> mDataSlots = Collections.emptyList();
+
+    /**
+     * 날짜 영역에 표시할 내용. 탭할 때마다 0, 1, 2 와 데이터 슬롯을 순환한다.
+     */
+    private int mTapCount;
+
+    WatchFaceModel(WatchFaceLayout layout, Locale locale, TimeZone timeZone, DateFormat dateFormat) {
+        mLayout = layout;
+        mCalendar = Calendar.getInstance(timeZone, locale);
+        setFormats(locale, timeZone, dateFormat);
+    }
+
+    WatchFaceLayout getLayout() {
+        return mLayout;
+    }
+
+    /**
+     * 시간대나 로케일이 바뀌었을 때 호출한다.
+     *
+     * @param dateFormat 두 번째 줄에 표시할 날짜 형식. 달력은 이 모델의 것으로 바뀐다.
+     */
+    void setFormats(Locale locale, TimeZone timeZone, DateFormat dateFormat) {
+        mCalendar.setTimeZone(timeZone);
+        mDayOfWeekFormat = new SimpleDateFormat("EEEE", locale);
+        mDayOfWeekFormat.setCalendar(mCalendar);
+        mDateFormat = dateFormat;
+        mDateFormat.setCalendar(mCalendar);
+        mDateValues = null;
+    }
+
+    boolean isMute() {
+        return mMute;
+    }
+
+    /**
+     * @return 뮤트 여부가 바뀌었다면 true
+     */
+    boolean setMute(boolean mute) {
+        if (mMute == mute) {
+            return false;
+        }
+        mMute = mute;
+        return true;
+    }
+
+    void setDataSlots(List<WatchFaceDataSlot> dataSlots) {
+        mDataSlots = dataSlots;
+        mTapCount = mTapCount % getTapStateCount();
+    }
+
+    List<WatchFaceDataSlot> getDataSlots() {
+        return mDataSlots;
+    }
+
+    int getTapCount() {
+        return mTapCount;
+    }
+
+    private int getTapStateCount() {
+        return DATE_TAP_STATE_COUNT + mDataSlots.size();
+    }
+
+    /**
+     * 날짜 영역을 다음 표시 상태로 바꾼다.
+     */
+    void onTap() {
+        mTapCount = (mTapCount + 1) % getTapStateCount();
+    }
+
+    /**
+     * 한 프레임을 그린다.
+     *
+     * @param nowMs 그릴 시각
+     * @param peekCardEmpty 화면에 보여줄 카드가 없는지 여부. 카드가 있으면 날짜 영역을 그리지 않는다.
+     */
+    void drawFrame(WatchFaceRenderer renderer, long nowMs, boolean is24Hour, boolean ambient,
+            boolean peekCardEmpty) {
+        mCalendar.setTimeInMillis(nowMs);
+        if (mDateValues == null || !mDateValues.isValidAt(nowMs)) {
+            mDateValues = TodayUtil.computeDateValues(nowMs, mCalendar.getTimeZone(),
+                    mDayOfWeekFormat, mDateFormat);
+        }
+
+        // 시각을 갱신할 때, 1초의 앞 0.5초일 경우 콜론을 보여준다.
+        boolean drawColons = (nowMs % 1000) < 500;
+
+        renderer.drawBackground();
+        WatchFaceDataSlot dataSlot = mTapCount >= DATE_TAP_STATE_COUNT
+                ? mDataSlots.get(mTapCount - DATE_TAP_STATE_COUNT) : null;
+        mLayout.draw(renderer, mCalendar, is24Hour, ambient, mMute, drawColons, mTapCount,
+                peekCardEmpty, mDateValues, dataSlot);
+    }
+}
@@ -0,0 +1,34 @@
+package com.siddique.androidwear.today;
+
+/**
+ * 워치페이스 한 프레임을 그리는 렌더러.
+ *
+ * {@link WatchFaceModel} 은 무엇을 어디에 그릴지만 결정하고 이 인터페이스로 넘긴다. 텍스트 종류(STYLE_*)만 넘기므로
+ * 색, 크기, 글꼴은 렌더러가 결정한다. 기기에서는 {@link CanvasWatchFaceRenderer} 와 {@link GlWatchFaceRenderer} 를,
+ * 안드로이드 없이 JVM 에서 프레임을 확인하거나 측정할 때는 테스트 도구 소스(src/testFixtures)의
+ * RecordingWatchFaceRenderer 를 사용한다.
+ */
+interface WatchFaceRenderer {
+
+    /** 텍스트 종류 */
+    int STYLE_HOUR = 0;
+    int STYLE_MINUTE = 1;
+    int STYLE_SECOND = 2;
+    int STYLE_COLON = 3;
+    int STYLE_AM_PM = 4;
+    int STYLE_DATE = 5;
+    int STYLE_COUNT = 6;
+
+    /**
+     * 화면 전체를 배경색으로 칠한다. 프레임마다 가장 먼저 호출된다.
+     */
+    void drawBackground();
+
+    float measureText(String text, int style);
+
+    /**
+     * @param x 텍스트의 왼쪽 위치
+     * @param y 텍스트의 기준선 위치
+     */
+    void drawText(String text, float x, float y, int style);
+}
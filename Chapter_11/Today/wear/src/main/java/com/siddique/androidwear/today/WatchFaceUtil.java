@@ -21,7 +21,6 @@ import android.net.Uri;
 import android.util.Log;
 
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.wearable.DataApi;
 import com.google.android.gms.wearable.DataItem;
 import com.google.android.gms.wearable.DataMap;
@@ -57,6 +56,12 @@ public final class WatchFaceUtil {
      */
     public static final String KEY_SECONDS_COLOR = "SECONDS_COLOR";
 
+    /**
+     * {@link DataMap} 의 설정 버전 키 값. 값은 {@link WatchFaceConfigWriter} 가 쓸 때마다 증가하는 long 이며,
+     * 늦게 도착한 이전 버전의 설정이 더 새로운 설정을 덮어쓰지 않도록 하는 데 사용한다. 버전이 없는 설정은 0 으로 취급한다.
+     */
+    public static final String KEY_CONFIG_VERSION = "CONFIG_VERSION";
+
     /**
      * {@link TodayWatchFaceService} 설정 값을 담은 {@link DataItem} 의 경로.
      */
@@ -101,6 +106,23 @@ public final class WatchFaceUtil {
         void onConfigDataMapFetched(DataMap config);
     }
 
+    /**
+     * 로컬 노드 ID. 프로세스가 살아있는 동안 바뀌지 않으므로 한 번만 조회한다.
+     */
+    private static volatile String sLocalNodeId;
+
+    /**
+     * 설정 {@link DataMap} 의 메모리 사본. 아직 읽지 않았거나 {@link #invalidateConfigMirror()} 로 무효화되었다면 null.
+     * 워치페이스가 DataApi 리스너로 등록되어 있는 동안 onDataChanged 로 최신 상태를 유지한다. 리스너는 화면이 꺼져도
+     * 연결이 끊기거나 엔진이 사라질 때까지 유지한다.
+     */
+    private static DataMap sConfigMirror;
+
+    /**
+     * 사본이 바뀔 때마다 증가한다. 조회 중에 사본이 바뀌었다면 조회 결과로 사본을 덮어쓰지 않는다.
+     */
+    private static int sConfigMirrorGeneration;
+
     private static int parseColor(String colorName) {
         return Color.parseColor(colorName.toLowerCase());
     }
@@ -112,87 +134,178 @@ public final class WatchFaceUtil {
      */
     public static void fetchConfigDataMap(final GoogleApiClient client,
             final FetchConfigDataMapCallback callback) {
-        Wearable.NodeApi.getLocalNode(client).setResultCallback(
-                new ResultCallback<NodeApi.GetLocalNodeResult>() {
+        fetchConfigDataMap(client).addListener(new ResultFuture.Listener<DataMap>() {
+            @Override
+            public void onSuccess(DataMap config) {
+                callback.onConfigDataMapFetched(config);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                Log.w(TAG, "Unable to fetch config data map", error);
+            }
+        }, AsyncExecutors.direct());
+    }
+
+    /**
+     * {@link ResultFuture} 버전. 메모리 사본이 있다면 IPC 없이 사본의 복사본을 반환하고, 없다면 (처음 한 번만 로컬 노드를
+     * 조회한 후) {@link DataItem} 을 한 번 조회해서 사본을 채운다.
+     */
+    public static ResultFuture<DataMap> fetchConfigDataMap(final GoogleApiClient client) {
+        final int generation;
+        synchronized (WatchFaceUtil.class) {
+            if (sConfigMirror != null) {
+                return ResultFuture.immediate(copyOf(sConfigMirror));
+            }
+            generation = sConfigMirrorGeneration;
+        }
+
+        return getLocalNodeId(client)
+                .then(new ResultFuture.AsyncFunction<String, DataApi.DataItemResult>() {
                     @Override
-                    public void onResult(NodeApi.GetLocalNodeResult getLocalNodeResult) {
-                        String localNode = getLocalNodeResult.getNode().getId();
+                    public ResultFuture<DataApi.DataItemResult> apply(String localNode) {
                         Uri uri = new Uri.Builder()
                                 .scheme("wear")
                                 .path(WatchFaceUtil.PATH_WITH_FEATURE)
                                 .authority(localNode)
                                 .build();
-                        Wearable.DataApi.getDataItem(client, uri)
-                                .setResultCallback(new DataItemResultCallback(callback));
+                        return PendingResults.toFuture(Wearable.DataApi.getDataItem(client, uri));
                     }
-                }
-        );
+                }, AsyncExecutors.direct())
+                .map(new ResultFuture.Function<DataApi.DataItemResult, DataMap>() {
+                    @Override
+                    public DataMap apply(DataApi.DataItemResult dataItemResult) {
+                        DataItem configDataItem = dataItemResult.getDataItem();
+                        DataMap config = configDataItem == null
+                                ? new DataMap()
+                                : DataMapItem.fromDataItem(configDataItem).getDataMap();
+                        synchronized (WatchFaceUtil.class) {
+                            if (generation != sConfigMirrorGeneration) {
+                                // 조회하는 동안 더 새로운 값이 들어왔다
+                                return copyOf(sConfigMirror != null ? sConfigMirror : config);
+                            }
+                            sConfigMirror = copyOf(config);
+                        }
+                        return config;
+                    }
+                }, AsyncExecutors.direct());
     }
 
     /**
-     * 설정 값을 담은 {@link DataItem} 중 {@link DataMap}의 키와 값으로 설정 값을 덮어씌운다.
-     * DataItem 이 생성되지 않았다면 새로 생성한다.
-     * <p>
-     * DataItem 의 내용 중 {@code configKeysToOverwrite} 에서 명시한 키에 해당하는 값만 변경된다.
-     * 나머지 값들은 변경되지 않는다.
+     * @return 로컬 노드 ID. 처음 한 번만 NodeApi 를 호출한다.
      */
-    public static void overwriteKeysInConfigDataMap(final GoogleApiClient googleApiClient,
-            final DataMap configKeysToOverwrite) {
-
-        WatchFaceUtil.fetchConfigDataMap(googleApiClient,
-                new FetchConfigDataMapCallback() {
+    public static ResultFuture<String> getLocalNodeId(GoogleApiClient client) {
+        String localNodeId = sLocalNodeId;
+        if (localNodeId != null) {
+            return ResultFuture.immediate(localNodeId);
+        }
+        return PendingResults.toFuture(Wearable.NodeApi.getLocalNode(client))
+                .map(new ResultFuture.Function<NodeApi.GetLocalNodeResult, String>() {
                     @Override
-                    public void onConfigDataMapFetched(DataMap currentConfig) {
-                        DataMap overwrittenConfig = new DataMap();
-                        overwrittenConfig.putAll(currentConfig);
-                        overwrittenConfig.putAll(configKeysToOverwrite);
-                        WatchFaceUtil.putConfigDataItem(googleApiClient, overwrittenConfig);
+                    public String apply(NodeApi.GetLocalNodeResult getLocalNodeResult) {
+                        String id = getLocalNodeResult.getNode().getId();
+                        sLocalNodeId = id;
+                        return id;
                     }
+                }, AsyncExecutors.direct());
+    }
+
+    /**
+     * 설정 {@link DataItem} 이 바뀌었다는 알림(onDataChanged)을 받으면 메모리 사본을 갱신한다.
+     *
+     * @return 사본이 갱신되었는지 여부. 사본보다 이전 버전의 설정이라면 무시하고 false 를 반환한다.
+     */
+    public static boolean updateConfigMirror(DataMap config) {
+        synchronized (WatchFaceUtil.class) {
+            if (sConfigMirror != null && isOlder(config, sConfigMirror)) {
+                return false;
+            }
+            sConfigMirror = copyOf(config);
+            sConfigMirrorGeneration++;
+            return true;
+        }
+    }
+
+    /**
+     * 쓰기 요청을 보내기 전에 바뀐 키만 메모리 사본에 먼저 반영한다. 사본이 없다면 다음 조회에서 DataItem 을 읽도록 둔다.
+     * 사본의 버전은 낮추지 않는다.
+     */
+    public static void applyToConfigMirror(DataMap changes) {
+        synchronized (WatchFaceUtil.class) {
+            if (sConfigMirror != null) {
+                long version = Math.max(sConfigMirror.getLong(KEY_CONFIG_VERSION, 0),
+                        changes.getLong(KEY_CONFIG_VERSION, 0));
+                sConfigMirror.putAll(changes);
+                if (version != 0) {
+                    sConfigMirror.putLong(KEY_CONFIG_VERSION, version);
                 }
-        );
+            }
+            // 진행 중인 조회가 반영 이전의 값으로 사본을 채우지 않게 한다
+            sConfigMirrorGeneration++;
+        }
+    }
+
+    /**
+     * 두 설정 모두 버전이 있고 {@code config} 의 버전이 더 낮은 경우에만 true 를 반환한다.
+     */
+    private static boolean isOlder(DataMap config, DataMap than) {
+        return config.containsKey(KEY_CONFIG_VERSION) && than.containsKey(KEY_CONFIG_VERSION)
+                && config.getLong(KEY_CONFIG_VERSION) < than.getLong(KEY_CONFIG_VERSION);
+    }
+
+    /**
+     * @return 메모리 사본이 있어서 다음 조회가 IPC 없이 끝나는지 여부
+     */
+    public static boolean hasConfigMirror() {
+        synchronized (WatchFaceUtil.class) {
+            return sConfigMirror != null;
+        }
+    }
+
+    /**
+     * 더 이상 onDataChanged 를 받지 않아서 사본이 최신임을 보장할 수 없을 때 호출한다. 다음 조회는 DataItem 을 다시 읽는다.
+     */
+    public static void invalidateConfigMirror() {
+        synchronized (WatchFaceUtil.class) {
+            sConfigMirror = null;
+            sConfigMirrorGeneration++;
+        }
+    }
+
+    private static DataMap copyOf(DataMap config) {
+        DataMap copy = new DataMap();
+        copy.putAll(config);
+        return copy;
     }
 
     /**
      * 설정 값을 담은  {@link DataItem}의 {@link DataMap} 을 {@code newConfig}로 교체한다.
      * DataItem 이 생성되지 않았다면 새로 생성한다.
      */
-    public static void putConfigDataItem(GoogleApiClient googleApiClient, DataMap newConfig) {
+    public static ResultFuture<DataApi.DataItemResult> putConfigDataItem(
+            GoogleApiClient googleApiClient, DataMap newConfig) {
         PutDataMapRequest putDataMapRequest = PutDataMapRequest.create(PATH_WITH_FEATURE);
 //        putDataMapRequest.setUrgent();
         DataMap configToPut = putDataMapRequest.getDataMap();
         configToPut.putAll(newConfig);
-        Wearable.DataApi.putDataItem(googleApiClient, putDataMapRequest.asPutDataRequest())
-                .setResultCallback(new ResultCallback<DataApi.DataItemResult>() {
+        // onDataChanged 로 같은 값이 다시 전달되지만, 그 전에 조회하더라도 새 값을 받을 수 있도록 사본을 먼저 갱신한다
+        updateConfigMirror(newConfig);
+        ResultFuture<DataApi.DataItemResult> result = PendingResults.toFuture(
+                Wearable.DataApi.putDataItem(googleApiClient, putDataMapRequest.asPutDataRequest()));
+        result.addListener(new ResultFuture.Listener<DataApi.DataItemResult>() {
                     @Override
-                    public void onResult(DataApi.DataItemResult dataItemResult) {
+                    public void onSuccess(DataApi.DataItemResult dataItemResult) {
                         if (Log.isLoggable(TAG, Log.DEBUG)) {
                             Log.d(TAG, "putDataItem result status: " + dataItemResult.getStatus());
                         }
                     }
-                });
-    }
-
-    private static class DataItemResultCallback implements ResultCallback<DataApi.DataItemResult> {
 
-        private final FetchConfigDataMapCallback mCallback;
-
-        public DataItemResultCallback(FetchConfigDataMapCallback callback) {
-            mCallback = callback;
-        }
-
-        @Override
-        public void onResult(DataApi.DataItemResult dataItemResult) {
-            if (dataItemResult.getStatus().isSuccess()) {
-                if (dataItemResult.getDataItem() != null) {
-                    DataItem configDataItem = dataItemResult.getDataItem();
-                    DataMapItem dataMapItem = DataMapItem.fromDataItem(configDataItem);
-                    DataMap config = dataMapItem.getDataMap();
-                    mCallback.onConfigDataMapFetched(config);
-                } else {
-                    mCallback.onConfigDataMapFetched(new DataMap());
-                }
-            }
-        }
+                    @Override
+                    public void onFailure(Throwable error) {
+                        Log.w(TAG, "putDataItem failed", error);
+                    }
+                }, AsyncExecutors.direct());
+        return result;
     }
 
     private WatchFaceUtil() { }
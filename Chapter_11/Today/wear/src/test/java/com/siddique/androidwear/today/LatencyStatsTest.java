@@ -0,0 +1,51 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link LatencyStats} 의 백분위 계산과 오래된 측정값 교체를 확인한다.
+ */
+public class LatencyStatsTest {
+
+    @Test
+    public void emptyStatsHaveNoPercentiles() {
+        LatencyStats stats = new LatencyStats("empty");
+
+        assertEquals(0, stats.getCount());
+        assertEquals(-1, stats.getPercentile(50));
+        assertEquals("empty: no samples", stats.toString());
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        LatencyStats stats = new LatencyStats("frame");
+        // 기록 순서와 상관없이 정렬한 값으로 계산한다
+        for (long latency : new long[]{90, 10, 50, 30, 70, 20, 100, 40, 80, 60}) {
+            stats.record(latency);
+        }
+
+        assertEquals(10, stats.getCount());
+        assertEquals(10, stats.getPercentile(0));
+        assertEquals(50, stats.getPercentile(50));
+        assertEquals(90, stats.getPercentile(90));
+        assertEquals(100, stats.getPercentile(100));
+        assertEquals("frame: n=10 min=10ms p50=50ms p90=90ms max=100ms", stats.toString());
+    }
+
+    @Test
+    public void oldSamplesAreReplacedButStillCounted() {
+        LatencyStats stats = new LatencyStats("frame");
+        for (int i = 0; i < LatencyStats.CAPACITY; i++) {
+            stats.record(1000);
+        }
+        for (int i = 0; i < LatencyStats.CAPACITY; i++) {
+            stats.record(i + 1);
+        }
+
+        assertEquals(2 * LatencyStats.CAPACITY, stats.getCount());
+        assertEquals(1, stats.getPercentile(0));
+        assertEquals(LatencyStats.CAPACITY, stats.getPercentile(100));
+    }
+}
@@ -0,0 +1,177 @@
+package com.siddique.androidwear.today;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 임시 디렉터리에서 {@link StepHistory} 의 원본 로그, 집계 파일, 손상 후 복구, 링 버퍼 재사용을 확인한다.
+ * 로컬 시간대는 UTC 로 고정한다.
+ */
+public class StepHistoryTest {
+
+    /** 2017-03-14 09:00:00 UTC */
+    private static final long MORNING_MS = 1489482000000L;
+
+    private static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    private TimeZone mDefaultTimeZone;
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDefaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        mDirectory = mFolder.newFolder();
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(mDefaultTimeZone);
+    }
+
+    @Test
+    public void appendedStepsSurviveReopen() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        history.append(MORNING_MS, 100);
+        history.append(MORNING_MS + MINUTE_MS, 50);
+        history.append(MORNING_MS + HOUR_MS, 7);
+        // 증가분이 없는 값은 기록하지 않는다
+        history.append(MORNING_MS + HOUR_MS, 0);
+        history.flush();
+
+        StepHistory reopened = new StepHistory(mDirectory);
+
+        assertEquals(157, reopened.getDayTotal(MORNING_MS));
+        assertArrayEquals(new int[] {100, 50}, reopened.getBuckets(StepHistory.MINUTE, MORNING_MS + MINUTE_MS, 2));
+        assertArrayEquals(new int[] {150, 7}, reopened.getBuckets(StepHistory.HOUR, MORNING_MS + HOUR_MS, 2));
+    }
+
+    @Test
+    public void corruptHeaderIsRebuiltFromRawLog() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        history.append(MORNING_MS - DAY_MS, 30);
+        history.append(MORNING_MS, 100);
+        history.append(MORNING_MS + 90 * 1000, 20);
+        history.flush();
+
+        RandomAccessFile buckets = new RandomAccessFile(new File(mDirectory, StepHistory.BUCKET_FILE), "rw");
+        try {
+            buckets.writeInt(0);
+        } finally {
+            buckets.close();
+        }
+
+        StepHistory rebuilt = new StepHistory(mDirectory);
+
+        assertEquals(30, rebuilt.getDayTotal(MORNING_MS - DAY_MS));
+        assertEquals(120, rebuilt.getDayTotal(MORNING_MS));
+        assertArrayEquals(new int[] {100, 20}, rebuilt.getBuckets(StepHistory.MINUTE, MORNING_MS + MINUTE_MS, 2));
+
+        // 복구 후에도 이어서 기록할 수 있다
+        rebuilt.append(MORNING_MS + 2 * MINUTE_MS, 5);
+        assertEquals(125, rebuilt.getDayTotal(MORNING_MS));
+    }
+
+    @Test
+    public void missingBucketFileIsRebuiltFromRawLog() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        history.append(MORNING_MS, 100);
+        history.flush();
+
+        assertTrue(new File(mDirectory, StepHistory.BUCKET_FILE).delete());
+
+        assertEquals(100, new StepHistory(mDirectory).getDayTotal(MORNING_MS));
+    }
+
+    @Test
+    public void truncatedLastRawRecordIsSkippedOnReplay() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        history.append(MORNING_MS, 100);
+        history.append(MORNING_MS + MINUTE_MS, 50);
+
+        // 마지막 기록의 걸음 수를 쓰다가 끊긴 경우
+        File rawLog = new File(mDirectory, StepHistory.RAW_LOG_FILE);
+        RandomAccessFile raw = new RandomAccessFile(rawLog, "rw");
+        try {
+            raw.setLength(raw.length() - 1);
+        } finally {
+            raw.close();
+        }
+        assertTrue(new File(mDirectory, StepHistory.BUCKET_FILE).delete());
+
+        assertEquals(100, new StepHistory(mDirectory).getDayTotal(MORNING_MS));
+    }
+
+    @Test
+    public void rotatedRawLogIsReplayedWithCurrentLog() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        // 같은 시각의 1걸음 기록은 2바이트이므로, 이만큼 쓰면 한 번 교체된다
+        int records = StepHistory.MAX_RAW_LOG_BYTES / 2 + 1000;
+        for (int i = 0; i < records; i++) {
+            history.append(MORNING_MS, 1);
+        }
+        assertTrue(new File(mDirectory, StepHistory.OLD_RAW_LOG_FILE).exists());
+        assertTrue(new File(mDirectory, StepHistory.RAW_LOG_FILE).length() < StepHistory.MAX_RAW_LOG_BYTES);
+
+        assertTrue(new File(mDirectory, StepHistory.BUCKET_FILE).delete());
+
+        assertEquals(records, new StepHistory(mDirectory).getDayTotal(MORNING_MS));
+    }
+
+    @Test
+    public void ringSlotsAreReusedAfterRetention() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        history.append(MORNING_MS, 10);
+
+        // 하루 뒤 같은 분은 분 버킷의 같은 칸을 쓴다
+        long nextDay = MORNING_MS + StepHistory.MINUTE.slots * MINUTE_MS;
+        history.append(nextDay, 20);
+        assertArrayEquals(new int[] {0}, history.getBuckets(StepHistory.MINUTE, MORNING_MS, 1));
+        assertArrayEquals(new int[] {20}, history.getBuckets(StepHistory.MINUTE, nextDay, 1));
+        assertEquals(10, history.getDayTotal(MORNING_MS));
+
+        // 일주일 뒤 같은 시는 시 버킷의 같은 칸을 쓴다
+        long nextWeek = MORNING_MS + StepHistory.HOUR.slots * HOUR_MS;
+        history.append(nextWeek, 30);
+        assertArrayEquals(new int[] {0}, history.getBuckets(StepHistory.HOUR, MORNING_MS, 1));
+        assertArrayEquals(new int[] {30}, history.getBuckets(StepHistory.HOUR, nextWeek, 1));
+        assertArrayEquals(new int[] {20}, history.getBuckets(StepHistory.HOUR, nextDay, 1));
+
+        // 366일 뒤 같은 칸의 날을 쓰면 이전 날은 보관 기간이 지나 0 이 된다
+        long nextYear = MORNING_MS + StepHistory.DAY.slots * DAY_MS;
+        history.append(nextYear, 40);
+        assertEquals(0, history.getDayTotal(MORNING_MS));
+        assertEquals(40, history.getDayTotal(nextYear));
+        assertEquals(20, history.getDayTotal(nextDay));
+    }
+
+    @Test
+    public void dayBoundaryFollowsLocalMidnight() throws IOException {
+        StepHistory history = new StepHistory(mDirectory);
+        long midnight = MORNING_MS - 9 * HOUR_MS + DAY_MS;
+        history.append(midnight - 1, 5);
+        history.append(midnight, 7);
+
+        assertEquals(5, history.getDayTotal(midnight - 1));
+        assertEquals(7, history.getDayTotal(midnight));
+        assertEquals(StepHistory.getDay(midnight - 1) + 1, StepHistory.getDay(midnight));
+    }
+}
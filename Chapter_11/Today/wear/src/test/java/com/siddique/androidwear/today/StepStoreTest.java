@@ -0,0 +1,102 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link StepStore} 가 누적 걸음 수를 증가분으로 바꾸고 재부팅과 시계 변경을 구분하는지 확인한다.
+ */
+public class StepStoreTest {
+
+    /** 2017-03-14 00:00:00 UTC 에 부팅했다 */
+    private static final long BOOT_MS = 1489449600000L;
+
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+
+    private FakeSharedPreferences mPreferences;
+
+    @Before
+    public void setUp() {
+        mPreferences = new FakeSharedPreferences();
+    }
+
+    @Test
+    public void firstValueIsBaselineOnly() {
+        assertEquals(0, counter(5000, BOOT_MS, HOUR_MS));
+    }
+
+    @Test
+    public void returnsIncreaseSinceLastValue() {
+        counter(5000, BOOT_MS, HOUR_MS);
+
+        assertEquals(120, counter(5120, BOOT_MS, HOUR_MS + MINUTE_MS));
+        assertEquals(0, counter(5120, BOOT_MS, HOUR_MS + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void smallBootTimeJitterIsNotReboot() {
+        counter(5000, BOOT_MS, HOUR_MS);
+
+        long jitter = StepStore.BOOT_TIME_TOLERANCE_MS;
+        assertEquals(100, counter(5100, BOOT_MS + jitter, HOUR_MS + MINUTE_MS));
+        assertEquals(100, counter(5200, BOOT_MS, HOUR_MS + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void counterDropIsReboot() {
+        counter(5000, BOOT_MS, HOUR_MS);
+
+        long rebootMs = BOOT_MS + 2 * HOUR_MS;
+        assertEquals(300, counter(300, rebootMs, 10 * MINUTE_MS));
+    }
+
+    @Test
+    public void rebootWithLongerUptimeAndHigherCounterIsDetected() {
+        // 부팅 후 10분에 마지막 값을 받았다
+        counter(200, BOOT_MS, 10 * MINUTE_MS);
+
+        // 재부팅하고 한 시간이 지나서야 첫 값을 받았다. 누적 값도 경과 시간도 모두 늘었다.
+        long rebootMs = BOOT_MS + 3 * HOUR_MS;
+        assertEquals(900, counter(900, rebootMs, HOUR_MS));
+        assertEquals(50, counter(950, rebootMs, HOUR_MS + MINUTE_MS));
+    }
+
+    @Test
+    public void clockChangeIsNotReboot() {
+        counter(5000, BOOT_MS, HOUR_MS);
+
+        // 폰과 시간을 맞추면서 시계가 한 시간 뒤로 갔다
+        long shiftedBootMs = BOOT_MS - HOUR_MS;
+        StepStore.onClockChanged(mPreferences, shiftedBootMs, HOUR_MS + MINUTE_MS);
+
+        assertEquals(40, counter(5040, shiftedBootMs, HOUR_MS + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void clockChangeAfterRebootKeepsRebootDetectable() {
+        counter(5000, BOOT_MS, HOUR_MS);
+
+        // 재부팅 후 10분 만에 시계가 바뀌었다. 마지막 값의 경과 시간(1시간)보다 짧으므로 재부팅 후로 본다.
+        long rebootMs = BOOT_MS + 3 * HOUR_MS;
+        StepStore.onClockChanged(mPreferences, rebootMs, 10 * MINUTE_MS);
+
+        assertEquals(70, counter(70, rebootMs, 11 * MINUTE_MS));
+    }
+
+    @Test
+    public void clockChangeBeforeFirstValueIsIgnored() {
+        StepStore.onClockChanged(mPreferences, BOOT_MS, MINUTE_MS);
+
+        assertEquals(0, counter(5000, BOOT_MS, HOUR_MS));
+    }
+
+    /**
+     * @param elapsedMs 측정 시각의 부팅 후 경과 시간
+     */
+    private long counter(long counter, long bootTimeMs, long elapsedMs) {
+        return StepStore.onCounterValue(mPreferences, counter, bootTimeMs + elapsedMs, bootTimeMs);
+    }
+}
@@ -0,0 +1,159 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link TodayUtil.DateValues} 가 로컬 자정부터 다음 자정 전까지만 유효한지, 일광 절약 시간이 바뀌는 날과 연말에도 값이
+ * 맞는지 확인한다. 시각은 모두 손으로 계산한 UTC 밀리초이다.
+ */
+public class TodayUtilTest {
+
+    private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final long HOUR_MS = 60 * 60 * 1000;
+
+    /** 2017-03-14 00:00 EDT */
+    private static final long MAR_14_2017_NY = 1489464000000L;
+    /** 2017-03-15 00:00 EDT */
+    private static final long MAR_15_2017_NY = 1489550400000L;
+
+    @Test
+    public void validFromMidnightUntilJustBeforeNextMidnight() {
+        TodayUtil.DateValues values = compute(MAR_14_2017_NY + 12 * HOUR_MS, NEW_YORK);
+
+        assertFalse(values.isValidAt(MAR_14_2017_NY - 1));
+        assertTrue(values.isValidAt(MAR_14_2017_NY));
+        // 23:59:59.999
+        assertTrue(values.isValidAt(MAR_15_2017_NY - 1));
+        // 다음 날 00:00
+        assertFalse(values.isValidAt(MAR_15_2017_NY));
+    }
+
+    @Test
+    public void valuesComputedAtLastMillisecondBelongToThatDay() {
+        TodayUtil.DateValues lastMillisecond = compute(MAR_15_2017_NY - 1, NEW_YORK);
+        TodayUtil.DateValues midnight = compute(MAR_15_2017_NY, NEW_YORK);
+
+        assertEquals(73, lastMillisecond.dayOfYear);
+        assertEquals(74, midnight.dayOfYear);
+        assertTrue(lastMillisecond.isValidAt(MAR_14_2017_NY));
+        assertFalse(midnight.isValidAt(MAR_15_2017_NY - 1));
+        assertTrue(midnight.isValidAt(MAR_15_2017_NY));
+    }
+
+    @Test
+    public void springForwardDayIs23Hours() {
+        // 2017-03-12 00:00 EST ~ 2017-03-13 00:00 EDT
+        long start = 1489294800000L;
+        long end = 1489377600000L;
+        assertEquals(23 * HOUR_MS, end - start);
+
+        TodayUtil.DateValues values = compute(start + 10 * HOUR_MS, NEW_YORK);
+
+        assertTrue(values.isValidAt(start));
+        assertTrue(values.isValidAt(end - 1));
+        assertFalse(values.isValidAt(end));
+        assertEquals(71, values.dayOfYear);
+    }
+
+    @Test
+    public void fallBackDayIs25Hours() {
+        // 2017-11-05 00:00 EDT ~ 2017-11-06 00:00 EST
+        long start = 1509854400000L;
+        long end = 1509944400000L;
+        assertEquals(25 * HOUR_MS, end - start);
+
+        TodayUtil.DateValues values = compute(start + 24 * HOUR_MS + 30 * 60 * 1000, NEW_YORK);
+
+        assertFalse(values.isValidAt(start - 1));
+        assertTrue(values.isValidAt(start));
+        assertTrue(values.isValidAt(end - 1));
+        assertFalse(values.isValidAt(end));
+        assertEquals(309, values.dayOfYear);
+    }
+
+    @Test
+    public void dayWithoutMidnightStartsAtFirstLocalTime() {
+        // 상파울루는 2016-10-16 00:00 에 01:00 으로 넘어갔으므로 그 날은 01:00 -02:00 에 시작해서 23시간이다
+        TimeZone saoPaulo = TimeZone.getTimeZone("America/Sao_Paulo");
+        long start = 1476586800000L;
+        long end = 1476669600000L;
+        assertEquals(23 * HOUR_MS, end - start);
+
+        TodayUtil.DateValues values = compute(start + 12 * HOUR_MS, saoPaulo);
+
+        assertTrue(values.isValidAt(start));
+        assertTrue(values.isValidAt(end - 1));
+        assertFalse(values.isValidAt(end));
+    }
+
+    @Test
+    public void lastDayOfLeapYear() {
+        // 2016-12-31 12:00 UTC
+        TodayUtil.DateValues values = compute(1483185600000L, UTC);
+
+        assertEquals(366, values.dayOfYear);
+        assertEquals(0, values.daysLeftInYear);
+        assertEquals("366", values.dayOfYearText);
+        assertEquals("0", values.daysLeftInYearText);
+
+        // 2016-12-30 12:00 UTC
+        TodayUtil.DateValues dayBefore = compute(1483099200000L, UTC);
+        assertEquals(365, dayBefore.dayOfYear);
+        assertEquals(1, dayBefore.daysLeftInYear);
+    }
+
+    @Test
+    public void lastDayOfCommonYear() {
+        // 2017-12-31 12:00 UTC
+        TodayUtil.DateValues values = compute(1514721600000L, UTC);
+
+        assertEquals(365, values.dayOfYear);
+        assertEquals(0, values.daysLeftInYear);
+        // 2017-12-31 00:00 ~ 2018-01-01 00:00 UTC
+        assertTrue(values.isValidAt(1514678400000L));
+        assertFalse(values.isValidAt(1514764800000L));
+    }
+
+    @Test
+    public void firstDayOfLeapYear() {
+        // 2016-01-01 00:00 UTC
+        TodayUtil.DateValues values = compute(1451606400000L, UTC);
+
+        assertEquals(1, values.dayOfYear);
+        assertEquals(365, values.daysLeftInYear);
+    }
+
+    @Test
+    public void textsUseGivenFormats() {
+        DateFormat dayOfWeekFormat = new SimpleDateFormat("EEEE", Locale.US);
+        dayOfWeekFormat.setTimeZone(NEW_YORK);
+        DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.SHORT, Locale.US);
+        dateFormat.setTimeZone(NEW_YORK);
+
+        TodayUtil.DateValues values = TodayUtil.computeDateValues(MAR_15_2017_NY - 1, NEW_YORK,
+                dayOfWeekFormat, dateFormat);
+
+        assertEquals("Tuesday", values.dayOfWeekText);
+        assertEquals("3/14/17", values.dateText);
+
+        TodayUtil.DateValues noTexts = compute(MAR_15_2017_NY - 1, NEW_YORK);
+        assertNull(noTexts.dayOfWeekText);
+        assertNull(noTexts.dateText);
+    }
+
+    private static TodayUtil.DateValues compute(long timeMs, TimeZone timeZone) {
+        return TodayUtil.computeDateValues(timeMs, timeZone, null, null);
+    }
+}
@@ -0,0 +1,79 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * {@link TodoItemPages} 의 페이지 나누기와 노드 별 목록 선택을 확인한다.
+ */
+public class TodoItemPagesTest {
+
+    private static final String OLD_PHONE = "old-phone";
+    private static final String PHONE = "phone";
+
+    @Test
+    public void splitsItemsIntoPages() {
+        TodoItemPages pages = new TodoItemPages(items(TodoItemPages.PAGE_SIZE * 2 + 1));
+
+        assertEquals(3, pages.getPageCount());
+        assertEquals(items(TodoItemPages.PAGE_SIZE), pages.getPage(0));
+        assertEquals(Collections.singletonList("item" + TodoItemPages.PAGE_SIZE * 2), pages.getPage(2));
+        assertEquals(Collections.<String>emptyList(), pages.getPage(3));
+        assertEquals(Collections.<String>emptyList(), pages.getPage(-1));
+        assertEquals(0, TodoItemPages.EMPTY.getPageCount());
+    }
+
+    @Test
+    public void usesOnlyTheConnectedPhone() {
+        Map<String, List<String>> itemsByNode = new LinkedHashMap<String, List<String>>();
+        itemsByNode.put(OLD_PHONE, Arrays.asList("Buy milk", "Call mom"));
+        itemsByNode.put(PHONE, Arrays.asList("Buy milk", "Pay rent"));
+
+        TodoItemPages pages = TodoItemPages.fromNodes(itemsByNode, Collections.singleton(PHONE));
+
+        assertEquals(Arrays.asList("Buy milk", "Pay rent"), pages.getPage(0));
+    }
+
+    @Test
+    public void connectedPhoneWithEmptyListHidesOtherNodes() {
+        Map<String, List<String>> itemsByNode = new LinkedHashMap<String, List<String>>();
+        itemsByNode.put(OLD_PHONE, Arrays.asList("Buy milk"));
+        itemsByNode.put(PHONE, Collections.<String>emptyList());
+
+        assertSame(TodoItemPages.EMPTY,
+                TodoItemPages.fromNodes(itemsByNode, Collections.singleton(PHONE)));
+    }
+
+    @Test
+    public void mergesWithoutDuplicatesWhenNoPhoneIsConnected() {
+        Map<String, List<String>> itemsByNode = new LinkedHashMap<String, List<String>>();
+        itemsByNode.put(PHONE, Arrays.asList("Buy milk", "Pay rent"));
+        itemsByNode.put(OLD_PHONE, Arrays.asList("Buy milk", "Call mom"));
+
+        TodoItemPages pages = TodoItemPages.fromNodes(itemsByNode, Collections.<String>emptySet());
+
+        assertEquals(Arrays.asList("Buy milk", "Call mom", "Pay rent"), pages.getPage(0));
+    }
+
+    @Test
+    public void noItemsIsEmpty() {
+        assertSame(TodoItemPages.EMPTY, TodoItemPages.fromNodes(
+                new LinkedHashMap<String, List<String>>(), Collections.singleton(PHONE)));
+    }
+
+    private static List<String> items(int count) {
+        String[] items = new String[count];
+        for (int i = 0; i < count; i++) {
+            items[i] = "item" + i;
+        }
+        return Arrays.asList(items);
+    }
+}
@@ -0,0 +1,286 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 가짜 저장소와 테스트가 직접 실행하는 Executor 로 {@link TodoItemTypeViewModel} 의 페이지 펼치기와 늦게 도착한 읽기 결과 처리를
+ * 확인한다.
+ */
+public class TodoItemTypeViewModelTest {
+
+    private static final String HOME = TodoItemType.HOME.getTypeValue();
+
+    private FakeLoader mLoader;
+    private QueuedExecutor mExecutor;
+    private TodoItemTypeViewModel mViewModel;
+    private int mChangeCount;
+
+    @Before
+    public void setUp() {
+        mLoader = new FakeLoader();
+        mExecutor = new QueuedExecutor();
+        mViewModel = createViewModel();
+    }
+
+    @Test
+    public void showsCachedPagesWithoutLoading() {
+        TodoItemPages cached = pages(3);
+        mLoader.mCached.put(HOME, cached);
+
+        TodoItemTypeViewModel viewModel = createViewModel();
+
+        assertSame(cached, viewModel.getPages());
+        assertEquals(1, viewModel.getShownPageCount());
+        assertFalse(viewModel.isLoading());
+    }
+
+    @Test
+    public void expandsOnePageAtATime() {
+        mViewModel.load();
+        mLoader.complete(HOME, pages(TodoItemPages.PAGE_SIZE * 2 + 1));
+        mExecutor.runAll();
+
+        assertEquals(1, mViewModel.getShownPageCount());
+        assertTrue(mViewModel.hasMorePages());
+
+        mViewModel.showNextPage();
+        mViewModel.showNextPage();
+
+        assertEquals(3, mViewModel.getShownPageCount());
+        assertFalse(mViewModel.hasMorePages());
+        // 마지막 페이지에서는 더 펼치지 않고 알리지도 않는다
+        int changes = mChangeCount;
+        mViewModel.showNextPage();
+        assertEquals(3, mViewModel.getShownPageCount());
+        assertEquals(changes, mChangeCount);
+    }
+
+    @Test
+    public void shownPagesShrinkWithShorterListAndKeepExpansion() {
+        mViewModel.load();
+        mLoader.complete(HOME, pages(TodoItemPages.PAGE_SIZE * 3));
+        mExecutor.runAll();
+        mViewModel.showNextPage();
+        mViewModel.showNextPage();
+
+        // 폰에서 목록이 줄었다
+        mLoader.invalidate(HOME);
+        mViewModel.load();
+        mLoader.complete(HOME, pages(TodoItemPages.PAGE_SIZE));
+        mExecutor.runAll();
+        assertEquals(1, mViewModel.getShownPageCount());
+
+        // 다시 늘어나면 펼쳐 두었던 페이지 수까지 보여준다
+        mLoader.invalidate(HOME);
+        mViewModel.load();
+        mLoader.complete(HOME, pages(TodoItemPages.PAGE_SIZE * 4));
+        mExecutor.runAll();
+        assertEquals(3, mViewModel.getShownPageCount());
+    }
+
+    @Test
+    public void ignoresStaleResultThatArrivesLate() {
+        mViewModel.load();
+        ResultFuture<TodoItemPages> stale = mLoader.current(HOME);
+        mLoader.invalidate(HOME);
+        mViewModel.load();
+
+        TodoItemPages fresh = pages(2);
+        mLoader.complete(HOME, fresh);
+        mExecutor.runAll();
+        stale.set(pages(7));
+        mExecutor.runAll();
+
+        assertSame(fresh, mViewModel.getPages());
+        assertFalse(mViewModel.isLoading());
+    }
+
+    @Test
+    public void ignoresStaleFailure() {
+        mViewModel.load();
+        ResultFuture<TodoItemPages> stale = mLoader.current(HOME);
+        mLoader.invalidate(HOME);
+        mViewModel.load();
+
+        stale.setException(new Exception("old"));
+        mExecutor.runAll();
+
+        assertTrue(mViewModel.isLoading());
+        assertFalse(mViewModel.isLoadFailed());
+    }
+
+    @Test
+    public void sameLoadIsNotObservedTwice() {
+        mViewModel.load();
+        mViewModel.load();
+        mLoader.complete(HOME, pages(1));
+        mExecutor.runAll();
+
+        assertEquals(1, mChangeCount);
+        assertEquals(1, mLoader.mLoadCount);
+    }
+
+    @Test
+    public void failureWithoutPagesIsReportedAndRetried() {
+        mViewModel.load();
+        mLoader.current(HOME).setException(new Exception("offline"));
+        mLoader.invalidate(HOME);
+        mExecutor.runAll();
+
+        assertTrue(mViewModel.isLoadFailed());
+        assertFalse(mViewModel.isLoading());
+        assertNull(mViewModel.getPages());
+
+        mViewModel.load();
+        mLoader.complete(HOME, pages(1));
+        mExecutor.runAll();
+
+        assertFalse(mViewModel.isLoadFailed());
+        assertEquals(1, mViewModel.getPages().size());
+    }
+
+    @Test
+    public void failureKeepsPreviousPages() {
+        mViewModel.load();
+        TodoItemPages previous = pages(1);
+        mLoader.complete(HOME, previous);
+        mExecutor.runAll();
+
+        mLoader.invalidate(HOME);
+        mViewModel.load();
+        mLoader.current(HOME).setException(new Exception("offline"));
+        mExecutor.runAll();
+
+        assertSame(previous, mViewModel.getPages());
+        assertFalse(mViewModel.isLoadFailed());
+    }
+
+    @Test
+    public void resultsArriveOnlyThroughExecutor() {
+        mViewModel.load();
+        mLoader.complete(HOME, pages(1));
+
+        assertNull(mViewModel.getPages());
+        assertEquals(0, mChangeCount);
+
+        mExecutor.runAll();
+
+        assertEquals(1, mChangeCount);
+    }
+
+    @Test
+    public void removeListenerKeepsNewerListener() {
+        TodoItemTypeViewModel.Listener oldListener = new CountingListener();
+        CountingListener newListener = new CountingListener();
+        mViewModel.setListener(oldListener);
+        mViewModel.setListener(newListener);
+
+        mViewModel.removeListener(oldListener);
+        mViewModel.load();
+        mLoader.complete(HOME, pages(1));
+        mExecutor.runAll();
+
+        assertEquals(1, newListener.mCount);
+    }
+
+    private TodoItemTypeViewModel createViewModel() {
+        TodoItemTypeViewModel viewModel =
+                new TodoItemTypeViewModel(TodoItemType.HOME, mLoader, mExecutor);
+        viewModel.setListener(new TodoItemTypeViewModel.Listener() {
+            @Override
+            public void onChanged(TodoItemTypeViewModel viewModel) {
+                mChangeCount++;
+            }
+        });
+        return viewModel;
+    }
+
+    private static TodoItemPages pages(int itemCount) {
+        String[] items = new String[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = "item" + i;
+        }
+        return new TodoItemPages(Arrays.asList(items));
+    }
+
+    private static final class CountingListener implements TodoItemTypeViewModel.Listener {
+        int mCount;
+
+        @Override
+        public void onChanged(TodoItemTypeViewModel viewModel) {
+            mCount++;
+        }
+    }
+
+    /**
+     * {@link TodoItemsRepository} 처럼 종류 별 읽기를 하나씩 보관하고, 무효화되면 다음 load() 에서 새 읽기를 시작한다.
+     * 결과는 테스트가 직접 정한다.
+     */
+    private static final class FakeLoader implements TodoItemTypeViewModel.Loader {
+        final Map<String, TodoItemPages> mCached = new HashMap<String, TodoItemPages>();
+        final Map<String, ResultFuture<TodoItemPages>> mLoads =
+                new HashMap<String, ResultFuture<TodoItemPages>>();
+        int mLoadCount;
+
+        @Override
+        public TodoItemPages getCached(String todoType) {
+            return mCached.get(todoType);
+        }
+
+        @Override
+        public ResultFuture<TodoItemPages> load(String todoType) {
+            ResultFuture<TodoItemPages> load = mLoads.get(todoType);
+            if (load == null) {
+                load = ResultFuture.create();
+                mLoads.put(todoType, load);
+                mLoadCount++;
+            }
+            return load;
+        }
+
+        ResultFuture<TodoItemPages> current(String todoType) {
+            return mLoads.get(todoType);
+        }
+
+        void complete(String todoType, TodoItemPages pages) {
+            mCached.put(todoType, pages);
+            mLoads.get(todoType).set(pages);
+        }
+
+        void invalidate(String todoType) {
+            mLoads.remove(todoType);
+        }
+    }
+
+    /**
+     * 넘겨받은 작업을 쌓아 두었다가 테스트가 원할 때 순서대로 실행하는 Executor. 메인 스레드의 메시지 루프를 대신한다.
+     */
+    private static final class QueuedExecutor implements Executor {
+        private final List<Runnable> mQueue = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            mQueue.add(command);
+        }
+
+        void runAll() {
+            while (!mQueue.isEmpty()) {
+                mQueue.remove(0).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.wearable.DataMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link WatchFaceConfig} 의 변경 항목 비트, 모르는 키 보존, 누락된 키 확인, 스키마 버전 규칙을 확인한다.
+ */
+public class WatchFaceConfigTest {
+
+    @Test
+    public void emptyConfigUsesDefaultsAndHasMissingKeys() {
+        WatchFaceConfig config = WatchFaceConfig.fromDataMap(new DataMap());
+
+        assertTrue(config.hasMissingKeys());
+        assertFalse(config.isFromNewerSchema());
+        assertEquals(0, config.version);
+        assertEquals(WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_BACKGROUND, config.backgroundColor);
+        assertEquals(WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS, config.hoursColor);
+        assertEquals(WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_MINUTE_DIGITS, config.minutesColor);
+        assertEquals(WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_SECOND_DIGITS, config.secondsColor);
+        assertEquals(0, config.diff(WatchFaceConfig.DEFAULT));
+    }
+
+    @Test
+    public void eachMissingKnownKeyIsReported() {
+        String[] keys = {WatchFaceUtil.KEY_BACKGROUND_COLOR, WatchFaceUtil.KEY_HOURS_COLOR,
+                WatchFaceUtil.KEY_MINUTES_COLOR, WatchFaceUtil.KEY_SECONDS_COLOR};
+        assertFalse(WatchFaceConfig.fromDataMap(colors(1, 2, 3, 4)).hasMissingKeys());
+        for (String key : keys) {
+            DataMap map = colors(1, 2, 3, 4);
+            map.remove(key);
+            assertTrue(key, WatchFaceConfig.fromDataMap(map).hasMissingKeys());
+        }
+    }
+
+    @Test
+    public void diffReportsOnlyChangedFields() {
+        WatchFaceConfig base = WatchFaceConfig.fromDataMap(colors(1, 2, 3, 4));
+
+        assertEquals(0, WatchFaceConfig.fromDataMap(colors(1, 2, 3, 4)).diff(base));
+        assertEquals(WatchFaceConfig.CHANGED_BACKGROUND_COLOR,
+                WatchFaceConfig.fromDataMap(colors(9, 2, 3, 4)).diff(base));
+        assertEquals(WatchFaceConfig.CHANGED_HOURS_COLOR,
+                WatchFaceConfig.fromDataMap(colors(1, 9, 3, 4)).diff(base));
+        assertEquals(WatchFaceConfig.CHANGED_MINUTES_COLOR,
+                WatchFaceConfig.fromDataMap(colors(1, 2, 9, 4)).diff(base));
+        assertEquals(WatchFaceConfig.CHANGED_SECONDS_COLOR,
+                WatchFaceConfig.fromDataMap(colors(1, 2, 3, 9)).diff(base));
+        assertEquals(WatchFaceConfig.CHANGED_BACKGROUND_COLOR | WatchFaceConfig.CHANGED_SECONDS_COLOR,
+                WatchFaceConfig.fromDataMap(colors(9, 2, 3, 9)).diff(base));
+    }
+
+    @Test
+    public void versionAndUnknownKeysDoNotCountAsChanges() {
+        WatchFaceConfig base = WatchFaceConfig.fromDataMap(colors(1, 2, 3, 4));
+        DataMap map = colors(1, 2, 3, 4);
+        map.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, 42);
+        map.putString("FONT", "serif");
+
+        assertEquals(0, WatchFaceConfig.fromDataMap(map).diff(base));
+    }
+
+    @Test
+    public void unknownKeysSurviveToDataMap() {
+        DataMap map = colors(1, 2, 3, 4);
+        map.putString("FONT", "serif");
+        map.putInt("COMPLICATION_ID", 7);
+        map.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, 42);
+
+        DataMap written = WatchFaceConfig.fromDataMap(map).toDataMap();
+
+        assertEquals("serif", written.getString("FONT"));
+        assertEquals(7, written.getInt("COMPLICATION_ID"));
+        assertEquals(42, written.getLong(WatchFaceUtil.KEY_CONFIG_VERSION));
+        assertEquals(1, written.getInt(WatchFaceUtil.KEY_BACKGROUND_COLOR));
+        assertEquals(4, written.getInt(WatchFaceUtil.KEY_SECONDS_COLOR));
+        // 다시 읽어서 써도 같은 키를 내보낸다
+        DataMap rewritten = WatchFaceConfig.fromDataMap(written).toDataMap();
+        assertEquals(written.keySet(), rewritten.keySet());
+        assertEquals("serif", rewritten.getString("FONT"));
+    }
+
+    @Test
+    public void toDataMapFillsDefaultsWithoutVersion() {
+        DataMap written = WatchFaceConfig.fromDataMap(new DataMap()).toDataMap();
+
+        assertFalse(written.containsKey(WatchFaceUtil.KEY_CONFIG_VERSION));
+        assertEquals(WatchFaceUtil.COLOR_VALUE_DEFAULT_AND_AMBIENT_HOUR_DIGITS,
+                written.getInt(WatchFaceUtil.KEY_HOURS_COLOR));
+        assertFalse(WatchFaceConfig.fromDataMap(written).hasMissingKeys());
+    }
+
+    @Test
+    public void schemaVersionIsRaisedButNeverLowered() {
+        DataMap older = colors(1, 2, 3, 4);
+        older.putInt(WatchFaceConfig.KEY_SCHEMA_VERSION, WatchFaceConfig.SCHEMA_VERSION - 1);
+        assertEquals(WatchFaceConfig.SCHEMA_VERSION,
+                WatchFaceConfig.fromDataMap(older).toDataMap().getInt(WatchFaceConfig.KEY_SCHEMA_VERSION));
+
+        DataMap none = colors(1, 2, 3, 4);
+        assertEquals(WatchFaceConfig.SCHEMA_VERSION,
+                WatchFaceConfig.fromDataMap(none).toDataMap().getInt(WatchFaceConfig.KEY_SCHEMA_VERSION));
+
+        DataMap newer = colors(1, 2, 3, 4);
+        newer.putInt(WatchFaceConfig.KEY_SCHEMA_VERSION, WatchFaceConfig.SCHEMA_VERSION + 1);
+        assertEquals(WatchFaceConfig.SCHEMA_VERSION + 1,
+                WatchFaceConfig.fromDataMap(newer).toDataMap().getInt(WatchFaceConfig.KEY_SCHEMA_VERSION));
+    }
+
+    @Test
+    public void newerSchemaIsReported() {
+        DataMap newer = new DataMap();
+        newer.putInt(WatchFaceConfig.KEY_SCHEMA_VERSION, WatchFaceConfig.SCHEMA_VERSION + 1);
+        WatchFaceConfig config = WatchFaceConfig.fromDataMap(newer);
+
+        // 키가 빠져 있지만 더 새로운 스키마이므로 기본 값을 다시 쓰지 않는다
+        assertTrue(config.hasMissingKeys());
+        assertTrue(config.isFromNewerSchema());
+
+        DataMap current = colors(1, 2, 3, 4);
+        current.putInt(WatchFaceConfig.KEY_SCHEMA_VERSION, WatchFaceConfig.SCHEMA_VERSION);
+        assertFalse(WatchFaceConfig.fromDataMap(current).isFromNewerSchema());
+    }
+
+    private static DataMap colors(int background, int hours, int minutes, int seconds) {
+        DataMap map = new DataMap();
+        map.putInt(WatchFaceUtil.KEY_BACKGROUND_COLOR, background);
+        map.putInt(WatchFaceUtil.KEY_HOURS_COLOR, hours);
+        map.putInt(WatchFaceUtil.KEY_MINUTES_COLOR, minutes);
+        map.putInt(WatchFaceUtil.KEY_SECONDS_COLOR, seconds);
+        return map;
+    }
+}
@@ -0,0 +1,239 @@
+package com.siddique.androidwear.today;
+
+import com.google.android.gms.wearable.DataMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 가짜 저장소로 {@link WatchFaceConfigWriter} 가 쓰기를 모아서 보내고 저장된 설정보다 높은 버전을 붙이는지 확인한다.
+ *
+ * JVM 테스트에서는 Handler 가 아무것도 하지 않으므로, 모으는 시간이 지난 것은 {@link WatchFaceConfigWriter#flush()} 를
+ * 직접 호출해서 대신한다.
+ */
+public class WatchFaceConfigWriterTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private FakeStore mStore;
+    private WatchFaceConfigWriter mWriter;
+
+    @Before
+    public void setUp() {
+        mStore = new FakeStore();
+        mWriter = new WatchFaceConfigWriter(mStore, DIRECT);
+    }
+
+    @Test
+    public void writesInWindowAreSentAsOnePut() {
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.write(change(WatchFaceUtil.KEY_HOURS_COLOR, 2));
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 3));
+        mWriter.flush();
+
+        assertEquals(1, mStore.mPuts.size());
+        DataMap sent = mStore.mPuts.get(0);
+        assertEquals(3, sent.getInt(WatchFaceUtil.KEY_BACKGROUND_COLOR));
+        assertEquals(2, sent.getInt(WatchFaceUtil.KEY_HOURS_COLOR));
+        assertEquals(1, mStore.mAcquireCount);
+        // 먼저 반영한 사본에는 매번 그때까지의 변경 사항이 모두 들어간다
+        assertEquals(3, mStore.mLocal.size());
+        assertEquals(3, mStore.mLocal.get(2).getInt(WatchFaceUtil.KEY_BACKGROUND_COLOR));
+
+        // 보낼 것이 없으면 다시 보내지 않는다
+        mWriter.flush();
+        assertEquals(1, mStore.mPuts.size());
+    }
+
+    @Test
+    public void storedKeysAreKeptAndChangesWin() {
+        mStore.mStored.putInt(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1);
+        mStore.mStored.putString("FONT", "serif");
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 5));
+        mWriter.flush();
+
+        DataMap sent = mStore.mPuts.get(0);
+        assertEquals(5, sent.getInt(WatchFaceUtil.KEY_BACKGROUND_COLOR));
+        assertEquals("serif", sent.getString("FONT"));
+    }
+
+    @Test
+    public void versionIsAboveStoredVersionWhenClockIsBehind() {
+        // 프로세스가 다시 시작되었고 시계가 하루 뒤로 가서, 저장된 버전이 현재 시각보다 높다
+        long storedVersion = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        mStore.mStored.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, storedVersion);
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 5));
+        mWriter.flush();
+
+        assertEquals(storedVersion + 1, sentVersion(0));
+    }
+
+    @Test
+    public void versionsIncreaseEvenWhenFetchesSeeSameStoredVersion() {
+        mStore.mStored.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, Long.MAX_VALUE / 2);
+        mStore.mCompletePuts = false;
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 2));
+        mWriter.flush();
+
+        // 첫 번째 쓰기가 끝나기 전에 두 번째 쓰기도 같은 저장된 설정을 읽었다
+        assertEquals(2, mStore.mPuts.size());
+        assertTrue(sentVersion(1) > sentVersion(0));
+        assertTrue(sentVersion(0) > Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void versionFollowsWallClockWhenStoredVersionIsOlder() {
+        long before = System.currentTimeMillis();
+        mStore.mStored.putLong(WatchFaceUtil.KEY_CONFIG_VERSION, 7);
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+
+        assertTrue(sentVersion(0) >= before);
+    }
+
+    @Test
+    public void connectionIsHeldUntilLastWriteFinishes() {
+        mStore.mCompletePuts = false;
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+        mWriter.write(change(WatchFaceUtil.KEY_HOURS_COLOR, 2));
+        mWriter.flush();
+
+        assertEquals(1, mStore.mAcquireCount);
+        mStore.mPutResults.get(0).set(null);
+        assertEquals(0, mStore.mReleaseCount);
+        mStore.mPutResults.get(1).set(null);
+        assertEquals(1, mStore.mReleaseCount);
+
+        // 다음 쓰기는 다시 연결을 받는다
+        mWriter.write(change(WatchFaceUtil.KEY_HOURS_COLOR, 3));
+        assertEquals(2, mStore.mAcquireCount);
+    }
+
+    @Test
+    public void failedLastWriteDiscardsLocalCopy() {
+        mStore.mCompletePuts = false;
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+        mStore.mPutResults.get(0).setException(new Exception("disconnected"));
+
+        assertEquals(1, mStore.mDiscardCount);
+        assertEquals(1, mStore.mReleaseCount);
+    }
+
+    @Test
+    public void failedWriteKeepsLocalCopyWhenNewerWriteIsPending() {
+        mStore.mCompletePuts = false;
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+        mWriter.write(change(WatchFaceUtil.KEY_HOURS_COLOR, 2));
+        mStore.mPutResults.get(0).setException(new Exception("disconnected"));
+
+        // 다음 쓰기가 사본에서 실패한 값까지 함께 읽어서 보낸다
+        assertEquals(0, mStore.mDiscardCount);
+        assertEquals(0, mStore.mReleaseCount);
+    }
+
+    @Test
+    public void failedFetchFinishesWrite() {
+        mStore.mFetchError = new Exception("disconnected");
+
+        mWriter.write(change(WatchFaceUtil.KEY_BACKGROUND_COLOR, 1));
+        mWriter.flush();
+
+        assertTrue(mStore.mPuts.isEmpty());
+        assertEquals(1, mStore.mDiscardCount);
+        assertEquals(1, mStore.mReleaseCount);
+    }
+
+    private long sentVersion(int index) {
+        return mStore.mPuts.get(index).getLong(WatchFaceUtil.KEY_CONFIG_VERSION);
+    }
+
+    private static DataMap change(String key, int value) {
+        DataMap changes = new DataMap();
+        changes.putInt(key, value);
+        return changes;
+    }
+
+    /**
+     * 저장된 설정 하나를 보관한다. 조회는 바로 끝나고, 쓰기는 {@link #mCompletePuts} 가 false 라면 테스트가 끝낸다.
+     * 쓰기가 끝나도 저장된 설정은 바꾸지 않으므로, 조회는 항상 처음 정해 둔 설정을 돌려준다.
+     */
+    private static final class FakeStore implements WatchFaceConfigWriter.Store {
+        final DataMap mStored = new DataMap();
+        final List<DataMap> mLocal = new ArrayList<DataMap>();
+        final List<DataMap> mPuts = new ArrayList<DataMap>();
+        final List<ResultFuture<Void>> mPutResults = new ArrayList<ResultFuture<Void>>();
+        boolean mCompletePuts = true;
+        Exception mFetchError;
+        int mAcquireCount;
+        int mReleaseCount;
+        int mDiscardCount;
+
+        @Override
+        public void acquire() {
+            mAcquireCount++;
+        }
+
+        @Override
+        public void release() {
+            mReleaseCount++;
+        }
+
+        @Override
+        public void applyLocally(DataMap changes) {
+            DataMap copy = new DataMap();
+            copy.putAll(changes);
+            mLocal.add(copy);
+        }
+
+        @Override
+        public void discardLocal() {
+            mDiscardCount++;
+        }
+
+        @Override
+        public ResultFuture<DataMap> fetch() {
+            if (mFetchError != null) {
+                return ResultFuture.failed(mFetchError);
+            }
+            DataMap copy = new DataMap();
+            copy.putAll(mStored);
+            return ResultFuture.immediate(copy);
+        }
+
+        @Override
+        public ResultFuture<Void> put(DataMap config) {
+            mPuts.add(config);
+            ResultFuture<Void> result = ResultFuture.create();
+            mPutResults.add(result);
+            if (mCompletePuts) {
+                result.set(null);
+            }
+            return result;
+        }
+    }
+}
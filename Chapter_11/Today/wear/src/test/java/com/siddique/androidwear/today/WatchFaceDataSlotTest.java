@@ -0,0 +1,215 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link WatchFaceDataSlot} 가 갱신 주기, 무효화, 실패 후 재시도, 진행 중인 불러오기를 지키는지, 그리고
+ * {@link WatchFaceDataSlot.CachedSource} 가 무효화 전까지 원본을 다시 읽지 않는지 확인한다. 불러오기는 테스트가 끝낸다.
+ */
+public class WatchFaceDataSlotTest {
+
+    private static final long INTERACTIVE_MS = 60 * 1000;
+    private static final long AMBIENT_MS = 10 * 60 * 1000;
+    private static final long T0 = 1000000;
+
+    private FakeSource mSource;
+    private WatchFaceDataSlot mSlot;
+    private final List<WatchFaceDataSlot> mChanges = new ArrayList<WatchFaceDataSlot>();
+
+    private final WatchFaceDataSlot.Listener mListener = new WatchFaceDataSlot.Listener() {
+        @Override
+        public void onValueChanged(WatchFaceDataSlot slot) {
+            mChanges.add(slot);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mSource = new FakeSource();
+        mSlot = new WatchFaceDataSlot("title", mSource, INTERACTIVE_MS, AMBIENT_MS);
+    }
+
+    @Test
+    public void firstRefreshLoadsAndNotifies() {
+        assertNull(mSlot.getValue());
+        assertTrue(mSlot.refreshIfDue(T0, false, mListener));
+        mSource.finish("3,000");
+
+        assertEquals("3,000", mSlot.getValue());
+        assertEquals(1, mChanges.size());
+        assertSame(mSlot, mChanges.get(0));
+    }
+
+    @Test
+    public void refreshWaitsForInterval() {
+        load(T0, "a");
+
+        assertFalse(mSlot.refreshIfDue(T0 + INTERACTIVE_MS - 1, false, mListener));
+        assertTrue(mSlot.refreshIfDue(T0 + INTERACTIVE_MS, false, mListener));
+        assertEquals(2, mSource.mLoads.size());
+    }
+
+    @Test
+    public void ambientUsesLongerInterval() {
+        load(T0, "a");
+
+        assertFalse(mSlot.refreshIfDue(T0 + INTERACTIVE_MS, true, mListener));
+        assertFalse(mSlot.refreshIfDue(T0 + AMBIENT_MS - 1, true, mListener));
+        assertTrue(mSlot.refreshIfDue(T0 + AMBIENT_MS, true, mListener));
+    }
+
+    @Test
+    public void clockMovedBackRefreshes() {
+        load(T0, "a");
+
+        assertTrue(mSlot.refreshIfDue(T0 - 1, false, mListener));
+    }
+
+    @Test
+    public void invalidateRefreshesBeforeInterval() {
+        load(T0, "a");
+
+        mSlot.invalidate();
+        assertTrue(mSlot.refreshIfDue(T0 + 1, false, mListener));
+        mSource.finish("b");
+        assertEquals("b", mSlot.getValue());
+
+        // 무효화는 한 번만 적용된다
+        assertFalse(mSlot.refreshIfDue(T0 + 2, false, mListener));
+    }
+
+    @Test
+    public void loadInFlightIsNotRestarted() {
+        assertTrue(mSlot.refreshIfDue(T0, false, mListener));
+        mSlot.invalidate();
+
+        assertFalse(mSlot.refreshIfDue(T0 + INTERACTIVE_MS, false, mListener));
+        assertEquals(1, mSource.mLoads.size());
+
+        // 진행 중에 받은 무효화는 끝난 후에 적용된다
+        mSource.finish("a");
+        assertTrue(mSlot.refreshIfDue(T0 + INTERACTIVE_MS + 1, false, mListener));
+    }
+
+    @Test
+    public void failureKeepsValueAndRetriesSooner() {
+        load(T0, "a");
+        assertTrue(mSlot.refreshIfDue(T0 + AMBIENT_MS, true, mListener));
+        mSource.fail();
+
+        assertEquals("a", mSlot.getValue());
+        assertEquals(1, mChanges.size());
+
+        long failedAt = T0 + AMBIENT_MS;
+        assertFalse(mSlot.refreshIfDue(failedAt + WatchFaceDataSlot.RETRY_INTERVAL_MS - 1, true,
+                mListener));
+        assertTrue(mSlot.refreshIfDue(failedAt + WatchFaceDataSlot.RETRY_INTERVAL_MS, true,
+                mListener));
+
+        // 성공하면 원래 주기로 돌아간다
+        mSource.finish("a");
+        long loadedAt = failedAt + WatchFaceDataSlot.RETRY_INTERVAL_MS;
+        assertFalse(mSlot.refreshIfDue(loadedAt + WatchFaceDataSlot.RETRY_INTERVAL_MS, true,
+                mListener));
+    }
+
+    @Test
+    public void retryNeverWaitsLongerThanInterval() {
+        WatchFaceDataSlot fast = new WatchFaceDataSlot("fast", mSource, 1000, 1000);
+        assertTrue(fast.refreshIfDue(T0, false, mListener));
+        mSource.fail();
+
+        assertTrue(fast.refreshIfDue(T0 + 1000, false, mListener));
+    }
+
+    @Test
+    public void unchangedValueDoesNotNotify() {
+        load(T0, "a");
+        load(T0 + INTERACTIVE_MS, "a");
+        assertEquals(1, mChanges.size());
+
+        load(T0 + 2 * INTERACTIVE_MS, null);
+        assertNull(mSlot.getValue());
+        assertEquals(2, mChanges.size());
+    }
+
+    @Test
+    public void cachedSourceReadsOnceUntilInvalidated() {
+        WatchFaceDataSlot.CachedSource cached = new WatchFaceDataSlot.CachedSource(mSource);
+
+        ResultFuture<String> first = cached.load();
+        // 진행 중인 읽기를 함께 사용한다
+        assertSame(first, cached.load());
+        mSource.finish("a");
+        assertSame(first, cached.load());
+        assertEquals(1, mSource.mLoads.size());
+
+        cached.invalidate();
+        cached.load();
+        assertEquals(2, mSource.mLoads.size());
+    }
+
+    @Test
+    public void cachedSourceDoesNotKeepFailure() {
+        WatchFaceDataSlot.CachedSource cached = new WatchFaceDataSlot.CachedSource(mSource);
+
+        cached.load();
+        mSource.fail();
+        cached.load();
+
+        assertEquals(2, mSource.mLoads.size());
+    }
+
+    @Test
+    public void slotOverCachedSourceDoesNotReloadOnInterval() {
+        WatchFaceDataSlot.CachedSource cached = new WatchFaceDataSlot.CachedSource(mSource);
+        WatchFaceDataSlot slot = new WatchFaceDataSlot("cached", cached, INTERACTIVE_MS, AMBIENT_MS);
+
+        assertTrue(slot.refreshIfDue(T0, false, mListener));
+        mSource.finish("a");
+        assertTrue(slot.refreshIfDue(T0 + INTERACTIVE_MS, false, mListener));
+        assertEquals(1, mSource.mLoads.size());
+
+        cached.invalidate();
+        slot.invalidate();
+        assertTrue(slot.refreshIfDue(T0 + INTERACTIVE_MS + 1, false, mListener));
+        assertEquals(2, mSource.mLoads.size());
+    }
+
+    private void load(long nowMs, String value) {
+        assertTrue(mSlot.refreshIfDue(nowMs, false, mListener));
+        mSource.finish(value);
+    }
+
+    /**
+     * 불러오기마다 결과를 만들고, 테스트가 마지막 결과를 끝낸다.
+     */
+    private static final class FakeSource implements WatchFaceDataSlot.Source {
+        final List<ResultFuture<String>> mLoads = new ArrayList<ResultFuture<String>>();
+
+        @Override
+        public ResultFuture<String> load() {
+            ResultFuture<String> load = ResultFuture.create();
+            mLoads.add(load);
+            return load;
+        }
+
+        void finish(String value) {
+            mLoads.get(mLoads.size() - 1).set(value);
+        }
+
+        void fail() {
+            mLoads.get(mLoads.size() - 1).setException(new Exception("disconnected"));
+        }
+    }
+}
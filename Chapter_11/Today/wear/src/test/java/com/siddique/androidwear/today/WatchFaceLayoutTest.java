@@ -0,0 +1,59 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 번인 방지를 위해 {@link WatchFaceLayout} 의 배치를 옮기는 위치를 확인한다.
+ */
+public class WatchFaceLayoutTest {
+
+    private static final float SHIFT_PX = 4;
+
+    @Test
+    public void burnInShiftVisitsEveryPositionOnceWithinLimit() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        Set<String> positions = new HashSet<String>();
+        for (int step = 0; step < WatchFaceLayout.BURN_IN_SHIFT_POSITIONS; step++) {
+            layout.setBurnInShift(step, SHIFT_PX);
+            assertTrue(Math.abs(layout.mShiftX) <= SHIFT_PX);
+            assertTrue(Math.abs(layout.mShiftY) <= SHIFT_PX);
+            positions.add(layout.mShiftX + "," + layout.mShiftY);
+        }
+
+        assertEquals(WatchFaceLayout.BURN_IN_SHIFT_POSITIONS, positions.size());
+        // 가운데도 포함한다
+        assertTrue(positions.contains("0.0,0.0"));
+    }
+
+    @Test
+    public void burnInShiftRepeatsAfterAllPositions() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        for (int step = 0; step < WatchFaceLayout.BURN_IN_SHIFT_POSITIONS; step++) {
+            layout.setBurnInShift(step, SHIFT_PX);
+            float x = layout.mShiftX;
+            float y = layout.mShiftY;
+
+            layout.setBurnInShift(step + WatchFaceLayout.BURN_IN_SHIFT_POSITIONS, SHIFT_PX);
+
+            assertEquals(x, layout.mShiftX, 0);
+            assertEquals(y, layout.mShiftY, 0);
+        }
+    }
+
+    @Test
+    public void clearBurnInShiftRestoresOrigin() {
+        WatchFaceLayout layout = new WatchFaceLayout();
+        layout.setBurnInShift(0, SHIFT_PX);
+
+        layout.clearBurnInShift();
+
+        assertEquals(0, layout.mShiftX, 0);
+        assertEquals(0, layout.mShiftY, 0);
+    }
+}
@@ -0,0 +1,270 @@
+package com.siddique.androidwear.today;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link WatchFaceModel} 이 그린 프레임을 {@link RecordingWatchFaceRenderer} 로 기록해서 미리 정해 둔 프레임과 비교한다.
+ *
+ * 글자 폭은 10, 콜론 폭은 8 로 고정하므로 위치도 손으로 계산한 값과 같아야 한다. 시각은 2017-03-14 (화요일, 올해의 73번째 날)
+ * 09:26:53 UTC 를 기준으로 한다.
+ */
+public class WatchFaceModelTest {
+
+    /** 2017-03-14 09:26:53.000 UTC. 콜론을 그리는 앞 0.5초 */
+    private static final long MORNING_MS = 1489483613000L;
+
+    /** 같은 초의 뒤 0.5초. 점멸하는 콜론을 그리지 않는다. */
+    private static final long MORNING_COLONS_OFF_MS = MORNING_MS + 500;
+
+    /** 2017-03-14 13:26:53 UTC */
+    private static final long AFTERNOON_MS = MORNING_MS + 4 * 60 * 60 * 1000;
+
+    /** 2017-03-14 00:05:00 UTC */
+    private static final long JUST_AFTER_MIDNIGHT_MS = 1489449900000L;
+
+    private WatchFaceLayout mLayout;
+    private WatchFaceModel mModel;
+    private RecordingWatchFaceRenderer mRenderer;
+
+    @Before
+    public void setUp() {
+        mLayout = new WatchFaceLayout();
+        mLayout.mXOffset = 15;
+        mLayout.mYOffset = 90;
+        mLayout.mLineHeight = 25;
+        mLayout.mColonWidth = 8;
+        mLayout.mAmString = "AM";
+        mLayout.mPmString = "PM";
+
+        mModel = new WatchFaceModel(mLayout, Locale.US, TimeZone.getTimeZone("UTC"),
+                DateFormat.getDateInstance(DateFormat.SHORT, Locale.US));
+        mRenderer = new RecordingWatchFaceRenderer(10);
+    }
+
+    @Test
+    public void interactiveFrameBlinksColons() {
+        assertFrame(draw(MORNING_MS, false, false, true),
+                "background",
+                "text 0 15.0 90.0 \"9\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 3 53.0 90.0 \":\"",
+                "text 2 61.0 90.0 \"53\"",
+                "text 5 15.0 115.0 \"Tuesday\"",
+                "text 5 15.0 140.0 \"3/14/17\"");
+
+        // 콜론이 빠져도 분과 초의 위치는 그대로다
+        assertFrame(draw(MORNING_COLONS_OFF_MS, false, false, true),
+                "background",
+                "text 0 15.0 90.0 \"9\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 2 61.0 90.0 \"53\"",
+                "text 5 15.0 115.0 \"Tuesday\"",
+                "text 5 15.0 140.0 \"3/14/17\"");
+    }
+
+    @Test
+    public void twelveAndTwentyFourHourFormats() {
+        assertFrame(draw(AFTERNOON_MS, true, false, false),
+                "background",
+                "text 0 15.0 90.0 \"13\"",
+                "text 3 35.0 90.0 \":\"",
+                "text 1 43.0 90.0 \"26\"",
+                "text 3 63.0 90.0 \":\"",
+                "text 2 71.0 90.0 \"53\"");
+
+        assertFrame(draw(AFTERNOON_MS, false, false, false),
+                "background",
+                "text 0 15.0 90.0 \"1\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 3 53.0 90.0 \":\"",
+                "text 2 61.0 90.0 \"53\"");
+
+        // 12시간 형식에서 0시는 12시로 표시한다
+        assertFrame(draw(JUST_AFTER_MIDNIGHT_MS, false, false, false),
+                "background",
+                "text 0 15.0 90.0 \"12\"",
+                "text 3 35.0 90.0 \":\"",
+                "text 1 43.0 90.0 \"05\"",
+                "text 3 63.0 90.0 \":\"",
+                "text 2 71.0 90.0 \"00\"");
+
+        assertFrame(draw(JUST_AFTER_MIDNIGHT_MS, true, false, false),
+                "background",
+                "text 0 15.0 90.0 \"00\"",
+                "text 3 35.0 90.0 \":\"",
+                "text 1 43.0 90.0 \"05\"",
+                "text 3 63.0 90.0 \":\"",
+                "text 2 71.0 90.0 \"00\"");
+    }
+
+    @Test
+    public void tapCyclesThroughDateStatesAndDataSlots() {
+        WatchFaceDataSlot steps = new WatchFaceDataSlot("Steps", immediateSource("4,210"), 1000, 1000);
+        WatchFaceDataSlot nextTodo = new WatchFaceDataSlot("Next todo", immediateSource(null), 1000, 1000);
+        steps.refreshIfDue(MORNING_MS, false, NO_OP_LISTENER);
+        mModel.setDataSlots(Arrays.asList(steps, nextTodo));
+
+        String[] expectedDateLines = {
+                "text 5 15.0 115.0 \"Tuesday\"", "text 5 15.0 140.0 \"3/14/17\"",
+                "text 5 15.0 115.0 \"Day of year\"", "text 5 15.0 140.0 \"73\"",
+                "text 5 15.0 115.0 \"Days left in year\"", "text 5 15.0 140.0 \"292\"",
+                "text 5 15.0 115.0 \"Steps\"", "text 5 15.0 140.0 \"4,210\"",
+                // 아직 불러오지 않은 슬롯
+                "text 5 15.0 115.0 \"Next todo\"", "text 5 15.0 140.0 \"--\"",
+                // 한 바퀴 돌아서 처음으로
+                "text 5 15.0 115.0 \"Tuesday\"", "text 5 15.0 140.0 \"3/14/17\"",
+        };
+        for (int tap = 0; tap < expectedDateLines.length / 2; tap++) {
+            assertFrame(draw(MORNING_MS, false, false, true),
+                    "background",
+                    "text 0 15.0 90.0 \"9\"",
+                    "text 3 25.0 90.0 \":\"",
+                    "text 1 33.0 90.0 \"26\"",
+                    "text 3 53.0 90.0 \":\"",
+                    "text 2 61.0 90.0 \"53\"",
+                    expectedDateLines[tap * 2],
+                    expectedDateLines[tap * 2 + 1]);
+            mModel.onTap();
+        }
+    }
+
+    @Test
+    public void tapsBeforeDeferredDataSlotsCycleDateStatesOnly() {
+        // 컨트롤러는 첫 프레임을 그린 후에야 데이터 슬롯을 붙이므로, 그 전의 탭은 날짜 표시 상태만 돈다
+        for (int i = 0; i < WatchFaceModel.DATE_TAP_STATE_COUNT; i++) {
+            mModel.onTap();
+        }
+        assertEquals(0, mModel.getTapCount());
+
+        mModel.onTap();
+        mModel.onTap();
+        mModel.setDataSlots(Arrays.asList(
+                new WatchFaceDataSlot("Steps", immediateSource("1"), 1000, 1000)));
+        mModel.onTap();
+
+        // 붙인 직후에는 값을 불러오기 전이다
+        assertFrame(draw(MORNING_MS, false, false, true),
+                "background",
+                "text 0 15.0 90.0 \"9\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 3 53.0 90.0 \":\"",
+                "text 2 61.0 90.0 \"53\"",
+                "text 5 15.0 115.0 \"Steps\"",
+                "text 5 15.0 140.0 \"--\"");
+    }
+
+    @Test
+    public void removingDataSlotsKeepsTapStateInRange() {
+        mModel.setDataSlots(Arrays.asList(
+                new WatchFaceDataSlot("Steps", immediateSource("1"), 1000, 1000)));
+        for (int i = 0; i < WatchFaceModel.DATE_TAP_STATE_COUNT; i++) {
+            mModel.onTap();
+        }
+        assertEquals(WatchFaceModel.DATE_TAP_STATE_COUNT, mModel.getTapCount());
+
+        mModel.setDataSlots(Collections.<WatchFaceDataSlot>emptyList());
+
+        assertEquals(0, mModel.getTapCount());
+    }
+
+    @Test
+    public void peekCardHidesDateArea() {
+        mModel.onTap();
+
+        assertFrame(draw(MORNING_MS, false, false, false),
+                "background",
+                "text 0 15.0 90.0 \"9\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 3 53.0 90.0 \":\"",
+                "text 2 61.0 90.0 \"53\"");
+    }
+
+    @Test
+    public void muteShowsSteadyColonAndAmPm() {
+        assertEquals(true, mModel.setMute(true));
+        assertEquals(false, mModel.setMute(true));
+
+        // 점멸하지 않는 뒤 0.5초에도 첫 번째 콜론을 그리고, 초 대신 AM/PM 을 그린다
+        assertFrame(draw(MORNING_COLONS_OFF_MS, false, false, true),
+                "background",
+                "text 0 15.0 90.0 \"9\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 4 61.0 90.0 \"AM\"",
+                "text 5 15.0 115.0 \"Tuesday\"",
+                "text 5 15.0 140.0 \"3/14/17\"");
+
+        // 24시간 형식에는 AM/PM 이 없다
+        assertFrame(draw(AFTERNOON_MS, true, false, true),
+                "background",
+                "text 0 15.0 90.0 \"13\"",
+                "text 3 35.0 90.0 \":\"",
+                "text 1 43.0 90.0 \"26\"",
+                "text 5 15.0 115.0 \"Tuesday\"",
+                "text 5 15.0 140.0 \"3/14/17\"");
+    }
+
+    @Test
+    public void ambientFrameHasNoSecondsAndFollowsBurnInShift() {
+        assertFrame(draw(AFTERNOON_MS, false, true, true),
+                "background",
+                "text 0 15.0 90.0 \"1\"",
+                "text 3 25.0 90.0 \":\"",
+                "text 1 33.0 90.0 \"26\"",
+                "text 4 61.0 90.0 \"PM\"",
+                "text 5 15.0 115.0 \"Tuesday\"",
+                "text 5 15.0 140.0 \"3/14/17\"");
+
+        // 오른쪽 위 위치
+        mLayout.setBurnInShift(2, 4);
+
+        assertFrame(draw(AFTERNOON_MS, false, true, false),
+                "background",
+                "text 0 19.0 86.0 \"1\"",
+                "text 3 29.0 86.0 \":\"",
+                "text 1 37.0 86.0 \"26\"",
+                "text 4 65.0 86.0 \"PM\"");
+    }
+
+    private static final WatchFaceDataSlot.Listener NO_OP_LISTENER = new WatchFaceDataSlot.Listener() {
+        @Override
+        public void onValueChanged(WatchFaceDataSlot slot) {
+        }
+    };
+
+    private static WatchFaceDataSlot.Source immediateSource(final String value) {
+        return new WatchFaceDataSlot.Source() {
+            @Override
+            public ResultFuture<String> load() {
+                return ResultFuture.immediate(value);
+            }
+        };
+    }
+
+    private String draw(long nowMs, boolean is24Hour, boolean ambient, boolean peekCardEmpty) {
+        mRenderer.clear();
+        mModel.drawFrame(mRenderer, nowMs, is24Hour, ambient, peekCardEmpty);
+        return mRenderer.toString();
+    }
+
+    private static void assertFrame(String actual, String... expectedLines) {
+        StringBuilder expected = new StringBuilder();
+        for (String line : expectedLines) {
+            expected.append(line).append('\n');
+        }
+        assertEquals(expected.toString(), actual);
+    }
+}
@@ -0,0 +1,78 @@
+package com.siddique.androidwear.today;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 그리기 호출을 문자열로 기록하는 렌더러. 기기 없이 {@link WatchFaceModel} 이 만든 프레임을 비교하거나 측정할 때 사용한다.
+ *
+ * 글꼴이 없으므로 텍스트 폭은 글자 수와 텍스트 종류 별 글자 폭의 곱으로 계산한다. 따라서 같은 입력이면 항상 같은 기록이 남는다.
+ * 기록은 "text style x y \"문자열\"" 형식의 한 줄씩이며, 배경은 "background" 한 줄이다.
+ */
+final class RecordingWatchFaceRenderer implements WatchFaceRenderer {
+
+    /** 텍스트 종류 별 글자 폭 */
+    private final float[] mCharWidths = new float[STYLE_COUNT];
+
+    private final List<String> mOperations = new ArrayList<String>();
+
+    /** false 라면 폭 계산만 하고 기록하지 않는다 */
+    private boolean mRecording = true;
+
+    /**
+     * @param charWidth 모든 텍스트 종류의 글자 폭
+     */
+    RecordingWatchFaceRenderer(float charWidth) {
+        for (int i = 0; i < STYLE_COUNT; i++) {
+            mCharWidths[i] = charWidth;
+        }
+    }
+
+    void setCharWidth(int style, float charWidth) {
+        mCharWidths[style] = charWidth;
+    }
+
+    void setRecording(boolean recording) {
+        mRecording = recording;
+    }
+
+    List<String> getOperations() {
+        return mOperations;
+    }
+
+    void clear() {
+        mOperations.clear();
+    }
+
+    @Override
+    public void drawBackground() {
+        if (mRecording) {
+            mOperations.add("background");
+        }
+    }
+
+    @Override
+    public float measureText(String text, int style) {
+        return text.length() * mCharWidths[style];
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, int style) {
+        if (mRecording) {
+            mOperations.add(String.format(Locale.US, "text %d %.1f %.1f \"%s\"", style, x, y, text));
+        }
+    }
+
+    /**
+     * @return 기록된 프레임. 한 줄에 호출 하나
+     */
+    @Override
+    public String toString() {
+        StringBuilder frame = new StringBuilder();
+        for (String operation : mOperations) {
+            frame.append(operation).append('\n');
+        }
+        return frame.toString();
+    }
+}